@@ -0,0 +1,46 @@
+package com.pomelo.app.springboot.app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Pool acotado para los métodos @Async (preparación de emails, etc.).
+ * Si la cola se llena, la tarea se ejecuta en el hilo que la lanza en lugar de perderse.
+ * Se declara como ejecutor de @Async de forma explícita, sin depender de qué otros Executor haya en el contexto.
+ */
+@Configuration
+public class AsyncConfig implements AsyncConfigurer {
+
+    @Value("${app.async.hilos:4}")
+    private int hilos;
+
+    @Value("${app.async.max-hilos:8}")
+    private int maxHilos;
+
+    @Value("${app.async.capacidad-cola:500}")
+    private int capacidadCola;
+
+    @Bean(name = "taskExecutor")
+    public ThreadPoolTaskExecutor taskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(maxHilos);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setThreadNamePrefix("async-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return taskExecutor();
+    }
+}
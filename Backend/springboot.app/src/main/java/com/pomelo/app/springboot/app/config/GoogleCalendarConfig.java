@@ -0,0 +1,41 @@
+package com.pomelo.app.springboot.app.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cliente HTTP compartido para las llamadas a Google (Calendar y OAuth).
+ * Reutiliza conexiones (HTTP/2 cuando el servidor lo admite) en lugar de abrir un cliente por petición.
+ */
+@Configuration
+public class GoogleCalendarConfig {
+
+    @Value("${google.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${google.http.hilos:4}")
+    private int hilos;
+
+    // Solo para el HttpClient de Google: fuera de la inyección por tipo para que @Async y la autoconfiguración
+    // de Spring Boot no lo tomen como ejecutor general
+    @Bean(destroyMethod = "shutdown", defaultCandidate = false)
+    public ExecutorService googleHttpExecutor() {
+        return Executors.newFixedThreadPool(hilos);
+    }
+
+    @Bean
+    public HttpClient googleHttpClient(@Qualifier("googleHttpExecutor") ExecutorService googleHttpExecutor) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(googleHttpExecutor)
+                .build();
+    }
+}
@@ -53,18 +53,24 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.POST, "/api/citas").authenticated()
                 .requestMatchers(HttpMethod.GET, "/api/citas/mis-citas").authenticated()
                 .requestMatchers(HttpMethod.GET, "/api/citas/todas").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/citas/admin").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.DELETE, "/api/citas/**").authenticated()
                 .requestMatchers(HttpMethod.GET, "/api/usuarios").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.GET, "/api/configuracion/tiempo-minimo").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/configuracion/tiempo-minimo").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/configuracion/horario").permitAll()
+                .requestMatchers(HttpMethod.PUT, "/api/configuracion/horario").hasRole("ADMIN")
                 .requestMatchers("/api/vacaciones").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/vacaciones").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.DELETE, "/api/vacaciones/**").hasRole("ADMIN")
                 .requestMatchers("/api/vacaciones/verificar/**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/vacaciones/dias-bloqueados").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/vacaciones/cancelaciones/**").hasRole("ADMIN")
                 .requestMatchers("/api/resenas/publicas").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/resenas/todas").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.DELETE, "/api/resenas/**").hasRole("ADMIN")
                 .requestMatchers("/api/portfolio/fotos").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/portfolio/imagenes/**").permitAll()
                 .requestMatchers("/api/portfolio/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
@@ -4,15 +4,17 @@ import com.pomelo.app.springboot.app.entity.Cita;
 import com.pomelo.app.springboot.app.entity.Usuario;
 import com.pomelo.app.springboot.app.entity.Servicio;
 import com.pomelo.app.springboot.app.dto.CitaRequest;
+import com.pomelo.app.springboot.app.dto.InformeCitasFijas;
 import com.pomelo.app.springboot.app.service.CitaService;
 import com.pomelo.app.springboot.app.service.UsuarioService;
 import com.pomelo.app.springboot.app.service.ServicioService;
 import com.pomelo.app.springboot.app.service.ConfiguracionService;
 import com.pomelo.app.springboot.app.service.VacacionesService;
 import com.pomelo.app.springboot.app.service.EmailService;
-import com.pomelo.app.springboot.app.repository.ResenaRepository;
+import com.pomelo.app.springboot.app.service.HistorialCitasService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -41,16 +43,16 @@ public class CitaController {
     private final ConfiguracionService configuracionService;
     private final VacacionesService vacacionesService;
     private final EmailService emailService;
-    private final ResenaRepository resenaRepository;
+    private final HistorialCitasService historialCitasService;
 
-    public CitaController(CitaService citaService, UsuarioService usuarioService, ServicioService servicioService, ConfiguracionService configuracionService, VacacionesService vacacionesService, EmailService emailService, ResenaRepository resenaRepository) {
+    public CitaController(CitaService citaService, UsuarioService usuarioService, ServicioService servicioService, ConfiguracionService configuracionService, VacacionesService vacacionesService, EmailService emailService, HistorialCitasService historialCitasService) {
         this.citaService = citaService;
         this.usuarioService = usuarioService;
         this.servicioService = servicioService;
         this.configuracionService = configuracionService;
         this.vacacionesService = vacacionesService;
         this.emailService = emailService;
-        this.resenaRepository = resenaRepository;
+        this.historialCitasService = historialCitasService;
     }
 
     @PostMapping
@@ -116,8 +118,12 @@ public class CitaController {
     }
 
     @GetMapping("/mis-citas")
-    @Operation(summary = "Mis citas", description = "Lista las citas del usuario autenticado")
-    public ResponseEntity<?> listarCitasUsuario(@AuthenticationPrincipal UserDetails user) {
+    @Operation(summary = "Mis citas", description = "Lista por páginas las citas del usuario autenticado, de la más reciente a la más antigua")
+    public ResponseEntity<?> listarCitasUsuario(
+            @AuthenticationPrincipal UserDetails user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesFecha,
+            @RequestParam(required = false) Long antesId,
+            @RequestParam(defaultValue = "50") int limite) {
         try {
             // Buscar usuario por email para obtener el ID
             Usuario usuario = usuarioService.findByEmail(user.getUsername());
@@ -130,49 +136,7 @@ public class CitaController {
                 throw new RuntimeException("Tu cuenta ha sido suspendida. No puedes acceder a tus citas.");
             }
             
-            List<Cita> citas = citaService.listarCitasPorUsuario(usuario.getId());
-            List<Map<String, Object>> citasConEstado = new ArrayList<>();
-            
-            // Debug: imprimir información de las citas
-            System.out.println("Total de citas encontradas: " + citas.size());
-            for (Cita cita : citas) {
-                System.out.println("Cita ID: " + cita.getId() + 
-                                ", Estado: " + cita.getEstado() + 
-                                ", Fecha: " + cita.getFechaHora() + 
-                                ", Es pasada: " + (cita.getFechaHora() != null && cita.getFechaHora().isBefore(java.time.LocalDateTime.now())));
-            }
-            
-            for (Cita cita : citas) {
-                Map<String, Object> citaMap = new java.util.HashMap<>();
-                citaMap.put("id", cita.getId());
-                citaMap.put("servicio", Map.of(
-                    "nombre", cita.getServicio().getNombre(),
-                    "emoji", cita.getServicio().getEmoji()
-                ));
-                citaMap.put("fechaHora", cita.getFechaHora());
-                citaMap.put("comentario", cita.getComentario());
-                
-                String estado = cita.getEstado();
-                // Si la cita está pendiente y ya pasó la fecha, marcarla como completada
-                if ("pendiente".equals(estado) && cita.getFechaHora() != null && 
-                    cita.getFechaHora().isBefore(java.time.LocalDateTime.now())) {
-                    estado = "completada";
-                }
-                // Si la cita está confirmada y ya pasó la fecha, marcarla como completada
-                if ("confirmada".equals(estado) && cita.getFechaHora() != null && 
-                    cita.getFechaHora().isBefore(java.time.LocalDateTime.now())) {
-                    estado = "completada";
-                }
-                citaMap.put("estado", estado);
-                
-                // Verificar si la cita tiene reseña
-                boolean tieneResena = resenaRepository.existsByCitaId(cita.getId());
-                citaMap.put("reseñada", tieneResena);
-                
-                citasConEstado.add(citaMap);
-            }
-            
-            return ResponseEntity.ok(citasConEstado);
+            return ResponseEntity.ok(historialCitasService.listar(usuario.getId(), antesFecha, antesId, limite));
         } catch (Exception e) {
             Map<String, String> errorResponse = new java.util.HashMap<>();
             errorResponse.put("error", "Error al obtener las citas");
@@ -218,17 +182,22 @@ public class CitaController {
 
             java.time.LocalDateTime nuevaFechaHora = java.time.LocalDateTime.parse(fechaHoraStr);
 
-            Cita cita = citaService.listarTodasLasCitas().stream()
-                    .filter(c -> c.getId().equals(id))
-                    .findFirst()
-                    .orElse(null);
+            Cita cita = citaService.buscarCitaActiva(id);
             if (cita == null) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Cita no encontrada"));
             }
 
+            LocalDate fechaAnterior = cita.getFechaHora().toLocalDate();
+            if (!nuevaFechaHora.equals(cita.getFechaHora())) {
+                // El recordatorio se vuelve a enviar para la nueva hora
+                cita.setRecordatorioCitaEnviado(false);
+                cita.setFechaRecordatorioCita(null);
+                cita.setRecordatorioLote(null);
+            }
             cita.setFechaHora(nuevaFechaHora);
             // Persistir
             com.pomelo.app.springboot.app.entity.Cita guardada = citaService.crearCita(cita, "ADMIN");
+            citaService.invalidarOcupacion(fechaAnterior);
             return ResponseEntity.ok(Map.of("message", "Cita reprogramada", "cita", guardada));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Error al reprogramar cita: " + e.getMessage()));
@@ -241,39 +210,7 @@ public class CitaController {
     @Operation(summary = "Todas las citas", description = "Lista todas las citas (solo para administradores)")
     public ResponseEntity<?> listarTodas() {
         try {
-            List<Cita> citas = citaService.listarTodasLasCitas();
-            List<Map<String, Object>> citasFormateadas = new ArrayList<>();
-            
-            for (Cita cita : citas) {
-                Map<String, Object> citaMap = new java.util.HashMap<>();
-                citaMap.put("id", cita.getId());
-                citaMap.put("fechaHora", cita.getFechaHora());
-                citaMap.put("comentario", cita.getComentario());
-                citaMap.put("fija", cita.isFija());
-                citaMap.put("periodicidadDias", cita.getPeriodicidadDias());
-                citaMap.put("estado", cita.getEstado());
-                
-                // Servicio
-                Map<String, Object> servicioMap = new java.util.HashMap<>();
-                servicioMap.put("id", cita.getServicio().getId());
-                servicioMap.put("nombre", cita.getServicio().getNombre());
-                servicioMap.put("descripcion", cita.getServicio().getDescripcion());
-                servicioMap.put("precio", cita.getServicio().getPrecio());
-                servicioMap.put("duracionMinutos", cita.getServicio().getDuracionMinutos());
-                citaMap.put("servicio", servicioMap);
-                
-                // Usuario (cliente)
-                Map<String, Object> usuarioMap = new java.util.HashMap<>();
-                usuarioMap.put("id", cita.getCliente().getId());
-                usuarioMap.put("nombre", cita.getCliente().getNombre());
-                usuarioMap.put("email", cita.getCliente().getEmail());
-                usuarioMap.put("telefono", cita.getCliente().getTelefono());
-                citaMap.put("usuario", usuarioMap);
-                
-                citasFormateadas.add(citaMap);
-            }
-            
-            return ResponseEntity.ok(citasFormateadas);
+            return ResponseEntity.ok(citaService.listarTodasLasCitas());
         } catch (Exception e) {
             Map<String, String> errorResponse = new java.util.HashMap<>();
             errorResponse.put("error", "Error al listar todas las citas");
@@ -282,6 +219,26 @@ public class CitaController {
         }
     }
 
+    /**
+     * Citas de un rango de fechas por páginas. Para la siguiente página se repiten desde y hasta
+     * y se añaden despuesFecha y despuesId de la respuesta anterior.
+     */
+    @GetMapping("/admin")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Citas por rango de fechas", description = "Lista paginada de las citas no canceladas entre dos fechas (solo para administradores)")
+    public ResponseEntity<?> listarCitasAdmin(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime despuesFecha,
+            @RequestParam(required = false) Long despuesId,
+            @RequestParam(defaultValue = "100") int limite) {
+        try {
+            return ResponseEntity.ok(citaService.listarCitasAdmin(desde, hasta, despuesFecha, despuesId, limite));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Error al listar las citas: " + e.getMessage()));
+        }
+    }
+
     @PostMapping("/fija")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Crear cita fija", description = "Crea una cita fija con periodicidad especificada")
@@ -330,7 +287,8 @@ public class CitaController {
             cita.setFechaHora(java.time.LocalDateTime.parse(fechaHoraStr));
             cita.setComentario(comentario);
             
-            Cita nuevaCita = citaService.crearCitaFija(cita, periodicidadDias);
+            InformeCitasFijas informe = citaService.crearCitaFija(cita, periodicidadDias);
+            Cita nuevaCita = informe.getCita();
             
             // Enviar email de confirmación para la primera cita de la serie
             try {
@@ -340,7 +298,7 @@ public class CitaController {
                 // No fallar la creación de la cita si falla el email
             }
             
-            return ResponseEntity.ok(nuevaCita);
+            return ResponseEntity.ok(informe);
         } catch (Exception e) {
             Map<String, String> errorResponse = new java.util.HashMap<>();
             errorResponse.put("error", "Error al crear cita fija");
@@ -384,118 +342,7 @@ public class CitaController {
             }
             
             LocalDate dia = LocalDate.parse(fecha, DateTimeFormatter.ISO_DATE);
-            LocalDateTime ahora = LocalDateTime.now();
-            
-            // Obtener tiempo mínimo de reserva
-            int tiempoMinimo = configuracionService.obtenerTiempoMinimo();
-            
-            // Generar todos los slots de inicio cada 45 min
-            List<LocalTime[]> tramos = List.of(
-                new LocalTime[]{LocalTime.of(9,0), LocalTime.of(15,0)},
-                new LocalTime[]{LocalTime.of(16,0), LocalTime.of(21,15)}
-            );
-            List<LocalTime> slots = new ArrayList<>();
-            
-            // Añadir slot especial de 8:15 solo para administradores (al principio)
-            if ("ADMIN".equals(userRole)) {
-                slots.add(LocalTime.of(8, 15));
-            }
-            
-            // Generar slots normales
-            for (LocalTime[] tramo : tramos) {
-                LocalTime apertura = tramo[0];
-                LocalTime cierre = tramo[1];
-                for (LocalTime t = apertura; t.compareTo(cierre) < 0; t = t.plusMinutes(45)) {
-                    slots.add(t);
-                }
-            }
-            
-            // Añadir slot especial de 21:15 solo para administradores (al final)
-            if ("ADMIN".equals(userRole)) {
-                slots.add(LocalTime.of(21, 15));
-            }
-
-            // Obtener citas reservadas para ese día
-            List<Cita> citasDia = citaService.listarTodasLasCitas().stream()
-                .filter(c -> c.getFechaHora() != null && c.getFechaHora().toLocalDate().equals(dia))
-                .collect(Collectors.toList());
-
-            // Para cada slot, comprobar si hay hueco consecutivo suficiente para la duración solicitada
-            int slotsNecesarios = (int)Math.ceil(duracion / 45.0);
-            List<String> horasLibres = new ArrayList<>();
-            for (int i = 0; i <= slots.size() - slotsNecesarios; i++) {
-                boolean hueco = true;
-                LocalTime slotInicio = slots.get(i);
-                LocalTime slotFin = slotInicio.plusMinutes(45 * slotsNecesarios);
-                // Ocultar 14:15 en días que no sean sábado (aplica a todos los roles)
-                DayOfWeek diaSemanaGeneral = dia.getDayOfWeek();
-                if (diaSemanaGeneral != DayOfWeek.SATURDAY && slotInicio.equals(LocalTime.of(14, 15))) {
-                    continue;
-                }
-                
-                // Comprobar que el rango completo cabe dentro de algún tramo
-                boolean dentroHorario = false;
-                for (LocalTime[] tramo : tramos) {
-                    if (!slotInicio.isBefore(tramo[0]) && !slotFin.isAfter(tramo[1])) {
-                        dentroHorario = true;
-                        break;
-                    }
-                }
-                
-                // Para administradores, también permitir slots especiales
-                if (!dentroHorario && "ADMIN".equals(userRole)) {
-                    // Verificar si es un slot especial (8:15 o 21:15)
-                    if (slotInicio.equals(LocalTime.of(8, 15)) || slotInicio.equals(LocalTime.of(21, 15))) {
-                        dentroHorario = true;
-                    }
-                }
-                
-                if (!dentroHorario) continue;
-                
-                // Comprobar si el día está en vacaciones
-                if (vacacionesService.esFechaVacaciones(dia)) {
-                    continue; // Saltar este slot si el día está en vacaciones
-                }
-                
-                // Comprobar restricción de tiempo mínimo para usuarios no-admin
-                if (!"ADMIN".equals(userRole)) {
-                    LocalDateTime fechaHoraSlot = LocalDateTime.of(dia, slotInicio);
-                    long horasAntes = java.time.temporal.ChronoUnit.HOURS.between(ahora, fechaHoraSlot);
-                    if (horasAntes < tiempoMinimo) {
-                        continue; // Saltar este slot si no cumple el tiempo mínimo
-                    }
-                    
-                    // Restricciones de días para usuarios normales
-                    DayOfWeek diaSemana = dia.getDayOfWeek();
-                    
-                    // Lunes y domingo cerrado para usuarios normales
-                    if (diaSemana == DayOfWeek.MONDAY || diaSemana == DayOfWeek.SUNDAY) {
-                        continue; // Saltar este slot si es lunes o domingo
-                    }
-                    
-                    // Sábado: permitir solo hasta las 15:00 para usuarios normales
-                    if (diaSemana == DayOfWeek.SATURDAY && slotInicio.isAfter(LocalTime.of(15, 0))) {
-                        continue; // Saltar este slot si es sábado después de las 15:00
-                    }
-                }
-                
-                // Comprobar que todos los slots consecutivos están libres
-                for (int j = 0; j < slotsNecesarios; j++) {
-                    LocalDateTime inicio = LocalDateTime.of(dia, slots.get(i + j));
-                    LocalDateTime fin = inicio.plusMinutes(45);
-                    boolean solapado = citasDia.stream().anyMatch(cita -> {
-                        if (cita.getEstado().equals("cancelada")) return false;
-                        LocalDateTime cIni = cita.getFechaHora();
-                        int dur = cita.getServicio().getDuracionMinutos();
-                        LocalDateTime cFin = cIni.plusMinutes(dur);
-                        return !(fin.isBefore(cIni) || inicio.isAfter(cFin.minusMinutes(1)));
-                    });
-                    if (solapado) { hueco = false; break; }
-                }
-                if (hueco) {
-                    horasLibres.add(slotInicio.toString().substring(0,5));
-                }
-            }
+            List<String> horasLibres = citaService.calcularHorasLibres(dia, duracion, userRole);
 
             Map<String, Object> respuesta = new java.util.HashMap<>();
             respuesta.put("fecha", fecha);
@@ -518,119 +365,13 @@ public class CitaController {
         @RequestParam(required = false) String userRole // "ADMIN" o "USER"
     ) {
         try {
-            int diasEnMes = java.time.YearMonth.of(anio, mes).lengthOfMonth();
-            List<Cita> todasCitas = citaService.listarTodasLasCitas();
+            // Una consulta de citas y otra de vacaciones para todo el mes
+            int[] libresPorDia = citaService.calcularDisponibilidadMes(java.time.YearMonth.of(anio, mes), duracion, userRole);
             List<Map<String, Object>> dias = new ArrayList<>();
-            LocalDateTime ahora = LocalDateTime.now();
-            int tiempoMinimo = configuracionService.obtenerTiempoMinimo();
-            
-            for (int dia = 1; dia <= diasEnMes; dia++) {
-                LocalDate fecha = LocalDate.of(anio, mes, dia);
-                // Generar slots igual que en /disponibilidad
-                List<LocalTime[]> tramos = List.of(
-                    new LocalTime[]{LocalTime.of(9,0), LocalTime.of(15,0)},
-                    new LocalTime[]{LocalTime.of(16,0), LocalTime.of(21,15)}
-                );
-                List<LocalTime> slots = new ArrayList<>();
-                
-                // Añadir slot especial de 8:15 solo para administradores (al principio)
-                if ("ADMIN".equals(userRole)) {
-                    slots.add(LocalTime.of(8, 15));
-                }
-                
-                // Generar slots normales
-                for (LocalTime[] tramo : tramos) {
-                    LocalTime apertura = tramo[0];
-                    LocalTime cierre = tramo[1];
-                    for (LocalTime t = apertura; t.compareTo(cierre) < 0; t = t.plusMinutes(45)) {
-                        slots.add(t);
-                    }
-                }
-                
-                // Añadir slot especial de 21:15 solo para administradores (al final)
-                if ("ADMIN".equals(userRole)) {
-                    slots.add(LocalTime.of(21, 15));
-                }
-
-                List<Cita> citasDia = todasCitas.stream()
-                    .filter(c -> c.getFechaHora() != null && c.getFechaHora().toLocalDate().equals(fecha))
-                    .collect(Collectors.toList());
-                int slotsNecesarios = (int)Math.ceil(duracion / 45.0);
-                int libres = 0;
-                for (int i = 0; i <= slots.size() - slotsNecesarios; i++) {
-                    boolean hueco = true;
-                    LocalTime slotInicio = slots.get(i);
-                    LocalTime slotFin = slotInicio.plusMinutes(45 * slotsNecesarios);
-                    // Ocultar 14:15 en días que no sean sábado (aplica a todos los roles)
-                    DayOfWeek diaSemanaGeneral = fecha.getDayOfWeek();
-                    if (diaSemanaGeneral != DayOfWeek.SATURDAY && slotInicio.equals(LocalTime.of(14, 15))) {
-                        continue;
-                    }
-                    boolean dentroHorario = false;
-                    for (LocalTime[] tramo : tramos) {
-                        if (!slotInicio.isBefore(tramo[0]) && !slotFin.isAfter(tramo[1])) {
-                            dentroHorario = true;
-                            break;
-                        }
-                    }
-                    
-                    // Para administradores, también permitir slots especiales
-                    if (!dentroHorario && "ADMIN".equals(userRole)) {
-                        // Verificar si es un slot especial (8:15 o 21:15)
-                        if (slotInicio.equals(LocalTime.of(8, 15)) || slotInicio.equals(LocalTime.of(21, 15))) {
-                            dentroHorario = true;
-                        }
-                    }
-                    
-                    if (!dentroHorario) continue;
-                    
-                    // Comprobar si el día está en vacaciones
-                    if (vacacionesService.esFechaVacaciones(fecha)) {
-                        continue; // Saltar este slot si el día está en vacaciones
-                    }
-                    
-                    // Comprobar restricción de tiempo mínimo para usuarios no-admin
-                    if (!"ADMIN".equals(userRole)) {
-                        LocalDateTime fechaHoraSlot = LocalDateTime.of(fecha, slotInicio);
-                        long horasAntes = java.time.temporal.ChronoUnit.HOURS.between(ahora, fechaHoraSlot);
-                        if (horasAntes < tiempoMinimo) {
-                            continue; // Saltar este slot si no cumple el tiempo mínimo
-                        }
-                        
-                        // Restricciones de días para usuarios normales
-                        DayOfWeek diaSemana = fecha.getDayOfWeek();
-                        
-                        // Lunes y domingo cerrado para usuarios normales
-                        if (diaSemana == DayOfWeek.MONDAY || diaSemana == DayOfWeek.SUNDAY) {
-                            continue; // Saltar este slot si es lunes o domingo
-                        }
-                        
-                        // Sábado: permitir solo hasta las 15:00 para usuarios normales
-                        if (diaSemana == DayOfWeek.SATURDAY && slotInicio.isAfter(LocalTime.of(15, 0))) {
-                            continue; // Saltar este slot si es sábado después de las 15:00
-                        }
-                    }
-                    
-                    // Comprobar que todos los slots consecutivos están libres
-                    for (int j = 0; j < slotsNecesarios; j++) {
-                        LocalDateTime inicio = LocalDateTime.of(fecha, slots.get(i + j));
-                        LocalDateTime fin = inicio.plusMinutes(45);
-                        boolean solapado = citasDia.stream().anyMatch(cita -> {
-                            if (cita.getEstado().equals("cancelada")) return false;
-                            LocalDateTime cIni = cita.getFechaHora();
-                            int dur = cita.getServicio().getDuracionMinutos();
-                            LocalDateTime cFin = cIni.plusMinutes(dur);
-                            return !(fin.isBefore(cIni) || inicio.isAfter(cFin.minusMinutes(1)));
-                        });
-                        if (solapado) { hueco = false; break; }
-                    }
-                    if (hueco) {
-                        libres++;
-                    }
-                }
+            for (int dia = 1; dia <= libresPorDia.length; dia++) {
                 Map<String, Object> diaMap = new java.util.HashMap<>();
                 diaMap.put("dia", dia);
-                diaMap.put("slotsLibres", libres);
+                diaMap.put("slotsLibres", libresPorDia[dia - 1]);
                 dias.add(diaMap);
             }
             Map<String, Object> response = new java.util.HashMap<>();
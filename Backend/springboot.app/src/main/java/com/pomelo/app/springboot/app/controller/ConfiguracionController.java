@@ -1,6 +1,8 @@
 package com.pomelo.app.springboot.app.controller;
 
+import com.pomelo.app.springboot.app.dto.HorarioSemanal;
 import com.pomelo.app.springboot.app.service.ConfiguracionService;
+import com.pomelo.app.springboot.app.service.HorarioService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -17,6 +19,9 @@ public class ConfiguracionController {
     @Autowired
     private ConfiguracionService configuracionService;
     
+    @Autowired
+    private HorarioService horarioService;
+    
     @PostMapping("/tiempo-minimo")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> configurarTiempoMinimo(@RequestBody Map<String, Object> request) {
@@ -54,4 +59,30 @@ public class ConfiguracionController {
             return ResponseEntity.internalServerError().body(Map.of("error", "Error al obtener tiempo mínimo: " + e.getMessage()));
         }
     }
-} 
\ No newline at end of file
+    
+    @GetMapping("/horario")
+    public ResponseEntity<?> obtenerHorario() {
+        try {
+            return ResponseEntity.ok(horarioService.obtenerHorario());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error al obtener el horario: " + e.getMessage()));
+        }
+    }
+    
+    @PutMapping("/horario")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> guardarHorario(@RequestBody HorarioSemanal horario) {
+        try {
+            HorarioSemanal guardado = horarioService.guardarHorario(horario);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("mensaje", "Horario actualizado correctamente");
+            response.put("horario", guardado);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Error al guardar el horario: " + e.getMessage()));
+        }
+    }
+} 
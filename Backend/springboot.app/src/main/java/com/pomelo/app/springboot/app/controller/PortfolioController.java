@@ -1,13 +1,20 @@
 package com.pomelo.app.springboot.app.controller;
 
 import com.pomelo.app.springboot.app.entity.Portfolio;
+import com.pomelo.app.springboot.app.service.AlmacenImagenesService;
 import com.pomelo.app.springboot.app.service.PortfolioService;
+import com.pomelo.app.springboot.app.service.RespuestaCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,10 +26,15 @@ import java.util.Map;
 public class PortfolioController {
 
     private final PortfolioService portfolioService;
+    private final AlmacenImagenesService almacenImagenesService;
+    private final RespuestaCacheService respuestaCacheService;
 
     @Autowired
-    public PortfolioController(PortfolioService portfolioService) {
+    public PortfolioController(PortfolioService portfolioService, AlmacenImagenesService almacenImagenesService,
+                               RespuestaCacheService respuestaCacheService) {
         this.portfolioService = portfolioService;
+        this.almacenImagenesService = almacenImagenesService;
+        this.respuestaCacheService = respuestaCacheService;
     }
 
     /**
@@ -30,10 +42,9 @@ public class PortfolioController {
      */
     @GetMapping("/fotos")
     @Operation(summary = "Obtener fotos del portfolio", description = "Obtiene todas las fotos activas del portfolio")
-    public ResponseEntity<?> obtenerFotos() {
+    public ResponseEntity<?> obtenerFotos(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<Portfolio> fotos = portfolioService.obtenerFotosActivas();
-            return ResponseEntity.ok(fotos);
+            return respuestaCacheService.responder(RespuestaCacheService.PORTFOLIO_FOTOS, ifNoneMatch, portfolioService::obtenerFotosActivas);
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", "Error al obtener las fotos del portfolio");
@@ -42,6 +53,72 @@ public class PortfolioController {
         }
     }
 
+    /**
+     * Sirve la imagen de una foto por su hash (público). La respuesta se puede cachear indefinidamente
+     * y admite If-None-Match y peticiones Range de un solo tramo.
+     */
+    @GetMapping("/imagenes/{hash}")
+    @Operation(summary = "Imagen del portfolio", description = "Devuelve el contenido de una imagen del portfolio")
+    public void obtenerImagen(@PathVariable String hash, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!almacenImagenesService.existe(hash)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String etag = "\"" + hash + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || "*".equals(ifNoneMatch.trim()))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long tamano = almacenImagenesService.tamano(hash);
+        long[] tramo = {0, tamano - 1};
+        String rango = request.getHeader(HttpHeaders.RANGE);
+        if (rango != null) {
+            tramo = tramo(rango, tamano);
+            if (tramo == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamano);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + tramo[0] + "-" + tramo[1] + "/" + tamano);
+        }
+        String tipo = almacenImagenesService.tipo(hash);
+        response.setContentType(tipo != null ? tipo : "application/octet-stream");
+        response.setContentLengthLong(tramo[1] - tramo[0] + 1);
+        almacenImagenesService.transferir(hash, tramo[0], tramo[1] - tramo[0] + 1, Channels.newChannel(response.getOutputStream()));
+    }
+
+    /**
+     * Primer y último byte de una cabecera Range "bytes=a-b", "bytes=a-" o "bytes=-n".
+     * Los rangos múltiples o mal formados se sirven completos; devuelve null si el rango queda fuera del fichero.
+     */
+    private static long[] tramo(String rango, long tamano) {
+        if (!rango.startsWith("bytes=") || rango.contains(",")) {
+            return new long[] {0, tamano - 1};
+        }
+        String[] partes = rango.substring(6).trim().split("-", 2);
+        long desde;
+        long hasta = tamano - 1;
+        try {
+            if (partes[0].isEmpty()) {
+                desde = Math.max(0, tamano - Long.parseLong(partes[1]));
+            } else {
+                desde = Long.parseLong(partes[0]);
+                if (partes.length > 1 && !partes[1].isEmpty()) {
+                    hasta = Math.min(Long.parseLong(partes[1]), tamano - 1);
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return new long[] {0, tamano - 1};
+        }
+        return desde > hasta || desde >= tamano ? null : new long[] {desde, hasta};
+    }
+
     /**
      * Obtiene todas las fotos del portfolio (solo para administradores)
      */
@@ -2,10 +2,12 @@ package com.pomelo.app.springboot.app.controller;
 
 import com.pomelo.app.springboot.app.entity.Resena;
 import com.pomelo.app.springboot.app.service.ResenaService;
+import com.pomelo.app.springboot.app.service.RespuestaCacheService;
 import com.pomelo.app.springboot.app.service.UsuarioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -30,6 +32,9 @@ public class ResenaController {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private RespuestaCacheService respuestaCacheService;
+
     @PostMapping
     @Operation(summary = "Crear reseña", description = "Crea una nueva reseña para una cita completada")
     public ResponseEntity<?> crearResena(
@@ -118,45 +123,9 @@ public class ResenaController {
 
     @GetMapping("/publicas")
     @Operation(summary = "Reseñas públicas", description = "Obtiene las reseñas públicas para mostrar en la página principal")
-    public ResponseEntity<?> obtenerResenasPublicas() {
+    public ResponseEntity<?> obtenerResenasPublicas(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<Resena> resenas = resenaService.obtenerResenasPublicasLimitadas(6);
-            Map<String, Object> estadisticas = resenaService.obtenerEstadisticasResenas();
-            
-            // Formatear las reseñas para el frontend
-            List<Map<String, Object>> resenasFormateadas = new ArrayList<>();
-            for (Resena resena : resenas) {
-                Map<String, Object> resenaMap = new HashMap<>();
-                resenaMap.put("id", resena.getId());
-                resenaMap.put("calificacion", resena.getCalificacion());
-                resenaMap.put("comentario", resena.getComentario());
-                resenaMap.put("fechaCreacion", resena.getFechaCreacion());
-                
-                // Información del cliente (solo nombre)
-                if (resena.getCliente() != null) {
-                    Map<String, Object> clienteMap = new HashMap<>();
-                    clienteMap.put("nombre", resena.getCliente().getNombre());
-                    
-                    // Priorizar foto de Google, si no hay, usar avatar genérico
-                    String avatar;
-                    if (resena.getCliente().getGooglePictureUrl() != null && !resena.getCliente().getGooglePictureUrl().isEmpty()) {
-                        avatar = resena.getCliente().getGooglePictureUrl();
-                    } else {
-                        avatar = generarAvatar(resena.getCliente().getNombre());
-                    }
-                    clienteMap.put("avatar", avatar);
-                    clienteMap.put("isGooglePicture", resena.getCliente().getGooglePictureUrl() != null && !resena.getCliente().getGooglePictureUrl().isEmpty());
-                    resenaMap.put("cliente", clienteMap);
-                }
-                
-                resenasFormateadas.add(resenaMap);
-            }
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("resenas", resenasFormateadas);
-            response.put("estadisticas", estadisticas);
-            
-            return ResponseEntity.ok(response);
+            return respuestaCacheService.responder(RespuestaCacheService.RESENAS_PUBLICAS, ifNoneMatch, this::construirResenasPublicas);
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", "Error al obtener las reseñas públicas");
@@ -165,6 +134,47 @@ public class ResenaController {
         }
     }
 
+    // Reseñas públicas y estadísticas en el formato que espera la página principal
+    private Map<String, Object> construirResenasPublicas() {
+        List<Resena> resenas = resenaService.obtenerResenasPublicasLimitadas(6);
+        Map<String, Object> estadisticas = resenaService.obtenerEstadisticasResenas();
+        
+        // Formatear las reseñas para el frontend
+        List<Map<String, Object>> resenasFormateadas = new ArrayList<>();
+        for (Resena resena : resenas) {
+            Map<String, Object> resenaMap = new HashMap<>();
+            resenaMap.put("id", resena.getId());
+            resenaMap.put("calificacion", resena.getCalificacion());
+            resenaMap.put("comentario", resena.getComentario());
+            resenaMap.put("fechaCreacion", resena.getFechaCreacion());
+            
+            // Información del cliente (solo nombre)
+            if (resena.getCliente() != null) {
+                Map<String, Object> clienteMap = new HashMap<>();
+                clienteMap.put("nombre", resena.getCliente().getNombre());
+                
+                // Priorizar foto de Google, si no hay, usar avatar genérico
+                String avatar;
+                if (resena.getCliente().getGooglePictureUrl() != null && !resena.getCliente().getGooglePictureUrl().isEmpty()) {
+                    avatar = resena.getCliente().getGooglePictureUrl();
+                } else {
+                    avatar = generarAvatar(resena.getCliente().getNombre());
+                }
+                clienteMap.put("avatar", avatar);
+                clienteMap.put("isGooglePicture", resena.getCliente().getGooglePictureUrl() != null && !resena.getCliente().getGooglePictureUrl().isEmpty());
+                resenaMap.put("cliente", clienteMap);
+            }
+            
+            resenasFormateadas.add(resenaMap);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("resenas", resenasFormateadas);
+        response.put("estadisticas", estadisticas);
+        
+        return response;
+    }
+
     @GetMapping("/puede-resenar/{citaId}")
     @Operation(summary = "Verificar si puede reseñar", description = "Verifica si una cita puede tener reseña")
     public ResponseEntity<?> puedeResenar(@PathVariable Long citaId, @AuthenticationPrincipal UserDetails user) {
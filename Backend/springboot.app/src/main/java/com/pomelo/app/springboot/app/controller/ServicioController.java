@@ -1,9 +1,11 @@
 package com.pomelo.app.springboot.app.controller;
 
 import com.pomelo.app.springboot.app.entity.Servicio;
+import com.pomelo.app.springboot.app.service.RespuestaCacheService;
 import com.pomelo.app.springboot.app.service.ServicioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -19,16 +21,18 @@ import java.util.HashMap;
 @Tag(name = "Servicios", description = "Endpoints para gestión de servicios")
 public class ServicioController {
     private final ServicioService servicioService;
+    private final RespuestaCacheService respuestaCacheService;
 
-    public ServicioController(ServicioService servicioService) {
+    public ServicioController(ServicioService servicioService, RespuestaCacheService respuestaCacheService) {
         this.servicioService = servicioService;
+        this.respuestaCacheService = respuestaCacheService;
     }
 
     @GetMapping
     @Operation(summary = "Listar servicios", description = "Devuelve la lista de todos los servicios disponibles")
-    public ResponseEntity<List<Servicio>> listarServicios() {
+    public ResponseEntity<byte[]> listarServicios(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            return ResponseEntity.ok(servicioService.listarServicios());
+            return respuestaCacheService.responder(RespuestaCacheService.SERVICIOS, ifNoneMatch, servicioService::listarServicios);
         } catch (Exception e) {
             throw new RuntimeException("Error al listar servicios: " + e.getMessage(), e);
         }
@@ -1,6 +1,7 @@
 package com.pomelo.app.springboot.app.controller;
 
 import com.pomelo.app.springboot.app.entity.Vacaciones;
+import com.pomelo.app.springboot.app.service.CancelacionMasivaService;
 import com.pomelo.app.springboot.app.service.VacacionesService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
@@ -23,6 +25,9 @@ public class VacacionesController {
     @Autowired
     private VacacionesService vacacionesService;
     
+    @Autowired
+    private CancelacionMasivaService cancelacionMasivaService;
+    
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> crearVacaciones(@RequestBody Map<String, Object> request) {
@@ -43,10 +48,13 @@ public class VacacionesController {
             }
             
             Vacaciones vacaciones = vacacionesService.crearVacaciones(fechaInicio, fechaFin, descripcion);
+            CancelacionMasivaService.Trabajo trabajo = vacacionesService.cancelarCitasEnVacaciones(vacaciones);
             
-            // Obtener información sobre citas canceladas
+            // Las citas ya están canceladas; los avisos a los clientes se consultan con trabajoId
             Map<String, Object> response = new HashMap<>();
             response.put("vacaciones", vacaciones);
+            response.put("citasCanceladas", trabajo.getTotal());
+            response.put("trabajoId", trabajo.getId());
             response.put("mensaje", "Vacaciones creadas correctamente. Las citas que coincidían con este período han sido canceladas automáticamente.");
             
             return ResponseEntity.ok(response);
@@ -56,6 +64,20 @@ public class VacacionesController {
         }
     }
     
+    /**
+     * Progreso del envío de avisos de las citas canceladas al crear unas vacaciones
+     */
+    @GetMapping("/cancelaciones/{trabajoId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Progreso de una cancelación masiva", description = "Citas procesadas, emails enviados y errores del trabajo")
+    public ResponseEntity<?> progresoCancelacion(@PathVariable String trabajoId) {
+        CancelacionMasivaService.Trabajo trabajo = cancelacionMasivaService.obtener(trabajoId);
+        if (trabajo == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(trabajo);
+    }
+    
     @GetMapping
     public ResponseEntity<?> listarVacaciones() {
         try {
@@ -87,4 +109,19 @@ public class VacacionesController {
             return ResponseEntity.badRequest().body(Map.of("error", "Error al verificar fecha: " + e.getMessage()));
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Días de vacaciones de un mes (formato yyyy-MM) para marcar el calendario de una vez
+     */
+    @GetMapping("/dias-bloqueados")
+    @Operation(summary = "Días bloqueados del mes", description = "Devuelve los días de vacaciones de un mes")
+    public ResponseEntity<?> diasBloqueados(@RequestParam String mes) {
+        try {
+            YearMonth yearMonth = YearMonth.parse(mes);
+            List<String> dias = vacacionesService.diasBloqueados(yearMonth).stream().map(LocalDate::toString).toList();
+            return ResponseEntity.ok(Map.of("mes", yearMonth.toString(), "dias", dias));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Error al obtener los días bloqueados: " + e.getMessage()));
+        }
+    }
+}
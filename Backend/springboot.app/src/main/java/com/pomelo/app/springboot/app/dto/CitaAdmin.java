@@ -0,0 +1,28 @@
+package com.pomelo.app.springboot.app.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila del listado de citas del administrador. Se construye directamente en la consulta JPQL
+ * (constructor plano) con los campos que muestra el calendario, sin cargar las entidades.
+ */
+public record CitaAdmin(Long id, LocalDateTime fechaHora, String comentario, boolean fija, Integer periodicidadDias,
+                        String estado, ServicioResumen servicio, ClienteResumen usuario) {
+
+    public CitaAdmin(Long id, LocalDateTime fechaHora, String comentario, boolean fija, Integer periodicidadDias, String estado,
+                     Long servicioId, String servicioNombre, String servicioDescripcion, Double servicioPrecio,
+                     Integer servicioDuracionMinutos, String servicioColorGoogleCalendar,
+                     Long clienteId, String clienteNombre, String clienteEmail, String clienteTelefono) {
+        this(id, fechaHora, comentario, fija, periodicidadDias, estado,
+             new ServicioResumen(servicioId, servicioNombre, servicioDescripcion, servicioPrecio,
+                                 servicioDuracionMinutos, servicioColorGoogleCalendar),
+             new ClienteResumen(clienteId, clienteNombre, clienteEmail, clienteTelefono));
+    }
+
+    public record ServicioResumen(Long id, String nombre, String descripcion, Double precio, Integer duracionMinutos,
+                                  String colorGoogleCalendar) {
+    }
+
+    public record ClienteResumen(Long id, String nombre, String email, String telefono) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.pomelo.app.springboot.app.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cita del historial de un cliente (Mis citas), construida en la consulta JPQL.
+ * El estado ya viene calculado: las pendientes o confirmadas cuya hora ha pasado salen como "completada".
+ */
+public record CitaHistorial(Long id, ServicioCita servicio, LocalDateTime fechaHora, String comentario, String estado,
+                            @JsonProperty("reseñada") boolean resenada) {
+
+    public CitaHistorial(Long id, String servicioNombre, String servicioEmoji, LocalDateTime fechaHora, String comentario,
+                         String estado, boolean resenada) {
+        this(id, new ServicioCita(servicioNombre, servicioEmoji), fechaHora, comentario, estado, resenada);
+    }
+
+    public record ServicioCita(String nombre, String emoji) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.pomelo.app.springboot.app.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Horario de reservas editable por el administrador.
+ * Se guarda como JSON en la tabla configuracion (clave "horario_semanal").
+ * Las horas se expresan como "HH:mm" y los días con los nombres de DayOfWeek (MONDAY, TUESDAY...).
+ */
+public class HorarioSemanal {
+    private int duracionSlotMinutos = 45;
+    private List<Tramo> tramos = new ArrayList<>();
+    private List<String> slotsAdmin = new ArrayList<>(); // Slots extra fuera de los tramos, solo para admin
+    private List<String> diasCerradosClientes = new ArrayList<>();
+    private Map<String, String> ultimoInicioClientes = new LinkedHashMap<>(); // Día -> última hora de inicio para clientes
+    private Map<String, List<String>> slotsSoloDias = new LinkedHashMap<>(); // Hora -> días en los que se ofrece
+
+    /**
+     * Horario actual de la barbería: 9:00-15:00 y 16:00-21:15 en slots de 45 minutos,
+     * 8:15 y 21:15 solo para admin, lunes y domingo cerrado para clientes,
+     * sábado hasta las 15:00 para clientes y el slot de 14:15 solo los sábados.
+     */
+    public static HorarioSemanal porDefecto() {
+        HorarioSemanal horario = new HorarioSemanal();
+        horario.tramos.add(new Tramo("09:00", "15:00"));
+        horario.tramos.add(new Tramo("16:00", "21:15"));
+        horario.slotsAdmin.add("08:15");
+        horario.slotsAdmin.add("21:15");
+        horario.diasCerradosClientes.add("MONDAY");
+        horario.diasCerradosClientes.add("SUNDAY");
+        horario.ultimoInicioClientes.put("SATURDAY", "15:00");
+        horario.slotsSoloDias.put("14:15", List.of("SATURDAY"));
+        return horario;
+    }
+
+    public int getDuracionSlotMinutos() {
+        return duracionSlotMinutos;
+    }
+
+    public void setDuracionSlotMinutos(int duracionSlotMinutos) {
+        this.duracionSlotMinutos = duracionSlotMinutos;
+    }
+
+    public List<Tramo> getTramos() {
+        return tramos;
+    }
+
+    public void setTramos(List<Tramo> tramos) {
+        this.tramos = tramos;
+    }
+
+    public List<String> getSlotsAdmin() {
+        return slotsAdmin;
+    }
+
+    public void setSlotsAdmin(List<String> slotsAdmin) {
+        this.slotsAdmin = slotsAdmin;
+    }
+
+    public List<String> getDiasCerradosClientes() {
+        return diasCerradosClientes;
+    }
+
+    public void setDiasCerradosClientes(List<String> diasCerradosClientes) {
+        this.diasCerradosClientes = diasCerradosClientes;
+    }
+
+    public Map<String, String> getUltimoInicioClientes() {
+        return ultimoInicioClientes;
+    }
+
+    public void setUltimoInicioClientes(Map<String, String> ultimoInicioClientes) {
+        this.ultimoInicioClientes = ultimoInicioClientes;
+    }
+
+    public Map<String, List<String>> getSlotsSoloDias() {
+        return slotsSoloDias;
+    }
+
+    public void setSlotsSoloDias(Map<String, List<String>> slotsSoloDias) {
+        this.slotsSoloDias = slotsSoloDias;
+    }
+
+    public static class Tramo {
+        private String inicio;
+        private String fin;
+
+        public Tramo() {}
+
+        public Tramo(String inicio, String fin) {
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+
+        public String getInicio() {
+            return inicio;
+        }
+
+        public void setInicio(String inicio) {
+            this.inicio = inicio;
+        }
+
+        public String getFin() {
+            return fin;
+        }
+
+        public void setFin(String fin) {
+            this.fin = fin;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pomelo.app.springboot.app.dto;
+
+import com.pomelo.app.springboot.app.entity.Cita;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de crear una serie de citas fijas: fechas creadas y fechas omitidas con su motivo.
+ * Las fechas se expresan como "yyyy-MM-ddTHH:mm".
+ */
+public class InformeCitasFijas {
+    private Cita cita; // Primera cita creada de la serie
+    private int periodicidadDias;
+    private List<String> creadas = new ArrayList<>();
+    private List<String> omitidasOcupadas = new ArrayList<>();
+    private List<String> omitidasVacaciones = new ArrayList<>();
+
+    public Cita getCita() {
+        return cita;
+    }
+
+    public void setCita(Cita cita) {
+        this.cita = cita;
+    }
+
+    public int getPeriodicidadDias() {
+        return periodicidadDias;
+    }
+
+    public void setPeriodicidadDias(int periodicidadDias) {
+        this.periodicidadDias = periodicidadDias;
+    }
+
+    public List<String> getCreadas() {
+        return creadas;
+    }
+
+    public void setCreadas(List<String> creadas) {
+        this.creadas = creadas;
+    }
+
+    public List<String> getOmitidasOcupadas() {
+        return omitidasOcupadas;
+    }
+
+    public void setOmitidasOcupadas(List<String> omitidasOcupadas) {
+        this.omitidasOcupadas = omitidasOcupadas;
+    }
+
+    public List<String> getOmitidasVacaciones() {
+        return omitidasVacaciones;
+    }
+
+    public void setOmitidasVacaciones(List<String> omitidasVacaciones) {
+        this.omitidasVacaciones = omitidasVacaciones;
+    }
+}
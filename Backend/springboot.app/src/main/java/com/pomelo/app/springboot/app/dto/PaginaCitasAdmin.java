@@ -0,0 +1,11 @@
+package com.pomelo.app.springboot.app.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Página del listado de citas del administrador. Si hayMas es true, la siguiente página se pide
+ * con despuesFecha y despuesId, que son la fecha y el id de la última cita de esta.
+ */
+public record PaginaCitasAdmin(List<CitaAdmin> citas, boolean hayMas, LocalDateTime despuesFecha, Long despuesId) {
+}
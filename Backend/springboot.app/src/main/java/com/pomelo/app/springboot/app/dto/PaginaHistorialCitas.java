@@ -0,0 +1,11 @@
+package com.pomelo.app.springboot.app.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Página del historial de citas de un cliente, de la más reciente a la más antigua. Si hayMas es true,
+ * la siguiente página se pide con antesFecha y antesId, que son la fecha y el id de la última cita de esta.
+ */
+public record PaginaHistorialCitas(List<CitaHistorial> citas, boolean hayMas, LocalDateTime antesFecha, Long antesId) {
+}
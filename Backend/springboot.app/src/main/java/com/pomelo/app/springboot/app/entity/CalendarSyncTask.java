@@ -0,0 +1,197 @@
+package com.pomelo.app.springboot.app.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Tarea pendiente de sincronizar con Google Calendar.
+ * Se guarda en la misma transacción que la cita y la procesa CalendarSyncService en segundo plano.
+ */
+@Entity
+@Table(name = "calendar_sync_task", indexes = {
+    @Index(name = "idx_calendar_sync_task_estado", columnList = "estado, id"),
+    @Index(name = "idx_calendar_sync_task_reclamo", columnList = "reclamo_lote")
+})
+public class CalendarSyncTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "operacion", length = 20, nullable = false)
+    private String operacion; // CREAR, ELIMINAR
+
+    @Column(name = "calendario", length = 20, nullable = false)
+    private String calendario; // CLIENTE, ADMIN
+
+    @Column(name = "cita_id")
+    private Long citaId;
+
+    @Column(name = "cliente_id", nullable = false)
+    private Long clienteId;
+
+    // Copia de los datos de la cita para poder eliminar el evento aunque la cita ya no exista
+    @Column(name = "servicio_id")
+    private Long servicioId;
+
+    @Column(name = "fecha_hora")
+    private LocalDateTime fechaHora;
+
+    // ID del evento en el calendario de la tarea, si ya se conoce
+    @Column(name = "event_id")
+    private String eventId;
+
+    @Column(name = "estado", length = 20, nullable = false)
+    private String estado = "PENDIENTE"; // PENDIENTE, FALLIDA
+
+    @Column(name = "intentos", nullable = false)
+    private int intentos = 0;
+
+    @Column(name = "proximo_intento")
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion")
+    private LocalDateTime fechaCreacion = LocalDateTime.now();
+
+    // Lote de la instancia que está procesando la tarea y hasta cuándo la tiene reservada
+    @Column(name = "reclamo_lote", length = 36)
+    private String reclamoLote;
+
+    @Column(name = "reclamada_hasta")
+    private LocalDateTime reclamadaHasta;
+
+    public CalendarSyncTask() {}
+
+    public CalendarSyncTask(String operacion, String calendario, Cita cita) {
+        this.operacion = operacion;
+        this.calendario = calendario;
+        this.citaId = cita.getId();
+        this.clienteId = cita.getCliente().getId();
+        this.servicioId = cita.getServicio().getId();
+        this.fechaHora = cita.getFechaHora();
+        this.eventId = "ADMIN".equals(calendario) ? cita.getGoogleEventIdAdmin() : cita.getGoogleEventIdCliente();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getOperacion() {
+        return operacion;
+    }
+
+    public void setOperacion(String operacion) {
+        this.operacion = operacion;
+    }
+
+    public String getCalendario() {
+        return calendario;
+    }
+
+    public void setCalendario(String calendario) {
+        this.calendario = calendario;
+    }
+
+    public Long getCitaId() {
+        return citaId;
+    }
+
+    public void setCitaId(Long citaId) {
+        this.citaId = citaId;
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
+    public Long getServicioId() {
+        return servicioId;
+    }
+
+    public void setServicioId(Long servicioId) {
+        this.servicioId = servicioId;
+    }
+
+    public LocalDateTime getFechaHora() {
+        return fechaHora;
+    }
+
+    public void setFechaHora(LocalDateTime fechaHora) {
+        this.fechaHora = fechaHora;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public int getIntentos() {
+        return intentos;
+    }
+
+    public void setIntentos(int intentos) {
+        this.intentos = intentos;
+    }
+
+    public LocalDateTime getProximoIntento() {
+        return proximoIntento;
+    }
+
+    public void setProximoIntento(LocalDateTime proximoIntento) {
+        this.proximoIntento = proximoIntento;
+    }
+
+    public String getUltimoError() {
+        return ultimoError;
+    }
+
+    public void setUltimoError(String ultimoError) {
+        this.ultimoError = ultimoError;
+    }
+
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+
+    public String getReclamoLote() {
+        return reclamoLote;
+    }
+
+    public void setReclamoLote(String reclamoLote) {
+        this.reclamoLote = reclamoLote;
+    }
+
+    public LocalDateTime getReclamadaHasta() {
+        return reclamadaHasta;
+    }
+
+    public void setReclamadaHasta(LocalDateTime reclamadaHasta) {
+        this.reclamadaHasta = reclamadaHasta;
+    }
+}
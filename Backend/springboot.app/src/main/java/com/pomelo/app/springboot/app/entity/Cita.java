@@ -1,10 +1,20 @@
 package com.pomelo.app.springboot.app.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cita")
+// Índices de las consultas de CitaRepository (también en las migraciones V21-V23, V28 y V29);
+// ddl-auto=update crea los que falten
+@Table(name = "cita", indexes = {
+    @Index(name = "idx_cita_cliente_fecha", columnList = "cliente_id, fecha_hora, estado"),
+    @Index(name = "idx_cita_resena_pendiente", columnList = "fecha_hora, recordatorio_resena_enviado, estado"),
+    @Index(name = "idx_cita_recordatorio_pendiente", columnList = "recordatorio_cita_enviado, fecha_hora, estado"),
+    @Index(name = "idx_cita_fecha_id", columnList = "fecha_hora, id"),
+    @Index(name = "idx_cita_recordatorio_lote", columnList = "recordatorio_lote"),
+    @Index(name = "idx_cita_cancelacion_lote", columnList = "cancelacion_lote")
+})
 public class Cita {
 
     @Id
@@ -40,12 +50,36 @@ public class Cita {
     @Column(name = "fecha_recordatorio_resena")
     private LocalDateTime fechaRecordatorioResena;
 
+    // Envíos fallidos del recordatorio de reseña (ver RecordatorioResenaService)
+    @JsonIgnore
+    @Column(name = "intentos_recordatorio_resena", nullable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int intentosRecordatorioResena = 0;
+
     @Column(name = "recordatorio_cita_enviado", nullable = false)
     private boolean recordatorioCitaEnviado = false;
 
     @Column(name = "fecha_recordatorio_cita")
     private LocalDateTime fechaRecordatorioCita;
 
+    // Identificador del lote que reclamó el recordatorio (ver RecordatorioService)
+    @JsonIgnore
+    @Column(name = "recordatorio_lote", length = 36)
+    private String recordatorioLote;
+
+    // Identificador de la cancelación masiva que anuló la cita (ver CancelacionMasivaService)
+    @JsonIgnore
+    @Column(name = "cancelacion_lote", length = 36)
+    private String cancelacionLote;
+
+    // IDs de los eventos creados en Google Calendar, para actualizarlos o borrarlos directamente
+    @JsonIgnore
+    @Column(name = "google_event_id_cliente")
+    private String googleEventIdCliente;
+
+    @JsonIgnore
+    @Column(name = "google_event_id_admin")
+    private String googleEventIdAdmin;
+
     public Long getId() {
         return id;
     }
@@ -118,6 +152,14 @@ public class Cita {
         this.recordatorioResenaEnviado = recordatorioResenaEnviado;
     }
 
+    public int getIntentosRecordatorioResena() {
+        return intentosRecordatorioResena;
+    }
+
+    public void setIntentosRecordatorioResena(int intentosRecordatorioResena) {
+        this.intentosRecordatorioResena = intentosRecordatorioResena;
+    }
+
     public LocalDateTime getFechaRecordatorioResena() {
         return fechaRecordatorioResena;
     }
@@ -141,4 +183,36 @@ public class Cita {
     public void setFechaRecordatorioCita(LocalDateTime fechaRecordatorioCita) {
         this.fechaRecordatorioCita = fechaRecordatorioCita;
     }
+
+    public String getGoogleEventIdCliente() {
+        return googleEventIdCliente;
+    }
+
+    public void setGoogleEventIdCliente(String googleEventIdCliente) {
+        this.googleEventIdCliente = googleEventIdCliente;
+    }
+
+    public String getGoogleEventIdAdmin() {
+        return googleEventIdAdmin;
+    }
+
+    public void setGoogleEventIdAdmin(String googleEventIdAdmin) {
+        this.googleEventIdAdmin = googleEventIdAdmin;
+    }
+
+    public String getRecordatorioLote() {
+        return recordatorioLote;
+    }
+
+    public void setRecordatorioLote(String recordatorioLote) {
+        this.recordatorioLote = recordatorioLote;
+    }
+
+    public String getCancelacionLote() {
+        return cancelacionLote;
+    }
+
+    public void setCancelacionLote(String cancelacionLote) {
+        this.cancelacionLote = cancelacionLote;
+    }
 }
@@ -13,12 +13,16 @@ public class Configuracion {
     @Column(name = "clave", unique = true, nullable = false)
     private String clave;
     
-    @Column(name = "valor", nullable = false)
+    @Column(name = "valor", nullable = false, columnDefinition = "TEXT")
     private String valor;
     
     @Column(name = "descripcion")
     private String descripcion;
     
+    // Se incrementa en cada escritura; los nodos comparan la suma de versiones para saber si recargar
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long version;
+    
     // Constructores
     public Configuracion() {}
     
@@ -60,4 +64,12 @@ public class Configuracion {
     public void setDescripcion(String descripcion) {
         this.descripcion = descripcion;
     }
-} 
\ No newline at end of file
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
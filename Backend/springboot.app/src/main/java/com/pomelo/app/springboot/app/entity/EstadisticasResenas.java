@@ -0,0 +1,131 @@
+package com.pomelo.app.springboot.app.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Agregado de las reseñas (fila única): suma y número de calificaciones y cuántas hay de cada estrella.
+ * Se actualiza al crear, modificar o borrar una reseña para no recorrer la tabla de reseñas en cada consulta.
+ */
+@Entity
+@Table(name = "resenas_estadisticas")
+public class EstadisticasResenas {
+
+    public static final Long ID = 1L;
+
+    @Id
+    private Long id = ID;
+
+    // Cada actualización lo incrementa; sirve para no sustituir la copia en memoria por una más antigua
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private long suma;
+
+    @Column(nullable = false)
+    private long total;
+
+    // Número de reseñas con 1..5 estrellas
+    @Column(name = "estrellas_1", nullable = false)
+    private long estrellas1;
+
+    @Column(name = "estrellas_2", nullable = false)
+    private long estrellas2;
+
+    @Column(name = "estrellas_3", nullable = false)
+    private long estrellas3;
+
+    @Column(name = "estrellas_4", nullable = false)
+    private long estrellas4;
+
+    @Column(name = "estrellas_5", nullable = false)
+    private long estrellas5;
+
+    public EstadisticasResenas() {}
+
+    /**
+     * Quita la calificación anterior y suma la nueva (null si la reseña se crea o se borra)
+     */
+    public void aplicar(Integer anterior, Integer nueva) {
+        if (anterior != null) {
+            suma -= anterior;
+            total--;
+            sumarEstrella(anterior, -1);
+        }
+        if (nueva != null) {
+            suma += nueva;
+            total++;
+            sumarEstrella(nueva, 1);
+        }
+    }
+
+    /**
+     * Sustituye los contadores por el número de reseñas de cada estrella
+     */
+    public void reiniciar(long[] porEstrellas) {
+        suma = 0;
+        total = 0;
+        estrellas1 = estrellas2 = estrellas3 = estrellas4 = estrellas5 = 0;
+        for (int estrellas = 1; estrellas <= 5; estrellas++) {
+            suma += estrellas * porEstrellas[estrellas];
+            total += porEstrellas[estrellas];
+            sumarEstrella(estrellas, porEstrellas[estrellas]);
+        }
+    }
+
+    public EstadisticasResenas copia() {
+        EstadisticasResenas copia = new EstadisticasResenas();
+        copia.version = version;
+        copia.suma = suma;
+        copia.total = total;
+        copia.estrellas1 = estrellas1;
+        copia.estrellas2 = estrellas2;
+        copia.estrellas3 = estrellas3;
+        copia.estrellas4 = estrellas4;
+        copia.estrellas5 = estrellas5;
+        return copia;
+    }
+
+    public double getPromedio() {
+        return total > 0 ? (double) suma / total : 0.0;
+    }
+
+    public long getEstrellas(int estrellas) {
+        switch (estrellas) {
+            case 1: return estrellas1;
+            case 2: return estrellas2;
+            case 3: return estrellas3;
+            case 4: return estrellas4;
+            case 5: return estrellas5;
+            default: return 0;
+        }
+    }
+
+    private void sumarEstrella(int estrellas, long delta) {
+        switch (estrellas) {
+            case 1: estrellas1 += delta; break;
+            case 2: estrellas2 += delta; break;
+            case 3: estrellas3 += delta; break;
+            case 4: estrellas4 += delta; break;
+            case 5: estrellas5 += delta; break;
+            default: break;
+        }
+    }
+
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public long getSuma() {
+        return suma;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
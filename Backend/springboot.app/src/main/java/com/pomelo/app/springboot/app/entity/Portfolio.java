@@ -1,10 +1,17 @@
 package com.pomelo.app.springboot.app.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Entity
-@Table(name = "portfolio")
+@Table(name = "portfolio", indexes = {
+    @Index(name = "idx_portfolio_imagen_hash", columnList = "imagen_hash")
+})
 public class Portfolio {
     
     @Id
@@ -14,8 +21,14 @@ public class Portfolio {
     @Column(name = "nombre", nullable = false)
     private String nombre;
     
-    @Column(name = "imagen_base64", columnDefinition = "LONGTEXT")
-    private String imagenBase64;
+    // SHA-256 de la imagen en AlmacenImagenesService (la columna imagen_base64 ya no se usa)
+    @Column(name = "imagen_hash", length = 64)
+    private String imagenHash;
+    
+    // Versiones reducidas generadas por VariantesImagenService, como "nombre:ancho:hash" separadas por comas
+    @JsonIgnore
+    @Column(name = "imagen_variantes", length = 500)
+    private String imagenVariantes;
     
     @Column(name = "url_instagram")
     private String urlInstagram;
@@ -32,9 +45,9 @@ public class Portfolio {
     }
     
     // Constructor con parámetros
-    public Portfolio(String nombre, String imagenBase64, String urlInstagram) {
+    public Portfolio(String nombre, String imagenHash, String urlInstagram) {
         this.nombre = nombre;
-        this.imagenBase64 = imagenBase64;
+        this.imagenHash = imagenHash;
         this.urlInstagram = urlInstagram;
         this.fechaCreacion = LocalDateTime.now();
         this.activo = true;
@@ -57,12 +70,51 @@ public class Portfolio {
         this.nombre = nombre;
     }
     
-    public String getImagenBase64() {
-        return imagenBase64;
+    public String getImagenHash() {
+        return imagenHash;
+    }
+    
+    public void setImagenHash(String imagenHash) {
+        this.imagenHash = imagenHash;
+    }
+    
+    // URL pública de la imagen; el contenido de un hash no cambia, así que se puede cachear sin límite
+    public String getUrl() {
+        return imagenHash != null ? "/api/portfolio/imagenes/" + imagenHash : null;
+    }
+    
+    public String getImagenVariantes() {
+        return imagenVariantes;
+    }
+    
+    public void setImagenVariantes(String imagenVariantes) {
+        this.imagenVariantes = imagenVariantes;
+    }
+    
+    // Variantes de menor a mayor ancho ({nombre, ancho, url}); vacía mientras se generan
+    public List<Map<String, Object>> getVariantes() {
+        List<Map<String, Object>> variantes = new ArrayList<>();
+        if (imagenVariantes == null || imagenVariantes.isEmpty()) {
+            return variantes;
+        }
+        for (String variante : imagenVariantes.split(",")) {
+            String[] partes = variante.split(":");
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("nombre", partes[0]);
+            datos.put("ancho", Integer.parseInt(partes[1]));
+            datos.put("url", "/api/portfolio/imagenes/" + partes[2]);
+            variantes.add(datos);
+        }
+        return variantes;
     }
     
-    public void setImagenBase64(String imagenBase64) {
-        this.imagenBase64 = imagenBase64;
+    // Valor para el atributo srcset de <img>, o null si aún no hay variantes
+    public String getSrcset() {
+        List<String> candidatas = new ArrayList<>();
+        for (Map<String, Object> variante : getVariantes()) {
+            candidatas.add(variante.get("url") + " " + variante.get("ancho") + "w");
+        }
+        return candidatas.isEmpty() ? null : String.join(", ", candidatas);
     }
     
     public String getUrlInstagram() {
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "resenas")
+@Table(name = "resenas", indexes = {
+    @Index(name = "idx_resenas_cliente_fecha", columnList = "cliente_id, fecha_creacion"),
+    @Index(name = "idx_resenas_fecha_creacion", columnList = "fecha_creacion")
+})
 public class Resena {
     
     @Id
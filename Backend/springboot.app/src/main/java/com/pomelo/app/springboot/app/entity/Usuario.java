@@ -3,7 +3,9 @@ package com.pomelo.app.springboot.app.entity;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "usuario")
+@Table(name = "usuario", indexes = {
+    @Index(name = "idx_reset_password_token", columnList = "reset_password_token")
+})
 public class Usuario {
 
     @Id
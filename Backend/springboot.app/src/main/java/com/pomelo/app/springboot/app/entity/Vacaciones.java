@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "vacaciones")
+@Table(name = "vacaciones", indexes = {
+    @Index(name = "idx_vacaciones_activo_fechas", columnList = "activo, fecha_inicio, fecha_fin")
+})
 public class Vacaciones {
     
     @Id
@@ -0,0 +1,64 @@
+package com.pomelo.app.springboot.app.repository;
+
+import com.pomelo.app.springboot.app.entity.CalendarSyncTask;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CalendarSyncTaskRepository extends JpaRepository<CalendarSyncTask, Long> {
+
+    /**
+     * Tareas pendientes que ya toca ejecutar y que nadie tiene reservadas, en orden de creación.
+     * Se excluyen las que tienen delante, en su mismo calendario, una tarea esperando reintento o reservada
+     * por otra instancia, para respetar el orden de cada calendario.
+     */
+    @Query("SELECT t.id FROM CalendarSyncTask t " +
+           "WHERE t.estado = 'PENDIENTE' " +
+           "AND (t.proximoIntento IS NULL OR t.proximoIntento <= :ahora) " +
+           "AND (t.reclamadaHasta IS NULL OR t.reclamadaHasta < :ahora) " +
+           "AND NOT EXISTS (SELECT p.id FROM CalendarSyncTask p " +
+           "  WHERE p.estado = 'PENDIENTE' AND p.id < t.id AND p.calendario = t.calendario " +
+           "  AND (t.calendario = 'ADMIN' OR p.clienteId = t.clienteId) " +
+           "  AND (p.proximoIntento > :ahora OR p.reclamadaHasta >= :ahora)) " +
+           "ORDER BY t.id")
+    List<Long> findIdsListas(@Param("ahora") LocalDateTime ahora, Pageable pageable);
+
+    /**
+     * Reserva las tareas para el lote hasta la fecha indicada. Solo se reservan las que siguen pendientes y libres;
+     * si otra instancia se ha adelantado, esas filas no cambian.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CalendarSyncTask t SET t.reclamoLote = :lote, t.reclamadaHasta = :hasta " +
+           "WHERE t.id IN :ids AND t.estado = 'PENDIENTE' " +
+           "AND (t.reclamadaHasta IS NULL OR t.reclamadaHasta < :ahora)")
+    int reclamar(@Param("ids") List<Long> ids, @Param("lote") String lote,
+                 @Param("ahora") LocalDateTime ahora, @Param("hasta") LocalDateTime hasta);
+
+    List<CalendarSyncTask> findByReclamoLoteOrderByIdAsc(String reclamoLote);
+
+    /**
+     * Libera las tareas indicadas del lote que siguen en la cola (las que fallaron o no se llegaron a ejecutar)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CalendarSyncTask t SET t.reclamoLote = null, t.reclamadaHasta = null " +
+           "WHERE t.id IN :ids AND t.reclamoLote = :lote")
+    int liberarTareas(@Param("ids") List<Long> ids, @Param("lote") String lote);
+
+    /**
+     * Libera todas las tareas del lote que siguen en la cola
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CalendarSyncTask t SET t.reclamoLote = null, t.reclamadaHasta = null WHERE t.reclamoLote = :lote")
+    int liberar(@Param("lote") String lote);
+}
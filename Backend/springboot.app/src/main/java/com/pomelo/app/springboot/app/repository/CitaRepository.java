@@ -1,11 +1,16 @@
 package com.pomelo.app.springboot.app.repository;
 
+import com.pomelo.app.springboot.app.dto.CitaAdmin;
+import com.pomelo.app.springboot.app.dto.CitaHistorial;
 import com.pomelo.app.springboot.app.entity.Cita;
 import com.pomelo.app.springboot.app.entity.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -14,21 +19,103 @@ import java.util.Optional;
 @Repository
 public interface CitaRepository extends JpaRepository<Cita, Long> {
     List<Cita> findByCliente(Usuario cliente);
-    List<Cita> findByClienteOrderByFechaHoraDesc(Usuario cliente);
     List<Cita> findByClienteAndFechaHoraAfter(Usuario cliente, LocalDateTime fechaInicio);
     
     // Método para obtener cita con relaciones cargadas
     @Query("SELECT c FROM Cita c JOIN FETCH c.cliente JOIN FETCH c.servicio WHERE c.id = :id")
     Optional<Cita> findByIdWithRelations(@Param("id") Long id);
+
+    // Guardar los IDs de Google Calendar sin cargar ni reescribir la cita completa
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cita c SET c.googleEventIdCliente = :eventId WHERE c.id = :id")
+    int actualizarEventoGoogleCliente(@Param("id") Long id, @Param("eventId") String eventId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cita c SET c.googleEventIdAdmin = :eventId WHERE c.id = :id")
+    int actualizarEventoGoogleAdmin(@Param("id") Long id, @Param("eventId") String eventId);
     List<Cita> findByFechaHoraBetween(LocalDateTime fechaInicio, LocalDateTime fechaFin);
     List<Cita> findByFechaHora(LocalDate fecha);
     long countByClienteAndEstado(Usuario cliente, String estado);
     List<Cita> findByClienteAndFijaTrueAndPeriodicidadDiasIsNotNull(Usuario cliente);
     
-    @Query("SELECT c FROM Cita c WHERE c.fechaHora BETWEEN :fechaInicio AND :fechaFin AND c.estado != :estado")
-    List<Cita> findByFechaHoraBetweenAndEstadoNot(@Param("fechaInicio") LocalDateTime fechaInicio, 
-                                                   @Param("fechaFin") LocalDateTime fechaFin, 
-                                                   @Param("estado") String estado);
+    /**
+     * Cancela en una sola sentencia las citas no canceladas de [fechaInicio, fechaFin] y las marca con el lote,
+     * que sirve después para saber exactamente cuáles cambió esta sentencia
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cita c SET c.estado = 'cancelada', c.comentario = :motivo, c.cancelacionLote = :lote " +
+           "WHERE c.fechaHora BETWEEN :fechaInicio AND :fechaFin AND (c.estado IS NULL OR c.estado != 'cancelada')")
+    int cancelarEntre(@Param("fechaInicio") LocalDateTime fechaInicio, @Param("fechaFin") LocalDateTime fechaFin,
+                      @Param("motivo") String motivo, @Param("lote") String lote);
+
+    String SELECT_CITA_ADMIN = "SELECT new com.pomelo.app.springboot.app.dto.CitaAdmin(" +
+           "c.id, c.fechaHora, c.comentario, c.fija, c.periodicidadDias, c.estado, " +
+           "s.id, s.nombre, s.descripcion, s.precio, s.duracionMinutos, s.colorGoogleCalendar, " +
+           "u.id, u.nombre, u.email, u.telefono) " +
+           "FROM Cita c JOIN c.servicio s JOIN c.cliente u ";
+
+    /**
+     * Citas no canceladas de [desde, hasta) posteriores a (despuesFecha, despuesId), ordenadas por (fecha_hora, id).
+     * Para la primera página se pasa despuesFecha = desde y despuesId = 0.
+     */
+    @Query(SELECT_CITA_ADMIN +
+           "WHERE c.fechaHora >= :desde AND c.fechaHora < :hasta " +
+           "AND (c.fechaHora > :despuesFecha OR (c.fechaHora = :despuesFecha AND c.id > :despuesId)) " +
+           "AND (c.estado IS NULL OR c.estado != 'cancelada') " +
+           "ORDER BY c.fechaHora, c.id")
+    List<CitaAdmin> findCitasAdmin(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta,
+                                   @Param("despuesFecha") LocalDateTime despuesFecha, @Param("despuesId") Long despuesId,
+                                   Pageable pageable);
+
+    @Query(SELECT_CITA_ADMIN + "WHERE c.estado IS NULL OR c.estado != 'cancelada' ORDER BY c.fechaHora, c.id")
+    List<CitaAdmin> findTodasCitasAdmin();
+
+    /**
+     * Historial de un cliente anterior a (antesFecha, antesId), de la cita más reciente a la más antigua,
+     * con el servicio, el estado ya calculado a la hora "ahora" y si tiene reseña (una fila por cita aunque tenga varias).
+     */
+    @Query("SELECT new com.pomelo.app.springboot.app.dto.CitaHistorial(" +
+           "c.id, s.nombre, s.emoji, c.fechaHora, c.comentario, " +
+           "CASE WHEN c.estado IN ('pendiente', 'confirmada') AND c.fechaHora < :ahora THEN 'completada' ELSE c.estado END, " +
+           "CASE WHEN EXISTS (SELECT r.id FROM Resena r WHERE r.cita = c) THEN true ELSE false END) " +
+           "FROM Cita c JOIN c.servicio s " +
+           "WHERE c.cliente.id = :clienteId " +
+           "AND (c.fechaHora < :antesFecha OR (c.fechaHora = :antesFecha AND c.id < :antesId)) " +
+           "ORDER BY c.fechaHora DESC, c.id DESC")
+    List<CitaHistorial> findHistorialCliente(@Param("clienteId") Long clienteId, @Param("ahora") LocalDateTime ahora,
+                                             @Param("antesFecha") LocalDateTime antesFecha, @Param("antesId") Long antesId,
+                                             Pageable pageable);
+
+    @Query("SELECT c.id FROM Cita c WHERE c.cancelacionLote = :lote ORDER BY c.id")
+    List<Long> findIdsByCancelacionLote(@Param("lote") String lote);
+
+    // Cancelaciones masivas con avisos pendientes (p. ej. porque la aplicación se reinició a medias)
+    @Query("SELECT DISTINCT c.cancelacionLote FROM Cita c WHERE c.cancelacionLote IS NOT NULL")
+    List<String> findCancelacionLotesPendientes();
+
+    /**
+     * Quita la cita del lote antes de avisar al cliente. Devuelve 0 si ya la avisó otro hilo o instancia.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cita c SET c.cancelacionLote = null WHERE c.id = :id AND c.cancelacionLote = :lote")
+    int reclamarAvisoCancelacion(@Param("id") Long id, @Param("lote") String lote);
+
+    @Query("SELECT c FROM Cita c JOIN FETCH c.cliente JOIN FETCH c.servicio WHERE c.id IN :ids ORDER BY c.id")
+    List<Cita> findByIdInWithRelations(@Param("ids") List<Long> ids);
+
+    /**
+     * Citas no canceladas en [fechaInicio, fechaFin) con el servicio cargado (para calcular ocupación)
+     */
+    @Query("SELECT c FROM Cita c " +
+           "JOIN FETCH c.servicio s " +
+           "WHERE c.fechaHora >= :fechaInicio AND c.fechaHora < :fechaFin " +
+           "AND (c.estado IS NULL OR LOWER(c.estado) != 'cancelada')")
+    List<Cita> findActivasConServicioEntre(@Param("fechaInicio") LocalDateTime fechaInicio,
+                                           @Param("fechaFin") LocalDateTime fechaFin);
     
     /**
      * Busca citas próximas con relaciones cargadas para evitar LazyInitialization
@@ -44,15 +131,108 @@ public interface CitaRepository extends JpaRepository<Cita, Long> {
                                   @Param("fechaFin") LocalDateTime fechaFin);
 
     /**
-     * Citas cuya hora ya pasó, sin reseña y sin recordatorio de reseña enviado
+     * IDs de las citas que necesitan recordatorio, sin cargar las entidades
+     */
+    @Query("SELECT c.id FROM Cita c " +
+           "WHERE c.fechaHora BETWEEN :fechaInicio AND :fechaFin " +
+           "AND LOWER(c.estado) IN ('confirmada', 'pendiente') " +
+           "AND c.recordatorioCitaEnviado = false " +
+           "ORDER BY c.fechaHora ASC")
+    List<Long> findIdsRecordatorioPendiente(@Param("fechaInicio") LocalDateTime fechaInicio,
+                                            @Param("fechaFin") LocalDateTime fechaFin,
+                                            Pageable pageable);
+
+    /**
+     * Reclama los recordatorios marcándolos como enviados con el identificador del lote.
+     * Si otra instancia ya los reclamó la condición sobre recordatorioCitaEnviado los deja fuera, y las citas
+     * canceladas o movidas fuera de [ahora, limite] desde que se programó el recordatorio tampoco entran.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cita c SET c.recordatorioCitaEnviado = true, c.fechaRecordatorioCita = :ahora, c.recordatorioLote = :lote " +
+           "WHERE c.id IN :ids AND c.recordatorioCitaEnviado = false " +
+           "AND LOWER(c.estado) IN ('confirmada', 'pendiente') " +
+           "AND c.fechaHora BETWEEN :ahora AND :limite")
+    int reclamarRecordatorios(@Param("ids") List<Long> ids, @Param("lote") String lote,
+                              @Param("ahora") LocalDateTime ahora, @Param("limite") LocalDateTime limite);
+
+    @Query("SELECT c FROM Cita c JOIN FETCH c.cliente JOIN FETCH c.servicio WHERE c.recordatorioLote = :lote")
+    List<Cita> findByRecordatorioLote(@Param("lote") String lote);
+
+    /**
+     * Devuelve a pendiente los recordatorios que no se pudieron entregar al envío de emails
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cita c SET c.recordatorioCitaEnviado = false, c.fechaRecordatorioCita = null, c.recordatorioLote = null " +
+           "WHERE c.id IN :ids")
+    int liberarRecordatorios(@Param("ids") List<Long> ids);
+
+    /**
+     * Citas ya pasadas, sin reseña ni recordatorio de reseña, posteriores a (desdeFecha, desdeId) en orden (fecha_hora, id).
+     * Se recorre por páginas reanudando desde la última fila procesada.
      */
     @Query("SELECT c FROM Cita c " +
            "JOIN FETCH c.cliente cl " +
            "JOIN FETCH c.servicio s " +
-           "WHERE c.fechaHora < :ahora " +
+           "WHERE (c.fechaHora > :desdeFecha OR (c.fechaHora = :desdeFecha AND c.id > :desdeId)) " +
+           "AND c.fechaHora < :ahora " +
+           "AND LOWER(c.estado) != 'cancelada' " +
+           "AND c.recordatorioResenaEnviado = false " +
+           "AND NOT EXISTS (SELECT r.id FROM Resena r WHERE r.cita = c) " +
+           "ORDER BY c.fechaHora ASC, c.id ASC")
+    List<Cita> findPendientesDeResenaDesde(@Param("desdeFecha") LocalDateTime desdeFecha,
+                                           @Param("desdeId") Long desdeId,
+                                           @Param("ahora") LocalDateTime ahora,
+                                           Pageable pageable);
+
+    /**
+     * Citas de [desde, hasta) que recibirán recordatorio de reseña, para programarlo en memoria
+     * (solo con el servicio, del que sale la hora de fin)
+     */
+    @Query("SELECT c FROM Cita c " +
+           "JOIN FETCH c.servicio s " +
+           "WHERE c.fechaHora >= :desde AND c.fechaHora < :hasta " +
+           "AND LOWER(c.estado) != 'cancelada' " +
+           "AND c.recordatorioResenaEnviado = false")
+    List<Cita> findPendientesDeResenaEntre(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Marca el recordatorio de reseña como enviado si la cita ya terminó (fecha_hora + duración del servicio),
+     * sigue activa y no tiene reseña. Devuelve 0 si otra instancia se adelantó o la cita ya no lo necesita.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cita c SET c.recordatorioResenaEnviado = true, c.fechaRecordatorioResena = :ahora " +
+           "WHERE c.id = :id AND c.recordatorioResenaEnviado = false " +
+           "AND EXISTS (SELECT s.id FROM Servicio s WHERE s = c.servicio " +
+           "  AND c.fechaHora + (s.duracionMinutos) minute <= :ahora) " +
            "AND LOWER(c.estado) != 'cancelada' " +
+           "AND NOT EXISTS (SELECT r.id FROM Resena r WHERE r.cita.id = c.id)")
+    int reclamarRecordatorioResena(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Devuelve a pendiente un recordatorio de reseña que no se pudo enviar y cuenta el intento fallido
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cita c SET c.recordatorioResenaEnviado = false, c.fechaRecordatorioResena = null, " +
+           "c.intentosRecordatorioResena = c.intentosRecordatorioResena + 1 WHERE c.id = :id")
+    int liberarRecordatorioResena(@Param("id") Long id);
+
+    /**
+     * Citas de la ventana cuyo recordatorio de reseña falló y aún tiene reintentos. La conciliación ya las dejó
+     * atrás, así que se reintentan aparte.
+     */
+    @Query("SELECT c FROM Cita c " +
+           "JOIN FETCH c.cliente cl " +
+           "JOIN FETCH c.servicio s " +
+           "WHERE c.fechaHora >= :desde AND c.fechaHora < :ahora " +
            "AND c.recordatorioResenaEnviado = false " +
+           "AND c.intentosRecordatorioResena > 0 AND c.intentosRecordatorioResena < :maxIntentos " +
+           "AND LOWER(c.estado) != 'cancelada' " +
            "AND NOT EXISTS (SELECT r.id FROM Resena r WHERE r.cita = c) " +
-           "ORDER BY c.fechaHora DESC")
-    List<Cita> findCitasPendientesDeResena(@Param("ahora") LocalDateTime ahora);
+           "ORDER BY c.fechaHora ASC, c.id ASC")
+    List<Cita> findReintentosDeResena(@Param("desde") LocalDateTime desde, @Param("ahora") LocalDateTime ahora,
+                                      @Param("maxIntentos") int maxIntentos);
 }
\ No newline at end of file
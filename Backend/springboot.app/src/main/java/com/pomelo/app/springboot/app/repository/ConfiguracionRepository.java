@@ -2,7 +2,11 @@ package com.pomelo.app.springboot.app.repository;
 
 import com.pomelo.app.springboot.app.entity.Configuracion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -12,4 +16,14 @@ public interface ConfiguracionRepository extends JpaRepository<Configuracion, Lo
     Optional<Configuracion> findByClave(String clave);
     
     boolean existsByClave(String clave);
-} 
\ No newline at end of file
+    
+    // Actualiza el valor e incrementa la versión en la misma sentencia (sin perder incrementos entre nodos)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Configuracion c SET c.valor = :valor, c.version = c.version + 1 WHERE c.clave = :clave")
+    int actualizarValor(@Param("clave") String clave, @Param("valor") String valor);
+    
+    // Cambia con cada alta o escritura de una clave; es lo único que se consulta al comprobar si hay cambios
+    @Query("SELECT COALESCE(SUM(c.version + 1), 0) FROM Configuracion c")
+    Long sumaVersiones();
+}
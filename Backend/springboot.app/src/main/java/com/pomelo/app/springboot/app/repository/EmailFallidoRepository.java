@@ -0,0 +1,9 @@
+package com.pomelo.app.springboot.app.repository;
+
+import com.pomelo.app.springboot.app.entity.EmailFallido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EmailFallidoRepository extends JpaRepository<EmailFallido, Long> {
+}
@@ -0,0 +1,20 @@
+package com.pomelo.app.springboot.app.repository;
+
+import com.pomelo.app.springboot.app.entity.EstadisticasResenas;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface EstadisticasResenasRepository extends JpaRepository<EstadisticasResenas, Long> {
+
+    // Bloquea la fila hasta el fin de la transacción para que dos reseñas simultáneas no pisen sus cambios
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM EstadisticasResenas e WHERE e.id = :id")
+    Optional<EstadisticasResenas> findByIdParaActualizar(@Param("id") Long id);
+}
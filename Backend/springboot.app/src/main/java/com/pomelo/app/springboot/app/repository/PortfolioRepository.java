@@ -2,7 +2,11 @@ package com.pomelo.app.springboot.app.repository;
 
 import com.pomelo.app.springboot.app.entity.Portfolio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 @Repository
@@ -22,4 +26,19 @@ public interface PortfolioRepository extends JpaRepository<Portfolio, Long> {
      * Cuenta el número total de fotos activas
      */
     long countByActivoTrue();
+    
+    /**
+     * Fotos que usan la misma imagen (el almacén guarda cada imagen una sola vez)
+     */
+    long countByImagenHash(String imagenHash);
+    
+    /**
+     * Fotos con imagen cuyas variantes aún no se han generado
+     */
+    List<Portfolio> findByImagenHashIsNotNullAndImagenVariantesIsNull();
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Portfolio p SET p.imagenVariantes = :variantes WHERE p.id = :id")
+    int actualizarVariantes(@Param("id") Long id, @Param("variantes") String variantes);
 } 
\ No newline at end of file
@@ -1,9 +1,9 @@
 package com.pomelo.app.springboot.app.repository;
 
 import com.pomelo.app.springboot.app.entity.Resena;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -28,15 +28,11 @@ public interface ResenaRepository extends JpaRepository<Resena, Long> {
     @Query("SELECT r FROM Resena r WHERE r.comentario IS NOT NULL AND r.comentario != '' ORDER BY r.fechaCreacion DESC")
     List<Resena> findResenasPublicas();
     
-    // Calcular promedio de calificaciones
-    @Query("SELECT AVG(r.calificacion) FROM Resena r")
-    Double getPromedioCalificaciones();
+    // Número de reseñas por calificación (para rehacer el agregado de EstadisticasResenas)
+    @Query("SELECT r.calificacion, COUNT(r) FROM Resena r GROUP BY r.calificacion")
+    List<Object[]> contarPorCalificacion();
     
-    // Contar total de reseñas
-    @Query("SELECT COUNT(r) FROM Resena r")
-    Long getTotalResenas();
-    
-    // Obtener reseñas con límite para la página principal
-    @Query("SELECT r FROM Resena r WHERE r.comentario IS NOT NULL AND r.comentario != '' ORDER BY r.fechaCreacion DESC")
-    List<Resena> findResenasPublicasLimitadas(@Param("limit") int limit);
-} 
\ No newline at end of file
+    // Últimas reseñas públicas con su cliente; el Pageable limita las filas en la propia consulta
+    @Query("SELECT r FROM Resena r JOIN FETCH r.cliente WHERE r.comentario IS NOT NULL AND r.comentario != '' ORDER BY r.fechaCreacion DESC, r.id DESC")
+    List<Resena> findResenasPublicasLimitadas(Pageable pageable);
+}
@@ -1,11 +1,36 @@
 package com.pomelo.app.springboot.app.repository;
 
 import com.pomelo.app.springboot.app.entity.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByEmail(String email);
     Optional<Usuario> findByResetPasswordToken(String token);
+
+    /**
+     * Usuarios con refresh token de Google Calendar cuyo token de acceso caduca antes del límite,
+     * recorridos por ID a partir de desdeId
+     */
+    @Query("SELECT u FROM Usuario u WHERE u.googleCalendarRefreshToken IS NOT NULL " +
+           "AND u.googleCalendarTokenExpiry < :limite AND u.id > :desdeId ORDER BY u.id")
+    List<Usuario> findConTokenGoogleCaducandoAntesDe(@Param("limite") LocalDateTime limite,
+                                                     @Param("desdeId") Long desdeId,
+                                                     Pageable pageable);
+
+    // Guardar los tokens de Google Calendar sin reescribir el resto del usuario, que puede estar desactualizado
+    @Transactional
+    @Modifying
+    @Query("UPDATE Usuario u SET u.googleCalendarToken = :token, u.googleCalendarRefreshToken = :refreshToken, " +
+           "u.googleCalendarTokenExpiry = :expiry WHERE u.id = :id")
+    int actualizarTokensGoogle(@Param("id") Long id, @Param("token") String token,
+                               @Param("refreshToken") String refreshToken, @Param("expiry") LocalDateTime expiry);
 }
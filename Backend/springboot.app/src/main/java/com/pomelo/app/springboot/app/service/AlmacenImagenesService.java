@@ -0,0 +1,155 @@
+package com.pomelo.app.springboot.app.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Almacén de imágenes en disco direccionado por contenido: cada imagen se guarda una sola vez
+ * con su SHA-256 como nombre (repartidas en subdirectorios por los dos primeros caracteres).
+ * Como el contenido de un hash no cambia nunca, los clientes pueden cachearlas indefinidamente.
+ */
+@Service
+public class AlmacenImagenesService {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    @Value("${app.imagenes.directorio:data/imagenes}")
+    private String directorio = "data/imagenes";
+
+    private Path raiz;
+
+    @PostConstruct
+    public void iniciar() throws IOException {
+        raiz = Paths.get(directorio).toAbsolutePath();
+        Files.createDirectories(raiz);
+    }
+
+    /**
+     * Guarda la imagen si no existe ya y devuelve su hash
+     */
+    public String guardar(byte[] datos) throws IOException {
+        String hash = hash(datos);
+        Path destino = ruta(hash);
+        if (Files.exists(destino)) {
+            return hash;
+        }
+        Files.createDirectories(destino.getParent());
+        // Se escribe en un temporal y se mueve, para que nunca se sirva una imagen a medio escribir
+        Path temporal = Files.createTempFile(destino.getParent(), hash, ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(datos);
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(true);
+        }
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Otra petición guardó la misma imagen a la vez
+            Files.deleteIfExists(temporal);
+        }
+        return hash;
+    }
+
+    public boolean existe(String hash) {
+        return esHashValido(hash) && Files.isRegularFile(ruta(hash));
+    }
+
+    public InputStream abrir(String hash) throws IOException {
+        return Files.newInputStream(ruta(hash));
+    }
+
+    public long tamano(String hash) throws IOException {
+        return Files.size(ruta(hash));
+    }
+
+    public void eliminar(String hash) throws IOException {
+        if (esHashValido(hash)) {
+            Files.deleteIfExists(ruta(hash));
+        }
+    }
+
+    /**
+     * Copia [desde, desde + longitud) de la imagen al canal de salida con FileChannel.transferTo,
+     * sin pasar el contenido por el heap cuando el destino lo permite
+     */
+    public void transferir(String hash, long desde, long longitud, WritableByteChannel destino) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta(hash), StandardOpenOption.READ)) {
+            long posicion = desde;
+            long restante = longitud;
+            while (restante > 0) {
+                long enviados = canal.transferTo(posicion, restante, destino);
+                if (enviados <= 0) {
+                    break;
+                }
+                posicion += enviados;
+                restante -= enviados;
+            }
+        }
+    }
+
+    /**
+     * Tipo MIME según la firma de los primeros bytes del fichero
+     */
+    public String tipo(String hash) throws IOException {
+        byte[] cabecera = new byte[12];
+        try (FileChannel canal = FileChannel.open(ruta(hash), StandardOpenOption.READ)) {
+            canal.read(ByteBuffer.wrap(cabecera));
+        }
+        return tipo(cabecera);
+    }
+
+    static String tipo(byte[] datos) {
+        if (datos.length >= 8 && (datos[0] & 0xFF) == 0x89 && datos[1] == 'P' && datos[2] == 'N' && datos[3] == 'G') {
+            return "image/png";
+        }
+        if (datos.length >= 3 && (datos[0] & 0xFF) == 0xFF && (datos[1] & 0xFF) == 0xD8 && (datos[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (datos.length >= 6 && datos[0] == 'G' && datos[1] == 'I' && datos[2] == 'F') {
+            return "image/gif";
+        }
+        if (datos.length >= 12 && datos[0] == 'R' && datos[1] == 'I' && datos[2] == 'F' && datos[3] == 'F'
+                && datos[8] == 'W' && datos[9] == 'E' && datos[10] == 'B' && datos[11] == 'P') {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    public static boolean esHashValido(String hash) {
+        return hash != null && HASH.matcher(hash).matches();
+    }
+
+    private Path ruta(String hash) {
+        if (!esHashValido(hash)) {
+            throw new IllegalArgumentException("Hash de imagen no válido");
+        }
+        return raiz.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static String hash(byte[] datos) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(datos));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.CalendarSyncTask;
+import com.pomelo.app.springboot.app.entity.Cita;
+import com.pomelo.app.springboot.app.entity.Servicio;
+import com.pomelo.app.springboot.app.entity.Usuario;
+import com.pomelo.app.springboot.app.repository.CalendarSyncTaskRepository;
+import com.pomelo.app.springboot.app.repository.CitaRepository;
+import com.pomelo.app.springboot.app.repository.ServicioRepository;
+import com.pomelo.app.springboot.app.repository.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Sincronización con Google Calendar fuera del hilo de la petición.
+ * Las citas encolan tareas en calendar_sync_task dentro de su transacción; un pool acotado las procesa
+ * con reintentos y respetando el orden de las tareas de cada calendario.
+ */
+@Service
+public class CalendarSyncService {
+
+    static final String CREAR = "CREAR";
+    static final String ELIMINAR = "ELIMINAR";
+    static final String CALENDARIO_CLIENTE = "CLIENTE";
+    static final String CALENDARIO_ADMIN = "ADMIN";
+    static final String PENDIENTE = "PENDIENTE";
+    static final String FALLIDA = "FALLIDA";
+
+    // Máximo de eliminaciones por petición batch a Google Calendar
+    private static final int TAMANO_LOTE = 50;
+
+    // Tareas que reserva cada pasada del planificador
+    private static final int TAREAS_POR_PASADA = 200;
+
+    @Autowired
+    private CalendarSyncTaskRepository calendarSyncTaskRepository;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ServicioRepository servicioRepository;
+
+    @Autowired
+    private GoogleCalendarService googleCalendarService;
+
+    @Value("${app.calendar-sync.hilos:4}")
+    private int hilos = 4;
+
+    @Value("${app.calendar-sync.max-intentos:8}")
+    private int maxIntentos = 8;
+
+    @Value("${app.calendar-sync.espera-inicial-segundos:30}")
+    private long esperaInicialSegundos = 30;
+
+    // Si una instancia cae con tareas reservadas, otra las retoma pasado este tiempo
+    @Value("${app.calendar-sync.reclamo-minutos:10}")
+    private long reclamoMinutos = 10;
+
+    private ExecutorService pool;
+
+    // Calendarios con un trabajo lanzado que aún no ha terminado
+    private final Set<String> enCurso = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void iniciar() {
+        pool = Executors.newFixedThreadPool(hilos);
+    }
+
+    @PreDestroy
+    public void detener() {
+        pool.shutdown();
+    }
+
+    /**
+     * Encola la creación del evento en el calendario del cliente (si es usuario de Google) y en el del admin
+     */
+    public void encolarCreacion(Cita cita) {
+        encolar(CREAR, cita);
+    }
+
+    public void encolarEliminacion(Cita cita) {
+        encolar(ELIMINAR, cita);
+    }
+
+    private void encolar(String operacion, Cita cita) {
+        List<CalendarSyncTask> tareas = new ArrayList<>(2);
+        if (googleCalendarService.isGoogleUser(cita.getCliente())) {
+            tareas.add(new CalendarSyncTask(operacion, CALENDARIO_CLIENTE, cita));
+        }
+        tareas.add(new CalendarSyncTask(operacion, CALENDARIO_ADMIN, cita));
+        calendarSyncTaskRepository.saveAll(tareas);
+    }
+
+    /**
+     * Reserva las tareas listas y las reparte por calendario entre los hilos del pool sin esperar a que terminen:
+     * cada calendario libera sus tareas al acabar y, mientras tanto, no se vuelve a lanzar.
+     */
+    @Scheduled(fixedDelayString = "${app.calendar-sync.intervalo-ms:2000}")
+    public void procesarPendientes() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Long> ids = calendarSyncTaskRepository.findIdsListas(ahora, PageRequest.of(0, TAREAS_POR_PASADA));
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        // Se reservan con una UPDATE condicional: si otra instancia se ha adelantado, esas tareas no son nuestras
+        String lote = UUID.randomUUID().toString();
+        if (calendarSyncTaskRepository.reclamar(ids, lote, ahora, ahora.plusMinutes(reclamoMinutos)) == 0) {
+            return;
+        }
+        List<CalendarSyncTask> pendientes;
+        try {
+            pendientes = calendarSyncTaskRepository.findByReclamoLoteOrderByIdAsc(lote);
+        } catch (RuntimeException e) {
+            // Si no se llegan a repartir, la reserva no se queda colgada hasta que caduque
+            calendarSyncTaskRepository.liberar(lote);
+            throw e;
+        }
+
+        // Las tareas de un mismo calendario se procesan en orden; calendarios distintos, en paralelo
+        Map<String, List<CalendarSyncTask>> porCalendario = new LinkedHashMap<>();
+        for (CalendarSyncTask tarea : pendientes) {
+            String clave = CALENDARIO_ADMIN.equals(tarea.getCalendario()) ? CALENDARIO_ADMIN : "cliente-" + tarea.getClienteId();
+            porCalendario.computeIfAbsent(clave, k -> new ArrayList<>()).add(tarea);
+        }
+
+        // El trabajo de cada calendario termina con margen antes de que caduque la reserva
+        LocalDateTime limite = ahora.plusSeconds(reclamoMinutos * 60 / 2);
+        for (Map.Entry<String, List<CalendarSyncTask>> calendario : porCalendario.entrySet()) {
+            String clave = calendario.getKey();
+            List<CalendarSyncTask> tareas = calendario.getValue();
+            if (!enCurso.add(clave)) {
+                // Ese calendario sigue procesándose desde una pasada anterior
+                liberar(tareas, lote);
+                continue;
+            }
+            try {
+                pool.submit(() -> {
+                    try {
+                        procesarEnOrden(tareas, limite);
+                    } catch (Exception e) {
+                        System.err.println("❌ Error en la sincronización con Google Calendar: " + e.getMessage());
+                    } finally {
+                        liberar(tareas, lote);
+                        enCurso.remove(clave);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // El pool se está cerrando
+                enCurso.remove(clave);
+                liberar(tareas, lote);
+            }
+        }
+    }
+
+    // Las completadas ya no existen; las que fallaron o no se alcanzaron vuelven a quedar libres
+    private void liberar(List<CalendarSyncTask> tareas, String lote) {
+        List<Long> ids = new ArrayList<>(tareas.size());
+        tareas.forEach(t -> ids.add(t.getId()));
+        try {
+            calendarSyncTaskRepository.liberarTareas(ids, lote);
+        } catch (Exception e) {
+            // La reserva caduca sola pasados reclamoMinutos
+            System.err.println("⚠️ No se pudieron liberar tareas de Google Calendar: " + e.getMessage());
+        }
+    }
+
+    private void procesarEnOrden(List<CalendarSyncTask> tareas, LocalDateTime limite) {
+        int i = 0;
+        while (i < tareas.size()) {
+            LocalDateTime ahora = LocalDateTime.now();
+            // Lo que no da tiempo a hacer se libera y lo recoge la siguiente pasada
+            if (ahora.isAfter(limite)) {
+                return;
+            }
+            // Si una tarea está esperando reintento, las siguientes del mismo calendario también esperan
+            if (esperandoReintento(tareas.get(i), ahora)) {
+                return;
+            }
+            // Las eliminaciones seguidas con ID de evento conocido (p. ej. una serie periódica) van en un solo lote
+            List<CalendarSyncTask> lote = eliminacionesConsecutivas(tareas, i, ahora);
+            boolean completado = lote.size() > 1 ? procesarLote(lote) : procesar(tareas.get(i));
+            if (!completado) {
+                return;
+            }
+            i += Math.max(lote.size(), 1);
+        }
+    }
+
+    private boolean esperandoReintento(CalendarSyncTask tarea, LocalDateTime ahora) {
+        return tarea.getProximoIntento() != null && tarea.getProximoIntento().isAfter(ahora);
+    }
+
+    private List<CalendarSyncTask> eliminacionesConsecutivas(List<CalendarSyncTask> tareas, int desde, LocalDateTime ahora) {
+        List<CalendarSyncTask> lote = new ArrayList<>();
+        for (int i = desde; i < tareas.size() && lote.size() < TAMANO_LOTE; i++) {
+            CalendarSyncTask tarea = tareas.get(i);
+            if (!ELIMINAR.equals(tarea.getOperacion()) || tarea.getEventId() == null || esperandoReintento(tarea, ahora)) {
+                break;
+            }
+            lote.add(tarea);
+        }
+        return lote;
+    }
+
+    boolean procesarLote(List<CalendarSyncTask> lote) {
+        try {
+            List<String> eventIds = new ArrayList<>(lote.size());
+            if (CALENDARIO_ADMIN.equals(lote.get(0).getCalendario())) {
+                // El calendario del admin mezcla citas de varios clientes: el propietario es siempre el admin
+                // y solo se saltan las tareas cuyo propio cliente ya no existe
+                Set<Long> clienteIds = new HashSet<>();
+                lote.forEach(t -> clienteIds.add(t.getClienteId()));
+                Set<Long> existentes = new HashSet<>();
+                usuarioRepository.findAllById(clienteIds).forEach(u -> existentes.add(u.getId()));
+                lote.stream().filter(t -> existentes.contains(t.getClienteId())).forEach(t -> eventIds.add(t.getEventId()));
+                googleCalendarService.pushDeleteEvents(null, true, eventIds);
+            } else {
+                Usuario cliente = usuarioRepository.findById(lote.get(0).getClienteId()).orElse(null);
+                if (cliente != null) {
+                    lote.forEach(t -> eventIds.add(t.getEventId()));
+                    googleCalendarService.pushDeleteEvents(cliente, false, eventIds);
+                }
+            }
+            calendarSyncTaskRepository.deleteAll(lote);
+            return true;
+        } catch (Exception e) {
+            boolean continuar = true;
+            for (CalendarSyncTask tarea : lote) {
+                continuar &= registrarFallo(tarea, e);
+            }
+            return continuar;
+        }
+    }
+
+    /**
+     * Ejecuta una tarea. Devuelve false si ha fallado y queda pendiente de reintento.
+     */
+    boolean procesar(CalendarSyncTask tarea) {
+        try {
+            ejecutar(tarea);
+            calendarSyncTaskRepository.delete(tarea);
+            return true;
+        } catch (Exception e) {
+            return registrarFallo(tarea, e);
+        }
+    }
+
+    /**
+     * Anota el fallo y programa el reintento. Devuelve true si la tarea se descarta por superar los intentos.
+     */
+    private boolean registrarFallo(CalendarSyncTask tarea, Exception e) {
+        tarea.setIntentos(tarea.getIntentos() + 1);
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        tarea.setUltimoError(error.length() > 500 ? error.substring(0, 500) : error);
+        if (tarea.getIntentos() >= maxIntentos) {
+            // Se abandona para no bloquear el resto de tareas del calendario
+            tarea.setEstado(FALLIDA);
+            System.err.println("❌ Tarea de Google Calendar #" + tarea.getId() + " descartada tras " + tarea.getIntentos() + " intentos: " + error);
+            calendarSyncTaskRepository.save(tarea);
+            return true;
+        }
+        long espera = Math.min(esperaInicialSegundos << (tarea.getIntentos() - 1), 3600);
+        tarea.setProximoIntento(LocalDateTime.now().plusSeconds(espera));
+        System.err.println("⚠️ Tarea de Google Calendar #" + tarea.getId() + " fallida (intento " + tarea.getIntentos() + "), reintento en " + espera + "s: " + error);
+        calendarSyncTaskRepository.save(tarea);
+        return false;
+    }
+
+    private void ejecutar(CalendarSyncTask tarea) {
+        Usuario cliente = usuarioRepository.findById(tarea.getClienteId()).orElse(null);
+        if (cliente == null) {
+            return;
+        }
+        boolean calendarioAdmin = CALENDARIO_ADMIN.equals(tarea.getCalendario());
+
+        if (CREAR.equals(tarea.getOperacion())) {
+            Cita cita = citaRepository.findByIdWithRelations(tarea.getCitaId()).orElse(null);
+            // Si la cita se canceló antes de sincronizarse no hay nada que crear
+            if (cita == null || "cancelada".equalsIgnoreCase(cita.getEstado())) {
+                return;
+            }
+            String eventId = googleCalendarService.pushCreateEvent(cita, cliente, calendarioAdmin);
+            if (eventId != null) {
+                if (calendarioAdmin) {
+                    citaRepository.actualizarEventoGoogleAdmin(cita.getId(), eventId);
+                } else {
+                    citaRepository.actualizarEventoGoogleCliente(cita.getId(), eventId);
+                }
+            }
+        } else {
+            Servicio servicio = servicioRepository.findById(tarea.getServicioId()).orElse(null);
+            if (servicio == null) {
+                return;
+            }
+            Cita cita = new Cita();
+            cita.setId(tarea.getCitaId());
+            cita.setCliente(cliente);
+            cita.setServicio(servicio);
+            cita.setFechaHora(tarea.getFechaHora());
+            googleCalendarService.pushDeleteEvent(cita, cliente, calendarioAdmin, eventIdDe(tarea, calendarioAdmin));
+            // La cita cancelada deja de apuntar al evento borrado (si se reprograma se crea uno nuevo)
+            if (tarea.getCitaId() != null) {
+                if (calendarioAdmin) {
+                    citaRepository.actualizarEventoGoogleAdmin(tarea.getCitaId(), null);
+                } else {
+                    citaRepository.actualizarEventoGoogleCliente(tarea.getCitaId(), null);
+                }
+            }
+        }
+    }
+
+    // El ID puede no estar en la tarea si el evento se creó después de encolar la eliminación
+    private String eventIdDe(CalendarSyncTask tarea, boolean calendarioAdmin) {
+        if (tarea.getEventId() != null || tarea.getCitaId() == null) {
+            return tarea.getEventId();
+        }
+        return citaRepository.findById(tarea.getCitaId())
+                .map(c -> calendarioAdmin ? c.getGoogleEventIdAdmin() : c.getGoogleEventIdCliente())
+                .orElse(null);
+    }
+}
@@ -0,0 +1,214 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Cita;
+import com.pomelo.app.springboot.app.repository.CitaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cancelación de todas las citas de un rango de fechas (al crear vacaciones).
+ * Las citas se cancelan con una sola UPDATE que las marca con un lote; los avisos (email al cliente,
+ * borrado del evento de Google Calendar y de los recordatorios programados) se hacen después en segundo
+ * plano, por tandas, y el progreso se consulta con el identificador del trabajo, que es el propio lote.
+ * Cada cita sale del lote al avisarse, así que lo que queda en la base de datos es lo pendiente: al arrancar
+ * se reanudan los lotes que un reinicio dejó a medias.
+ */
+@Service
+public class CancelacionMasivaService {
+
+    public static final String EN_CURSO = "EN_CURSO";
+    public static final String COMPLETADA = "COMPLETADA";
+    public static final String FALLIDA = "FALLIDA";
+
+    // Los trabajos terminados se olvidan pasado este tiempo
+    private static final long CONSERVAR_MINUTOS = 60;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private CalendarSyncService calendarSyncService;
+
+    @Autowired
+    private RecordatorioService recordatorioService;
+
+    @Autowired
+    private RecordatorioResenaService recordatorioResenaService;
+
+    @Autowired
+    private OcupacionService ocupacionService;
+
+    @Value("${app.cancelacion-masiva.tamano-lote:50}")
+    private int tamanoLote = 50;
+
+    private final ConcurrentHashMap<String, Trabajo> trabajos = new ConcurrentHashMap<>();
+
+    private ExecutorService ejecutor;
+
+    @PostConstruct
+    public void iniciar() {
+        ejecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdown();
+    }
+
+    /**
+     * Cancela las citas no canceladas entre fechaInicio y fechaFin (ambos días incluidos) y lanza los avisos
+     * en segundo plano. Devuelve el trabajo, ya con el total de citas canceladas.
+     */
+    public Trabajo cancelarEntre(LocalDate fechaInicio, LocalDate fechaFin, String motivo) {
+        purgarTerminados();
+        String lote = UUID.randomUUID().toString();
+        int total = citaRepository.cancelarEntre(fechaInicio.atStartOfDay(), fechaFin.atTime(23, 59, 59), motivo, lote);
+        ocupacionService.invalidarRango(fechaInicio, fechaFin);
+
+        Trabajo trabajo = new Trabajo(lote, total);
+        trabajos.put(lote, trabajo);
+        System.out.println("🏖️ " + total + " citas canceladas entre " + fechaInicio + " y " + fechaFin + " (trabajo " + lote + ")");
+        if (total == 0) {
+            trabajo.terminar(COMPLETADA);
+        } else {
+            ejecutor.submit(() -> notificar(trabajo));
+        }
+        return trabajo;
+    }
+
+    /**
+     * Reanuda los avisos de las cancelaciones que quedaron sin terminar en una ejecución anterior
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reanudarPendientes() {
+        try {
+            for (String lote : citaRepository.findCancelacionLotesPendientes()) {
+                if (trabajos.containsKey(lote)) {
+                    continue;
+                }
+                Trabajo trabajo = new Trabajo(lote, citaRepository.findIdsByCancelacionLote(lote).size());
+                trabajos.put(lote, trabajo);
+                System.out.println("🔁 Reanudando el trabajo de cancelación " + lote + " (" + trabajo.getTotal() + " citas por avisar)");
+                ejecutor.submit(() -> notificar(trabajo));
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error al reanudar los trabajos de cancelación: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Progreso de un trabajo, o null si no existe o ya se ha olvidado
+     */
+    public Trabajo obtener(String id) {
+        return trabajos.get(id);
+    }
+
+    void notificar(Trabajo trabajo) {
+        try {
+            List<Long> ids = citaRepository.findIdsByCancelacionLote(trabajo.getId());
+            for (int desde = 0; desde < ids.size(); desde += tamanoLote) {
+                List<Long> tanda = ids.subList(desde, Math.min(desde + tamanoLote, ids.size()));
+                for (Cita cita : citaRepository.findByIdInWithRelations(tanda)) {
+                    notificarCita(cita, trabajo);
+                }
+            }
+            trabajo.terminar(COMPLETADA);
+            System.out.println("✅ Trabajo de cancelación " + trabajo.getId() + " terminado: " + trabajo.getEmailsEnviados()
+                    + " emails, " + trabajo.getErrores() + " errores");
+        } catch (Exception e) {
+            trabajo.terminar(FALLIDA);
+            System.err.println("❌ Error en el trabajo de cancelación " + trabajo.getId() + ": " + e.getMessage());
+        }
+    }
+
+    // Un fallo con una cita no detiene el resto: se cuenta como error y se sigue
+    private void notificarCita(Cita cita, Trabajo trabajo) {
+        // Se marca como avisada antes de avisar: tras un reinicio no se repite el email
+        if (citaRepository.reclamarAvisoCancelacion(cita.getId(), trabajo.getId()) == 0) {
+            trabajo.procesadas++;
+            return;
+        }
+        recordatorioService.desprogramar(cita.getId());
+        recordatorioResenaService.desprogramar(cita.getId());
+        boolean correcta = true;
+        try {
+            calendarSyncService.encolarEliminacion(cita);
+        } catch (Exception e) {
+            correcta = false;
+            System.err.println("❌ Error al encolar el borrado del evento de la cita " + cita.getId() + ": " + e.getMessage());
+        }
+        try {
+            emailService.enviarCancelacionCita(
+                cita.getCliente().getEmail(),
+                cita.getCliente().getNombre(),
+                cita.getServicio().getNombre(),
+                cita.getFechaHora(),
+                cita.getServicio().getDuracionMinutos(),
+                cita.getServicio().getPrecio()
+            );
+            trabajo.emailsEnviados++;
+        } catch (Exception e) {
+            correcta = false;
+            System.err.println("❌ Error al enviar el email de cancelación de la cita " + cita.getId() + ": " + e.getMessage());
+        }
+        if (!correcta) {
+            trabajo.errores++;
+        }
+        trabajo.procesadas++;
+    }
+
+    private void purgarTerminados() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(CONSERVAR_MINUTOS);
+        trabajos.values().removeIf(t -> t.fin != null && t.fin.isBefore(limite));
+    }
+
+    /**
+     * Progreso de una cancelación masiva. Solo lo modifica el hilo del trabajo; los campos son volatile
+     * para que las consultas de progreso vean los valores actuales.
+     */
+    public static final class Trabajo {
+        private final String id;
+        private final int total;
+        private final LocalDateTime inicio = LocalDateTime.now();
+        private volatile String estado = EN_CURSO;
+        private volatile int procesadas;
+        private volatile int emailsEnviados;
+        private volatile int errores;
+        private volatile LocalDateTime fin;
+
+        Trabajo(String id, int total) {
+            this.id = id;
+            this.total = total;
+        }
+
+        private void terminar(String estadoFinal) {
+            fin = LocalDateTime.now();
+            estado = estadoFinal;
+        }
+
+        public String getId() { return id; }
+        public int getTotal() { return total; }
+        public String getEstado() { return estado; }
+        public int getProcesadas() { return procesadas; }
+        public int getEmailsEnviados() { return emailsEnviados; }
+        public int getErrores() { return errores; }
+        public LocalDateTime getInicio() { return inicio; }
+        public LocalDateTime getFin() { return fin; }
+    }
+}
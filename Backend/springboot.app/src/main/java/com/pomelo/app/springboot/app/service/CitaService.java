@@ -1,5 +1,8 @@
 package com.pomelo.app.springboot.app.service;
 
+import com.pomelo.app.springboot.app.dto.CitaAdmin;
+import com.pomelo.app.springboot.app.dto.InformeCitasFijas;
+import com.pomelo.app.springboot.app.dto.PaginaCitasAdmin;
 import com.pomelo.app.springboot.app.entity.Cita;
 import com.pomelo.app.springboot.app.entity.Servicio;
 import com.pomelo.app.springboot.app.entity.Usuario;
@@ -8,17 +11,47 @@ import com.pomelo.app.springboot.app.repository.ServicioRepository;
 import com.pomelo.app.springboot.app.repository.UsuarioRepository;
 import com.pomelo.app.springboot.app.service.ConfiguracionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 @Service
 public class CitaService {
 
+    // Bloqueos por día para que la comprobación de huecos y el guardado sean atómicos.
+    // Se reparten por día del calendario: solo esperan entre sí las reservas del mismo día.
+    private static final int NUM_BLOQUEOS_DIA = 64;
+    private final ReentrantLock[] bloqueosDia = new ReentrantLock[NUM_BLOQUEOS_DIA];
+
+    // Repeticiones que se crean para una cita fija (aproximadamente 6 meses si es semanal)
+    private static final int REPETICIONES_CITA_FIJA = 26;
+
+    // Máximo de citas por página del listado del admin
+    public static final int LIMITE_MAXIMO_PAGINA_ADMIN = 500;
+
+    {
+        for (int i = 0; i < NUM_BLOQUEOS_DIA; i++) {
+            bloqueosDia[i] = new ReentrantLock();
+        }
+    }
+
     @Autowired
     private CitaRepository citaRepository;
 
@@ -38,7 +71,28 @@ public class CitaService {
     private EmailService emailService;
 
     @Autowired
-    private GoogleCalendarService googleCalendarService;
+    private CalendarSyncService calendarSyncService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OcupacionService ocupacionService;
+
+    @Autowired
+    private HorarioService horarioService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RecordatorioService recordatorioService;
+
+    @Autowired
+    private RecordatorioResenaService recordatorioResenaService;
+
+    @Autowired
+    private ResenaService resenaService;
 
     public Cita crearCita(Cita cita, String rolUsuario) {
         // Validar tiempo mínimo de reserva para usuarios no admin
@@ -59,33 +113,13 @@ public class CitaService {
             throw new RuntimeException("No se pueden crear citas en días de vacaciones");
         }
         
-        // Verificar disponibilidad
-        if (!verificarDisponibilidad(cita)) {
-            throw new RuntimeException("No hay disponibilidad para la fecha y hora seleccionada");
-        }
-        
+        // Verificar disponibilidad y guardar bajo el bloqueo del día
         cita.setEstado("confirmada");
-        Cita citaGuardada = citaRepository.save(cita);
-        
-        // Intentar crear eventos en Google Calendar para usuarios de Google y admin
-        try {
-            System.out.println("🎯 Intentando crear eventos en Google Calendar...");
-            
-            // Recargar el usuario desde la base de datos para obtener los tokens más recientes
-            Usuario usuarioActualizado = usuarioRepository.findByEmail(citaGuardada.getCliente().getEmail()).orElse(citaGuardada.getCliente());
-            
-            googleCalendarService.createCalendarEventsForUserAndAdmin(citaGuardada, usuarioActualizado);
-            System.out.println("✅ Eventos de Google Calendar creados exitosamente");
-        } catch (Exception e) {
-            // No fallar la creación de la cita si falla el Google Calendar
-            System.err.println("❌ Error al crear eventos en Google Calendar: " + e.getMessage());
-            System.err.println("⚠️ La cita se creó correctamente, pero falló la integración con Google Calendar");
-            // No hacer e.printStackTrace() para evitar logs muy largos
-        } catch (Error e) {
-            // Capturar también errores de inicialización de clases
-            System.err.println("❌ Error de inicialización en Google Calendar: " + e.getMessage());
-            System.err.println("⚠️ La cita se creó correctamente, pero falló la integración con Google Calendar");
+        Cita citaGuardada = reservarSiLibre(cita, "ADMIN".equals(rolUsuario));
+        if (citaGuardada == null) {
+            throw new RuntimeException("No hay disponibilidad para la fecha y hora seleccionada");
         }
+        programarRecordatorios(citaGuardada);
         
         return citaGuardada;
     }
@@ -100,17 +134,7 @@ public class CitaService {
         }
     }
 
-    public List<Cita> listarCitasPorUsuario(Long usuarioId) {
-        try {
-            Usuario usuario = usuarioRepository.findById(usuarioId)
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-            // Obtener todas las citas del usuario, incluyendo las completadas
-            return citaRepository.findByClienteOrderByFechaHoraDesc(usuario);
-        } catch (Exception e) {
-            throw new RuntimeException("Error al listar citas del usuario: " + e.getMessage(), e);
-        }
-    }
-
+    @Transactional
     public void cancelarCita(Long citaId) {
         try {
             Cita cita = citaRepository.findById(citaId)
@@ -133,14 +157,8 @@ public class CitaService {
             if (cita.isFija() && cita.getPeriodicidadDias() != null && cita.getPeriodicidadDias() > 0) {
                 List<Cita> citasPeriodicas = citaRepository.findByClienteAndFijaTrueAndPeriodicidadDiasIsNotNull(cita.getCliente());
                 
-                // Intentar eliminar eventos de Google Calendar para todas las citas periódicas
-                for (Cita citaPeriodica : citasPeriodicas) {
-                    try {
-                        googleCalendarService.deleteCalendarEventsForUserAndAdmin(citaPeriodica, citaPeriodica.getCliente());
-                    } catch (Exception e) {
-                        System.err.println("Error al eliminar eventos de Google Calendar: " + e.getMessage());
-                    }
-                }
+                // Eliminar los eventos de Google Calendar en segundo plano
+                citasPeriodicas.forEach(calendarSyncService::encolarEliminacion);
                 
                 // Enviar email de cancelación para citas periódicas
                 try {
@@ -159,10 +177,16 @@ public class CitaService {
                 }
                 
                 citaRepository.deleteAll(citasPeriodicas);
+                citasPeriodicas.forEach(c -> ocupacionService.invalidar(c.getFechaHora().toLocalDate()));
+                citasPeriodicas.forEach(c -> desprogramarRecordatorios(c.getId()));
+                // Las reseñas de las citas ya pasadas de la serie se borran en cascada
+                resenaService.recalcularTrasBorradoEnCascada();
             } else {
                 // Si no es periódica, solo cambiar el estado
                 cita.setEstado("cancelada");
                 citaRepository.save(cita);
+                ocupacionService.invalidar(cita.getFechaHora().toLocalDate());
+                desprogramarRecordatorios(cita.getId());
                 
                 // Enviar email de cancelación al cliente
                 try {
@@ -180,139 +204,174 @@ public class CitaService {
                     // No fallar la cancelación si falla el email
                 }
                 
-                // Intentar eliminar eventos de Google Calendar
-                try {
-                    googleCalendarService.deleteCalendarEventsForUserAndAdmin(cita, cita.getCliente());
-                } catch (Exception e) {
-                    System.err.println("Error al eliminar eventos de Google Calendar: " + e.getMessage());
-                }
+                // Eliminar los eventos de Google Calendar en segundo plano
+                calendarSyncService.encolarEliminacion(cita);
             }
         } catch (Exception e) {
             throw new RuntimeException("Error al cancelar la cita: " + e.getMessage(), e);
         }
     }
 
-    public Cita crearCitaFija(Cita cita, int periodicidadDias) {
+    /**
+     * Crea una cita fija y sus repeticiones para los próximos 6 meses.
+     * Las citas y vacaciones del periodo se leen una sola vez, los conflictos se resuelven en memoria
+     * y las repeticiones aceptadas se insertan en un único lote JDBC.
+     */
+    public InformeCitasFijas crearCitaFija(Cita cita, int periodicidadDias) {
         try {
+            if (periodicidadDias <= 0) {
+                throw new RuntimeException("La periodicidad debe ser de al menos 1 día");
+            }
+
             // Validar que no sea un día de vacaciones para la cita inicial
             LocalDate fechaCita = cita.getFechaHora().toLocalDate();
             if (vacacionesService.esFechaVacaciones(fechaCita)) {
                 throw new RuntimeException("No se pueden crear citas en días de vacaciones");
             }
-            
-            // Verificar disponibilidad para la cita inicial
-            boolean citaInicialDisponible = verificarDisponibilidad(cita);
-            
-            Cita citaGuardada = null;
-            int citasCreadas = 0;
-            int citasOmitidas = 0;
-            int diasVacaciones = 0;
-            
-            // Crear la cita inicial solo si está disponible
-            if (citaInicialDisponible) {
-                cita.setFija(true);
-                cita.setPeriodicidadDias(periodicidadDias);
-                citaGuardada = citaRepository.save(cita);
-                citasCreadas++;
-                System.out.println("✅ Cita inicial creada: " + cita.getFechaHora());
-            } else {
-                citasOmitidas++;
-                System.out.println("⚠️  Cita inicial omitida (horario ocupado): " + cita.getFechaHora());
+
+            Servicio servicio = servicioRepository.findById(cita.getServicio().getId())
+                    .orElseThrow(() -> new RuntimeException("Servicio no encontrado"));
+            cita.setServicio(servicio);
+            cita.setFija(true);
+            cita.setPeriodicidadDias(periodicidadDias);
+
+            // Fechas de la serie: la inicial y las repeticiones futuras (aproximadamente 26 semanas)
+            LocalDateTime ahora = LocalDateTime.now();
+            List<LocalDateTime> fechas = new ArrayList<>();
+            fechas.add(cita.getFechaHora());
+            for (int i = 1; i <= REPETICIONES_CITA_FIJA; i++) {
+                LocalDateTime nuevaFecha = cita.getFechaHora().plusDays((long) periodicidadDias * i);
+                if (nuevaFecha.isAfter(ahora)) {
+                    fechas.add(nuevaFecha);
+                }
             }
-            
-            // Crear citas adicionales para los próximos 6 meses (aproximadamente 26 semanas)
-            LocalDateTime fechaActual = cita.getFechaHora();
-            
-            System.out.println("Creando citas periódicas cada " + periodicidadDias + " días...");
-            
-            for (int i = 1; i <= 26; i++) {
-                LocalDateTime nuevaFecha = fechaActual.plusDays(periodicidadDias * i);
-                
-                // Solo crear citas futuras
-                if (nuevaFecha.isAfter(LocalDateTime.now())) {
-                    // Verificar si es día de vacaciones
-                    LocalDate fechaNuevaCita = nuevaFecha.toLocalDate();
-                    if (vacacionesService.esFechaVacaciones(fechaNuevaCita)) {
-                        diasVacaciones++;
-                        System.out.println("Omitiendo día de vacaciones: " + nuevaFecha.toLocalDate());
-                        continue; // Saltar días de vacaciones
+            LocalDate primerDia = fechaCita;
+            LocalDate ultimoDia = fechas.get(fechas.size() - 1).toLocalDate();
+
+            InformeCitasFijas informe = new InformeCitasFijas();
+            informe.setPeriodicidadDias(periodicidadDias);
+            List<Cita> aceptadas = new ArrayList<>();
+
+            // Se toman los bloqueos de todos los días de la serie (en orden, para no interbloquear)
+            List<ReentrantLock> bloqueos = bloqueosDe(fechas);
+            bloqueos.forEach(ReentrantLock::lock);
+            try {
+                Set<LocalDate> diasVacaciones = new HashSet<>(vacacionesService.diasBloqueados(primerDia, ultimoDia));
+                Map<LocalDate, List<Cita>> existentesPorDia = citaRepository
+                        .findActivasConServicioEntre(primerDia.atStartOfDay(), ultimoDia.plusDays(1).atStartOfDay())
+                        .stream()
+                        .collect(Collectors.groupingBy(c -> c.getFechaHora().toLocalDate()));
+
+                for (int i = 0; i < fechas.size(); i++) {
+                    LocalDateTime fecha = fechas.get(i);
+                    if (diasVacaciones.contains(fecha.toLocalDate())) {
+                        informe.getOmitidasVacaciones().add(fecha.toString());
+                        continue;
                     }
-                    
-                    // Crear cita temporal para verificar disponibilidad
-                    Cita citaTemporal = new Cita();
-                    citaTemporal.setCliente(cita.getCliente());
-                    citaTemporal.setServicio(cita.getServicio());
-                    citaTemporal.setFechaHora(nuevaFecha);
-                    citaTemporal.setComentario(cita.getComentario());
-                    citaTemporal.setFija(true);
-                    citaTemporal.setPeriodicidadDias(periodicidadDias);
-                    citaTemporal.setEstado(cita.getEstado());
-                    
-                    // Verificar disponibilidad para esta fecha específica
-                    if (verificarDisponibilidad(citaTemporal)) {
-                        citaRepository.save(citaTemporal);
-                        citasCreadas++;
-                        System.out.println("Cita periódica creada: " + nuevaFecha);
-                    } else {
-                        citasOmitidas++;
-                        System.out.println("Omitiendo fecha ocupada: " + nuevaFecha + " - Horario no disponible");
+                    if (haySolape(fecha, servicio.getDuracionMinutos(), existentesPorDia.getOrDefault(fecha.toLocalDate(), List.of()))) {
+                        informe.getOmitidasOcupadas().add(fecha.toString());
+                        continue;
                     }
+                    aceptadas.add(i == 0 ? cita : repeticionDe(cita, fecha));
+                    informe.getCreadas().add(fecha.toString());
                 }
-            }
-            
-            // Log de información detallada sobre las citas creadas
-            System.out.println("=== RESUMEN DE CITAS PERIÓDICAS ===");
-            System.out.println("✅ Citas creadas exitosamente: " + citasCreadas);
-            if (citasOmitidas > 0) {
-                System.out.println("⚠️  Citas omitidas (horarios ocupados): " + citasOmitidas);
-            }
-            if (diasVacaciones > 0) {
-                System.out.println("🏖️  Días de vacaciones omitidos: " + diasVacaciones);
-            }
-            System.out.println("📅 Periodicidad: cada " + periodicidadDias + " días");
-            System.out.println("=====================================");
-            
-            // Si no se creó ninguna cita, lanzar excepción
-            if (citasCreadas == 0) {
-                throw new RuntimeException("No se pudo crear ninguna cita periódica. Todas las fechas están ocupadas o son días de vacaciones.");
-            }
-            
-            // Si no se creó la cita inicial, devolver la primera cita creada
-            if (citaGuardada == null) {
-                // Buscar la primera cita creada en el bucle
-                List<Cita> citasCreadasEnBD = citaRepository.findByClienteAndFijaTrueAndPeriodicidadDiasIsNotNull(cita.getCliente());
-                if (!citasCreadasEnBD.isEmpty()) {
-                    citaGuardada = citasCreadasEnBD.get(0);
+
+                if (aceptadas.isEmpty()) {
+                    throw new RuntimeException("No se pudo crear ninguna cita periódica. Todas las fechas están ocupadas o son días de vacaciones.");
+                }
+
+                // La primera se guarda con JPA para devolverla con su id; el resto se inserta en lote.
+                // Ambas escrituras van en la misma transacción: si falla el lote no queda la primera suelta.
+                informe.setCita(transactionTemplate.execute(status -> {
+                    Cita primera = citaRepository.save(aceptadas.get(0));
+                    insertarEnLote(aceptadas.subList(1, aceptadas.size()));
+                    return primera;
+                }));
+                aceptadas.forEach(ocupacionService::registrarCita);
+                // Las repeticiones sin id (insertadas en lote) las programa la conciliación al entrar en el horizonte
+                programarRecordatorios(informe.getCita());
+            } finally {
+                for (int i = bloqueos.size() - 1; i >= 0; i--) {
+                    bloqueos.get(i).unlock();
                 }
             }
-            
+
+            int citasCreadas = informe.getCreadas().size();
+            int citasOmitidas = informe.getOmitidasOcupadas().size();
+            int diasVacaciones = informe.getOmitidasVacaciones().size();
+            System.out.println("📅 Serie de citas fijas cada " + periodicidadDias + " días: " + citasCreadas + " creadas, "
+                    + citasOmitidas + " ocupadas, " + diasVacaciones + " en vacaciones");
+
             // Enviar email de notificación de cita periódica
-            if (citaGuardada != null) {
-                try {
-                    String fechaInicioFormateada = cita.getFechaHora().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
-                    emailService.enviarNotificacionCitaPeriodica(
-                        cita.getCliente().getEmail(),
-                        cita.getCliente().getNombre(),
-                        cita.getServicio().getNombre(),
-                        fechaInicioFormateada,
-                        periodicidadDias,
-                        citasCreadas,
-                        citasOmitidas,
-                        diasVacaciones
-                    );
-                    System.out.println("✅ Email de notificación de cita periódica enviado a: " + cita.getCliente().getEmail());
-                } catch (Exception e) {
-                    System.err.println("❌ Error al enviar email de notificación: " + e.getMessage());
-                    // No lanzar excepción para no interrumpir el proceso de creación
-                }
+            try {
+                String fechaInicioFormateada = cita.getFechaHora().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
+                emailService.enviarNotificacionCitaPeriodica(
+                    cita.getCliente().getEmail(),
+                    cita.getCliente().getNombre(),
+                    servicio.getNombre(),
+                    fechaInicioFormateada,
+                    periodicidadDias,
+                    citasCreadas,
+                    citasOmitidas,
+                    diasVacaciones
+                );
+                System.out.println("✅ Email de notificación de cita periódica enviado a: " + cita.getCliente().getEmail());
+            } catch (Exception e) {
+                System.err.println("❌ Error al enviar email de notificación: " + e.getMessage());
+                // No lanzar excepción para no interrumpir el proceso de creación
             }
-            
-            return citaGuardada;
+
+            return informe;
         } catch (Exception e) {
             throw new RuntimeException("Error al crear cita fija: " + e.getMessage(), e);
         }
     }
 
+    private Cita repeticionDe(Cita cita, LocalDateTime fechaHora) {
+        Cita repeticion = new Cita();
+        repeticion.setCliente(cita.getCliente());
+        repeticion.setServicio(cita.getServicio());
+        repeticion.setFechaHora(fechaHora);
+        repeticion.setComentario(cita.getComentario());
+        repeticion.setFija(true);
+        repeticion.setPeriodicidadDias(cita.getPeriodicidadDias());
+        repeticion.setEstado(cita.getEstado());
+        return repeticion;
+    }
+
+    // Mismo criterio de solape que verificarDisponibilidad
+    private boolean haySolape(LocalDateTime inicio, int duracionMinutos, List<Cita> existentes) {
+        LocalDateTime fin = inicio.plusMinutes(duracionMinutos);
+        for (Cita existente : existentes) {
+            LocalDateTime inicioExistente = existente.getFechaHora();
+            LocalDateTime finExistente = inicioExistente.plusMinutes(existente.getServicio().getDuracionMinutos());
+            if (inicio.isBefore(finExistente) && fin.isAfter(inicioExistente)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void insertarEnLote(List<Cita> citas) {
+        if (citas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO cita (cliente_id, servicio_id, fecha_hora, estado, comentario, fija, periodicidad_dias, " +
+            "recordatorio_resena_enviado, recordatorio_cita_enviado) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+            citas, citas.size(), (ps, c) -> {
+                ps.setLong(1, c.getCliente().getId());
+                ps.setLong(2, c.getServicio().getId());
+                ps.setTimestamp(3, Timestamp.valueOf(c.getFechaHora()));
+                ps.setString(4, c.getEstado());
+                ps.setString(5, c.getComentario());
+                ps.setBoolean(6, c.isFija());
+                ps.setObject(7, c.getPeriodicidadDias());
+                ps.setBoolean(8, false);
+                ps.setBoolean(9, false);
+            });
+    }
+
     public void borrarCitaFija(Long citaId) {
         try {
             Cita cita = citaRepository.findById(citaId)
@@ -323,6 +382,9 @@ public class CitaService {
             }
 
             citaRepository.delete(cita);
+            ocupacionService.invalidar(cita.getFechaHora().toLocalDate());
+            desprogramarRecordatorios(cita.getId());
+            resenaService.recalcularTrasBorradoEnCascada();
         } catch (Exception e) {
             throw new RuntimeException("Error al borrar cita fija: " + e.getMessage(), e);
         }
@@ -344,22 +406,204 @@ public class CitaService {
         }
     }
 
-    public List<Cita> listarTodasLasCitas() {
+    /**
+     * Horas de inicio libres de un día para la duración y el rol indicados
+     */
+    public List<String> calcularHorasLibres(LocalDate dia, int duracion, String userRole) {
+        try {
+            if (vacacionesService.esFechaVacaciones(dia)) {
+                return List.of();
+            }
+            List<LocalTime> libres = horasLibres(dia, duracion, "ADMIN".equals(userRole), LocalDateTime.now(),
+                configuracionService.obtenerTiempoMinimo(), ocupacionService.ocupacionDe(dia));
+            List<String> horas = new ArrayList<>(libres.size());
+            for (LocalTime hora : libres) {
+                horas.add(hora.toString().substring(0, 5));
+            }
+            return horas;
+        } catch (Exception e) {
+            throw new RuntimeException("Error al calcular disponibilidad: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Calcula los slots libres de cada día de un mes con una consulta de citas (las vacaciones están en memoria).
+     * Devuelve un array indexado por día del mes (posición 0 = día 1).
+     */
+    public int[] calcularDisponibilidadMes(YearMonth mes, int duracion, String userRole) {
+        try {
+            boolean esAdmin = "ADMIN".equals(userRole);
+            LocalDate primerDia = mes.atDay(1);
+            LocalDate ultimoDia = mes.atEndOfMonth();
+            LocalDateTime ahora = LocalDateTime.now();
+            int tiempoMinimo = configuracionService.obtenerTiempoMinimo();
+
+            Map<LocalDate, OcupacionService.OcupacionDia> ocupacion = ocupacionService.cargarRango(primerDia, ultimoDia);
+            Set<LocalDate> diasVacaciones = new HashSet<>(vacacionesService.diasBloqueados(mes));
+
+            int[] libresPorDia = new int[mes.lengthOfMonth()];
+            for (int dia = 1; dia <= libresPorDia.length; dia++) {
+                LocalDate fecha = mes.atDay(dia);
+                if (diasVacaciones.contains(fecha)) {
+                    continue;
+                }
+                libresPorDia[dia - 1] = horasLibres(fecha, duracion, esAdmin, ahora, tiempoMinimo, ocupacion.get(fecha)).size();
+            }
+            return libresPorDia;
+        } catch (Exception e) {
+            throw new RuntimeException("Error al calcular disponibilidad del mes: " + e.getMessage(), e);
+        }
+    }
+
+    // Recorre la tabla de slots precalculada del día y descarta los ocupados o demasiado próximos
+    private List<LocalTime> horasLibres(LocalDate fecha, int duracion, boolean esAdmin, LocalDateTime ahora,
+                                        int tiempoMinimo, OcupacionService.OcupacionDia ocupacion) {
+        HorarioService.TablaDia tabla = horarioService.tablaDia(fecha.getDayOfWeek(), esAdmin);
+        int slotsNecesarios = tabla.slotsNecesarios(duracion);
+        List<LocalTime> libres = new ArrayList<>();
+        for (int i = 0; i < tabla.numeroSlots(); i++) {
+            if (!tabla.admiteInicio(i, slotsNecesarios)) continue;
+            LocalTime slotInicio = tabla.slot(i);
+
+            // Comprobar restricción de tiempo mínimo para usuarios no-admin
+            if (!esAdmin && ChronoUnit.HOURS.between(ahora, LocalDateTime.of(fecha, slotInicio)) < tiempoMinimo) {
+                continue;
+            }
+
+            boolean hueco = true;
+            for (int j = 0; j < slotsNecesarios; j++) {
+                if (!ocupacion.estaLibre(tabla.slot(i + j), tabla.duracionSlot())) { hueco = false; break; }
+            }
+            if (hueco) {
+                libres.add(slotInicio);
+            }
+        }
+        return libres;
+    }
+
+    /**
+     * Descarta la ocupación calculada de un día (por ejemplo, al mover una cita a otra fecha)
+     */
+    public void invalidarOcupacion(LocalDate fecha) {
+        ocupacionService.invalidar(fecha);
+    }
+
+    /**
+     * Cita no cancelada con su cliente y servicio, o null si no existe
+     */
+    public Cita buscarCitaActiva(Long citaId) {
+        return citaRepository.findByIdWithRelations(citaId)
+            .filter(cita -> !"cancelada".equals(cita.getEstado()))
+            .orElse(null);
+    }
+
+    /**
+     * Todas las citas no canceladas para el calendario del admin, en una sola consulta sin cargar entidades
+     */
+    public List<CitaAdmin> listarTodasLasCitas() {
         try {
-            // Filtrar citas canceladas para que no aparezcan en el calendario del admin
-            return citaRepository.findAll().stream()
-                .filter(cita -> !"cancelada".equals(cita.getEstado()))
-                .collect(java.util.stream.Collectors.toList());
+            return citaRepository.findTodasCitasAdmin();
         } catch (Exception e) {
             throw new RuntimeException("Error al listar todas las citas: " + e.getMessage(), e);
         }
     }
 
-    private boolean verificarDisponibilidad(Cita cita) {
+    /**
+     * Página de citas no canceladas entre desde y hasta (ambos días incluidos), ordenadas por fecha e id.
+     * La primera página se pide sin despuesFecha ni despuesId; las siguientes, con los de la página anterior.
+     */
+    public PaginaCitasAdmin listarCitasAdmin(LocalDate desde, LocalDate hasta, LocalDateTime despuesFecha,
+                                             Long despuesId, int limite) {
+        if (hasta.isBefore(desde)) {
+            throw new RuntimeException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA_ADMIN) {
+            throw new RuntimeException("El límite debe estar entre 1 y " + LIMITE_MAXIMO_PAGINA_ADMIN);
+        }
+        LocalDateTime inicio = desde.atStartOfDay();
+        if (despuesFecha == null || despuesId == null) {
+            despuesFecha = inicio;
+            despuesId = 0L;
+        }
+        // Se pide una fila de más para saber si hay otra página sin contar el total
+        List<CitaAdmin> citas = citaRepository.findCitasAdmin(inicio, hasta.plusDays(1).atStartOfDay(),
+            despuesFecha, despuesId, PageRequest.of(0, limite + 1));
+        boolean hayMas = citas.size() > limite;
+        if (hayMas) {
+            citas = citas.subList(0, limite);
+        }
+        CitaAdmin ultima = hayMas ? citas.get(citas.size() - 1) : null;
+        return new PaginaCitasAdmin(citas, hayMas,
+            ultima != null ? ultima.fechaHora() : null, ultima != null ? ultima.id() : null);
+    }
+
+    /**
+     * Comprueba el hueco y guarda la cita mientras se tiene el bloqueo de su día,
+     * de forma que dos reservas simultáneas del mismo hueco no puedan entrar ambas.
+     * La sincronización con Google Calendar queda encolada y no retrasa la respuesta.
+     * Devuelve la cita guardada o null si el hueco ya no está libre.
+     */
+    private Cita reservarSiLibre(Cita cita, boolean esAdmin) {
+        ReentrantLock bloqueo = bloqueoDia(cita.getFechaHora().toLocalDate());
+        bloqueo.lock();
+        try {
+            // La cita y sus tareas de Google Calendar se confirman juntas antes de soltar el bloqueo
+            Cita citaGuardada = transactionTemplate.execute(status -> {
+                if (!verificarDisponibilidad(cita, esAdmin)) {
+                    return null;
+                }
+                Cita guardada = citaRepository.save(cita);
+                calendarSyncService.encolarCreacion(guardada);
+                return guardada;
+            });
+            ocupacionService.registrarCita(citaGuardada);
+            return citaGuardada;
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    private void programarRecordatorios(Cita cita) {
+        recordatorioService.programar(cita);
+        recordatorioResenaService.programar(cita);
+    }
+
+    private void desprogramarRecordatorios(Long citaId) {
+        recordatorioService.desprogramar(citaId);
+        recordatorioResenaService.desprogramar(citaId);
+    }
+
+    private ReentrantLock bloqueoDia(LocalDate fecha) {
+        return bloqueosDia[indiceBloqueo(fecha)];
+    }
+
+    private List<ReentrantLock> bloqueosDe(List<LocalDateTime> fechas) {
+        Set<Integer> indices = new TreeSet<>();
+        for (LocalDateTime fecha : fechas) {
+            indices.add(indiceBloqueo(fecha.toLocalDate()));
+        }
+        List<ReentrantLock> bloqueos = new ArrayList<>(indices.size());
+        for (int indice : indices) {
+            bloqueos.add(bloqueosDia[indice]);
+        }
+        return bloqueos;
+    }
+
+    private int indiceBloqueo(LocalDate fecha) {
+        return (int) Math.floorMod(fecha.toEpochDay(), (long) NUM_BLOQUEOS_DIA);
+    }
+
+    private boolean verificarDisponibilidad(Cita cita, boolean esAdmin) {
         try {
             Servicio servicio = servicioRepository.findById(cita.getServicio().getId())
                     .orElseThrow(() -> new RuntimeException("Servicio no encontrado"));
 
+            // Los clientes solo pueden reservar en los slots del horario semanal
+            if (!esAdmin && !horarioService.admiteReserva(cita.getFechaHora(), servicio.getDuracionMinutos(), false)) {
+                System.out.println("❌ Hora fuera del horario de reservas: " + cita.getFechaHora());
+                return false;
+            }
+
             LocalDateTime inicio = cita.getFechaHora();
             LocalDateTime fin = inicio.plusMinutes(servicio.getDuracionMinutos());
 
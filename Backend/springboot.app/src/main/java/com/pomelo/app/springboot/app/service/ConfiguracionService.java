@@ -3,59 +3,121 @@ package com.pomelo.app.springboot.app.service;
 import com.pomelo.app.springboot.app.entity.Configuracion;
 import com.pomelo.app.springboot.app.repository.ConfiguracionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Configuración de la aplicación (tabla configuracion).
+ * Todas las claves se cargan de una vez en una instantánea inmutable que se lee sin bloqueos;
+ * cada escritura la sustituye entera. Los demás nodos detectan el cambio comprobando cada pocos
+ * segundos la suma de versiones de la tabla, una consulta que no lee los valores.
+ */
 @Service
 public class ConfiguracionService {
-    
+
     @Autowired
     private ConfiguracionRepository configuracionRepository;
-    
+
     private static final String CLAVE_TIEMPO_MINIMO = "tiempo_minimo_reserva";
-    
+    private static final int TIEMPO_MINIMO_POR_DEFECTO = 24;
+
+    private volatile Instantanea instantanea;
+
     public void configurarTiempoMinimo(int horasMinimas) {
-        Optional<Configuracion> configOpt = configuracionRepository.findByClave(CLAVE_TIEMPO_MINIMO);
-        
-        if (configOpt.isPresent()) {
-            // Actualizar configuración existente
-            Configuracion config = configOpt.get();
-            config.setValor(String.valueOf(horasMinimas));
-            configuracionRepository.save(config);
-        } else {
-            // Crear nueva configuración
-            Configuracion config = new Configuracion(
-                CLAVE_TIEMPO_MINIMO, 
-                String.valueOf(horasMinimas), 
-                "Tiempo mínimo en horas para reservar una cita"
-            );
-            configuracionRepository.save(config);
-        }
-    }
-    
+        guardarValor(CLAVE_TIEMPO_MINIMO, String.valueOf(horasMinimas), "Tiempo mínimo en horas para reservar una cita");
+    }
+
     public int obtenerTiempoMinimo() {
-        Optional<Configuracion> configOpt = configuracionRepository.findByClave(CLAVE_TIEMPO_MINIMO);
-        
-        if (configOpt.isPresent()) {
-            try {
-                return Integer.parseInt(configOpt.get().getValor());
-            } catch (NumberFormatException e) {
-                return 24; // Valor por defecto
-            }
+        return obtenerEntero(CLAVE_TIEMPO_MINIMO, TIEMPO_MINIMO_POR_DEFECTO);
+    }
+
+    /**
+     * Valor de una clave de configuración, o null si no existe
+     */
+    public String obtenerValor(String clave) {
+        return obtenerInstantanea().valores.get(clave);
+    }
+
+    /**
+     * Valor entero de una clave, o el valor por defecto si no existe o no es un número
+     */
+    public int obtenerEntero(String clave, int porDefecto) {
+        String valor = obtenerValor(clave);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            return porDefecto;
         }
-        
-        return 24; // Valor por defecto si no existe configuración
     }
-    
+
+    public void guardarValor(String clave, String valor, String descripcion) {
+        if (configuracionRepository.actualizarValor(clave, valor) == 0) {
+            configuracionRepository.save(new Configuracion(clave, valor, descripcion));
+        }
+        recargar();
+    }
+
     public boolean puedeReservar(String rolUsuario, int horasAntes) {
         // Los administradores pueden reservar en cualquier momento
         if ("ADMIN".equals(rolUsuario)) {
             return true;
         }
-        
+
         // Para usuarios normales, verificar el tiempo mínimo
         int tiempoMinimo = obtenerTiempoMinimo();
         return horasAntes >= tiempoMinimo;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Recarga la configuración si otro nodo (o un cambio hecho con la API en este) ha modificado la tabla.
+     * Los cambios hechos a mano en la base de datos sin tocar la columna version no se detectan.
+     */
+    @Scheduled(fixedDelayString = "${app.configuracion.refresco-ms:5000}")
+    public void comprobarCambios() {
+        Instantanea actual = instantanea;
+        if (actual == null) {
+            return;
+        }
+        try {
+            if (actual.version != configuracionRepository.sumaVersiones()) {
+                recargar();
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error al comprobar cambios de configuración: " + e.getMessage());
+        }
+    }
+
+    private Instantanea obtenerInstantanea() {
+        Instantanea actual = instantanea;
+        return actual != null ? actual : recargar();
+    }
+
+    // La versión se lee antes que los valores: si cambian entre medias, la siguiente comprobación recarga otra vez
+    private synchronized Instantanea recargar() {
+        long version = configuracionRepository.sumaVersiones();
+        Map<String, String> valores = new HashMap<>();
+        for (Configuracion config : configuracionRepository.findAll()) {
+            valores.put(config.getClave(), config.getValor());
+        }
+        Instantanea nueva = new Instantanea(Collections.unmodifiableMap(valores), version);
+        instantanea = nueva;
+        return nueva;
+    }
+
+    private static final class Instantanea {
+        private final Map<String, String> valores;
+        private final long version;
+
+        Instantanea(Map<String, String> valores, long version) {
+            this.valores = valores;
+            this.version = version;
+        }
+    }
+}
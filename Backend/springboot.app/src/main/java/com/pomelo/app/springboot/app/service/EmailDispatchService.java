@@ -0,0 +1,237 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.EmailFallido;
+import com.pomelo.app.springboot.app.repository.EmailFallidoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola de envío de emails. Unos pocos hilos sacan los mensajes por lotes y envían cada lote
+ * en una única sesión SMTP, con límite de envíos por segundo, reintentos con espera creciente
+ * y, si se agotan, el mensaje se guarda en email_fallido en lugar de perderse.
+ */
+@Service
+public class EmailDispatchService {
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private EmailFallidoRepository emailFallidoRepository;
+
+    @Value("${app.email.hilos:2}")
+    private int hilos = 2;
+
+    @Value("${app.email.capacidad-cola:1000}")
+    private int capacidadCola = 1000;
+
+    @Value("${app.email.tamano-lote:20}")
+    private int tamanoLote = 20;
+
+    // 0 = sin límite
+    @Value("${app.email.max-por-segundo:5}")
+    private double maxPorSegundo = 5;
+
+    @Value("${app.email.max-intentos:5}")
+    private int maxIntentos = 5;
+
+    @Value("${app.email.espera-inicial-ms:2000}")
+    private long esperaInicialMs = 2000;
+
+    // Tiempo máximo que espera quien encola si la cola está llena
+    @Value("${app.email.espera-encolar-ms:5000}")
+    private long esperaEncolarMs = 5000;
+
+    private BlockingQueue<CorreoPendiente> cola;
+    private ExecutorService trabajadores;
+    private ScheduledExecutorService reintentos;
+    private volatile boolean activo;
+
+    // Instante (System.nanoTime) a partir del cual se puede enviar el siguiente mensaje
+    private final AtomicLong proximoEnvio = new AtomicLong(Long.MIN_VALUE);
+
+    @PostConstruct
+    public void iniciar() {
+        cola = new ArrayBlockingQueue<>(capacidadCola);
+        reintentos = Executors.newSingleThreadScheduledExecutor();
+        trabajadores = Executors.newFixedThreadPool(hilos);
+        activo = true;
+        for (int i = 0; i < hilos; i++) {
+            trabajadores.submit(this::atenderCola);
+        }
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        // Los hilos terminan de vaciar la cola antes de salir
+        activo = false;
+        reintentos.shutdownNow();
+        trabajadores.shutdown();
+        trabajadores.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Encola un mensaje para enviarlo en segundo plano
+     */
+    public void encolar(MimeMessage mensaje) {
+        encolar(new CorreoPendiente(mensaje));
+    }
+
+    private void encolar(CorreoPendiente correo) {
+        try {
+            if (!cola.offer(correo, esperaEncolarMs, TimeUnit.MILLISECONDS)) {
+                guardarFallido(correo, "Cola de emails llena");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            guardarFallido(correo, "Interrumpido al encolar");
+        }
+    }
+
+    private void atenderCola() {
+        List<CorreoPendiente> lote = new ArrayList<>(tamanoLote);
+        while (activo || !cola.isEmpty()) {
+            try {
+                CorreoPendiente primero = cola.poll(500, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, tamanoLote - 1);
+                enviarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("❌ Error inesperado en el envío de emails: " + e.getMessage());
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    /**
+     * Envía el lote en una sola conexión SMTP y reprograma solo los mensajes que han fallado
+     */
+    void enviarLote(List<CorreoPendiente> lote) throws InterruptedException {
+        esperarTurno(lote.size());
+        MimeMessage[] mensajes = new MimeMessage[lote.size()];
+        for (int i = 0; i < lote.size(); i++) {
+            mensajes[i] = lote.get(i).mensaje;
+        }
+        try {
+            mailSender.send(mensajes);
+            System.out.println("📤 Lote de " + mensajes.length + " email(s) enviado");
+        } catch (MailSendException e) {
+            Map<Object, Exception> fallidos = e.getFailedMessages();
+            for (CorreoPendiente correo : lote) {
+                Exception error = fallidos.isEmpty() ? e : fallidos.get(correo.mensaje);
+                if (error != null) {
+                    reintentarODescartar(correo, error);
+                }
+            }
+        } catch (MailException e) {
+            // Fallo de conexión o autenticación: no ha salido ningún mensaje del lote
+            for (CorreoPendiente correo : lote) {
+                reintentarODescartar(correo, e);
+            }
+        }
+    }
+
+    private void esperarTurno(int mensajes) throws InterruptedException {
+        if (maxPorSegundo <= 0) {
+            return;
+        }
+        long intervalo = (long) (TimeUnit.SECONDS.toNanos(1) / maxPorSegundo);
+        long ahora = System.nanoTime();
+        long turno = proximoEnvio.getAndAccumulate(mensajes * intervalo, (previo, reservado) -> Math.max(previo, ahora) + reservado);
+        long espera = Math.max(turno, ahora) - ahora;
+        if (espera > 0) {
+            TimeUnit.NANOSECONDS.sleep(espera);
+        }
+    }
+
+    private void reintentarODescartar(CorreoPendiente correo, Exception error) {
+        correo.intentos++;
+        String mensaje = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        if (correo.intentos >= maxIntentos) {
+            guardarFallido(correo, mensaje);
+            return;
+        }
+        long espera = Math.min(esperaInicialMs << (correo.intentos - 1), TimeUnit.MINUTES.toMillis(5));
+        System.err.println("⚠️ Email a " + destinatarios(correo.mensaje) + " fallido (intento " + correo.intentos + "), reintento en " + espera + "ms: " + mensaje);
+        try {
+            reintentos.schedule(() -> encolar(correo), espera, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // La aplicación se está parando
+            guardarFallido(correo, mensaje);
+        }
+    }
+
+    private void guardarFallido(CorreoPendiente correo, String error) {
+        try {
+            EmailFallido fallido = new EmailFallido();
+            fallido.setDestinatarios(recortar(destinatarios(correo.mensaje)));
+            fallido.setAsunto(recortar(correo.mensaje.getSubject()));
+            ByteArrayOutputStream contenido = new ByteArrayOutputStream();
+            correo.mensaje.writeTo(contenido);
+            fallido.setContenido(contenido.toByteArray());
+            fallido.setIntentos(correo.intentos);
+            fallido.setUltimoError(recortar(error));
+            emailFallidoRepository.save(fallido);
+            System.err.println("❌ Email a " + fallido.getDestinatarios() + " descartado tras " + correo.intentos + " intentos: " + error);
+        } catch (Exception e) {
+            System.err.println("❌ No se pudo guardar el email fallido: " + e.getMessage());
+        }
+    }
+
+    private String destinatarios(MimeMessage mensaje) {
+        try {
+            Address[] direcciones = mensaje.getAllRecipients();
+            if (direcciones == null) {
+                return "";
+            }
+            List<String> texto = new ArrayList<>(direcciones.length);
+            for (Address direccion : direcciones) {
+                texto.add(direccion.toString());
+            }
+            return String.join(", ", texto);
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private String recortar(String texto) {
+        return texto != null && texto.length() > 500 ? texto.substring(0, 500) : texto;
+    }
+
+    static class CorreoPendiente {
+        private final MimeMessage mensaje;
+        private int intentos = 0;
+
+        CorreoPendiente(MimeMessage mensaje) {
+            this.mensaje = mensaje;
+        }
+    }
+}
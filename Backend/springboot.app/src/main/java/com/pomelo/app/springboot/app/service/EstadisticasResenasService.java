@@ -0,0 +1,117 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.EstadisticasResenas;
+import com.pomelo.app.springboot.app.repository.EstadisticasResenasRepository;
+import com.pomelo.app.springboot.app.repository.ResenaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Mantiene el agregado de las reseñas (suma, total y reparto por estrellas) en la tabla resenas_estadisticas
+ * y una copia en memoria, que es la que se consulta. ResenaService lo actualiza con cada cambio dentro
+ * de su transacción; la copia en memoria se sustituye al confirmarla.
+ */
+@Service
+public class EstadisticasResenasService {
+
+    @Autowired
+    private EstadisticasResenasRepository estadisticasResenasRepository;
+
+    @Autowired
+    private ResenaRepository resenaRepository;
+
+    private volatile EstadisticasResenas actuales = new EstadisticasResenas();
+
+    /**
+     * Estadísticas actuales. La instancia devuelta no se modifica nunca; cada cambio publica una nueva.
+     */
+    public EstadisticasResenas obtener() {
+        return actuales;
+    }
+
+    /**
+     * Carga el agregado guardado al arrancar y lo relee periódicamente por si otra instancia lo ha cambiado
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.resenas.estadisticas.refresco-ms:300000}",
+               fixedDelayString = "${app.resenas.estadisticas.refresco-ms:300000}")
+    public void cargar() {
+        try {
+            EstadisticasResenas fila = estadisticasResenasRepository.findById(EstadisticasResenas.ID).orElse(null);
+            if (fila == null) {
+                // Sin agregado guardado: se calcula solo en memoria; la fila se crea con la próxima reseña
+                fila = new EstadisticasResenas();
+                fila.reiniciar(contarPorEstrellas());
+            }
+            sustituir(fila.copia());
+        } catch (Exception e) {
+            System.err.println("❌ Error al cargar las estadísticas de reseñas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica el cambio de una reseña: anterior es null al crearla y nueva es null al borrarla
+     */
+    @Transactional
+    public void registrar(Integer anterior, Integer nueva) {
+        EstadisticasResenas fila = estadisticasResenasRepository.findByIdParaActualizar(EstadisticasResenas.ID).orElse(null);
+        if (fila == null) {
+            // Sin agregado guardado: se calcula desde la tabla, que ya incluye este cambio
+            recalcular();
+            return;
+        }
+        fila.aplicar(anterior, nueva);
+        publicar(estadisticasResenasRepository.saveAndFlush(fila).copia());
+    }
+
+    /**
+     * Rehace el agregado con una sola consulta agrupada. Se usa cuando se borran reseñas sin pasar por
+     * ResenaService (borrado en cascada de citas o usuarios).
+     */
+    @Transactional
+    public void recalcular() {
+        EstadisticasResenas agregado = estadisticasResenasRepository.findByIdParaActualizar(EstadisticasResenas.ID)
+                .orElseGet(EstadisticasResenas::new);
+        agregado.reiniciar(contarPorEstrellas());
+        publicar(estadisticasResenasRepository.saveAndFlush(agregado).copia());
+    }
+
+    // Número de reseñas de cada estrella (posiciones 1..5)
+    private long[] contarPorEstrellas() {
+        long[] porEstrellas = new long[6];
+        for (Object[] fila : resenaRepository.contarPorCalificacion()) {
+            int estrellas = ((Number) fila[0]).intValue();
+            if (estrellas >= 1 && estrellas <= 5) {
+                porEstrellas[estrellas] = ((Number) fila[1]).longValue();
+            }
+        }
+        return porEstrellas;
+    }
+
+    private void publicar(EstadisticasResenas nuevas) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sustituir(nuevas);
+                }
+            });
+        } else {
+            sustituir(nuevas);
+        }
+    }
+
+    // Dos transacciones pueden confirmar en orden distinto al de sus afterCommit: se queda la versión más reciente
+    private synchronized void sustituir(EstadisticasResenas nuevas) {
+        Long versionActual = actuales.getVersion();
+        if (versionActual == null || nuevas.getVersion() == null || nuevas.getVersion() >= versionActual) {
+            actuales = nuevas;
+        }
+    }
+}
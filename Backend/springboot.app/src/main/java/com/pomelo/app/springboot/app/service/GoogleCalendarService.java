@@ -21,6 +21,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.List;
 
 @Service
 public class GoogleCalendarService {
@@ -37,6 +38,13 @@ public class GoogleCalendarService {
     @Value("${admin.google.calendar.enabled:true}")
     private boolean adminCalendarEnabled;
 
+    // Configurable para poder apuntar a un servidor de pruebas en lugar de Google
+    @Value("${google.calendar.api-url:https://www.googleapis.com/calendar/v3}")
+    private String calendarApiUrl = "https://www.googleapis.com/calendar/v3";
+
+    @Value("${google.calendar.batch-url:https://www.googleapis.com/batch/calendar/v3}")
+    private String calendarBatchUrl = "https://www.googleapis.com/batch/calendar/v3";
+
     private static final String APPLICATION_NAME = "Esential Barber";
     private static NetHttpTransport HTTP_TRANSPORT;
     private static final GsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
@@ -65,13 +73,46 @@ public class GoogleCalendarService {
         SERVICE_COLORS.put("capilar", "#4ECDC4");
     }
 
+    @Value("${google.http.request-timeout-ms:10000}")
+    private long requestTimeoutMs = 10000;
+
     private final UsuarioRepository usuarioRepository;
     private final com.pomelo.app.springboot.app.repository.ServicioRepository servicioRepository;
+    private final java.net.http.HttpClient httpClient;
+    private final GoogleTokenService googleTokenService;
+
+    // Nombre de servicio (en minúsculas) -> colorId de Google Calendar; se vacía al modificar servicios
+    private final java.util.concurrent.ConcurrentHashMap<String, String> colorIdCache = new java.util.concurrent.ConcurrentHashMap<>();
 
     public GoogleCalendarService(UsuarioRepository usuarioRepository, 
-                               com.pomelo.app.springboot.app.repository.ServicioRepository servicioRepository) {
+                               com.pomelo.app.springboot.app.repository.ServicioRepository servicioRepository,
+                               java.net.http.HttpClient httpClient,
+                               GoogleTokenService googleTokenService) {
         this.usuarioRepository = usuarioRepository;
         this.servicioRepository = servicioRepository;
+        this.httpClient = httpClient;
+        this.googleTokenService = googleTokenService;
+    }
+
+    /**
+     * colorId de Google Calendar para un servicio, calculado una vez y reutilizado en los siguientes eventos
+     */
+    private String getServiceColorId(String serviceName) {
+        String key = serviceName == null ? "" : serviceName.trim().toLowerCase();
+        return colorIdCache.computeIfAbsent(key, k -> getColorId(getServiceColor(serviceName)));
+    }
+
+    /**
+     * Descarta los colores calculados (llamar cuando cambia el nombre o el color de un servicio)
+     */
+    public void invalidateServiceColors() {
+        colorIdCache.clear();
+    }
+
+    private java.net.http.HttpRequest.Builder newRequest(String url) {
+        return java.net.http.HttpRequest.newBuilder()
+                .uri(java.net.URI.create(url))
+                .timeout(java.time.Duration.ofMillis(requestTimeoutMs));
     }
 
     /**
@@ -88,10 +129,6 @@ public class GoogleCalendarService {
         // Buscar el servicio en la base de datos
         try {
             var servicios = servicioRepository.findAll();
-            System.out.println("📋 Servicios disponibles en DB: " + servicios.size());
-            for (var servicio : servicios) {
-                System.out.println("   - " + servicio.getNombre() + " (Color: " + servicio.getColorGoogleCalendar() + ")");
-            }
             
             // Buscar por nombre exacto
             for (var servicio : servicios) {
@@ -378,9 +415,25 @@ public class GoogleCalendarService {
         System.out.println("   - Token Not Expired: " + tokenNotExpired);
         System.out.println("   - Has Token: " + hasToken);
         System.out.println("   - Has Refresh Token: " + hasRefreshToken);
-        System.out.println("   - Is Authorized: " + (hasToken && tokenNotExpired));
+        System.out.println("   - Is Authorized: " + (hasToken && (tokenNotExpired || hasRefreshToken)));
         
-        return hasToken && tokenNotExpired;
+        // Un token caducado con refresh token sigue siendo válido: se renueva antes de usarlo
+        return hasToken && (tokenNotExpired || hasRefreshToken);
+    }
+
+    /**
+     * Token de acceso listo para usar. Normalmente ya está renovado por GoogleTokenRefreshService;
+     * solo si no ha llegado a tiempo se renueva aquí.
+     */
+    private String getAccessToken(Usuario usuario) {
+        String token = googleTokenService.tokenVigente(usuario);
+        if (token != null) {
+            return token;
+        }
+        System.out.println("🔑 Renovando token de Google Calendar de " + usuario.getEmail() + " al vuelo");
+        GoogleTokenService.TokenRenovado renovado = googleTokenService.renovar(usuario.getGoogleCalendarRefreshToken());
+        saveCalendarTokens(usuario, renovado.getAccessToken(), renovado.getRefreshToken(), renovado.getExpiry());
+        return renovado.getAccessToken();
     }
 
     /**
@@ -395,7 +448,8 @@ public class GoogleCalendarService {
         usuario.setGoogleCalendarToken(accessToken);
         usuario.setGoogleCalendarRefreshToken(refreshToken);
         usuario.setGoogleCalendarTokenExpiry(expiry);
-        usuarioRepository.save(usuario);
+        usuarioRepository.actualizarTokensGoogle(usuario.getId(), accessToken, refreshToken, expiry);
+        googleTokenService.registrar(usuario);
         
         System.out.println("✅ Tokens guardados correctamente");
     }
@@ -417,48 +471,63 @@ public class GoogleCalendarService {
                 .setTransport(transport)
                 .setJsonFactory(JSON_FACTORY)
                 .build()
-                .setAccessToken(usuario.getGoogleCalendarToken())
+                .setAccessToken(getAccessToken(usuario))
                 .setRefreshToken(usuario.getGoogleCalendarRefreshToken());
     }
 
     /**
-     * Crea un evento en el Google Calendar del usuario usando HTTP directo
+     * Crea el evento de una cita en un único calendario: el del cliente o el del admin.
+     * Si la cita ya tiene evento en ese calendario (por ejemplo, al reprogramarla) lo actualiza.
+     * Devuelve el ID del evento, o null si ese calendario no está autorizado.
+     * Lanza excepción si Google responde con error para que la tarea se pueda reintentar.
      */
-    public void createCalendarEvent(Cita cita, Usuario usuario) {
-        try {
-            System.out.println("🎯 Intentando crear evento en Calendar para usuario: " + usuario.getEmail());
-            System.out.println("   - Nombre: " + usuario.getNombre());
-            System.out.println("   - Password: " + usuario.getPassword());
-            System.out.println("   - Google Picture URL: " + usuario.getGooglePictureUrl());
-            System.out.println("   - Google Calendar Token: " + (usuario.getGoogleCalendarToken() != null ? "SÍ" : "NO"));
-            System.out.println("   - Google Calendar Refresh Token: " + (usuario.getGoogleCalendarRefreshToken() != null ? "SÍ" : "NO"));
-            System.out.println("   - Token Expiry: " + usuario.getGoogleCalendarTokenExpiry());
-            
-            if (!isGoogleUser(usuario)) {
-                System.out.println("❌ Usuario no es de Google, saltando creación de evento en Calendar");
-                return;
-            }
+    public String pushCreateEvent(Cita cita, Usuario cliente, boolean adminCalendar) {
+        if (adminCalendar) {
+            Usuario adminUser = getAuthorizedAdmin();
+            return adminUser != null ? createCalendarEventForAdmin(cita, adminUser, cliente, cita.getGoogleEventIdAdmin()) : null;
+        }
+        if (isGoogleUser(cliente) && isCalendarAuthorized(cliente)) {
+            return createCalendarEventWithHttp(cita, cliente, cita.getGoogleEventIdCliente());
+        }
+        return null;
+    }
 
-            System.out.println("✅ Usuario es de Google, verificando autorización de Calendar...");
-            
-            if (!isCalendarAuthorized(usuario)) {
-                System.out.println("❌ Usuario no autorizado para Google Calendar: " + usuario.getEmail());
-                return;
+    /**
+     * Crea el evento o, si ya tiene ID, lo actualiza en su sitio. Devuelve el ID del evento.
+     */
+    private String sendEvent(String token, String eventJson, String existingEventId) throws Exception {
+        if (existingEventId != null) {
+            java.net.http.HttpRequest update = newRequest(calendarApiUrl + "/calendars/primary/events/" + existingEventId)
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "application/json")
+                    .PUT(java.net.http.HttpRequest.BodyPublishers.ofString(eventJson))
+                    .build();
+            java.net.http.HttpResponse<String> response = httpClient.send(update, java.net.http.HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200) {
+                return existingEventId;
             }
+            if (response.statusCode() != 404 && response.statusCode() != 410) {
+                throw new RuntimeException("Google Calendar respondió " + response.statusCode() + ": " + response.body());
+            }
+            // El evento ya no existe en Google: se crea de nuevo
+        }
 
-            // Intentar crear evento usando HTTP directo
-            createCalendarEventWithHttp(cita, usuario);
-
-        } catch (Exception e) {
-            System.err.println("❌ Error general en createCalendarEvent: " + e.getMessage());
-            e.printStackTrace();
+        java.net.http.HttpRequest request = newRequest(calendarApiUrl + "/calendars/primary/events")
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(java.net.http.HttpRequest.BodyPublishers.ofString(eventJson))
+                .build();
+        java.net.http.HttpResponse<String> response = httpClient.send(request, java.net.http.HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200 && response.statusCode() != 201) {
+            throw new RuntimeException("Google Calendar respondió " + response.statusCode() + ": " + response.body());
         }
+        return new Gson().fromJson(response.body(), JsonObject.class).get("id").getAsString();
     }
 
     /**
      * Crea un evento usando HTTP directo a la API de Google Calendar
      */
-    private void createCalendarEventWithHttp(Cita cita, Usuario usuario) {
+    private String createCalendarEventWithHttp(Cita cita, Usuario usuario, String existingEventId) {
         try {
             System.out.println("🔧 Creando evento usando HTTP directo...");
             
@@ -475,10 +544,7 @@ public class GoogleCalendarService {
                             "\nComentario: " + (cita.getComentario() != null ? cita.getComentario() : "Sin comentarios"));
             
             // Añadir color al evento
-            String serviceColor = getServiceColor(cita.getServicio().getNombre());
-            String colorId = getColorId(serviceColor);
-            event.addProperty("colorId", colorId);
-            System.out.println("🎨 Color asignado para " + cita.getServicio().getNombre() + ": " + serviceColor + " (ID: " + colorId + ")");
+            event.addProperty("colorId", getServiceColorId(cita.getServicio().getNombre()));
             
             // Configurar fecha y hora de inicio
             JsonObject start = new JsonObject();
@@ -495,62 +561,111 @@ public class GoogleCalendarService {
             String eventJson = new Gson().toJson(event);
             System.out.println("📝 JSON del evento: " + eventJson);
             
-            // Crear la petición HTTP
-            java.net.http.HttpClient client = java.net.http.HttpClient.newHttpClient();
-            java.net.http.HttpRequest request = java.net.http.HttpRequest.newBuilder()
-                    .uri(java.net.URI.create("https://www.googleapis.com/calendar/v3/calendars/primary/events"))
-                    .header("Authorization", "Bearer " + usuario.getGoogleCalendarToken())
-                    .header("Content-Type", "application/json")
-                    .POST(java.net.http.HttpRequest.BodyPublishers.ofString(eventJson))
-                    .build();
-            
-            System.out.println("📡 Enviando petición HTTP a Google Calendar API...");
-            java.net.http.HttpResponse<String> response = client.send(request, java.net.http.HttpResponse.BodyHandlers.ofString());
-            
-            System.out.println("📊 Respuesta del servidor:");
-            System.out.println("   - Status Code: " + response.statusCode());
-            System.out.println("   - Response Body: " + response.body());
-            
-            if (response.statusCode() == 200 || response.statusCode() == 201) {
-                System.out.println("✅ Evento creado exitosamente en Google Calendar");
-                System.out.println("   Usuario: " + usuario.getEmail());
-                System.out.println("   Cita: " + cita.getServicio().getNombre() + " - " + cita.getFechaHora());
-            } else {
-                System.err.println("❌ Error al crear evento en Google Calendar");
-                System.err.println("   Status Code: " + response.statusCode());
-                System.err.println("   Response: " + response.body());
-            }
+            System.out.println("📡 Enviando evento a Google Calendar API...");
+            String eventId = sendEvent(getAccessToken(usuario), eventJson, existingEventId);
+            System.out.println("✅ Evento guardado en Google Calendar: " + eventId);
+            System.out.println("   Usuario: " + usuario.getEmail());
+            System.out.println("   Cita: " + cita.getServicio().getNombre() + " - " + cita.getFechaHora());
+            return eventId;
             
         } catch (Exception e) {
             System.err.println("❌ Error al crear evento con HTTP directo: " + e.getMessage());
-            e.printStackTrace();
+            throw e instanceof RuntimeException re ? re : new RuntimeException(e.getMessage(), e);
         }
     }
 
     /**
-     * Elimina un evento del Google Calendar del usuario usando HTTP directo
+     * Elimina el evento de una cita de un único calendario: el del cliente o el del admin.
+     * Con el ID del evento es una única llamada; sin él (citas anteriores a guardar los IDs) se busca por fecha.
+     * Lanza excepción si Google responde con error para que la tarea se pueda reintentar.
      */
-    public void deleteCalendarEvent(Cita cita, Usuario usuario) {
+    public void pushDeleteEvent(Cita cita, Usuario cliente, boolean adminCalendar, String eventId) {
+        Usuario owner = getCalendarOwner(cliente, adminCalendar);
+        if (owner == null) {
+            return;
+        }
+        if (eventId != null) {
+            deleteEventById(owner, eventId);
+        } else if (adminCalendar) {
+            deleteCalendarEventForAdmin(cita, owner, cliente);
+        } else {
+            deleteCalendarEventWithHttp(cita, owner);
+        }
+    }
+
+    /**
+     * Elimina varios eventos de un mismo calendario con una sola petición batch de Google Calendar.
+     * En el calendario del admin el cliente no se usa (puede ser null)
+     */
+    public void pushDeleteEvents(Usuario cliente, boolean adminCalendar, List<String> eventIds) {
+        Usuario owner = getCalendarOwner(cliente, adminCalendar);
+        if (owner == null || eventIds.isEmpty()) {
+            return;
+        }
         try {
-            System.out.println("🗑️ Intentando eliminar evento de Calendar para usuario: " + usuario.getEmail());
-            
-            if (!isGoogleUser(usuario)) {
-                System.out.println("❌ Usuario no es de Google, saltando eliminación de evento en Calendar");
-                return;
+            String boundary = "batch_esential_barber";
+            StringBuilder body = new StringBuilder();
+            String path = java.net.URI.create(calendarApiUrl).getPath();
+            for (int i = 0; i < eventIds.size(); i++) {
+                body.append("--").append(boundary).append("\r\n")
+                    .append("Content-Type: application/http\r\n")
+                    .append("Content-ID: <item").append(i + 1).append(">\r\n\r\n")
+                    .append("DELETE ").append(path).append("/calendars/primary/events/").append(eventIds.get(i)).append("\r\n\r\n");
             }
+            body.append("--").append(boundary).append("--");
 
-            if (!isCalendarAuthorized(usuario)) {
-                System.out.println("❌ Usuario no autorizado para Google Calendar: " + usuario.getEmail());
-                return;
+            java.net.http.HttpRequest request = newRequest(calendarBatchUrl)
+                    .header("Authorization", "Bearer " + getAccessToken(owner))
+                    .header("Content-Type", "multipart/mixed; boundary=" + boundary)
+                    .POST(java.net.http.HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build();
+            java.net.http.HttpResponse<String> response = httpClient
+                    .send(request, java.net.http.HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("Google Calendar (batch) respondió " + response.statusCode() + ": " + response.body());
             }
+            // Cada parte trae su propio estado; 404/410 significa que el evento ya no existía
+            java.util.regex.Matcher estados = java.util.regex.Pattern.compile("HTTP/1\\.1 (\\d{3})").matcher(response.body());
+            while (estados.find()) {
+                int status = Integer.parseInt(estados.group(1));
+                if (status != 200 && status != 204 && status != 404 && status != 410) {
+                    throw new RuntimeException("Google Calendar (batch) respondió " + status + " para uno de los eventos");
+                }
+            }
+            System.out.println("✅ " + eventIds.size() + " eventos eliminados de Google Calendar de " + owner.getEmail());
+        } catch (Exception e) {
+            System.err.println("❌ Error al eliminar eventos en lote: " + e.getMessage());
+            throw e instanceof RuntimeException re ? re : new RuntimeException(e.getMessage(), e);
+        }
+    }
 
-            // Intentar eliminar evento usando HTTP directo
-            deleteCalendarEventWithHttp(cita, usuario);
-
+    private void deleteEventById(Usuario owner, String eventId) {
+        try {
+            java.net.http.HttpRequest request = newRequest(calendarApiUrl + "/calendars/primary/events/" + eventId)
+                    .header("Authorization", "Bearer " + getAccessToken(owner))
+                    .DELETE()
+                    .build();
+            java.net.http.HttpResponse<String> response = httpClient
+                    .send(request, java.net.http.HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            if (status != 200 && status != 204 && status != 404 && status != 410) {
+                throw new RuntimeException("Google Calendar respondió " + status + ": " + response.body());
+            }
+            System.out.println("✅ Evento " + eventId + " eliminado de Google Calendar de " + owner.getEmail());
         } catch (Exception e) {
-            System.err.println("❌ Error general en deleteCalendarEvent: " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("❌ Error al eliminar evento " + eventId + ": " + e.getMessage());
+            throw e instanceof RuntimeException re ? re : new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Usuario dueño del calendario a sincronizar, o null si ese calendario no está autorizado
+     */
+    private Usuario getCalendarOwner(Usuario cliente, boolean adminCalendar) {
+        if (adminCalendar) {
+            return getAuthorizedAdmin();
         }
+        return isGoogleUser(cliente) && isCalendarAuthorized(cliente) ? cliente : null;
     }
 
     /**
@@ -572,7 +687,7 @@ public class GoogleCalendarService {
             
             // URL para buscar eventos
             String searchUrl = String.format(
-                "https://www.googleapis.com/calendar/v3/calendars/primary/events?" +
+                calendarApiUrl + "/calendars/primary/events?" +
                 "timeMin=%s&timeMax=%s&q=%s",
                 java.net.URLEncoder.encode(timeMin, "UTF-8"),
                 java.net.URLEncoder.encode(timeMax, "UTF-8"),
@@ -583,14 +698,12 @@ public class GoogleCalendarService {
             System.out.println("   - URL: " + searchUrl);
             
             // Crear la petición HTTP para buscar eventos
-            java.net.http.HttpClient client = java.net.http.HttpClient.newHttpClient();
-            java.net.http.HttpRequest searchRequest = java.net.http.HttpRequest.newBuilder()
-                    .uri(java.net.URI.create(searchUrl))
-                    .header("Authorization", "Bearer " + usuario.getGoogleCalendarToken())
+            java.net.http.HttpRequest searchRequest = newRequest(searchUrl)
+                    .header("Authorization", "Bearer " + getAccessToken(usuario))
                     .GET()
                     .build();
             
-            java.net.http.HttpResponse<String> searchResponse = client.send(searchRequest, java.net.http.HttpResponse.BodyHandlers.ofString());
+            java.net.http.HttpResponse<String> searchResponse = httpClient.send(searchRequest, java.net.http.HttpResponse.BodyHandlers.ofString());
             
             System.out.println("📊 Respuesta de búsqueda:");
             System.out.println("   - Status Code: " + searchResponse.statusCode());
@@ -618,14 +731,13 @@ public class GoogleCalendarService {
                             System.out.println("🗑️ Eliminando evento: " + eventId);
                             
                             // Crear petición para eliminar el evento
-                            String deleteUrl = "https://www.googleapis.com/calendar/v3/calendars/primary/events/" + eventId;
-                            java.net.http.HttpRequest deleteRequest = java.net.http.HttpRequest.newBuilder()
-                                    .uri(java.net.URI.create(deleteUrl))
-                                    .header("Authorization", "Bearer " + usuario.getGoogleCalendarToken())
+                            String deleteUrl = calendarApiUrl + "/calendars/primary/events/" + eventId;
+                            java.net.http.HttpRequest deleteRequest = newRequest(deleteUrl)
+                                    .header("Authorization", "Bearer " + getAccessToken(usuario))
                                     .DELETE()
                                     .build();
                             
-                            java.net.http.HttpResponse<String> deleteResponse = client.send(deleteRequest, java.net.http.HttpResponse.BodyHandlers.ofString());
+                            java.net.http.HttpResponse<String> deleteResponse = httpClient.send(deleteRequest, java.net.http.HttpResponse.BodyHandlers.ofString());
                             
                             System.out.println("📊 Respuesta de eliminación:");
                             System.out.println("   - Status Code: " + deleteResponse.statusCode());
@@ -635,10 +747,9 @@ public class GoogleCalendarService {
                                 System.out.println("   Usuario: " + usuario.getEmail());
                                 System.out.println("   Cita: " + cita.getServicio().getNombre() + " - " + cita.getFechaHora());
                                 System.out.println("   Event ID: " + eventId);
-                            } else {
-                                System.err.println("❌ Error al eliminar evento de Google Calendar");
-                                System.err.println("   Status Code: " + deleteResponse.statusCode());
-                                System.err.println("   Response: " + deleteResponse.body());
+                            } else if (deleteResponse.statusCode() != 404 && deleteResponse.statusCode() != 410) {
+                                // 404/410: el evento ya no existe, no hay nada que reintentar
+                                throw new RuntimeException("Google Calendar respondió " + deleteResponse.statusCode() + ": " + deleteResponse.body());
                             }
                         }
                     }
@@ -646,14 +757,12 @@ public class GoogleCalendarService {
                     System.out.println("ℹ️ No se encontraron eventos para eliminar");
                 }
             } else {
-                System.err.println("❌ Error al buscar eventos en Google Calendar");
-                System.err.println("   Status Code: " + searchResponse.statusCode());
-                System.err.println("   Response: " + searchResponse.body());
+                throw new RuntimeException("Google Calendar respondió " + searchResponse.statusCode() + ": " + searchResponse.body());
             }
             
         } catch (Exception e) {
             System.err.println("❌ Error al eliminar evento con HTTP directo: " + e.getMessage());
-            e.printStackTrace();
+            throw e instanceof RuntimeException re ? re : new RuntimeException(e.getMessage(), e);
         }
     }
 
@@ -665,38 +774,24 @@ public class GoogleCalendarService {
     }
 
     /**
-     * Crea eventos tanto en el calendario del usuario como en el del admin
+     * Devuelve el admin si su calendario está habilitado y autorizado, o null en otro caso
      */
-    public void createCalendarEventsForUserAndAdmin(Cita cita, Usuario usuario) {
-        try {
-            System.out.println("🎯 Creando eventos en Calendar para usuario y admin...");
-            
-            // Crear evento en el calendario del usuario
-            createCalendarEvent(cita, usuario);
-            
-            // Crear evento en el calendario del admin si está habilitado
-            if (adminCalendarEnabled) {
-                Usuario adminUser = getAdminUser();
-                if (adminUser != null && isGoogleUser(adminUser) && isCalendarAuthorized(adminUser)) {
-                    System.out.println("👨‍💼 Creando evento en calendario del admin...");
-                    createCalendarEventForAdmin(cita, adminUser, usuario);
-                } else {
-                    System.out.println("⚠️ Admin no configurado para Google Calendar o no autorizado");
-                }
-            } else {
-                System.out.println("ℹ️ Calendario del admin deshabilitado");
-            }
-            
-        } catch (Exception e) {
-            System.err.println("❌ Error al crear eventos en Calendar: " + e.getMessage());
-            e.printStackTrace();
+    private Usuario getAuthorizedAdmin() {
+        if (!adminCalendarEnabled) {
+            return null;
+        }
+        Usuario adminUser = getAdminUser();
+        if (adminUser == null || !isGoogleUser(adminUser) || !isCalendarAuthorized(adminUser)) {
+            System.out.println("⚠️ Admin no configurado para Google Calendar o no autorizado");
+            return null;
         }
+        return adminUser;
     }
 
     /**
      * Crea un evento en el calendario del admin con información del cliente
      */
-    private void createCalendarEventForAdmin(Cita cita, Usuario adminUser, Usuario cliente) {
+    private String createCalendarEventForAdmin(Cita cita, Usuario adminUser, Usuario cliente, String existingEventId) {
         try {
             System.out.println("🔧 Creando evento para admin usando HTTP directo...");
             
@@ -718,10 +813,7 @@ public class GoogleCalendarService {
             );
             
             // Añadir color al evento del admin
-            String serviceColor = getServiceColor(cita.getServicio().getNombre());
-            String colorId = getColorId(serviceColor);
-            event.addProperty("colorId", colorId);
-            System.out.println("🎨 Color asignado para admin - " + cita.getServicio().getNombre() + ": " + serviceColor + " (ID: " + colorId + ")");
+            event.addProperty("colorId", getServiceColorId(cita.getServicio().getNombre()));
             
             // Configurar fecha y hora de inicio
             JsonObject start = new JsonObject();
@@ -738,65 +830,16 @@ public class GoogleCalendarService {
             String eventJson = new Gson().toJson(event);
             System.out.println("📝 JSON del evento para admin: " + eventJson);
             
-            // Crear la petición HTTP
-            java.net.http.HttpClient client = java.net.http.HttpClient.newHttpClient();
-            java.net.http.HttpRequest request = java.net.http.HttpRequest.newBuilder()
-                    .uri(java.net.URI.create("https://www.googleapis.com/calendar/v3/calendars/primary/events"))
-                    .header("Authorization", "Bearer " + adminUser.getGoogleCalendarToken())
-                    .header("Content-Type", "application/json")
-                    .POST(java.net.http.HttpRequest.BodyPublishers.ofString(eventJson))
-                    .build();
-            
-            System.out.println("📡 Enviando petición HTTP a Google Calendar API (Admin)...");
-            java.net.http.HttpResponse<String> response = client.send(request, java.net.http.HttpResponse.BodyHandlers.ofString());
-            
-            System.out.println("📊 Respuesta del servidor (Admin):");
-            System.out.println("   - Status Code: " + response.statusCode());
-            System.out.println("   - Response Body: " + response.body());
-            
-            if (response.statusCode() == 200 || response.statusCode() == 201) {
-                System.out.println("✅ Evento creado exitosamente en Google Calendar del Admin");
-                System.out.println("   Admin: " + adminUser.getEmail());
-                System.out.println("   Cliente: " + cliente.getEmail());
-                System.out.println("   Cita: " + cita.getServicio().getNombre() + " - " + cita.getFechaHora());
-            } else {
-                System.err.println("❌ Error al crear evento en Google Calendar del Admin");
-                System.err.println("   Status Code: " + response.statusCode());
-                System.err.println("   Response: " + response.body());
-            }
+            System.out.println("📡 Enviando evento a Google Calendar API (Admin)...");
+            String eventId = sendEvent(getAccessToken(adminUser), eventJson, existingEventId);
+            System.out.println("✅ Evento guardado en Google Calendar del Admin: " + eventId);
+            System.out.println("   Cliente: " + cliente.getEmail());
+            System.out.println("   Cita: " + cita.getServicio().getNombre() + " - " + cita.getFechaHora());
+            return eventId;
             
         } catch (Exception e) {
             System.err.println("❌ Error al crear evento para admin con HTTP directo: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Elimina eventos tanto del calendario del usuario como del admin
-     */
-    public void deleteCalendarEventsForUserAndAdmin(Cita cita, Usuario usuario) {
-        try {
-            System.out.println("🗑️ Eliminando eventos de Calendar para usuario y admin...");
-            
-            // Eliminar evento del calendario del usuario
-            deleteCalendarEvent(cita, usuario);
-            
-            // Eliminar evento del calendario del admin si está habilitado
-            if (adminCalendarEnabled) {
-                Usuario adminUser = getAdminUser();
-                if (adminUser != null && isGoogleUser(adminUser) && isCalendarAuthorized(adminUser)) {
-                    System.out.println("👨‍💼 Eliminando evento del calendario del admin...");
-                    deleteCalendarEventForAdmin(cita, adminUser, usuario);
-                } else {
-                    System.out.println("⚠️ Admin no configurado para Google Calendar o no autorizado");
-                }
-            } else {
-                System.out.println("ℹ️ Calendario del admin deshabilitado");
-            }
-            
-        } catch (Exception e) {
-            System.err.println("❌ Error al eliminar eventos de Calendar: " + e.getMessage());
-            e.printStackTrace();
+            throw e instanceof RuntimeException re ? re : new RuntimeException(e.getMessage(), e);
         }
     }
 
@@ -819,7 +862,7 @@ public class GoogleCalendarService {
             
             // URL para buscar eventos (buscar por el nombre del cliente)
             String searchUrl = String.format(
-                "https://www.googleapis.com/calendar/v3/calendars/primary/events?" +
+                calendarApiUrl + "/calendars/primary/events?" +
                 "timeMin=%s&timeMax=%s&q=%s",
                 java.net.URLEncoder.encode(timeMin, "UTF-8"),
                 java.net.URLEncoder.encode(timeMax, "UTF-8"),
@@ -830,14 +873,12 @@ public class GoogleCalendarService {
             System.out.println("   - URL: " + searchUrl);
             
             // Crear la petición HTTP para buscar eventos
-            java.net.http.HttpClient client = java.net.http.HttpClient.newHttpClient();
-            java.net.http.HttpRequest searchRequest = java.net.http.HttpRequest.newBuilder()
-                    .uri(java.net.URI.create(searchUrl))
-                    .header("Authorization", "Bearer " + adminUser.getGoogleCalendarToken())
+            java.net.http.HttpRequest searchRequest = newRequest(searchUrl)
+                    .header("Authorization", "Bearer " + getAccessToken(adminUser))
                     .GET()
                     .build();
             
-            java.net.http.HttpResponse<String> searchResponse = client.send(searchRequest, java.net.http.HttpResponse.BodyHandlers.ofString());
+            java.net.http.HttpResponse<String> searchResponse = httpClient.send(searchRequest, java.net.http.HttpResponse.BodyHandlers.ofString());
             
             System.out.println("📊 Respuesta de búsqueda (Admin):");
             System.out.println("   - Status Code: " + searchResponse.statusCode());
@@ -866,14 +907,13 @@ public class GoogleCalendarService {
                             System.out.println("🗑️ Eliminando evento del admin: " + eventId);
                             
                             // Crear petición para eliminar el evento
-                            String deleteUrl = "https://www.googleapis.com/calendar/v3/calendars/primary/events/" + eventId;
-                            java.net.http.HttpRequest deleteRequest = java.net.http.HttpRequest.newBuilder()
-                                    .uri(java.net.URI.create(deleteUrl))
-                                    .header("Authorization", "Bearer " + adminUser.getGoogleCalendarToken())
+                            String deleteUrl = calendarApiUrl + "/calendars/primary/events/" + eventId;
+                            java.net.http.HttpRequest deleteRequest = newRequest(deleteUrl)
+                                    .header("Authorization", "Bearer " + getAccessToken(adminUser))
                                     .DELETE()
                                     .build();
                             
-                            java.net.http.HttpResponse<String> deleteResponse = client.send(deleteRequest, java.net.http.HttpResponse.BodyHandlers.ofString());
+                            java.net.http.HttpResponse<String> deleteResponse = httpClient.send(deleteRequest, java.net.http.HttpResponse.BodyHandlers.ofString());
                             
                             System.out.println("📊 Respuesta de eliminación (Admin):");
                             System.out.println("   - Status Code: " + deleteResponse.statusCode());
@@ -884,10 +924,8 @@ public class GoogleCalendarService {
                                 System.out.println("   Cliente: " + cliente.getEmail());
                                 System.out.println("   Cita: " + cita.getServicio().getNombre() + " - " + cita.getFechaHora());
                                 System.out.println("   Event ID: " + eventId);
-                            } else {
-                                System.err.println("❌ Error al eliminar evento del Google Calendar del Admin");
-                                System.err.println("   Status Code: " + deleteResponse.statusCode());
-                                System.err.println("   Response: " + deleteResponse.body());
+                            } else if (deleteResponse.statusCode() != 404 && deleteResponse.statusCode() != 410) {
+                                throw new RuntimeException("Google Calendar (admin) respondió " + deleteResponse.statusCode() + ": " + deleteResponse.body());
                             }
                         }
                     }
@@ -895,14 +933,12 @@ public class GoogleCalendarService {
                     System.out.println("ℹ️ No se encontraron eventos del admin para eliminar");
                 }
             } else {
-                System.err.println("❌ Error al buscar eventos del admin en Google Calendar");
-                System.err.println("   Status Code: " + searchResponse.statusCode());
-                System.err.println("   Response: " + searchResponse.body());
+                throw new RuntimeException("Google Calendar (admin) respondió " + searchResponse.statusCode() + ": " + searchResponse.body());
             }
             
         } catch (Exception e) {
             System.err.println("❌ Error al eliminar evento del admin con HTTP directo: " + e.getMessage());
-            e.printStackTrace();
+            throw e instanceof RuntimeException re ? re : new RuntimeException(e.getMessage(), e);
         }
     }
 
@@ -913,7 +949,8 @@ public class GoogleCalendarService {
         usuario.setGoogleCalendarToken(null);
         usuario.setGoogleCalendarRefreshToken(null);
         usuario.setGoogleCalendarTokenExpiry(null);
-        usuarioRepository.save(usuario);
+        usuarioRepository.actualizarTokensGoogle(usuario.getId(), null, null, null);
+        googleTokenService.invalidar(usuario.getId());
         System.out.println("Autorización de Google Calendar revocada para: " + usuario.getEmail());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Usuario;
+import com.pomelo.app.springboot.app.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Renueva en segundo plano los tokens de Google Calendar que están a punto de caducar,
+ * para que la sincronización de citas nunca tenga que esperar a la renovación.
+ */
+@Service
+public class GoogleTokenRefreshService {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private GoogleTokenService googleTokenService;
+
+    @Autowired
+    private GoogleCalendarService googleCalendarService;
+
+    @Value("${app.google-token.ventana-minutos:10}")
+    private long ventanaMinutos = 10;
+
+    @Value("${app.google-token.tamano-lote:50}")
+    private int tamanoLote = 50;
+
+    @Scheduled(fixedDelayString = "${app.google-token.intervalo-ms:60000}", initialDelayString = "${app.google-token.retraso-inicial-ms:10000}")
+    public void renovarTokensProximosACaducar() {
+        LocalDateTime limite = LocalDateTime.now().plusMinutes(ventanaMinutos);
+        long desdeId = 0L;
+        int renovados = 0;
+        List<Usuario> lote;
+        do {
+            lote = usuarioRepository.findConTokenGoogleCaducandoAntesDe(limite, desdeId, PageRequest.of(0, tamanoLote));
+            if (lote.isEmpty()) {
+                break;
+            }
+            renovados += renovarLote(lote);
+            desdeId = lote.get(lote.size() - 1).getId();
+        } while (lote.size() == tamanoLote);
+
+        if (renovados > 0) {
+            System.out.println("🔑 Tokens de Google Calendar renovados: " + renovados);
+        }
+    }
+
+    /**
+     * Lanza las renovaciones del lote en paralelo y guarda los resultados en este hilo
+     */
+    int renovarLote(List<Usuario> lote) {
+        List<CompletableFuture<GoogleTokenService.TokenRenovado>> peticiones = new ArrayList<>(lote.size());
+        for (Usuario usuario : lote) {
+            peticiones.add(googleTokenService.renovarAsync(usuario.getGoogleCalendarRefreshToken()));
+        }
+
+        int renovados = 0;
+        for (int i = 0; i < lote.size(); i++) {
+            Usuario usuario = lote.get(i);
+            try {
+                GoogleTokenService.TokenRenovado renovado = peticiones.get(i).join();
+                googleCalendarService.saveCalendarTokens(usuario, renovado.getAccessToken(), renovado.getRefreshToken(), renovado.getExpiry());
+                renovados++;
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof GoogleTokenService.RenovacionTokenException error && error.isRevocado()) {
+                    // Sin un refresh token válido no se puede sincronizar: el usuario tendrá que volver a autorizar
+                    System.err.println("⚠️ Autorización de Google Calendar revocada para " + usuario.getEmail());
+                    googleCalendarService.revokeCalendarAuthorization(usuario);
+                } else {
+                    // Se reintenta en la siguiente pasada mientras siga dentro de la ventana
+                    System.err.println("❌ Error al renovar el token de Google Calendar de " + usuario.getEmail() + ": "
+                            + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+                }
+            }
+        }
+        return renovados;
+    }
+}
@@ -0,0 +1,187 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.pomelo.app.springboot.app.entity.Usuario;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens de acceso de Google Calendar válidos en memoria y renovación contra el endpoint OAuth de Google.
+ * La renovación normal la hace GoogleTokenRefreshService en segundo plano antes de que caduquen.
+ */
+@Service
+public class GoogleTokenService {
+
+    @Value("${google.client.id}")
+    private String googleClientId;
+
+    @Value("${google.client.secret}")
+    private String googleClientSecret;
+
+    // Configurable para poder apuntar a un servidor de pruebas en lugar de Google
+    @Value("${google.oauth.token-url:https://oauth2.googleapis.com/token}")
+    private String tokenUrl = "https://oauth2.googleapis.com/token";
+
+    // Un token que caduca dentro de este margen ya no se entrega para evitar que expire a mitad de la llamada
+    @Value("${google.oauth.margen-segundos:60}")
+    private long margenSegundos = 60;
+
+    @Value("${google.http.request-timeout-ms:10000}")
+    private long requestTimeoutMs = 10000;
+
+    private final HttpClient httpClient;
+
+    // ID de usuario -> token de acceso vigente
+    private final ConcurrentHashMap<Long, TokenVigente> tokens = new ConcurrentHashMap<>();
+
+    public GoogleTokenService(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Token de acceso todavía válido del usuario, o null si hay que renovarlo
+     */
+    public String tokenVigente(Usuario usuario) {
+        LocalDateTime limite = LocalDateTime.now().plusSeconds(margenSegundos);
+        TokenVigente enCache = usuario.getId() != null ? tokens.get(usuario.getId()) : null;
+        if (enCache != null && enCache.validoHasta(limite)) {
+            return enCache.token;
+        }
+        String token = usuario.getGoogleCalendarToken();
+        LocalDateTime expiry = usuario.getGoogleCalendarTokenExpiry();
+        if (token == null || token.isEmpty() || (expiry != null && !expiry.isAfter(limite))) {
+            return null;
+        }
+        registrar(usuario);
+        return token;
+    }
+
+    /**
+     * Actualiza la caché con los tokens guardados en el usuario
+     */
+    public void registrar(Usuario usuario) {
+        if (usuario.getId() == null) {
+            return;
+        }
+        if (usuario.getGoogleCalendarToken() == null || usuario.getGoogleCalendarToken().isEmpty()) {
+            tokens.remove(usuario.getId());
+        } else {
+            tokens.put(usuario.getId(), new TokenVigente(usuario.getGoogleCalendarToken(), usuario.getGoogleCalendarTokenExpiry()));
+        }
+    }
+
+    public void invalidar(Long usuarioId) {
+        if (usuarioId != null) {
+            tokens.remove(usuarioId);
+        }
+    }
+
+    /**
+     * Pide un token de acceso nuevo a Google con el refresh token (bloqueante)
+     */
+    public TokenRenovado renovar(String refreshToken) {
+        try {
+            return renovarAsync(refreshToken).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Pide un token de acceso nuevo sin bloquear, para renovar lotes de usuarios en paralelo
+     */
+    public CompletableFuture<TokenRenovado> renovarAsync(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            return CompletableFuture.failedFuture(new RuntimeException("El usuario no tiene refresh token de Google Calendar"));
+        }
+        String formulario = "grant_type=refresh_token"
+                + "&client_id=" + URLEncoder.encode(googleClientId, StandardCharsets.UTF_8)
+                + "&client_secret=" + URLEncoder.encode(googleClientSecret, StandardCharsets.UTF_8)
+                + "&refresh_token=" + URLEncoder.encode(refreshToken, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(tokenUrl))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(formulario))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> leerRespuesta(response, refreshToken));
+    }
+
+    private TokenRenovado leerRespuesta(HttpResponse<String> response, String refreshToken) {
+        JsonObject cuerpo = new Gson().fromJson(response.body(), JsonObject.class);
+        if (response.statusCode() != 200 || cuerpo == null || !cuerpo.has("access_token")) {
+            // invalid_grant: el usuario revocó el acceso o el refresh token caducó; reintentar no sirve
+            boolean revocado = cuerpo != null && cuerpo.has("error") && "invalid_grant".equals(cuerpo.get("error").getAsString());
+            throw new RenovacionTokenException(revocado, "Google OAuth respondió " + response.statusCode() + ": " + response.body());
+        }
+        TokenRenovado renovado = new TokenRenovado();
+        renovado.accessToken = cuerpo.get("access_token").getAsString();
+        // Google no suele devolver un refresh token nuevo; si lo hace sustituye al anterior
+        renovado.refreshToken = cuerpo.has("refresh_token") ? cuerpo.get("refresh_token").getAsString() : refreshToken;
+        long expiraEn = cuerpo.has("expires_in") ? cuerpo.get("expires_in").getAsLong() : 3600;
+        renovado.expiry = LocalDateTime.now().plusSeconds(expiraEn);
+        return renovado;
+    }
+
+    public static class TokenRenovado {
+        private String accessToken;
+        private String refreshToken;
+        private LocalDateTime expiry;
+
+        public String getAccessToken() {
+            return accessToken;
+        }
+
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+
+        public LocalDateTime getExpiry() {
+            return expiry;
+        }
+    }
+
+    /**
+     * Error del endpoint de tokens; revocado indica que el refresh token ya no sirve
+     */
+    public static class RenovacionTokenException extends RuntimeException {
+        private final boolean revocado;
+
+        public RenovacionTokenException(boolean revocado, String mensaje) {
+            super(mensaje);
+            this.revocado = revocado;
+        }
+
+        public boolean isRevocado() {
+            return revocado;
+        }
+    }
+
+    private static class TokenVigente {
+        private final String token;
+        private final LocalDateTime expiry;
+
+        TokenVigente(String token, LocalDateTime expiry) {
+            this.token = token;
+            this.expiry = expiry;
+        }
+
+        boolean validoHasta(LocalDateTime limite) {
+            return expiry == null || expiry.isAfter(limite);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.dto.CitaHistorial;
+import com.pomelo.app.springboot.app.dto.PaginaHistorialCitas;
+import com.pomelo.app.springboot.app.repository.CitaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Historial de citas de un cliente para la página "Mis citas". Cada página se obtiene con una sola consulta
+ * (cita, servicio y reseña unidos), ordenada por fecha de la más reciente a la más antigua.
+ */
+@Service
+public class HistorialCitasService {
+
+    public static final int LIMITE_MAXIMO = 200;
+
+    // Cursor de la primera página: posterior a cualquier fecha que admite una columna DATETIME
+    private static final LocalDateTime SIN_CURSOR = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    /**
+     * Citas del cliente anteriores a (antesFecha, antesId); sin cursor, las más recientes
+     */
+    public PaginaHistorialCitas listar(Long clienteId, LocalDateTime antesFecha, Long antesId, int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new RuntimeException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        if (antesFecha == null || antesId == null) {
+            antesFecha = SIN_CURSOR;
+            antesId = Long.MAX_VALUE;
+        }
+        // Se pide una fila de más para saber si hay otra página sin contar el total
+        List<CitaHistorial> citas = citaRepository.findHistorialCliente(clienteId, LocalDateTime.now(),
+                antesFecha, antesId, PageRequest.of(0, limite + 1));
+        boolean hayMas = citas.size() > limite;
+        if (hayMas) {
+            citas = citas.subList(0, limite);
+        }
+        CitaHistorial ultima = hayMas ? citas.get(citas.size() - 1) : null;
+        return new PaginaHistorialCitas(citas, hayMas,
+                ultima != null ? ultima.fechaHora() : null, ultima != null ? ultima.id() : null);
+    }
+}
@@ -0,0 +1,270 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pomelo.app.springboot.app.dto.HorarioSemanal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Horario semanal de reservas.
+ * El horario se guarda en configuracion y se compila una sola vez en una tabla inmutable
+ * de slots por día de la semana y rol; la tabla se sustituye al guardar un horario nuevo
+ * o cuando la configuración recargada (por ejemplo, por un cambio en otro nodo) trae otro JSON.
+ */
+@Service
+public class HorarioService {
+
+    static final String CLAVE_HORARIO = "horario_semanal";
+
+    @Autowired
+    private ConfiguracionService configuracionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile HorarioCompilado compilado;
+
+    public HorarioSemanal obtenerHorario() {
+        return obtenerCompilado().horario;
+    }
+
+    /**
+     * Valida, guarda y activa un nuevo horario
+     */
+    public HorarioSemanal guardarHorario(HorarioSemanal horario) {
+        HorarioCompilado nuevo = compilar(horario);
+        try {
+            String json = objectMapper.writeValueAsString(horario);
+            configuracionService.guardarValor(CLAVE_HORARIO, json, "Horario semanal de reservas (JSON)");
+            // Se guarda la cadena de la instantánea recargada para que la comparación por referencia acierte
+            nuevo.json = configuracionService.obtenerValor(CLAVE_HORARIO);
+        } catch (Exception e) {
+            throw new RuntimeException("Error al guardar el horario: " + e.getMessage(), e);
+        }
+        compilado = nuevo;
+        return horario;
+    }
+
+    /**
+     * Descarta el horario compilado para que se vuelva a leer de la base de datos
+     */
+    public void invalidar() {
+        compilado = null;
+    }
+
+    public TablaDia tablaDia(DayOfWeek dia, boolean esAdmin) {
+        return obtenerCompilado().tablas.get(dia)[esAdmin ? 1 : 0];
+    }
+
+    /**
+     * Comprueba que una reserva empieza en un slot del horario y cabe en su tramo
+     */
+    public boolean admiteReserva(LocalDateTime inicio, int duracionMinutos, boolean esAdmin) {
+        TablaDia tabla = tablaDia(inicio.getDayOfWeek(), esAdmin);
+        int i = tabla.indiceDe(inicio.toLocalTime());
+        return i >= 0 && tabla.admiteInicio(i, tabla.slotsNecesarios(duracionMinutos));
+    }
+
+    private HorarioCompilado obtenerCompilado() {
+        // La configuración es una instantánea inmutable: si el JSON es el mismo objeto, el horario no ha cambiado
+        String json = configuracionService.obtenerValor(CLAVE_HORARIO);
+        HorarioCompilado actual = compilado;
+        if (actual == null || (actual.json != json && !Objects.equals(actual.json, json))) {
+            synchronized (this) {
+                actual = compilado;
+                if (actual == null || !Objects.equals(actual.json, json)) {
+                    actual = compilar(leerHorario(json));
+                    actual.json = json;
+                    compilado = actual;
+                }
+            }
+        }
+        return actual;
+    }
+
+    private HorarioSemanal leerHorario(String json) {
+        if (json != null) {
+            try {
+                return objectMapper.readValue(json, HorarioSemanal.class);
+            } catch (Exception e) {
+                System.err.println("❌ Horario guardado no válido, usando el horario por defecto: " + e.getMessage());
+            }
+        }
+        return HorarioSemanal.porDefecto();
+    }
+
+    static HorarioCompilado compilar(HorarioSemanal horario) {
+        int duracionSlot = horario.getDuracionSlotMinutos();
+        if (duracionSlot <= 0) {
+            throw new RuntimeException("La duración del slot debe ser mayor que 0");
+        }
+        if (horario.getTramos() == null || horario.getTramos().isEmpty()) {
+            throw new RuntimeException("El horario debe tener al menos un tramo");
+        }
+
+        List<int[]> tramos = new ArrayList<>();
+        TreeSet<Integer> slotsClientes = new TreeSet<>();
+        for (HorarioSemanal.Tramo tramo : horario.getTramos()) {
+            int inicio = minutos(tramo.getInicio());
+            int fin = minutos(tramo.getFin());
+            if (inicio >= fin) {
+                throw new RuntimeException("Tramo no válido: " + tramo.getInicio() + " - " + tramo.getFin());
+            }
+            tramos.add(new int[]{inicio, fin});
+            for (int t = inicio; t < fin; t += duracionSlot) {
+                slotsClientes.add(t);
+            }
+        }
+        Set<Integer> especialesAdmin = new HashSet<>();
+        if (horario.getSlotsAdmin() != null) {
+            for (String slot : horario.getSlotsAdmin()) {
+                especialesAdmin.add(minutos(slot));
+            }
+        }
+        TreeSet<Integer> slotsAdmin = new TreeSet<>(slotsClientes);
+        slotsAdmin.addAll(especialesAdmin);
+
+        Set<DayOfWeek> cerrados = new HashSet<>();
+        if (horario.getDiasCerradosClientes() != null) {
+            horario.getDiasCerradosClientes().forEach(d -> cerrados.add(DayOfWeek.valueOf(d)));
+        }
+        Map<DayOfWeek, Integer> ultimoInicio = new EnumMap<>(DayOfWeek.class);
+        if (horario.getUltimoInicioClientes() != null) {
+            horario.getUltimoInicioClientes().forEach((d, h) -> ultimoInicio.put(DayOfWeek.valueOf(d), minutos(h)));
+        }
+        Map<Integer, Set<DayOfWeek>> soloDias = new java.util.HashMap<>();
+        if (horario.getSlotsSoloDias() != null) {
+            horario.getSlotsSoloDias().forEach((h, dias) -> {
+                Set<DayOfWeek> set = new HashSet<>();
+                dias.forEach(d -> set.add(DayOfWeek.valueOf(d)));
+                soloDias.put(minutos(h), set);
+            });
+        }
+
+        Map<DayOfWeek, TablaDia[]> tablas = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            TablaDia cliente = construirTabla(dia, slotsClientes, tramos, Set.of(), duracionSlot,
+                cerrados.contains(dia), ultimoInicio.get(dia), soloDias);
+            TablaDia admin = construirTabla(dia, slotsAdmin, tramos, especialesAdmin, duracionSlot,
+                false, null, soloDias);
+            tablas.put(dia, new TablaDia[]{cliente, admin});
+        }
+        return new HorarioCompilado(horario, tablas);
+    }
+
+    private static TablaDia construirTabla(DayOfWeek dia, TreeSet<Integer> slots, List<int[]> tramos,
+                                           Set<Integer> especiales, int duracionSlot, boolean cerrado,
+                                           Integer ultimoInicio, Map<Integer, Set<DayOfWeek>> soloDias) {
+        int n = slots.size();
+        LocalTime[] horas = new LocalTime[n];
+        int[] inicios = new int[n];
+        int[] finTramo = new int[n];
+        boolean[] permitido = new boolean[n];
+        int i = 0;
+        for (int slot : slots) {
+            horas[i] = LocalTime.of(slot / 60, slot % 60);
+            inicios[i] = slot;
+            if (especiales.contains(slot)) {
+                // Los slots especiales del admin se admiten aunque queden fuera de los tramos
+                finTramo[i] = Integer.MAX_VALUE;
+            } else {
+                for (int[] tramo : tramos) {
+                    if (slot >= tramo[0] && slot < tramo[1]) {
+                        finTramo[i] = tramo[1];
+                        break;
+                    }
+                }
+            }
+            Set<DayOfWeek> dias = soloDias.get(slot);
+            permitido[i] = !cerrado
+                && (ultimoInicio == null || slot <= ultimoInicio)
+                && (dias == null || dias.contains(dia));
+            i++;
+        }
+        return new TablaDia(horas, inicios, finTramo, permitido, duracionSlot);
+    }
+
+    private static int minutos(String hora) {
+        try {
+            LocalTime t = LocalTime.parse(hora);
+            return t.getHour() * 60 + t.getMinute();
+        } catch (Exception e) {
+            throw new RuntimeException("Hora no válida en el horario: " + hora);
+        }
+    }
+
+    static final class HorarioCompilado {
+        final HorarioSemanal horario;
+        final Map<DayOfWeek, TablaDia[]> tablas;
+        // JSON de configuracion del que se compiló (null si no había horario guardado)
+        String json;
+
+        HorarioCompilado(HorarioSemanal horario, Map<DayOfWeek, TablaDia[]> tablas) {
+            this.horario = horario;
+            this.tablas = tablas;
+        }
+    }
+
+    /**
+     * Slots precalculados de un día de la semana para un rol
+     */
+    public static final class TablaDia {
+        private final LocalTime[] horas;
+        private final int[] inicios;
+        private final int[] finTramo;
+        private final boolean[] permitido;
+        private final int duracionSlot;
+
+        TablaDia(LocalTime[] horas, int[] inicios, int[] finTramo, boolean[] permitido, int duracionSlot) {
+            this.horas = horas;
+            this.inicios = inicios;
+            this.finTramo = finTramo;
+            this.permitido = permitido;
+            this.duracionSlot = duracionSlot;
+        }
+
+        public int numeroSlots() {
+            return horas.length;
+        }
+
+        public LocalTime slot(int i) {
+            return horas[i];
+        }
+
+        public int duracionSlot() {
+            return duracionSlot;
+        }
+
+        public int slotsNecesarios(int duracionMinutos) {
+            return Math.max(1, (duracionMinutos + duracionSlot - 1) / duracionSlot);
+        }
+
+        /**
+         * Un slot admite una reserva de n slots consecutivos si se ofrece ese día
+         * y la reserva completa cabe en su tramo
+         */
+        public boolean admiteInicio(int i, int n) {
+            return i + n <= horas.length
+                && permitido[i]
+                && (finTramo[i] == Integer.MAX_VALUE || inicios[i] + (long) duracionSlot * n <= finTramo[i]);
+        }
+
+        public int indiceDe(LocalTime hora) {
+            int minuto = hora.getHour() * 60 + hora.getMinute();
+            int i = java.util.Arrays.binarySearch(inicios, minuto);
+            return (i >= 0 && hora.getSecond() == 0) ? i : -1;
+        }
+    }
+}
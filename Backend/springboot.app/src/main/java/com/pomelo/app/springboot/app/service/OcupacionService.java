@@ -0,0 +1,209 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Cita;
+import com.pomelo.app.springboot.app.repository.CitaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de ocupación por día.
+ * Cada día se representa como un mapa de bits de tramos de 15 minutos (96 por día),
+ * cargado bajo demanda con una única consulta por rango y actualizado al crear o cancelar citas.
+ */
+@Service
+public class OcupacionService {
+
+    static final int MINUTOS_TICK = 15;
+    static final int TICKS_DIA = 24 * 60 / MINUTOS_TICK;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    // Tiempo máximo que un día cargado se considera válido (cubre cambios hechos desde otras instancias)
+    @Value("${app.ocupacion.ttl-segundos:60}")
+    private long ttlSegundos = 60;
+
+    private final ConcurrentHashMap<LocalDate, OcupacionDia> dias = new ConcurrentHashMap<>();
+
+    // Generación de cada día: cambia con cada cita registrada o invalidación. Una carga leída de la base de datos
+    // solo se guarda si la generación no ha cambiado mientras tanto, para no pisar un cambio concurrente.
+    private final ConcurrentHashMap<LocalDate, Long> generaciones = new ConcurrentHashMap<>();
+
+    /**
+     * Indica si el hueco [inicio, inicio + minutos] está libre.
+     * Mantiene el criterio de los endpoints de disponibilidad: una cita que empieza
+     * justo cuando termina el hueco también lo bloquea.
+     */
+    public boolean estaLibre(LocalDate fecha, LocalTime inicio, int minutos) {
+        return ocupacionDe(fecha).estaLibre(inicio, minutos);
+    }
+
+    /**
+     * Carga la ocupación de todos los días de [fechaInicio, fechaFin] con una sola consulta
+     * y la deja también en el índice para las consultas por día
+     */
+    Map<LocalDate, OcupacionDia> cargarRango(LocalDate fechaInicio, LocalDate fechaFin) {
+        Map<LocalDate, Long> generacionesLeidas = new HashMap<>();
+        for (LocalDate f = fechaInicio; !f.isAfter(fechaFin); f = f.plusDays(1)) {
+            generacionesLeidas.put(f, generacion(f));
+        }
+        List<Cita> citas = citaRepository.findActivasConServicioEntre(fechaInicio.atStartOfDay(), fechaFin.plusDays(1).atStartOfDay());
+        long ahora = System.currentTimeMillis();
+        Map<LocalDate, OcupacionDia> rango = new HashMap<>();
+        for (LocalDate f = fechaInicio; !f.isAfter(fechaFin); f = f.plusDays(1)) {
+            rango.put(f, OcupacionDia.vacio(ahora));
+        }
+        for (Cita cita : citas) {
+            rango.computeIfPresent(cita.getFechaHora().toLocalDate(),
+                (f, dia) -> dia.conCita(cita.getFechaHora(), cita.getServicio().getDuracionMinutos()));
+        }
+        rango.forEach((f, dia) -> guardarSiNoHaCambiado(f, dia, generacionesLeidas.get(f)));
+        return rango;
+    }
+
+    /**
+     * Marca como ocupados los tramos de una cita recién guardada.
+     * Si el día no está cargado no hace nada: se leerá de la base de datos al consultarlo.
+     */
+    public void registrarCita(Cita cita) {
+        if (cita == null || cita.getFechaHora() == null || cita.getServicio() == null
+                || "cancelada".equalsIgnoreCase(cita.getEstado())) {
+            return;
+        }
+        LocalDate fecha = cita.getFechaHora().toLocalDate();
+        generaciones.merge(fecha, 1L, Long::sum);
+        dias.computeIfPresent(fecha, (f, dia) -> dia.conCita(cita.getFechaHora(), cita.getServicio().getDuracionMinutos()));
+    }
+
+    /**
+     * Descarta el día del índice para que se recargue en la próxima consulta. Dentro de una transacción se descarta
+     * también al confirmarla: una consulta que lea el día antes del commit todavía ve las citas anteriores.
+     */
+    public void invalidar(LocalDate fecha) {
+        if (fecha == null) {
+            return;
+        }
+        descartar(fecha);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    descartar(fecha);
+                }
+            });
+        }
+    }
+
+    private void descartar(LocalDate fecha) {
+        generaciones.merge(fecha, 1L, Long::sum);
+        dias.remove(fecha);
+    }
+
+    public void invalidarRango(LocalDate fechaInicio, LocalDate fechaFin) {
+        for (LocalDate f = fechaInicio; !f.isAfter(fechaFin); f = f.plusDays(1)) {
+            invalidar(f);
+        }
+    }
+
+    // Elimina cada noche los días ya pasados para que el índice no crezca con el histórico
+    @Scheduled(cron = "0 0 3 * * *")
+    public void purgarDiasPasados() {
+        LocalDate hoy = LocalDate.now();
+        dias.keySet().removeIf(fecha -> fecha.isBefore(hoy));
+        generaciones.keySet().removeIf(fecha -> fecha.isBefore(hoy));
+    }
+
+    OcupacionDia ocupacionDe(LocalDate fecha) {
+        OcupacionDia dia = dias.get(fecha);
+        if (dia == null || dia.caducado(ttlSegundos)) {
+            long generacion = generacion(fecha);
+            dia = cargarDia(fecha);
+            guardarSiNoHaCambiado(fecha, dia, generacion);
+        }
+        return dia;
+    }
+
+    private long generacion(LocalDate fecha) {
+        return generaciones.getOrDefault(fecha, 0L);
+    }
+
+    /**
+     * Guarda el día cargado si nadie ha registrado ni invalidado nada en él desde que se leyó la generación.
+     * Si ha cambiado, la carga se usa solo para la consulta en curso y la siguiente vuelve a leer.
+     */
+    private void guardarSiNoHaCambiado(LocalDate fecha, OcupacionDia cargado, long generacionLeida) {
+        dias.compute(fecha, (f, actual) -> generacion(f) == generacionLeida ? cargado : actual);
+    }
+
+    private OcupacionDia cargarDia(LocalDate fecha) {
+        List<Cita> citas = citaRepository.findActivasConServicioEntre(fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay());
+        OcupacionDia dia = OcupacionDia.vacio(System.currentTimeMillis());
+        for (Cita cita : citas) {
+            dia = dia.conCita(cita.getFechaHora(), cita.getServicio().getDuracionMinutos());
+        }
+        return dia;
+    }
+
+    /**
+     * Ocupación inmutable de un día; las modificaciones generan una copia nueva
+     */
+    static final class OcupacionDia {
+        private final long[] bits;
+        private final long cargadoEn;
+
+        OcupacionDia(long[] bits, long cargadoEn) {
+            this.bits = bits;
+            this.cargadoEn = cargadoEn;
+        }
+
+        static OcupacionDia vacio(long cargadoEn) {
+            return new OcupacionDia(new long[(TICKS_DIA + 63) / 64], cargadoEn);
+        }
+
+        boolean caducado(long ttlSegundos) {
+            return System.currentTimeMillis() - cargadoEn > ttlSegundos * 1000;
+        }
+
+        OcupacionDia conCita(LocalDateTime inicio, int duracionMinutos) {
+            int minutoInicio = inicio.getHour() * 60 + inicio.getMinute();
+            int minutoFin = Math.min(minutoInicio + duracionMinutos, 24 * 60);
+            int desde = minutoInicio / MINUTOS_TICK;
+            // Redondeo hacia arriba: un tramo parcialmente ocupado cuenta como ocupado
+            int hasta = (minutoFin + MINUTOS_TICK - 1) / MINUTOS_TICK - 1;
+            long[] copia = bits.clone();
+            for (int t = desde; t <= hasta; t++) {
+                copia[t >> 6] |= 1L << (t & 63);
+            }
+            // Conserva la hora de carga: registrar una cita no alarga la validez del día
+            return new OcupacionDia(copia, cargadoEn);
+        }
+
+        boolean estaLibre(LocalTime inicio, int minutos) {
+            int minutoInicio = inicio.getHour() * 60 + inicio.getMinute();
+            int desde = minutoInicio / MINUTOS_TICK;
+            int hasta = Math.min((minutoInicio + minutos) / MINUTOS_TICK, TICKS_DIA - 1);
+            return !algunoOcupado(desde, hasta);
+        }
+
+        boolean algunoOcupado(int desde, int hasta) {
+            for (int t = desde; t <= hasta; t++) {
+                if ((bits[t >> 6] & (1L << (t & 63))) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
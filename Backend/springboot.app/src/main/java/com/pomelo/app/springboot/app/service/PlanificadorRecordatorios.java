@@ -0,0 +1,98 @@
+package com.pomelo.app.springboot.app.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plazos de los recordatorios en memoria: cada uno se ejecuta en cuanto vence, sin esperar a la siguiente
+ * consulta periódica. Volver a programar una clave sustituye su plazo anterior.
+ * Lo que se pierde al reiniciar lo recupera la conciliación periódica de cada servicio de recordatorios.
+ */
+@Service
+public class PlanificadorRecordatorios {
+
+    private final DelayQueue<Entrada> cola = new DelayQueue<>();
+    private final ConcurrentHashMap<String, Entrada> programadas = new ConcurrentHashMap<>();
+    private Thread despachador;
+
+    @PostConstruct
+    public void iniciar() {
+        despachador = new Thread(this::despachar, "planificador-recordatorios");
+        despachador.setDaemon(true);
+        despachador.start();
+    }
+
+    @PreDestroy
+    public void detener() {
+        despachador.interrupt();
+    }
+
+    public void programar(String clave, LocalDateTime vence, Runnable accion) {
+        Entrada entrada = new Entrada(clave, vence.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), accion);
+        programadas.put(clave, entrada);
+        cola.put(entrada);
+    }
+
+    public void cancelar(String clave) {
+        programadas.remove(clave);
+    }
+
+    public boolean estaProgramada(String clave) {
+        return programadas.containsKey(clave);
+    }
+
+    public int pendientes() {
+        return programadas.size();
+    }
+
+    private void despachar() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Entrada entrada;
+            try {
+                entrada = cola.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // Las entradas canceladas o sustituidas siguen en la cola y se descartan al vencer
+            if (!programadas.remove(entrada.clave, entrada)) {
+                continue;
+            }
+            try {
+                entrada.accion.run();
+            } catch (Exception e) {
+                System.err.println("❌ Error al ejecutar el recordatorio " + entrada.clave + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class Entrada implements Delayed {
+        private final String clave;
+        private final long venceMs;
+        private final Runnable accion;
+
+        Entrada(String clave, long venceMs, Runnable accion) {
+            this.clave = clave;
+            this.venceMs = venceMs;
+            this.accion = accion;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(venceMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed otro) {
+            return Long.compare(venceMs, ((Entrada) otro).venceMs);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.pomelo.app.springboot.app.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plantilla de email ya compilada: trozos de texto fijo intercalados con huecos.
+ * Se analiza una sola vez al arrancar y al renderizar solo se copian los trozos y los valores.
+ *
+ * Sintaxis:
+ *   {{nombre}}                  valor escapado para HTML
+ *   {{{nombre}}}                valor sin escapar
+ *   {{?nombre}} ... {{/nombre}} solo se incluye si el valor no es null, vacío, "0" ni false
+ */
+public final class PlantillaEmail {
+
+    // Cada hilo reutiliza su buffer; si algún email lo hace crecer demasiado se descarta
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(16 * 1024));
+    private static final int MAX_BUFFER = 256 * 1024;
+
+    private final Nodo[] nodos;
+
+    // Plantilla sin huecos: el resultado es siempre el mismo
+    private final String estatica;
+
+    private PlantillaEmail(Nodo[] nodos) {
+        this.nodos = nodos;
+        this.estatica = nodos.length == 1 && nodos[0] instanceof Texto texto ? texto.texto : null;
+    }
+
+    public static PlantillaEmail compilar(String fuente) {
+        Deque<Seccion> abiertas = new ArrayDeque<>();
+        List<Nodo> actual = new ArrayList<>();
+        Deque<List<Nodo>> niveles = new ArrayDeque<>();
+        int posicion = 0;
+        while (posicion < fuente.length()) {
+            int inicio = fuente.indexOf("{{", posicion);
+            if (inicio < 0) {
+                actual.add(new Texto(fuente.substring(posicion)));
+                break;
+            }
+            if (inicio > posicion) {
+                actual.add(new Texto(fuente.substring(posicion, inicio)));
+            }
+            boolean sinEscapar = fuente.startsWith("{{{", inicio);
+            String cierre = sinEscapar ? "}}}" : "}}";
+            int fin = fuente.indexOf(cierre, inicio);
+            if (fin < 0) {
+                throw new RuntimeException("Plantilla de email mal formada: '{{' sin cerrar en la posición " + inicio);
+            }
+            String etiqueta = fuente.substring(inicio + (sinEscapar ? 3 : 2), fin).trim();
+            posicion = fin + cierre.length();
+
+            if (sinEscapar) {
+                actual.add(new Valor(etiqueta, false));
+            } else if (etiqueta.startsWith("?")) {
+                Seccion seccion = new Seccion(etiqueta.substring(1).trim());
+                actual.add(seccion);
+                abiertas.push(seccion);
+                niveles.push(actual);
+                actual = new ArrayList<>();
+            } else if (etiqueta.startsWith("/")) {
+                String nombre = etiqueta.substring(1).trim();
+                if (abiertas.isEmpty() || !abiertas.peek().nombre.equals(nombre)) {
+                    throw new RuntimeException("Plantilla de email mal formada: cierre inesperado de '" + nombre + "'");
+                }
+                abiertas.pop().nodos = actual.toArray(new Nodo[0]);
+                actual = niveles.pop();
+            } else {
+                actual.add(new Valor(etiqueta, true));
+            }
+        }
+        if (!abiertas.isEmpty()) {
+            throw new RuntimeException("Plantilla de email mal formada: sección '" + abiertas.peek().nombre + "' sin cerrar");
+        }
+        return new PlantillaEmail(actual.toArray(new Nodo[0]));
+    }
+
+    public String renderizar(Map<String, ?> datos) {
+        if (estatica != null) {
+            return estatica;
+        }
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        escribir(nodos, datos, buffer);
+        String html = buffer.toString();
+        if (buffer.capacity() > MAX_BUFFER) {
+            BUFFER.remove();
+        }
+        return html;
+    }
+
+    private static void escribir(Nodo[] nodos, Map<String, ?> datos, StringBuilder salida) {
+        for (Nodo nodo : nodos) {
+            nodo.escribir(datos, salida);
+        }
+    }
+
+    static void escaparHtml(String texto, StringBuilder salida) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '&' -> salida.append("&amp;");
+                case '<' -> salida.append("&lt;");
+                case '>' -> salida.append("&gt;");
+                case '"' -> salida.append("&quot;");
+                case '\'' -> salida.append("&#39;");
+                default -> salida.append(c);
+            }
+        }
+    }
+
+    private abstract static class Nodo {
+        abstract void escribir(Map<String, ?> datos, StringBuilder salida);
+    }
+
+    private static final class Texto extends Nodo {
+        private final String texto;
+
+        Texto(String texto) {
+            this.texto = texto;
+        }
+
+        @Override
+        void escribir(Map<String, ?> datos, StringBuilder salida) {
+            salida.append(texto);
+        }
+    }
+
+    private static final class Valor extends Nodo {
+        private final String nombre;
+        private final boolean escapar;
+
+        Valor(String nombre, boolean escapar) {
+            this.nombre = nombre;
+            this.escapar = escapar;
+        }
+
+        @Override
+        void escribir(Map<String, ?> datos, StringBuilder salida) {
+            Object valor = datos.get(nombre);
+            if (valor == null) {
+                return;
+            }
+            if (escapar) {
+                escaparHtml(valor.toString(), salida);
+            } else {
+                salida.append(valor);
+            }
+        }
+    }
+
+    private static final class Seccion extends Nodo {
+        private final String nombre;
+        private Nodo[] nodos = new Nodo[0];
+
+        Seccion(String nombre) {
+            this.nombre = nombre;
+        }
+
+        @Override
+        void escribir(Map<String, ?> datos, StringBuilder salida) {
+            Object valor = datos.get(nombre);
+            if (valor == null || Boolean.FALSE.equals(valor) || valor.toString().isEmpty() || "0".equals(valor.toString())) {
+                return;
+            }
+            PlantillaEmail.escribir(nodos, datos, salida);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.pomelo.app.springboot.app.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Carga y compila al arrancar las plantillas de templates/email.
+ * Cada plantilla define bloques ({{#titulo}}...{{/titulo}}) que se insertan en los huecos
+ * {{$titulo}} de layout.html, de modo que cabecera, pie y estilos comunes están en un solo sitio.
+ */
+@Service
+public class PlantillaEmailService {
+
+    private static final String RUTA = "templates/email/";
+
+    static final String CONFIRMACION = "confirmacion";
+    static final String RECORDATORIO = "recordatorio";
+    static final String PRUEBA = "prueba";
+    static final String VERIFICACION = "verificacion";
+    static final String RECUPERACION_CONTRASENA = "recuperacion-contrasena";
+    static final String CITA_PERIODICA = "cita-periodica";
+    static final String CANCELACION = "cancelacion";
+    static final String RECORDATORIO_RESENA = "recordatorio-resena";
+
+    private static final String[] PLANTILLAS = {
+            CONFIRMACION, RECORDATORIO, PRUEBA, VERIFICACION,
+            RECUPERACION_CONTRASENA, CITA_PERIODICA, CANCELACION, RECORDATORIO_RESENA
+    };
+
+    private static final Pattern BLOQUE = Pattern.compile("\\{\\{#(\\w+)\\}\\}(.*?)\\{\\{/\\1\\}\\}", Pattern.DOTALL);
+    private static final Pattern HUECO_LAYOUT = Pattern.compile("\\{\\{\\$(\\w+)\\}\\}");
+
+    private final Map<String, PlantillaEmail> plantillas = new HashMap<>();
+
+    @PostConstruct
+    public void cargar() {
+        String layout = leer("layout.html");
+        for (String nombre : PLANTILLAS) {
+            plantillas.put(nombre, PlantillaEmail.compilar(componer(layout, leer(nombre + ".html"))));
+        }
+        System.out.println("✅ Plantillas de email compiladas: " + plantillas.size());
+    }
+
+    public String renderizar(String nombre, Map<String, ?> datos) {
+        PlantillaEmail plantilla = plantillas.get(nombre);
+        if (plantilla == null) {
+            throw new RuntimeException("Plantilla de email no encontrada: " + nombre);
+        }
+        return plantilla.renderizar(datos);
+    }
+
+    /**
+     * Sustituye los huecos del layout por los bloques definidos en la plantilla (los que falten quedan vacíos)
+     */
+    static String componer(String layout, String plantilla) {
+        Map<String, String> bloques = new HashMap<>();
+        Matcher bloque = BLOQUE.matcher(plantilla);
+        while (bloque.find()) {
+            bloques.put(bloque.group(1), bloque.group(2).strip());
+        }
+        return HUECO_LAYOUT.matcher(layout)
+                .replaceAll(hueco -> Matcher.quoteReplacement(bloques.getOrDefault(hueco.group(1), "")));
+    }
+
+    private String leer(String fichero) {
+        try (InputStream entrada = new ClassPathResource(RUTA + fichero).getInputStream()) {
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo cargar la plantilla de email " + fichero + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -3,7 +3,13 @@ package com.pomelo.app.springboot.app.service;
 import com.pomelo.app.springboot.app.entity.Portfolio;
 import com.pomelo.app.springboot.app.repository.PortfolioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,10 +17,20 @@ import java.util.Optional;
 public class PortfolioService {
     
     private final PortfolioRepository portfolioRepository;
+    private final AlmacenImagenesService almacenImagenesService;
+    private final VariantesImagenService variantesImagenService;
+    private final JdbcTemplate jdbcTemplate;
+    private final RespuestaCacheService respuestaCacheService;
     
     @Autowired
-    public PortfolioService(PortfolioRepository portfolioRepository) {
+    public PortfolioService(PortfolioRepository portfolioRepository, AlmacenImagenesService almacenImagenesService,
+                            VariantesImagenService variantesImagenService, JdbcTemplate jdbcTemplate,
+                            RespuestaCacheService respuestaCacheService) {
         this.portfolioRepository = portfolioRepository;
+        this.almacenImagenesService = almacenImagenesService;
+        this.variantesImagenService = variantesImagenService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.respuestaCacheService = respuestaCacheService;
     }
     
     /**
@@ -35,8 +51,78 @@ public class PortfolioService {
      * Añade una nueva foto al portfolio
      */
     public Portfolio añadirFoto(String nombre, String imagenBase64, String urlInstagram) {
-        Portfolio nuevaFoto = new Portfolio(nombre, imagenBase64, urlInstagram);
-        return portfolioRepository.save(nuevaFoto);
+        String hash = guardarImagen(imagenBase64);
+        Portfolio nuevaFoto = portfolioRepository.save(new Portfolio(nombre, hash, urlInstagram));
+        respuestaCacheService.invalidar(RespuestaCacheService.PORTFOLIO_FOTOS);
+        // Las versiones reducidas se generan en segundo plano; hasta entonces la galería usa el original
+        variantesImagenService.encolar(nuevaFoto.getId(), hash);
+        return nuevaFoto;
+    }
+    
+    /**
+     * Decodifica la imagen (base64 o data URL) y la guarda en el almacén. Devuelve su hash.
+     */
+    private String guardarImagen(String imagenBase64) {
+        String contenido = imagenBase64;
+        int coma = contenido.indexOf(',');
+        if (contenido.startsWith("data:") && coma > 0) {
+            contenido = contenido.substring(coma + 1);
+        }
+        byte[] datos;
+        try {
+            datos = Base64.getMimeDecoder().decode(contenido);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("La imagen no está codificada en base64 correctamente");
+        }
+        if (AlmacenImagenesService.tipo(datos) == null) {
+            throw new RuntimeException("Formato de imagen no soportado (PNG, JPEG, GIF o WebP)");
+        }
+        try {
+            return almacenImagenesService.guardar(datos);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al guardar la imagen: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Pasa al almacén de imágenes las fotos que aún tienen la imagen en la columna imagen_base64.
+     * Se procesan de una en una para no cargar todas las imágenes en memoria; una vez migradas
+     * la consulta inicial no devuelve nada y el arranque no hace más trabajo.
+     * Después se encolan las variantes de las fotos que aún no las tienen.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrarImagenesBase64() {
+        try {
+            migrarImagenesPendientes();
+        } finally {
+            variantesImagenService.encolarPendientes();
+        }
+    }
+    
+    private void migrarImagenesPendientes() {
+        try {
+            List<Long> pendientes = jdbcTemplate.queryForList(
+                "SELECT id FROM portfolio WHERE imagen_hash IS NULL AND imagen_base64 IS NOT NULL", Long.class);
+            if (pendientes.isEmpty()) {
+                return;
+            }
+            int migradas = 0;
+            for (Long id : pendientes) {
+                try {
+                    String base64 = jdbcTemplate.queryForObject("SELECT imagen_base64 FROM portfolio WHERE id = ?", String.class, id);
+                    String hash = guardarImagen(base64);
+                    jdbcTemplate.update("UPDATE portfolio SET imagen_hash = ?, imagen_base64 = NULL WHERE id = ?", hash, id);
+                    migradas++;
+                } catch (Exception e) {
+                    System.err.println("❌ No se pudo migrar la imagen de la foto ID " + id + ": " + e.getMessage());
+                }
+            }
+            respuestaCacheService.invalidar(RespuestaCacheService.PORTFOLIO_FOTOS);
+            System.out.println("🖼️ Imágenes del portfolio migradas al almacén: " + migradas + " de " + pendientes.size());
+        } catch (Exception e) {
+            // Base de datos sin la columna imagen_base64: no hay nada que migrar
+            System.out.println("ℹ️ Migración de imágenes del portfolio omitida: " + e.getMessage());
+        }
     }
     
     /**
@@ -48,6 +134,7 @@ public class PortfolioService {
             Portfolio fotoEncontrada = foto.get();
             fotoEncontrada.setActivo(false);
             portfolioRepository.save(fotoEncontrada);
+            respuestaCacheService.invalidar(RespuestaCacheService.PORTFOLIO_FOTOS);
             return true;
         }
         return false;
@@ -57,11 +144,32 @@ public class PortfolioService {
      * Elimina permanentemente una foto del portfolio
      */
     public boolean eliminarFotoPermanente(Long id) {
-        if (portfolioRepository.existsById(id)) {
-            portfolioRepository.deleteById(id);
-            return true;
+        Optional<Portfolio> foto = portfolioRepository.findById(id);
+        if (foto.isEmpty()) {
+            return false;
         }
-        return false;
+        portfolioRepository.deleteById(id);
+        respuestaCacheService.invalidar(RespuestaCacheService.PORTFOLIO_FOTOS);
+        // Los ficheros se borran solo si ninguna otra foto usa la misma imagen (y por tanto las mismas variantes)
+        String hash = foto.get().getImagenHash();
+        if (hash != null && portfolioRepository.countByImagenHash(hash) == 0) {
+            List<String> hashes = new ArrayList<>();
+            hashes.add(hash);
+            String variantes = foto.get().getImagenVariantes();
+            if (variantes != null && !variantes.isEmpty()) {
+                for (String variante : variantes.split(",")) {
+                    hashes.add(variante.substring(variante.lastIndexOf(':') + 1));
+                }
+            }
+            for (String h : hashes) {
+                try {
+                    almacenImagenesService.eliminar(h);
+                } catch (IOException e) {
+                    System.err.println("⚠️ No se pudo borrar la imagen " + h + ": " + e.getMessage());
+                }
+            }
+        }
+        return true;
     }
     
     /**
@@ -73,7 +181,9 @@ public class PortfolioService {
             Portfolio fotoEncontrada = foto.get();
             fotoEncontrada.setNombre(nombre);
             fotoEncontrada.setUrlInstagram(urlInstagram);
-            return Optional.of(portfolioRepository.save(fotoEncontrada));
+            Portfolio guardada = portfolioRepository.save(fotoEncontrada);
+            respuestaCacheService.invalidar(RespuestaCacheService.PORTFOLIO_FOTOS);
+            return Optional.of(guardada);
         }
         return Optional.empty();
     }
@@ -4,6 +4,7 @@ import com.pomelo.app.springboot.app.entity.Cita;
 import com.pomelo.app.springboot.app.repository.CitaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -23,38 +24,187 @@ public class RecordatorioResenaService {
     @Value("${app.frontend.base-url:https://esentialbarber.com}")
     private String frontendBaseUrl;
 
-    // Ejecuta cada hora
+    @Autowired
+    private PlanificadorRecordatorios planificador;
+
+    @Autowired
+    private ConfiguracionService configuracionService;
+
+    // Última cita recorrida por la conciliación, guardada como "fechaHora|id"
+    static final String CLAVE_CHECKPOINT = "recordatorio_resena_checkpoint";
+
+    // Antigüedad máxima de las citas que se recorren (también en el primer arranque, sin checkpoint)
+    @Value("${app.recordatorios.resena.ventana-dias:7}")
+    private long ventanaDias = 7;
+
+    @Value("${app.recordatorios.resena.tamano-lote:100}")
+    private int tamanoLote = 100;
+
+    @Value("${app.recordatorios.resena.max-por-ejecucion:500}")
+    private int maxPorEjecucion = 500;
+
+    // Envíos fallidos tras los que se deja de intentar el recordatorio de una cita
+    @Value("${app.recordatorios.resena.max-intentos:5}")
+    private int maxIntentos = 5;
+
+    // Horas por delante que se mantienen programadas en memoria
+    @Value("${app.recordatorios.horizonte-horas:6}")
+    private long horizonteHoras = 6;
+
+    // Hasta qué fecha de cita se han cargado ya los recordatorios en el planificador
+    private volatile LocalDateTime cargadasHasta;
+
+    /**
+     * Programa el recordatorio de reseña para cuando termina la cita. Las que empiezan más allá del horizonte
+     * se programan cuando la conciliación llega a ellas.
+     */
+    public void programar(Cita cita) {
+        if (cita == null || cita.getId() == null) {
+            return;
+        }
+        String clave = clave(cita.getId());
+        if (cita.isRecordatorioResenaEnviado() || "cancelada".equalsIgnoreCase(cita.getEstado())
+                || cita.getFechaHora().isAfter(LocalDateTime.now().plusHours(horizonteHoras))) {
+            planificador.cancelar(clave);
+            return;
+        }
+        Long citaId = cita.getId();
+        planificador.programar(clave, fin(cita), () -> enviar(citaId));
+    }
+
+    // La reseña se pide al terminar el servicio, no al empezar
+    private LocalDateTime fin(Cita cita) {
+        return cita.getFechaHora().plusMinutes(cita.getServicio().getDuracionMinutos());
+    }
+
+    public void desprogramar(Long citaId) {
+        planificador.cancelar(clave(citaId));
+    }
+
+    private String clave(Long citaId) {
+        return "resena-" + citaId;
+    }
+
+    /**
+     * Conciliación cada hora: envía los recordatorios que no salieron desde el planificador
+     * y carga en él las citas que entran en el horizonte.
+     */
     @Scheduled(fixedRate = 3600000)
     public void enviarRecordatoriosResena() {
         try {
             LocalDateTime ahora = LocalDateTime.now();
-            List<Cita> candidatas = citaRepository.findCitasPendientesDeResena(ahora);
-            System.out.println("⭐ Citas candidatas a recordatorio de reseña: " + candidatas.size());
-
-            for (Cita cita : candidatas) {
-                try {
-                    String reviewUrl = construirReviewUrl(cita.getId());
-                    emailService.enviarRecordatorioResena(
-                            cita.getCliente().getEmail(),
-                            cita.getCliente().getNombre(),
-                            cita.getServicio().getNombre(),
-                            reviewUrl
-                    );
-
-                    cita.setRecordatorioResenaEnviado(true);
-                    cita.setFechaRecordatorioResena(LocalDateTime.now());
-                    citaRepository.save(cita);
-                } catch (Exception e) {
-                    System.err.println("❌ Error enviando recordatorio de reseña para cita ID " + cita.getId() + ": " + e.getMessage());
-                    e.printStackTrace();
-                }
+            int recorridas = recorrerPendientes(ahora);
+            if (recorridas > 0) {
+                System.out.println("⭐ Citas revisadas para recordatorio de reseña: " + recorridas);
             }
+
+            cargarProximas(ahora, ahora.plusHours(horizonteHoras));
         } catch (Exception e) {
             System.err.println("❌ Error crítico en RecordatorioResenaService: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /**
+     * Recorre por páginas (fecha_hora, id) las citas pasadas desde el checkpoint, sin ir más atrás de la ventana
+     * y con un máximo por ejecución, de modo que cada pasada solo lee las citas nuevas.
+     * Se detiene en la primera cita que aún no ha terminado, para retomarla en la siguiente. Un envío fallido no
+     * detiene el recorrido: queda contado en la cita y se reintenta aparte. Devuelve las citas recorridas.
+     */
+    int recorrerPendientes(LocalDateTime ahora) {
+        reintentarFallidos(ahora);
+
+        LocalDateTime desdeFecha = ahora.minusDays(ventanaDias);
+        long desdeId = 0;
+        String checkpoint = configuracionService.obtenerValor(CLAVE_CHECKPOINT);
+        if (checkpoint != null) {
+            String[] partes = checkpoint.split("\\|");
+            LocalDateTime fechaCheckpoint = LocalDateTime.parse(partes[0]);
+            if (fechaCheckpoint.isAfter(desdeFecha)) {
+                desdeFecha = fechaCheckpoint;
+                desdeId = Long.parseLong(partes[1]);
+            }
+        }
+
+        int procesadas = 0;
+        int recorridas = 0;
+        while (procesadas < maxPorEjecucion) {
+            List<Cita> pagina = citaRepository.findPendientesDeResenaDesde(desdeFecha, desdeId, ahora,
+                    PageRequest.of(0, Math.min(tamanoLote, maxPorEjecucion - procesadas)));
+            if (pagina.isEmpty()) {
+                break;
+            }
+            Cita ultima = null;
+            for (Cita cita : pagina) {
+                if (fin(cita).isAfter(ahora)) {
+                    break;
+                }
+                enviar(cita);
+                ultima = cita;
+                recorridas++;
+            }
+            if (ultima != null) {
+                desdeFecha = ultima.getFechaHora();
+                desdeId = ultima.getId();
+                configuracionService.guardarValor(CLAVE_CHECKPOINT, desdeFecha + "|" + desdeId,
+                        "Última cita recorrida por los recordatorios de reseña");
+            }
+            procesadas += pagina.size();
+            if (ultima != pagina.get(pagina.size() - 1) || pagina.size() < tamanoLote) {
+                break;
+            }
+        }
+        return recorridas;
+    }
+
+    private void reintentarFallidos(LocalDateTime ahora) {
+        for (Cita cita : citaRepository.findReintentosDeResena(ahora.minusDays(ventanaDias), ahora, maxIntentos)) {
+            if (!enviar(cita) && cita.getIntentosRecordatorioResena() + 1 >= maxIntentos) {
+                System.err.println("❌ Recordatorio de reseña de la cita " + cita.getId() + " abandonado tras "
+                        + maxIntentos + " intentos");
+            }
+        }
+    }
+
+    private void cargarProximas(LocalDateTime desde, LocalDateTime hasta) {
+        if (cargadasHasta != null && cargadasHasta.isAfter(desde)) {
+            desde = cargadasHasta;
+        }
+        if (!desde.isBefore(hasta)) {
+            return;
+        }
+        citaRepository.findPendientesDeResenaEntre(desde, hasta).forEach(this::programar);
+        cargadasHasta = hasta;
+    }
+
+    private void enviar(Long citaId) {
+        citaRepository.findByIdWithRelations(citaId).ifPresent(this::enviar);
+    }
+
+    /**
+     * Reclama el recordatorio con un UPDATE condicional antes de enviarlo, de modo que el planificador,
+     * la conciliación y otras instancias no lo manden dos veces.
+     */
+    boolean enviar(Cita cita) {
+        if (citaRepository.reclamarRecordatorioResena(cita.getId(), LocalDateTime.now()) == 0) {
+            return true;
+        }
+        try {
+            String reviewUrl = construirReviewUrl(cita.getId());
+            emailService.encolarRecordatorioResena(
+                    cita.getCliente().getEmail(),
+                    cita.getCliente().getNombre(),
+                    cita.getServicio().getNombre(),
+                    reviewUrl
+            );
+        } catch (Exception e) {
+            System.err.println("❌ Error enviando recordatorio de reseña para cita ID " + cita.getId() + ": " + e.getMessage());
+            citaRepository.liberarRecordatorioResena(cita.getId());
+            return false;
+        }
+        return true;
+    }
+
     private String construirReviewUrl(Long citaId) {
         String base = frontendBaseUrl != null ? frontendBaseUrl : "https://esentialbarber.com";
         return base + "/perfil?reviewCitaId=" + citaId;
@@ -3,12 +3,16 @@ package com.pomelo.app.springboot.app.service;
 import com.pomelo.app.springboot.app.entity.Cita;
 import com.pomelo.app.springboot.app.repository.CitaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 @Service
 public class RecordatorioService {
@@ -19,108 +23,135 @@ public class RecordatorioService {
     @Autowired
     private EmailService emailService;
 
-    private boolean esEstadoElegible(String estado) {
-        return estado != null && (estado.equalsIgnoreCase("confirmada") || estado.equalsIgnoreCase("pendiente"));
+    @Autowired
+    private PlanificadorRecordatorios planificador;
+
+    @Value("${app.recordatorios.tamano-lote:100}")
+    private int tamanoLote = 100;
+
+    // Minutos antes de la cita en que sale el recordatorio
+    @Value("${app.recordatorios.antelacion-minutos:60}")
+    private long antelacionMinutos = 60;
+
+    // Horas por delante que se mantienen programadas en memoria
+    @Value("${app.recordatorios.horizonte-horas:6}")
+    private long horizonteHoras = 6;
+
+    // Hasta qué fecha de cita se han cargado ya los recordatorios en el planificador
+    private volatile LocalDateTime cargadasHasta;
+
+    /**
+     * Programa el recordatorio de una cita recién creada o reprogramada para que salga a su hora exacta.
+     * Las citas más allá del horizonte se programan cuando la conciliación llega a ellas.
+     */
+    public void programar(Cita cita) {
+        if (cita == null || cita.getId() == null) {
+            return;
+        }
+        String clave = clave(cita.getId());
+        String estado = cita.getEstado() != null ? cita.getEstado().toLowerCase() : "";
+        LocalDateTime vence = cita.getFechaHora().minusMinutes(antelacionMinutos);
+        if (cita.isRecordatorioCitaEnviado() || !(estado.equals("confirmada") || estado.equals("pendiente"))
+                || cita.getFechaHora().isBefore(LocalDateTime.now())
+                || vence.isAfter(LocalDateTime.now().plusHours(horizonteHoras))) {
+            planificador.cancelar(clave);
+            return;
+        }
+        Long citaId = cita.getId();
+        planificador.programar(clave, vence, () -> procesarLote(List.of(citaId), LocalDateTime.now()));
+    }
+
+    public void desprogramar(Long citaId) {
+        planificador.cancelar(clave(citaId));
+    }
+
+    private String clave(Long citaId) {
+        return "cita-" + citaId;
     }
 
     /**
-     * Verifica y envía recordatorios de citas cada 5 minutos
-     * Busca citas que están programadas para dentro de 1 hora
+     * Conciliación con la base de datos cada 15 minutos: envía los recordatorios ya vencidos que no salieron
+     * desde el planificador (por ejemplo, tras un reinicio) y carga en él las citas que entran en el horizonte.
      */
-    @Scheduled(fixedRate = 300000) // 5 minutos = 300,000 ms
+    @Scheduled(fixedDelayString = "${app.recordatorios.conciliacion-ms:900000}")
     public void enviarRecordatoriosAutomaticos() {
         try {
             LocalDateTime ahora = LocalDateTime.now();
-            LocalDateTime unaHoraDespues = ahora.plusHours(1);
-            
-            // Formatear fechas para logging
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-            String ahoraFormateado = ahora.format(formatter);
-            String unaHoraFormateado = unaHoraDespues.format(formatter);
-            
-            System.out.println("=".repeat(80));
-            System.out.println("🔍 VERIFICANDO RECORDATORIOS AUTOMÁTICOS");
-            System.out.println("⏰ Hora actual: " + ahoraFormateado);
-            System.out.println("⏰ Buscando citas hasta: " + unaHoraFormateado);
-            System.out.println("📧 EmailService disponible: " + (emailService != null ? "✅" : "❌"));
-            System.out.println("📅 CitaRepository disponible: " + (citaRepository != null ? "✅" : "❌"));
-            System.out.println("=".repeat(80));
-            
-            // Buscar citas que están programadas para dentro de 1 hora
-            List<Cita> citasProximas = citaRepository.findCitasProximas(ahora, unaHoraDespues);
-            
-            System.out.println("📅 Citas encontradas para recordatorio: " + citasProximas.size());
-            
-            if (citasProximas.isEmpty()) {
-                System.out.println("ℹ️ No hay citas próximas que requieran recordatorio");
-                System.out.println("🔍 Verificando todas las citas confirmadas...");
-                
-                // Buscar algunas citas confirmadas para debug (sin tocar relaciones perezosas)
-                List<Cita> todasLasCitas = citaRepository.findAll();
-                System.out.println("📊 Total de citas en la base de datos: " + todasLasCitas.size());
-                
-                long citasConfirmadas = todasLasCitas.stream()
-                    .filter(cita -> esEstadoElegible(cita.getEstado()))
-                    .count();
-                System.out.println("✅ Citas confirmadas/pendientes: " + citasConfirmadas);
-                
-                // Mostrar algunas citas para debug
-                todasLasCitas.stream()
-                    .filter(cita -> esEstadoElegible(cita.getEstado()))
-                    .limit(5)
-                    .forEach(cita -> {
-                        String clienteInfo;
-                        try {
-                            // Evitar inicializar perezosos, mostrar solo IDs si no están cargados
-                            clienteInfo = cita.getCliente() != null ? ("ClienteID=" + cita.getCliente().getId()) : "Cliente=null";
-                        } catch (Exception ex) {
-                            clienteInfo = "Cliente(lazy)";
-                        }
-                        System.out.println("📋 Cita ID: " + cita.getId() +
-                                " | Fecha: " + cita.getFechaHora().format(formatter) +
-                                " | Estado: " + cita.getEstado() +
-                                " | " + clienteInfo);
-                    });
-            } else {
-                for (Cita cita : citasProximas) {
-                    try {
-                        if (esEstadoElegible(cita.getEstado())) {
-                            System.out.println("📧 Enviando recordatorio para cita ID: " + cita.getId());
-                            // cliente y servicio vienen join-fetch, es seguro acceder
-                            System.out.println("👤 Cliente: " + cita.getCliente().getNombre());
-                            System.out.println("📅 Fecha: " + cita.getFechaHora().format(formatter));
-                            System.out.println("📧 Email: " + cita.getCliente().getEmail());
-                            System.out.println("📋 Estado: " + cita.getEstado());
-                            
-                            emailService.enviarRecordatorioCita(cita);
-                            // Marcar como enviado para evitar duplicados
-                            cita.setRecordatorioCitaEnviado(true);
-                            cita.setFechaRecordatorioCita(LocalDateTime.now());
-                            citaRepository.save(cita);
-
-                            System.out.println("✅ Recordatorio enviado exitosamente (marcado como enviado)");
-                            System.out.println("-".repeat(40));
-                        } else {
-                            System.out.println("⚠️ Cita ID " + cita.getId() + " no elegible (estado: " + cita.getEstado() + ")");
-                        }
-                    } catch (Exception e) {
-                        System.err.println("❌ Error al enviar recordatorio para cita ID " + cita.getId() + ": " + e.getMessage());
-                        e.printStackTrace();
-                    }
+            LocalDateTime limite = ahora.plusMinutes(antelacionMinutos);
+
+            int encolados = 0;
+            int fallidos = 0;
+            List<Long> candidatas;
+            do {
+                candidatas = citaRepository.findIdsRecordatorioPendiente(ahora, limite, PageRequest.of(0, tamanoLote));
+                if (candidatas.isEmpty()) {
+                    break;
+                }
+                int[] resultado = procesarLote(candidatas, ahora);
+                encolados += resultado[0];
+                fallidos += resultado[1];
+                // Si todo el lote falló se deja para la siguiente pasada en lugar de repetirlo ahora
+                if (resultado[0] == 0 && resultado[1] > 0) {
+                    break;
                 }
+            } while (candidatas.size() == tamanoLote);
+
+            if (encolados > 0 || fallidos > 0) {
+                System.out.println("⏰ Recordatorios de cita: " + encolados + " encolados, " + fallidos + " pendientes de reintento");
             }
-            
-            System.out.println("=".repeat(80));
-            System.out.println("✅ Verificación de recordatorios completada");
-            System.out.println("⏰ Próxima verificación en 5 minutos");
-            System.out.println("=".repeat(80));
-            
+
+            cargarProximas(limite, ahora.plusMinutes(antelacionMinutos).plusHours(horizonteHoras));
         } catch (Exception e) {
             System.err.println("❌ Error crítico en el servicio de recordatorios automáticos: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /**
+     * Programa las citas de [desde, hasta] que aún no están cargadas. Solo se consulta el tramo nuevo del horizonte.
+     */
+    private void cargarProximas(LocalDateTime desde, LocalDateTime hasta) {
+        if (cargadasHasta != null && cargadasHasta.isAfter(desde)) {
+            desde = cargadasHasta;
+        }
+        if (!desde.isBefore(hasta)) {
+            return;
+        }
+        List<Cita> proximas = citaRepository.findCitasProximas(desde, hasta);
+        proximas.forEach(this::programar);
+        cargadasHasta = hasta;
+        if (!proximas.isEmpty()) {
+            System.out.println("⏰ " + proximas.size() + " recordatorios de cita programados hasta " + hasta);
+        }
+    }
+
+    /**
+     * Reclama las citas del lote con un único UPDATE y entrega al envío de emails las que ha ganado esta instancia.
+     * Devuelve {encolados, fallidos}.
+     */
+    int[] procesarLote(List<Long> ids, LocalDateTime ahora) {
+        String lote = UUID.randomUUID().toString();
+        if (citaRepository.reclamarRecordatorios(ids, lote, ahora, ahora.plusMinutes(antelacionMinutos)) == 0) {
+            return new int[] {0, 0};
+        }
+
+        List<Cita> reclamadas = citaRepository.findByRecordatorioLote(lote);
+        List<Long> noEncoladas = new ArrayList<>();
+        for (Cita cita : reclamadas) {
+            try {
+                emailService.encolarRecordatorioCita(cita);
+            } catch (Exception e) {
+                System.err.println("❌ Error al preparar el recordatorio de la cita ID " + cita.getId() + ": " + e.getMessage());
+                noEncoladas.add(cita.getId());
+            }
+        }
+        if (!noEncoladas.isEmpty()) {
+            // Vuelven a estar pendientes para que la siguiente pasada las reintente
+            citaRepository.liberarRecordatorios(noEncoladas);
+        }
+        return new int[] {reclamadas.size() - noEncoladas.size(), noEncoladas.size()};
+    }
+
     /**
      * Método para enviar recordatorio manual (para pruebas)
      */
@@ -147,4 +178,4 @@ public class RecordatorioService {
             throw new RuntimeException("Error al enviar recordatorio manual", e);
         }
     }
-} 
\ No newline at end of file
+}
@@ -2,19 +2,22 @@ package com.pomelo.app.springboot.app.service;
 
 import com.pomelo.app.springboot.app.entity.Resena;
 import com.pomelo.app.springboot.app.entity.Cita;
+import com.pomelo.app.springboot.app.entity.EstadisticasResenas;
 import com.pomelo.app.springboot.app.entity.Usuario;
 import com.pomelo.app.springboot.app.repository.ResenaRepository;
 import com.pomelo.app.springboot.app.repository.CitaRepository;
 import com.pomelo.app.springboot.app.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Optional;
 import java.time.LocalDateTime;
-import java.util.stream.Collectors;
 
 @Service
 public class ResenaService {
@@ -28,7 +31,14 @@ public class ResenaService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private RespuestaCacheService respuestaCacheService;
+
+    @Autowired
+    private EstadisticasResenasService estadisticasResenasService;
+
     // Crear una nueva reseña
+    @Transactional
     public Resena crearResena(Long citaId, Long clienteId, Integer calificacion, String comentario) {
         // Verificar que la cita existe y pertenece al cliente (con relaciones cargadas)
         Cita cita = citaRepository.findByIdWithRelations(citaId)
@@ -62,7 +72,10 @@ public class ResenaService {
         
         // Crear la reseña
         Resena resena = new Resena(cita, cliente, calificacion, comentario);
-        return resenaRepository.save(resena);
+        Resena guardada = resenaRepository.save(resena);
+        estadisticasResenasService.registrar(null, calificacion);
+        respuestaCacheService.invalidar(RespuestaCacheService.RESENAS_PUBLICAS);
+        return guardada;
     }
 
     // Obtener reseñas de un cliente
@@ -80,12 +93,9 @@ public class ResenaService {
         return resenaRepository.findResenasPublicas();
     }
 
-    // Obtener reseñas públicas limitadas
+    // Obtener las últimas reseñas públicas (LIMIT en la consulta)
     public List<Resena> obtenerResenasPublicasLimitadas(int limit) {
-        List<Resena> todasLasResenas = resenaRepository.findResenasPublicas();
-        return todasLasResenas.stream()
-            .limit(limit)
-            .collect(Collectors.toList());
+        return resenaRepository.findResenasPublicasLimitadas(PageRequest.of(0, limit));
     }
 
     // Obtener todas las reseñas (para administradores)
@@ -93,23 +103,29 @@ public class ResenaService {
         return resenaRepository.findAllByOrderByFechaCreacionDesc();
     }
 
-    // Obtener estadísticas de reseñas
+    // Obtener estadísticas de reseñas (desde el agregado en memoria, sin consultar la tabla)
     public Map<String, Object> obtenerEstadisticasResenas() {
+        EstadisticasResenas agregado = estadisticasResenasService.obtener();
         Map<String, Object> estadisticas = new HashMap<>();
         
-        Double promedio = resenaRepository.getPromedioCalificaciones();
-        Long total = resenaRepository.getTotalResenas();
+        estadisticas.put("promedioCalificacion", Math.round(agregado.getPromedio() * 10.0) / 10.0);
+        estadisticas.put("totalResenas", agregado.getTotal());
         
-        estadisticas.put("promedioCalificacion", promedio != null ? Math.round(promedio * 10.0) / 10.0 : 0.0);
-        estadisticas.put("totalResenas", total != null ? total : 0);
+        Map<Integer, Long> distribucion = new LinkedHashMap<>();
+        for (int estrellas = 5; estrellas >= 1; estrellas--) {
+            distribucion.put(estrellas, agregado.getEstrellas(estrellas));
+        }
+        estadisticas.put("distribucion", distribucion);
         
         return estadisticas;
     }
 
     // Actualizar una reseña
+    @Transactional
     public Resena actualizarResena(Long resenaId, Integer calificacion, String comentario) {
         Resena resena = resenaRepository.findById(resenaId)
             .orElseThrow(() -> new RuntimeException("Reseña no encontrada"));
+        Integer calificacionAnterior = resena.getCalificacion();
         
         // Validar calificación
         if (calificacion != null && (calificacion < 1 || calificacion > 5)) {
@@ -124,15 +140,28 @@ public class ResenaService {
             resena.setComentario(comentario);
         }
         
-        return resenaRepository.save(resena);
+        Resena guardada = resenaRepository.save(resena);
+        if (!calificacionAnterior.equals(guardada.getCalificacion())) {
+            estadisticasResenasService.registrar(calificacionAnterior, guardada.getCalificacion());
+        }
+        respuestaCacheService.invalidar(RespuestaCacheService.RESENAS_PUBLICAS);
+        return guardada;
     }
 
     // Eliminar una reseña
+    @Transactional
     public void eliminarResena(Long resenaId) {
-        if (!resenaRepository.existsById(resenaId)) {
-            throw new RuntimeException("Reseña no encontrada");
-        }
-        resenaRepository.deleteById(resenaId);
+        Resena resena = resenaRepository.findById(resenaId)
+            .orElseThrow(() -> new RuntimeException("Reseña no encontrada"));
+        resenaRepository.delete(resena);
+        estadisticasResenasService.registrar(resena.getCalificacion(), null);
+        respuestaCacheService.invalidar(RespuestaCacheService.RESENAS_PUBLICAS);
+    }
+
+    // Rehacer las estadísticas cuando la base de datos borra reseñas en cascada (al borrar citas o usuarios)
+    public void recalcularTrasBorradoEnCascada() {
+        estadisticasResenasService.recalcular();
+        respuestaCacheService.invalidar(RespuestaCacheService.RESENAS_PUBLICAS);
     }
 
     // Verificar si una cita puede tener reseña
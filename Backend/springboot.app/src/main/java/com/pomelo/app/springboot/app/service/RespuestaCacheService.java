@@ -0,0 +1,119 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Caché de respuestas JSON de los endpoints públicos que cambian poco (servicios, portfolio, reseñas).
+ * Guarda el JSON ya serializado con su ETag y responde 304 si el cliente ya tiene esa versión.
+ * Los servicios la invalidan al modificar los datos; la caducidad solo cubre cambios indirectos
+ * (por ejemplo, el nombre de un cliente que aparece en una reseña).
+ */
+@Service
+public class RespuestaCacheService {
+
+    public static final String SERVICIOS = "servicios";
+    public static final String PORTFOLIO_FOTOS = "portfolio-fotos";
+    public static final String RESENAS_PUBLICAS = "resenas-publicas";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.cache-respuestas.ttl-segundos:300}")
+    private long ttlSegundos = 300;
+
+    private final ConcurrentHashMap<String, RespuestaCacheada> respuestas = new ConcurrentHashMap<>();
+
+    /**
+     * Devuelve la respuesta de la clave, generándola con el proveedor si no está en caché o ha caducado.
+     * Si ifNoneMatch coincide con el ETag actual responde 304 sin cuerpo.
+     */
+    public ResponseEntity<byte[]> responder(String clave, String ifNoneMatch, Supplier<Object> generador) {
+        RespuestaCacheada respuesta = respuestas.get(clave);
+        if (respuesta == null || respuesta.caducada()) {
+            // compute bloquea solo esta clave: una invalidación simultánea espera y descarta el valor recién generado
+            respuesta = respuestas.compute(clave, (k, actual) ->
+                    actual != null && !actual.caducada() ? actual : generar(generador));
+        }
+        if (ifNoneMatch != null && (ifNoneMatch.contains(respuesta.etag) || "*".equals(ifNoneMatch.trim()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(respuesta.etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(respuesta.etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(respuesta.cuerpo);
+    }
+
+    /**
+     * Descarta la respuesta de la clave. Dentro de una transacción se descarta también al confirmarla,
+     * para que una petición concurrente no vuelva a guardar los datos anteriores.
+     */
+    public void invalidar(String clave) {
+        respuestas.remove(clave);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    respuestas.remove(clave);
+                }
+            });
+        }
+    }
+
+    public void invalidarTodo() {
+        respuestas.clear();
+    }
+
+    private RespuestaCacheada generar(Supplier<Object> generador) {
+        try {
+            byte[] cuerpo = objectMapper.writeValueAsBytes(generador.get());
+            return new RespuestaCacheada(cuerpo, etag(cuerpo), System.nanoTime() + ttlSegundos * 1_000_000_000L);
+        } catch (Exception e) {
+            throw new RuntimeException("Error al generar la respuesta: " + e.getMessage(), e);
+        }
+    }
+
+    // ETag fuerte: hash del contenido, igual en todas las instancias para la misma respuesta
+    private static String etag(byte[] cuerpo) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(cuerpo);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class RespuestaCacheada {
+        private final byte[] cuerpo;
+        private final String etag;
+        private final long caducaNanos;
+
+        RespuestaCacheada(byte[] cuerpo, String etag, long caducaNanos) {
+            this.cuerpo = cuerpo;
+            this.etag = etag;
+            this.caducaNanos = caducaNanos;
+        }
+
+        boolean caducada() {
+            return System.nanoTime() - caducaNanos > 0;
+        }
+    }
+}
@@ -10,9 +10,14 @@ import java.util.Optional;
 @Service
 public class ServicioService {
     private final ServicioRepository servicioRepository;
+    private final GoogleCalendarService googleCalendarService;
+    private final RespuestaCacheService respuestaCacheService;
 
-    public ServicioService(ServicioRepository servicioRepository) {
+    public ServicioService(ServicioRepository servicioRepository, GoogleCalendarService googleCalendarService,
+                           RespuestaCacheService respuestaCacheService) {
         this.servicioRepository = servicioRepository;
+        this.googleCalendarService = googleCalendarService;
+        this.respuestaCacheService = respuestaCacheService;
     }
 
     public List<Servicio> listarServicios() {
@@ -49,7 +54,11 @@ public class ServicioService {
                 servicio.setColorGoogleCalendar("#4285F4");
             }
             
-            return servicioRepository.save(servicio);
+            Servicio guardado = servicioRepository.save(servicio);
+            // Un servicio nuevo puede coincidir con nombres que antes se resolvían por coincidencia parcial
+            googleCalendarService.invalidateServiceColors();
+            respuestaCacheService.invalidar(RespuestaCacheService.SERVICIOS);
+            return guardado;
         } catch (Exception e) {
             throw new RuntimeException("Error al crear servicio: " + e.getMessage(), e);
         }
@@ -61,6 +70,8 @@ public class ServicioService {
                 throw new RuntimeException("Servicio no encontrado");
             }
             servicioRepository.deleteById(id);
+            googleCalendarService.invalidateServiceColors();
+            respuestaCacheService.invalidar(RespuestaCacheService.SERVICIOS);
         } catch (Exception e) {
             throw new RuntimeException("Error al eliminar servicio: " + e.getMessage(), e);
         }
@@ -93,7 +104,10 @@ public class ServicioService {
                 if (servicioActualizado.getColorGoogleCalendar() != null) {
                     servicio.setColorGoogleCalendar(servicioActualizado.getColorGoogleCalendar());
                 }
-                return servicioRepository.save(servicio);
+                Servicio guardado = servicioRepository.save(servicio);
+                googleCalendarService.invalidateServiceColors();
+                respuestaCacheService.invalidar(RespuestaCacheService.SERVICIOS);
+                return guardado;
             }).orElseThrow(() -> new RuntimeException("Servicio no encontrado"));
         } catch (Exception e) {
             throw new RuntimeException("Error al modificar servicio: " + e.getMessage(), e);
@@ -0,0 +1,106 @@
+package com.pomelo.app.springboot.app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de tokens JWT ya verificados con el usuario al que pertenecen, para que JwtFilter no verifique
+ * la firma ni consulte la base de datos en cada petición. Cada entrada dura como mucho ttl-segundos
+ * (y nunca más que el propio token); al banear o borrar un usuario se descartan sus entradas.
+ */
+@Service
+public class SesionCacheService {
+
+    @Value("${app.jwt.cache.ttl-segundos:300}")
+    private long ttlSegundos = 300;
+
+    @Value("${app.jwt.cache.max-entradas:10000}")
+    private int maxEntradas = 10000;
+
+    private final ConcurrentHashMap<String, Sesion> sesiones = new ConcurrentHashMap<>();
+
+    // Se incrementa con cada invalidación: una carga que empezó antes no puede guardar un usuario ya cambiado
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    /**
+     * Usuario del token si está en caché y no ha caducado
+     */
+    public UserDetails obtener(String token) {
+        Sesion sesion = sesiones.get(token);
+        if (sesion == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= sesion.caducaMillis) {
+            sesiones.remove(token, sesion);
+            return null;
+        }
+        return sesion.usuario;
+    }
+
+    /**
+     * Valor a pasar a guardar(): se toma antes de cargar el usuario de la base de datos
+     */
+    public long version() {
+        return invalidaciones.get();
+    }
+
+    public void guardar(String token, UserDetails usuario, Date expiracionToken, long version) {
+        long caduca = System.currentTimeMillis() + ttlSegundos * 1000;
+        if (expiracionToken != null) {
+            caduca = Math.min(caduca, expiracionToken.getTime());
+        }
+        if (sesiones.size() >= maxEntradas) {
+            liberarEspacio();
+        }
+        sesiones.put(token, new Sesion(usuario, caduca));
+        // Si se invalidó mientras se cargaba el usuario, la entrada puede estar desfasada
+        if (invalidaciones.get() != version) {
+            sesiones.remove(token);
+        }
+    }
+
+    /**
+     * Descarta las sesiones de un usuario (baneo, cambio de rol o borrado)
+     */
+    public void invalidar(String email) {
+        invalidaciones.incrementAndGet();
+        sesiones.values().removeIf(sesion -> sesion.usuario.getUsername().equalsIgnoreCase(email));
+    }
+
+    public void invalidarTodo() {
+        invalidaciones.incrementAndGet();
+        sesiones.clear();
+    }
+
+    public int tamano() {
+        return sesiones.size();
+    }
+
+    // Quita las caducadas y, si no basta, una cuarta parte de las entradas (las primeras que encuentre)
+    private void liberarEspacio() {
+        long ahora = System.currentTimeMillis();
+        sesiones.values().removeIf(sesion -> ahora >= sesion.caducaMillis);
+        int aQuitar = sesiones.size() - maxEntradas * 3 / 4;
+        Iterator<String> tokens = sesiones.keySet().iterator();
+        while (aQuitar-- > 0 && tokens.hasNext()) {
+            tokens.next();
+            tokens.remove();
+        }
+    }
+
+    private static final class Sesion {
+        private final UserDetails usuario;
+        private final long caducaMillis;
+
+        Sesion(UserDetails usuario, long caducaMillis) {
+            this.usuario = usuario;
+            this.caducaMillis = caducaMillis;
+        }
+    }
+}
@@ -31,6 +31,15 @@ public class UsuarioService {
     @Autowired
     private PhoneValidationService phoneValidationService;
 
+    @Autowired
+    private OcupacionService ocupacionService;
+
+    @Autowired
+    private ResenaService resenaService;
+
+    @Autowired
+    private SesionCacheService sesionCacheService;
+
     public Usuario obtenerPerfil(Long id) {
         try {
             Optional<Usuario> usuario = usuarioRepository.findById(id);
@@ -128,10 +137,13 @@ public class UsuarioService {
             List<Cita> citasUsuario = citaRepository.findByCliente(usuario);
             if (!citasUsuario.isEmpty()) {
                 citaRepository.deleteAll(citasUsuario);
+                citasUsuario.forEach(c -> ocupacionService.invalidar(c.getFechaHora().toLocalDate()));
             }
             
-            // Eliminar el usuario
+            // Eliminar el usuario (sus reseñas se borran en cascada)
             usuarioRepository.delete(usuario);
+            sesionCacheService.invalidar(usuario.getEmail());
+            resenaService.recalcularTrasBorradoEnCascada();
             
         } catch (Exception e) {
             throw new RuntimeException("Error al eliminar la cuenta: " + e.getMessage(), e);
@@ -449,6 +461,7 @@ public class UsuarioService {
                 Usuario user = usuario.get();
                 user.setBaneado(true);
                 usuarioRepository.save(user);
+                sesionCacheService.invalidar(user.getEmail());
             } else {
                 throw new RuntimeException("Usuario no encontrado con ID: " + id);
             }
@@ -467,6 +480,7 @@ public class UsuarioService {
                 Usuario user = usuario.get();
                 user.setBaneado(false);
                 usuarioRepository.save(user);
+                sesionCacheService.invalidar(user.getEmail());
             } else {
                 throw new RuntimeException("Usuario no encontrado con ID: " + id);
             }
@@ -1,30 +1,51 @@
 package com.pomelo.app.springboot.app.service;
 
 import com.pomelo.app.springboot.app.entity.Vacaciones;
-import com.pomelo.app.springboot.app.entity.Cita;
 import com.pomelo.app.springboot.app.repository.VacacionesRepository;
-import com.pomelo.app.springboot.app.repository.CitaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
+/**
+ * Períodos de vacaciones. Los activos se guardan en memoria como intervalos disjuntos ordenados
+ * por fecha de inicio (los que se solapan o son contiguos se fusionan), de modo que saber si un día
+ * es de vacaciones o qué días de un rango lo son no consulta la base de datos.
+ */
 @Service
 public class VacacionesService {
     @Autowired private VacacionesRepository vacacionesRepository;
-    @Autowired private CitaRepository citaRepository;
+    @Autowired private CancelacionMasivaService cancelacionMasivaService;
     
+    // Inicio -> fin (inclusive) de cada intervalo; se sustituye entero al cambiar las vacaciones
+    private volatile NavigableMap<LocalDate, LocalDate> intervalos;
+    
+    /**
+     * Guarda el período. Las citas que coinciden con él se cancelan aparte con cancelarCitasEnVacaciones.
+     */
     public Vacaciones crearVacaciones(LocalDate fechaInicio, LocalDate fechaFin, String descripcion) {
         Vacaciones vacaciones = new Vacaciones(fechaInicio, fechaFin, descripcion);
         Vacaciones savedVacaciones = vacacionesRepository.save(vacaciones);
-        
-        // Cancelar citas que coincidan con el período de vacaciones
-        cancelarCitasEnVacaciones(fechaInicio, fechaFin);
-        
+        recargar();
         return savedVacaciones;
     }
     
+    /**
+     * Cancela todas las citas que coincidan con el período de vacaciones. Los emails a los clientes y el
+     * borrado de sus eventos de Google Calendar siguen en segundo plano; el trabajo devuelto informa del progreso.
+     */
+    public CancelacionMasivaService.Trabajo cancelarCitasEnVacaciones(Vacaciones vacaciones) {
+        return cancelacionMasivaService.cancelarEntre(vacaciones.getFechaInicio(), vacaciones.getFechaFin(),
+            "Cancelada automáticamente por período de vacaciones");
+    }
+    
     public List<Vacaciones> listarVacacionesActivas() {
         return vacacionesRepository.findByActivoTrue();
     }
@@ -34,32 +55,95 @@ public class VacacionesService {
             .orElseThrow(() -> new RuntimeException("Vacaciones no encontradas"));
         vacaciones.setActivo(false);
         vacacionesRepository.save(vacaciones);
+        recargar();
     }
     
     public boolean esFechaVacaciones(LocalDate fecha) {
-        return vacacionesRepository.existeVacacionEnFecha(fecha);
+        Map.Entry<LocalDate, LocalDate> intervalo = obtenerIntervalos().floorEntry(fecha);
+        return intervalo != null && !intervalo.getValue().isBefore(fecha);
     }
     
-    public List<Vacaciones> obtenerVacacionesEnRango(LocalDate fechaInicio, LocalDate fechaFin) {
-        return vacacionesRepository.findVacacionesActivasEnRango(fechaInicio, fechaFin);
+    /**
+     * Días de vacaciones dentro de [desde, hasta], en orden
+     */
+    public List<LocalDate> diasBloqueados(LocalDate desde, LocalDate hasta) {
+        NavigableMap<LocalDate, LocalDate> actuales = obtenerIntervalos();
+        List<LocalDate> dias = new ArrayList<>();
+        // El intervalo que empieza antes de "desde" puede llegar dentro del rango
+        LocalDate inicio = actuales.floorKey(desde);
+        if (inicio == null) {
+            inicio = desde;
+        }
+        for (Map.Entry<LocalDate, LocalDate> intervalo : actuales.subMap(inicio, true, hasta, true).entrySet()) {
+            LocalDate dia = intervalo.getKey().isBefore(desde) ? desde : intervalo.getKey();
+            LocalDate fin = intervalo.getValue().isAfter(hasta) ? hasta : intervalo.getValue();
+            for (; !dia.isAfter(fin); dia = dia.plusDays(1)) {
+                dias.add(dia);
+            }
+        }
+        return dias;
+    }
+    
+    public List<LocalDate> diasBloqueados(YearMonth mes) {
+        return diasBloqueados(mes.atDay(1), mes.atEndOfMonth());
     }
     
     /**
-     * Cancela todas las citas que coincidan con el período de vacaciones
+     * Vuelve a leer las vacaciones activas. Se ejecuta también cada minuto por si se han cambiado desde otro nodo.
      */
-    private void cancelarCitasEnVacaciones(LocalDate fechaInicio, LocalDate fechaFin) {
-        // Obtener todas las citas que coincidan con el período de vacaciones
-        List<Cita> citasACancelar = citaRepository.findByFechaHoraBetweenAndEstadoNot(
-            fechaInicio.atStartOfDay(),
-            fechaFin.atTime(23, 59, 59),
-            "cancelada"
-        );
-        
-        // Cancelar cada cita
-        for (Cita cita : citasACancelar) {
-            cita.setEstado("cancelada");
-            cita.setComentario("Cancelada automáticamente por período de vacaciones");
-            citaRepository.save(cita);
+    @Scheduled(fixedDelayString = "${app.vacaciones.refresco-ms:60000}")
+    public void recargar() {
+        try {
+            intervalos = construirIntervalos(vacacionesRepository.findByActivoTrue());
+        } catch (Exception e) {
+            System.err.println("❌ Error al cargar las vacaciones: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+    
+    private NavigableMap<LocalDate, LocalDate> obtenerIntervalos() {
+        NavigableMap<LocalDate, LocalDate> actuales = intervalos;
+        if (actuales == null) {
+            synchronized (this) {
+                actuales = intervalos;
+                if (actuales == null) {
+                    actuales = construirIntervalos(vacacionesRepository.findByActivoTrue());
+                    intervalos = actuales;
+                }
+            }
+        }
+        return actuales;
+    }
+    
+    // Ordena los períodos por inicio y fusiona los que se solapan o se tocan
+    static NavigableMap<LocalDate, LocalDate> construirIntervalos(List<Vacaciones> vacaciones) {
+        List<Vacaciones> ordenadas = new ArrayList<>(vacaciones);
+        ordenadas.sort((a, b) -> a.getFechaInicio().compareTo(b.getFechaInicio()));
+        TreeMap<LocalDate, LocalDate> fusionados = new TreeMap<>();
+        LocalDate inicio = null;
+        LocalDate fin = null;
+        for (Vacaciones v : ordenadas) {
+            if (v.getFechaInicio() == null || v.getFechaFin() == null || v.getFechaFin().isBefore(v.getFechaInicio())) {
+                continue;
+            }
+            if (fin != null && !v.getFechaInicio().isAfter(fin.plusDays(1))) {
+                if (v.getFechaFin().isAfter(fin)) {
+                    fin = v.getFechaFin();
+                }
+            } else {
+                if (inicio != null) {
+                    fusionados.put(inicio, fin);
+                }
+                inicio = v.getFechaInicio();
+                fin = v.getFechaFin();
+            }
+        }
+        if (inicio != null) {
+            fusionados.put(inicio, fin);
+        }
+        return Collections.unmodifiableNavigableMap(fusionados);
+    }
+    
+    public List<Vacaciones> obtenerVacacionesEnRango(LocalDate fechaInicio, LocalDate fechaFin) {
+        return vacacionesRepository.findVacacionesActivasEnRango(fechaInicio, fechaFin);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,163 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Portfolio;
+import com.pomelo.app.springboot.app.repository.PortfolioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Genera las versiones reducidas de las fotos del portfolio (miniatura, media y completa) en un pool acotado,
+ * fuera del hilo de la petición. Las variantes se guardan en el almacén de imágenes junto al original
+ * y se anotan en la foto para que la galería pueda elegir la adecuada con srcset.
+ */
+@Service
+public class VariantesImagenService {
+
+    // Nombre y ancho máximo de cada variante
+    static final String[] NOMBRES = {"thumb", "medium", "full"};
+    static final int[] ANCHOS = {320, 800, 1600};
+
+    @Autowired
+    private AlmacenImagenesService almacenImagenesService;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private RespuestaCacheService respuestaCacheService;
+
+    @Value("${app.imagenes.hilos:2}")
+    private int hilos = 2;
+
+    @Value("${app.imagenes.capacidad-cola:50}")
+    private int capacidadCola = 50;
+
+    @Value("${app.imagenes.calidad-jpeg:0.8}")
+    private float calidadJpeg = 0.8f;
+
+    private ThreadPoolExecutor pool;
+
+    @PostConstruct
+    public void iniciar() {
+        pool = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacidadCola));
+    }
+
+    @PreDestroy
+    public void detener() {
+        pool.shutdown();
+    }
+
+    /**
+     * Encola la generación de variantes de una foto. Si el pool está lleno la foto queda sin variantes
+     * (la galería usa el original) y se reintenta en el siguiente arranque.
+     */
+    public void encolar(Long fotoId, String imagenHash) {
+        try {
+            pool.execute(() -> {
+                try {
+                    portfolioRepository.actualizarVariantes(fotoId, generar(imagenHash));
+                    // La galería pasa a recibir las variantes en la siguiente petición
+                    respuestaCacheService.invalidar(RespuestaCacheService.PORTFOLIO_FOTOS);
+                } catch (Exception e) {
+                    System.err.println("❌ Error al generar las variantes de la foto ID " + fotoId + ": " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.err.println("⚠️ Cola de imágenes llena, la foto ID " + fotoId + " se procesará más tarde");
+        }
+    }
+
+    /**
+     * Encola las fotos que aún no tienen variantes (subidas antes de existir este servicio o descartadas con la cola llena)
+     */
+    public void encolarPendientes() {
+        List<Portfolio> pendientes = portfolioRepository.findByImagenHashIsNotNullAndImagenVariantesIsNull();
+        for (Portfolio foto : pendientes) {
+            encolar(foto.getId(), foto.getImagenHash());
+        }
+        if (!pendientes.isEmpty()) {
+            System.out.println("🖼️ Fotos del portfolio pendientes de variantes: " + pendientes.size());
+        }
+    }
+
+    /**
+     * Redimensiona la imagen a cada ancho (sin ampliarla) y la guarda como JPEG. Devuelve "nombre:ancho:hash,...".
+     */
+    String generar(String imagenHash) throws IOException {
+        BufferedImage original;
+        try (InputStream entrada = almacenImagenesService.abrir(imagenHash)) {
+            original = ImageIO.read(entrada);
+        }
+        if (original == null) {
+            throw new IOException("Formato de imagen no soportado");
+        }
+
+        List<String> variantes = new ArrayList<>(ANCHOS.length);
+        BufferedImage anterior = original;
+        int anchoAnterior = Integer.MAX_VALUE;
+        // De mayor a menor: cada variante se reduce desde la anterior, que es más rápido y da mejor resultado
+        for (int i = ANCHOS.length - 1; i >= 0; i--) {
+            int ancho = Math.min(ANCHOS[i], original.getWidth());
+            if (ancho >= anchoAnterior) {
+                continue;
+            }
+            int alto = Math.max(1, Math.round((float) original.getHeight() * ancho / original.getWidth()));
+            anterior = redimensionar(anterior, ancho, alto);
+            anchoAnterior = ancho;
+            variantes.add(0, NOMBRES[i] + ":" + ancho + ":" + almacenImagenesService.guardar(jpeg(anterior)));
+        }
+        return String.join(",", variantes);
+    }
+
+    private static BufferedImage redimensionar(BufferedImage origen, int ancho, int alto) {
+        BufferedImage destino = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // Las transparencias quedan sobre blanco (JPEG no tiene canal alfa)
+            g.drawImage(origen, 0, 0, ancho, alto, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    private byte[] jpeg(BufferedImage imagen) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(salida)) {
+            writer.setOutput(ios);
+            ImageWriteParam parametros = writer.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(calidadJpeg);
+            parametros.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(imagen, null, null), parametros);
+        } finally {
+            writer.dispose();
+        }
+        return salida.toByteArray();
+    }
+}
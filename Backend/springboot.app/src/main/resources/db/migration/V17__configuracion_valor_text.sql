@@ -0,0 +1,2 @@
+-- Ampliar el valor de configuracion para guardar el horario semanal en JSON
+ALTER TABLE configuracion MODIFY COLUMN valor TEXT NOT NULL;
@@ -0,0 +1,17 @@
+-- Cola persistente de sincronización con Google Calendar
+CREATE TABLE calendar_sync_task (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    operacion VARCHAR(20) NOT NULL,
+    calendario VARCHAR(20) NOT NULL,
+    cita_id BIGINT,
+    cliente_id BIGINT NOT NULL,
+    servicio_id BIGINT,
+    fecha_hora DATETIME,
+    estado VARCHAR(20) NOT NULL DEFAULT 'PENDIENTE',
+    intentos INT NOT NULL DEFAULT 0,
+    proximo_intento DATETIME NULL,
+    ultimo_error VARCHAR(500),
+    fecha_creacion DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_calendar_sync_task_estado ON calendar_sync_task(estado, id);
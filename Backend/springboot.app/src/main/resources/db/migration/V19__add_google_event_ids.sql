@@ -0,0 +1,7 @@
+-- Guardar los IDs de los eventos de Google Calendar para borrarlos o actualizarlos sin buscarlos
+ALTER TABLE cita
+  ADD COLUMN IF NOT EXISTS google_event_id_cliente VARCHAR(255) NULL,
+  ADD COLUMN IF NOT EXISTS google_event_id_admin VARCHAR(255) NULL;
+
+ALTER TABLE calendar_sync_task
+  ADD COLUMN IF NOT EXISTS event_id VARCHAR(255) NULL;
@@ -0,0 +1,10 @@
+-- Emails que no se pudieron entregar tras agotar los reintentos (se guarda el mensaje MIME completo para reenviarlo)
+CREATE TABLE email_fallido (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    destinatarios VARCHAR(500),
+    asunto VARCHAR(500),
+    contenido MEDIUMBLOB,
+    intentos INT NOT NULL DEFAULT 0,
+    ultimo_error VARCHAR(500),
+    fecha_creacion DATETIME DEFAULT CURRENT_TIMESTAMP
+);
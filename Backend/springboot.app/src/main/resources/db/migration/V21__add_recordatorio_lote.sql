@@ -0,0 +1,5 @@
+-- Lote que reclamó el recordatorio de la cita (evita que dos instancias envíen el mismo recordatorio)
+ALTER TABLE cita
+  ADD COLUMN recordatorio_lote VARCHAR(36) NULL;
+
+CREATE INDEX idx_cita_recordatorio_lote ON cita(recordatorio_lote);
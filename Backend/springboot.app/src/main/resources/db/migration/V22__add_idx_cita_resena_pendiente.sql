@@ -0,0 +1,3 @@
+-- Índice para recorrer por (fecha_hora, id) las citas pendientes de recordatorio de reseña
+-- sin leer las filas (el id va implícito en los índices secundarios de InnoDB)
+CREATE INDEX idx_cita_resena_pendiente ON cita(fecha_hora, recordatorio_resena_enviado, estado);
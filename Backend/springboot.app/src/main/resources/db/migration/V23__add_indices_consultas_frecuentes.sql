@@ -0,0 +1,26 @@
+-- Índices para las consultas de CitaRepository, ResenaRepository y VacacionesRepository.
+-- Las entidades los declaran también en @Table(indexes), así que ddl-auto=update los crea si faltan;
+-- este script es para las bases de datos que se mantienen a mano.
+-- Sustituye también a los cambios que DatabaseMigrationService aplicaba en cada arranque.
+
+-- Columnas de recuperación de contraseña (antes las añadía DatabaseMigrationService)
+ALTER TABLE usuario
+  ADD COLUMN reset_password_token VARCHAR(255) NULL,
+  ADD COLUMN reset_password_expiry TIMESTAMP NULL;
+CREATE INDEX idx_reset_password_token ON usuario(reset_password_token);
+
+-- Citas de un cliente por fecha (mis citas, citas periódicas, citas futuras del cliente, recuento por estado)
+CREATE INDEX idx_cita_cliente_fecha ON cita(cliente_id, fecha_hora, estado);
+
+-- Recordatorios de cita pendientes dentro de una ventana de fechas
+CREATE INDEX idx_cita_recordatorio_pendiente ON cita(recordatorio_cita_enviado, fecha_hora, estado);
+
+-- Rangos por fecha (ocupación, disponibilidad, vacaciones, listado del admin):
+-- los sirve idx_cita_resena_pendiente (V22), que empieza por fecha_hora y lleva el estado
+
+-- Reseñas de un cliente por fecha. La reseña de una cita y el listado por fecha de creación
+-- ya los cubren uk_resena_cita e idx_resenas_fecha_creacion (V6)
+CREATE INDEX idx_resenas_cliente_fecha ON resenas(cliente_id, fecha_creacion);
+
+-- Vacaciones activas que se solapan con una fecha o un rango
+CREATE INDEX idx_vacaciones_activo_fechas ON vacaciones(activo, fecha_inicio, fecha_fin);
@@ -0,0 +1,6 @@
+-- Las imágenes del portfolio pasan al almacén en disco (AlmacenImagenesService), referenciadas por su SHA-256.
+-- PortfolioService.migrarImagenesBase64 vuelca al almacén las filas existentes y vacía imagen_base64.
+ALTER TABLE portfolio
+  ADD COLUMN imagen_hash CHAR(64) NULL;
+
+CREATE INDEX idx_portfolio_imagen_hash ON portfolio(imagen_hash);
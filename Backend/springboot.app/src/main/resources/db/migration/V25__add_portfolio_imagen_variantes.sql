@@ -0,0 +1,3 @@
+-- Versiones reducidas de cada foto del portfolio ("nombre:ancho:hash" separadas por comas), ver VariantesImagenService
+ALTER TABLE portfolio
+  ADD COLUMN imagen_variantes VARCHAR(500) NULL;
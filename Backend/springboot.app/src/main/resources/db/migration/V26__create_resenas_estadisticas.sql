@@ -0,0 +1,24 @@
+-- Agregado de reseñas (fila única) que mantiene ResenaService, ver EstadisticasResenasService.
+-- Se inicializa con las reseñas existentes.
+CREATE TABLE IF NOT EXISTS resenas_estadisticas (
+    id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0,
+    suma BIGINT NOT NULL,
+    total BIGINT NOT NULL,
+    estrellas_1 BIGINT NOT NULL,
+    estrellas_2 BIGINT NOT NULL,
+    estrellas_3 BIGINT NOT NULL,
+    estrellas_4 BIGINT NOT NULL,
+    estrellas_5 BIGINT NOT NULL
+);
+
+INSERT IGNORE INTO resenas_estadisticas (id, suma, total, estrellas_1, estrellas_2, estrellas_3, estrellas_4, estrellas_5)
+SELECT 1,
+       COALESCE(SUM(calificacion), 0),
+       COUNT(*),
+       COALESCE(SUM(calificacion = 1), 0),
+       COALESCE(SUM(calificacion = 2), 0),
+       COALESCE(SUM(calificacion = 3), 0),
+       COALESCE(SUM(calificacion = 4), 0),
+       COALESCE(SUM(calificacion = 5), 0)
+FROM resenas;
@@ -0,0 +1,3 @@
+-- Versión de cada clave de configuración, ver ConfiguracionService (los nodos recargan al cambiar la suma)
+ALTER TABLE configuracion
+  ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
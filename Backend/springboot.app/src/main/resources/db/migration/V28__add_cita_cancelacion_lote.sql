@@ -0,0 +1,5 @@
+-- Cancelación masiva que anuló la cita (una sola UPDATE marca las citas y luego se recuperan por este valor)
+ALTER TABLE cita
+  ADD COLUMN cancelacion_lote VARCHAR(36) NULL;
+
+CREATE INDEX idx_cita_cancelacion_lote ON cita(cancelacion_lote);
@@ -0,0 +1,2 @@
+-- Índice para el listado paginado del admin: rango de fecha_hora y paginación por cursor sobre (fecha_hora, id)
+CREATE INDEX idx_cita_fecha_id ON cita(fecha_hora, id);
@@ -0,0 +1,6 @@
+-- Reserva de las tareas de sincronización por la instancia que las procesa (evita eventos duplicados)
+ALTER TABLE calendar_sync_task
+  ADD COLUMN reclamo_lote VARCHAR(36) NULL,
+  ADD COLUMN reclamada_hasta DATETIME NULL;
+
+CREATE INDEX idx_calendar_sync_task_reclamo ON calendar_sync_task(reclamo_lote);
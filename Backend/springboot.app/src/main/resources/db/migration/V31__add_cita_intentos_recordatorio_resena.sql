@@ -0,0 +1,3 @@
+-- Envíos fallidos del recordatorio de reseña: la conciliación no se detiene en ellos y los reintenta aparte
+ALTER TABLE cita
+  ADD COLUMN intentos_recordatorio_resena INT NOT NULL DEFAULT 0;
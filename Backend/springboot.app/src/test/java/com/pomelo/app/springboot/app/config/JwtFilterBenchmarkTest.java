@@ -0,0 +1,98 @@
+package com.pomelo.app.springboot.app.config;
+
+import com.pomelo.app.springboot.app.service.SesionCacheService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Coste por petición del filtro JWT: la versión anterior (clave y parser nuevos y dos verificaciones por petición,
+ * más la consulta del usuario) frente a la actual con caché. La consulta a la base de datos se simula con 0,5 ms.
+ * Se ejecuta solo con -Dbenchmark=true: mvn test -Dtest=JwtFilterBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtFilterBenchmarkTest {
+
+    private static final String SECRETO = "K8x#mP9$vL2@nQ7&hF4!jR5*wE3^tY6%uI1(oA0)sD8-gB9=cX4+zM7";
+    private static final int CALENTAMIENTO = 2000;
+    private static final int PETICIONES = 20000;
+
+    private final UserDetails usuario = new User("cliente@test.com", "", List.of(new SimpleGrantedAuthority("ROLE_CLIENTE")));
+    private final UserDetailsService userDetailsService = email -> {
+        LockSupport.parkNanos(500_000);
+        return usuario;
+    };
+
+    @Test
+    void comparaElFiltroAnteriorConElActual() throws Exception {
+        JwtUtils jwtUtils = new JwtUtils();
+        String token = jwtUtils.generateJwtToken("cliente@test.com", "Cliente");
+
+        medir("anterior", new FiltroAnterior(userDetailsService), token);
+        medir("actual", new JwtFilter(jwtUtils, userDetailsService, new SesionCacheService()), token);
+    }
+
+    private void medir(String nombre, Filter filtro, String token) throws Exception {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            filtrar(filtro, token);
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < PETICIONES; i++) {
+            filtrar(filtro, token);
+        }
+        double microsPorPeticion = (System.nanoTime() - inicio) / 1000.0 / PETICIONES;
+        System.out.printf("%-9s %8.1f µs/petición%n", nombre, microsPorPeticion);
+    }
+
+    private static void filtrar(Filter filtro, String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest peticion = new MockHttpServletRequest("GET", "/api/citas/mis-citas");
+        peticion.addHeader("Authorization", "Bearer " + token);
+        filtro.doFilter(peticion, new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals("cliente@test.com", SecurityContextHolder.getContext().getAuthentication().getName());
+    }
+
+    // Filtro tal como estaba antes de la caché, para comparar
+    private static final class FiltroAnterior extends OncePerRequestFilter {
+        private final UserDetailsService userDetailsService;
+
+        FiltroAnterior(UserDetailsService userDetailsService) {
+            this.userDetailsService = userDetailsService;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            String token = request.getHeader("Authorization").substring(7);
+            String username = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRETO.getBytes())).build()
+                    .parseClaimsJws(token).getBody().getSubject();
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRETO.getBytes())).build().parseClaimsJws(token);
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.pomelo.app.springboot.app.config;
+
+import com.pomelo.app.springboot.app.service.SesionCacheService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtFilterTest {
+
+    private final JwtUtils jwtUtils = new JwtUtils();
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final SesionCacheService sesionCacheService = new SesionCacheService();
+    private final JwtFilter filtro = new JwtFilter(jwtUtils, userDetailsService, sesionCacheService);
+
+    @BeforeEach
+    void setUp() {
+        when(userDetailsService.loadUserByUsername("cliente@test.com")).thenReturn(
+                new User("cliente@test.com", "", List.of(new SimpleGrantedAuthority("ROLE_CLIENTE"))));
+    }
+
+    @AfterEach
+    void limpiar() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void cargaElUsuarioUnaVezPorTokenHastaQueSeInvalida() throws Exception {
+        String token = jwtUtils.generateJwtToken("cliente@test.com", "Cliente");
+
+        assertEquals("cliente@test.com", autenticar("Bearer " + token));
+        assertEquals("cliente@test.com", autenticar("Bearer " + token));
+        verify(userDetailsService, times(1)).loadUserByUsername("cliente@test.com");
+
+        sesionCacheService.invalidar("cliente@test.com");
+        assertEquals("cliente@test.com", autenticar("Bearer " + token));
+        verify(userDetailsService, times(2)).loadUserByUsername("cliente@test.com");
+    }
+
+    @Test
+    void ignoraTokensConFirmaIncorrecta() throws Exception {
+        String token = jwtUtils.generateJwtToken("cliente@test.com", "Cliente");
+        // Se cambia un carácter interior de la firma: el último solo aporta algunos bits y puede decodificar igual
+        int posicion = token.lastIndexOf('.') + 5;
+        char original = token.charAt(posicion);
+        String manipulado = token.substring(0, posicion) + (original == 'A' ? 'B' : 'A') + token.substring(posicion + 1);
+
+        assertNull(autenticar("Bearer " + manipulado));
+        assertNull(autenticar("Bearer no-es-un-jwt"));
+        assertEquals(0, sesionCacheService.tamano());
+    }
+
+    private String autenticar(String cabecera) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest peticion = new MockHttpServletRequest("GET", "/api/citas/mis-citas");
+        peticion.addHeader("Authorization", cabecera);
+        filtro.doFilter(peticion, new MockHttpServletResponse(), new MockFilterChain());
+        var autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacion == null ? null : autenticacion.getName();
+    }
+}
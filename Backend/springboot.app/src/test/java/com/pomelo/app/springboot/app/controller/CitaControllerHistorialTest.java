@@ -0,0 +1,108 @@
+package com.pomelo.app.springboot.app.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pomelo.app.springboot.app.dto.CitaHistorial;
+import com.pomelo.app.springboot.app.dto.PaginaHistorialCitas;
+import com.pomelo.app.springboot.app.entity.Usuario;
+import com.pomelo.app.springboot.app.repository.CitaRepository;
+import com.pomelo.app.springboot.app.service.CitaService;
+import com.pomelo.app.springboot.app.service.ConfiguracionService;
+import com.pomelo.app.springboot.app.service.EmailService;
+import com.pomelo.app.springboot.app.service.HistorialCitasService;
+import com.pomelo.app.springboot.app.service.ServicioService;
+import com.pomelo.app.springboot.app.service.UsuarioService;
+import com.pomelo.app.springboot.app.service.VacacionesService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+/**
+ * "Mis citas" hace las mismas consultas tenga el cliente una cita o cincuenta:
+ * una para el usuario y una para la página del historial (cita, servicio y reseña unidos).
+ */
+class CitaControllerHistorialTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private CitaRepository citaRepository;
+    private UsuarioService usuarioService;
+    private CitaController citaController;
+
+    @BeforeEach
+    void setUp() {
+        citaRepository = mock(CitaRepository.class);
+        usuarioService = mock(UsuarioService.class);
+        HistorialCitasService historialCitasService = new HistorialCitasService();
+        ReflectionTestUtils.setField(historialCitasService, "citaRepository", citaRepository);
+        citaController = new CitaController(mock(CitaService.class), usuarioService, mock(ServicioService.class),
+                mock(ConfiguracionService.class), mock(VacacionesService.class), mock(EmailService.class), historialCitasService);
+
+        Usuario usuario = new Usuario();
+        usuario.setId(7L);
+        usuario.setEmail("cliente@test.com");
+        when(usuarioService.findByEmail("cliente@test.com")).thenReturn(usuario);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 50})
+    void unaConsultaPorPaginaSinImportarCuantasCitasHay(int numCitas) throws Exception {
+        List<CitaHistorial> citas = new ArrayList<>();
+        for (int i = 0; i < numCitas; i++) {
+            citas.add(new CitaHistorial((long) (100 - i), "Corte", "✂️", LocalDateTime.of(2030, 1, 1, 10, 0).minusDays(i),
+                    null, "completada", i % 2 == 0));
+        }
+        when(citaRepository.findHistorialCliente(eq(7L), any(), any(), any(), any())).thenReturn(citas);
+
+        ResponseEntity<?> respuesta = citaController.listarCitasUsuario(
+                User.withUsername("cliente@test.com").password("x").roles("CLIENTE").build(), null, null, 50);
+
+        assertEquals(200, respuesta.getStatusCode().value());
+        assertEquals(1, mockingDetails(citaRepository).getInvocations().size());
+        assertEquals(1, mockingDetails(usuarioService).getInvocations().size());
+
+        JsonNode pagina = objectMapper.readTree(objectMapper.writeValueAsString(respuesta.getBody()));
+        assertEquals(numCitas, pagina.get("citas").size());
+        assertFalse(pagina.get("hayMas").asBoolean());
+        JsonNode primera = pagina.get("citas").get(0);
+        assertEquals("Corte", primera.get("servicio").get("nombre").asText());
+        assertTrue(primera.get("reseñada").asBoolean());
+    }
+
+    @Test
+    void laFilaDeMasIndicaQueHayOtraPaginaYDaElCursor() {
+        int limite = 3;
+        List<CitaHistorial> citas = new ArrayList<>();
+        for (int i = 0; i <= limite; i++) {
+            citas.add(new CitaHistorial((long) (10 - i), "Corte", null, LocalDateTime.of(2030, 1, 10, 10, 0).minusDays(i),
+                    null, "completada", false));
+        }
+        when(citaRepository.findHistorialCliente(eq(7L), any(), any(), any(), any())).thenReturn(citas);
+
+        ResponseEntity<?> respuesta = citaController.listarCitasUsuario(
+                User.withUsername("cliente@test.com").password("x").roles("CLIENTE").build(), null, null, limite);
+
+        PaginaHistorialCitas pagina = (PaginaHistorialCitas) respuesta.getBody();
+        assertEquals(limite, pagina.citas().size());
+        assertTrue(pagina.hayMas());
+        assertEquals(8L, pagina.antesId());
+        assertEquals(LocalDateTime.of(2030, 1, 8, 10, 0), pagina.antesFecha());
+    }
+}
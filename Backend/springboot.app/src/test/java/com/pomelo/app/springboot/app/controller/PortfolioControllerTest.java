@@ -0,0 +1,122 @@
+package com.pomelo.app.springboot.app.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pomelo.app.springboot.app.entity.Portfolio;
+import com.pomelo.app.springboot.app.service.AlmacenImagenesService;
+import com.pomelo.app.springboot.app.service.PortfolioService;
+import com.pomelo.app.springboot.app.service.RespuestaCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sirve imágenes desde un almacén en un directorio temporal
+ */
+class PortfolioControllerTest {
+
+    // Cabecera PNG seguida de relleno
+    private static final byte[] PNG = new byte[64];
+
+    static {
+        byte[] firma = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        System.arraycopy(firma, 0, PNG, 0, firma.length);
+        for (int i = firma.length; i < PNG.length; i++) {
+            PNG[i] = (byte) i;
+        }
+    }
+
+    @TempDir
+    Path directorio;
+
+    private AlmacenImagenesService almacen;
+    private PortfolioService portfolioService;
+    private RespuestaCacheService respuestaCache;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        almacen = new AlmacenImagenesService();
+        ReflectionTestUtils.setField(almacen, "directorio", directorio.toString());
+        almacen.iniciar();
+        portfolioService = mock(PortfolioService.class);
+        respuestaCache = new RespuestaCacheService();
+        ReflectionTestUtils.setField(respuestaCache, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        mockMvc = MockMvcBuilders.standaloneSetup(new PortfolioController(portfolioService, almacen, respuestaCache)).build();
+    }
+
+    @Test
+    void listaDeFotosSeSirveDeCacheConEtagHastaQueSeInvalida() throws Exception {
+        when(portfolioService.obtenerFotosActivas()).thenReturn(List.of(new Portfolio("Degradado", "a".repeat(64), "")));
+
+        String etag = mockMvc.perform(get("/api/portfolio/fotos"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/portfolio/fotos").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        verify(portfolioService, times(1)).obtenerFotosActivas();
+
+        when(portfolioService.obtenerFotosActivas()).thenReturn(List.of());
+        respuestaCache.invalidar(RespuestaCacheService.PORTFOLIO_FOTOS);
+        String nuevoEtag = mockMvc.perform(get("/api/portfolio/fotos").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, nuevoEtag);
+    }
+
+    @Test
+    void guardaCadaImagenUnaVezYLaSirveConCabecerasDeCache() throws Exception {
+        String hash = almacen.guardar(PNG);
+        assertEquals(hash, almacen.guardar(PNG.clone()));
+
+        mockMvc.perform(get("/api/portfolio/imagenes/" + hash))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/png"))
+                .andExpect(header().string("ETag", "\"" + hash + "\""))
+                .andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"))
+                .andExpect(content().bytes(PNG));
+
+        mockMvc.perform(get("/api/portfolio/imagenes/" + hash).header("If-None-Match", "\"" + hash + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void sirveRangosYRechazaLosQueQuedanFuera() throws Exception {
+        String hash = almacen.guardar(PNG);
+
+        mockMvc.perform(get("/api/portfolio/imagenes/" + hash).header("Range", "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 10-19/64"))
+                .andExpect(content().bytes(Arrays.copyOfRange(PNG, 10, 20)));
+
+        mockMvc.perform(get("/api/portfolio/imagenes/" + hash).header("Range", "bytes=-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(PNG, 60, 64)));
+
+        mockMvc.perform(get("/api/portfolio/imagenes/" + hash).header("Range", "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+
+        mockMvc.perform(get("/api/portfolio/imagenes/../../etc/passwd"))
+                .andExpect(status().isNotFound());
+    }
+}
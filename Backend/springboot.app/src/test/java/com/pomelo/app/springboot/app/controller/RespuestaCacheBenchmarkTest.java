@@ -0,0 +1,116 @@
+package com.pomelo.app.springboot.app.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pomelo.app.springboot.app.entity.Servicio;
+import com.pomelo.app.springboot.app.service.RespuestaCacheService;
+import com.pomelo.app.springboot.app.service.ServicioService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Carga concurrente sobre GET /api/servicios: respuesta generada en cada petición (el endpoint anterior a la caché,
+ * en /sin-cache), servida desde la caché y revalidada con If-None-Match. La consulta a la base de datos se simula con 2 ms.
+ * Se ejecuta solo con -Dbenchmark=true: mvn test -Dtest=RespuestaCacheBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RespuestaCacheBenchmarkTest {
+
+    private static final int HILOS = 8;
+    private static final int PETICIONES_POR_HILO = 500;
+
+    private RespuestaCacheService respuestaCache;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        List<Servicio> servicios = new ArrayList<>();
+        for (long i = 1; i <= 12; i++) {
+            Servicio servicio = new Servicio();
+            servicio.setId(i);
+            servicio.setNombre("Servicio " + i);
+            servicio.setDescripcion("Corte, lavado y peinado con productos profesionales");
+            servicio.setPrecio(15.0 + i);
+            servicio.setDuracionMinutos(30);
+            servicio.setColorGoogleCalendar("#4285F4");
+            servicios.add(servicio);
+        }
+        ServicioService servicioService = mock(ServicioService.class);
+        when(servicioService.listarServicios()).thenAnswer(inv -> {
+            LockSupport.parkNanos(2_000_000);
+            return servicios;
+        });
+        respuestaCache = new RespuestaCacheService();
+        ReflectionTestUtils.setField(respuestaCache, "objectMapper", new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(new ServicioController(servicioService, respuestaCache),
+                new SinCacheController(servicioService)).build();
+    }
+
+    @RestController
+    static class SinCacheController {
+        private final ServicioService servicioService;
+
+        SinCacheController(ServicioService servicioService) {
+            this.servicioService = servicioService;
+        }
+
+        @GetMapping("/sin-cache")
+        ResponseEntity<List<Servicio>> listarServicios() {
+            return ResponseEntity.ok(servicioService.listarServicios());
+        }
+    }
+
+    @Test
+    void comparaRendimientoConYSinCache() throws Exception {
+        medir("sin caché", get("/sin-cache"), 200);
+        medir("con caché", get("/api/servicios"), 200);
+        String etag = mockMvc.perform(get("/api/servicios")).andReturn().getResponse().getHeader("ETag");
+        medir("If-None-Match", get("/api/servicios").header("If-None-Match", etag), 304);
+    }
+
+    private void medir(String nombre, RequestBuilder peticion, int estado) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        try {
+            // Calentamiento
+            for (int i = 0; i < 200; i++) {
+                mockMvc.perform(peticion);
+            }
+            long inicio = System.nanoTime();
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < HILOS; h++) {
+                tareas.add(pool.submit(() -> {
+                    for (int i = 0; i < PETICIONES_POR_HILO; i++) {
+                        assertEquals(estado, mockMvc.perform(peticion).andReturn().getResponse().getStatus());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            System.out.printf("%-14s %8.0f peticiones/s%n", nombre, HILOS * PETICIONES_POR_HILO / segundos);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
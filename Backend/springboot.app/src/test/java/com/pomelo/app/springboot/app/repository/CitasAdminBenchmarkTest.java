@@ -0,0 +1,255 @@
+package com.pomelo.app.springboot.app.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compara el listado de citas del admin antiguo (todas las citas y después cliente y servicio de cada una por
+ * separado, como hacía findAll() con las relaciones perezosas) con la consulta proyectada y paginada por
+ * (fecha_hora, id) de CitaRepository.findCitasAdmin, con 10.000, 100.000 y 1.000.000 de citas.
+ * Las tablas se crean con prefijo bench_ y se borran al terminar; aun así, usar una base de datos de pruebas:
+ * mvn test -Dtest=CitasAdminBenchmarkTest -Dbenchmark=true -Dbenchmark.url=jdbc:mysql://localhost:3306/pruebas?rewriteBatchedStatements=true -Dbenchmark.usuario=admin -Dbenchmark.password=...
+ * Con -Dbenchmark.tamanos=10000,100000 se eligen otros tamaños.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@EnabledIfSystemProperty(named = "benchmark.url", matches = ".+")
+class CitasAdminBenchmarkTest {
+
+    private static final int CLIENTES = 2_000;
+    private static final int SERVICIOS = 12;
+    private static final int TAMANO_PAGINA = 100;
+    private static final LocalDateTime PRIMERA_CITA = LocalDateTime.of(2020, 1, 1, 9, 0);
+
+    private static Connection conexion;
+
+    @BeforeAll
+    static void conectar() throws Exception {
+        conexion = DriverManager.getConnection(System.getProperty("benchmark.url"),
+                System.getProperty("benchmark.usuario", "admin"), System.getProperty("benchmark.password", ""));
+    }
+
+    @AfterAll
+    static void desconectar() throws Exception {
+        try (Statement st = conexion.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS bench_cita, bench_usuario, bench_servicio");
+        }
+        conexion.close();
+    }
+
+    @Test
+    void listadoAntiguoFrenteAProyeccionPaginada() throws Exception {
+        for (String tamano : System.getProperty("benchmark.tamanos", "10000,100000,1000000").split(",")) {
+            int citas = Integer.parseInt(tamano.trim());
+            generar(citas);
+
+            long inicio = System.nanoTime();
+            int filasAntiguo = listadoAntiguo();
+            long antiguo = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            int filasProyeccion = contar(proyeccion("c.estado <> 'cancelada'", ""));
+            long proyeccion = System.nanoTime() - inicio;
+            assertEquals(filasAntiguo, filasProyeccion);
+
+            // Un mes en mitad del histórico, página a página
+            LocalDateTime desde = PRIMERA_CITA.plusMinutes(45L * citas / 2).withDayOfMonth(1).toLocalDate().atStartOfDay();
+            inicio = System.nanoTime();
+            int paginas = recorrerMes(desde, desde.plusMonths(1));
+            long mes = System.nanoTime() - inicio;
+
+            // Página profunda: cursor frente a OFFSET a la misma altura
+            int profundidad = filasProyeccion / 2;
+            inicio = System.nanoTime();
+            contar(proyeccion("c.estado <> 'cancelada'", " LIMIT " + TAMANO_PAGINA + " OFFSET " + profundidad));
+            long conOffset = System.nanoTime() - inicio;
+            Object[] cursor = cursorEn(profundidad);
+            inicio = System.nanoTime();
+            try (PreparedStatement ps = conexion.prepareStatement(proyeccion(
+                    "c.estado <> 'cancelada' AND (c.fecha_hora > ? OR (c.fecha_hora = ? AND c.id > ?))", " LIMIT " + TAMANO_PAGINA))) {
+                ps.setTimestamp(1, (Timestamp) cursor[0]);
+                ps.setTimestamp(2, (Timestamp) cursor[0]);
+                ps.setLong(3, (Long) cursor[1]);
+                assertEquals(TAMANO_PAGINA, contar(ps.executeQuery()));
+            }
+            long conCursor = System.nanoTime() - inicio;
+
+            System.out.printf("📊 %,d citas: antiguo %d ms, proyección completa %d ms, un mes en %d páginas %d ms, "
+                            + "página a mitad con OFFSET %d ms y con cursor %d ms%n",
+                    citas, antiguo / 1_000_000, proyeccion / 1_000_000, paginas, mes / 1_000_000,
+                    conOffset / 1_000_000, conCursor / 1_000_000);
+        }
+    }
+
+    // Como CitaService.listarTodasLasCitas antes: todas las filas y una consulta por cada cliente y servicio distinto
+    private int listadoAntiguo() throws Exception {
+        int filas = 0;
+        Set<Long> clientes = new HashSet<>();
+        Set<Long> servicios = new HashSet<>();
+        try (Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery("SELECT * FROM bench_cita")) {
+            while (rs.next()) {
+                if (!"cancelada".equals(rs.getString("estado"))) {
+                    filas++;
+                    clientes.add(rs.getLong("cliente_id"));
+                    servicios.add(rs.getLong("servicio_id"));
+                }
+            }
+        }
+        try (PreparedStatement ps = conexion.prepareStatement("SELECT * FROM bench_usuario WHERE id = ?")) {
+            for (Long id : clientes) {
+                ps.setLong(1, id);
+                contar(ps.executeQuery());
+            }
+        }
+        try (PreparedStatement ps = conexion.prepareStatement("SELECT * FROM bench_servicio WHERE id = ?")) {
+            for (Long id : servicios) {
+                ps.setLong(1, id);
+                contar(ps.executeQuery());
+            }
+        }
+        return filas;
+    }
+
+    private int recorrerMes(LocalDateTime desde, LocalDateTime hasta) throws Exception {
+        String sql = proyeccion("c.fecha_hora >= ? AND c.fecha_hora < ? AND (c.fecha_hora > ? OR (c.fecha_hora = ? AND c.id > ?)) "
+                + "AND c.estado <> 'cancelada'", " LIMIT " + (TAMANO_PAGINA + 1));
+        Timestamp despuesFecha = Timestamp.valueOf(desde);
+        long despuesId = 0;
+        int paginas = 0;
+        try (PreparedStatement ps = conexion.prepareStatement(sql)) {
+            while (true) {
+                ps.setTimestamp(1, Timestamp.valueOf(desde));
+                ps.setTimestamp(2, Timestamp.valueOf(hasta));
+                ps.setTimestamp(3, despuesFecha);
+                ps.setTimestamp(4, despuesFecha);
+                ps.setLong(5, despuesId);
+                paginas++;
+                // Como CitaService.listarCitasAdmin: una fila de más indica que hay otra página
+                int filas = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        if (++filas <= TAMANO_PAGINA) {
+                            despuesFecha = rs.getTimestamp(2);
+                            despuesId = rs.getLong(1);
+                        }
+                    }
+                }
+                if (filas <= TAMANO_PAGINA) {
+                    return paginas;
+                }
+            }
+        }
+    }
+
+    private Object[] cursorEn(int posicion) throws Exception {
+        try (ResultSet rs = conexion.createStatement().executeQuery(
+                "SELECT fecha_hora, id FROM bench_cita c WHERE c.estado <> 'cancelada' ORDER BY fecha_hora, id LIMIT 1 OFFSET " + posicion)) {
+            rs.next();
+            return new Object[]{rs.getTimestamp(1), rs.getLong(2)};
+        }
+    }
+
+    // Misma forma que la consulta JPQL de CitaRepository.SELECT_CITA_ADMIN
+    private static String proyeccion(String filtro, String limite) {
+        return "SELECT c.id, c.fecha_hora, c.comentario, c.fija, c.periodicidad_dias, c.estado, "
+                + "s.id, s.nombre, s.descripcion, s.precio, s.duracion_minutos, s.color_google_calendar, "
+                + "u.id, u.nombre, u.email, u.telefono "
+                + "FROM bench_cita c JOIN bench_servicio s ON s.id = c.servicio_id JOIN bench_usuario u ON u.id = c.cliente_id "
+                + "WHERE " + filtro + " ORDER BY c.fecha_hora, c.id" + limite;
+    }
+
+    private int contar(String sql) throws Exception {
+        try (Statement st = conexion.createStatement()) {
+            return contar(st.executeQuery(sql));
+        }
+    }
+
+    private static int contar(ResultSet rs) throws Exception {
+        int filas = 0;
+        try (rs) {
+            while (rs.next()) {
+                filas++;
+            }
+        }
+        return filas;
+    }
+
+    // Generador de datos: citas cada 45 minutos desde 2020, un 10% canceladas, clientes y servicios al azar
+    private void generar(int citas) throws Exception {
+        try (Statement st = conexion.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS bench_cita, bench_usuario, bench_servicio");
+            st.execute("CREATE TABLE bench_usuario (id BIGINT PRIMARY KEY, nombre VARCHAR(255), email VARCHAR(255), "
+                    + "telefono VARCHAR(255), password VARCHAR(255), rol VARCHAR(255))");
+            st.execute("CREATE TABLE bench_servicio (id BIGINT PRIMARY KEY, nombre VARCHAR(255), descripcion VARCHAR(255), "
+                    + "precio DOUBLE, duracion_minutos INT, color_google_calendar VARCHAR(255))");
+            st.execute("CREATE TABLE bench_cita (id BIGINT AUTO_INCREMENT PRIMARY KEY, fecha_hora DATETIME NOT NULL, "
+                    + "comentario VARCHAR(255), fija BIT NOT NULL, periodicidad_dias INT, estado VARCHAR(255), "
+                    + "cliente_id BIGINT NOT NULL, servicio_id BIGINT NOT NULL, "
+                    + "INDEX idx_cita_fecha_id (fecha_hora, id), INDEX idx_cita_cliente_fecha (cliente_id, fecha_hora, estado))");
+        }
+        conexion.setAutoCommit(false);
+        try (PreparedStatement ps = conexion.prepareStatement("INSERT INTO bench_usuario VALUES (?, ?, ?, ?, ?, 'ROLE_CLIENTE')")) {
+            for (int i = 1; i <= CLIENTES; i++) {
+                ps.setLong(1, i);
+                ps.setString(2, "Cliente " + i);
+                ps.setString(3, "cliente" + i + "@test.com");
+                ps.setString(4, "600" + String.format("%06d", i));
+                ps.setString(5, "$2a$10$" + "x".repeat(53));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = conexion.prepareStatement("INSERT INTO bench_servicio VALUES (?, ?, ?, ?, 45, ?)")) {
+            for (int i = 1; i <= SERVICIOS; i++) {
+                ps.setLong(1, i);
+                ps.setString(2, "Servicio " + i);
+                ps.setString(3, "Descripción del servicio " + i);
+                ps.setDouble(4, 10.0 + i);
+                ps.setString(5, String.valueOf(1 + i % 11));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        Random random = new Random(24);
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "INSERT INTO bench_cita (fecha_hora, comentario, fija, periodicidad_dias, estado, cliente_id, servicio_id) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < citas; i++) {
+                boolean fija = random.nextInt(10) == 0;
+                ps.setTimestamp(1, Timestamp.valueOf(PRIMERA_CITA.plusMinutes(45L * i)));
+                ps.setString(2, random.nextInt(4) == 0 ? "Comentario " + i : null);
+                ps.setBoolean(3, fija);
+                ps.setObject(4, fija ? 7 : null);
+                ps.setString(5, random.nextInt(10) == 0 ? "cancelada" : "confirmada");
+                ps.setLong(6, 1 + random.nextInt(CLIENTES));
+                ps.setLong(7, 1 + random.nextInt(SERVICIOS));
+                ps.addBatch();
+                if (i % 5_000 == 4_999) {
+                    ps.executeBatch();
+                    conexion.commit();
+                }
+            }
+            ps.executeBatch();
+            conexion.commit();
+        }
+        conexion.setAutoCommit(true);
+        try (Statement st = conexion.createStatement()) {
+            st.execute("ANALYZE TABLE bench_cita");
+        }
+    }
+}
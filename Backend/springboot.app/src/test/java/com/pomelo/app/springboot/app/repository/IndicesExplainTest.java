@@ -0,0 +1,131 @@
+package com.pomelo.app.springboot.app.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Comprueba con EXPLAIN que cada consulta de CitaRepository, ResenaRepository y VacacionesRepository
+ * puede usar el índice creado para ella (V6 y V21 en adelante, también declarados en las entidades).
+ * Necesita una base de datos con las migraciones aplicadas:
+ * mvn test -Dtest=IndicesExplainTest -Dexplain.url=jdbc:mysql://localhost:3306/EsentialBarber -Dexplain.usuario=admin -Dexplain.password=...
+ */
+@EnabledIfSystemProperty(named = "explain.url", matches = ".+")
+class IndicesExplainTest {
+
+    private static Connection conexion;
+
+    @BeforeAll
+    static void conectar() throws Exception {
+        conexion = DriverManager.getConnection(System.getProperty("explain.url"),
+                System.getProperty("explain.usuario", "admin"), System.getProperty("explain.password", ""));
+    }
+
+    @AfterAll
+    static void desconectar() throws Exception {
+        conexion.close();
+    }
+
+    static Stream<Arguments> consultas() {
+        return Stream.of(
+            // CitaRepository
+            Arguments.of("findHistorialCliente", "cita", "idx_cita_cliente_fecha",
+                "SELECT c.id, EXISTS (SELECT r.id FROM resenas r WHERE r.cita_id = c.id) FROM cita c WHERE c.cliente_id = 1 " +
+                "AND (c.fecha_hora < NOW() OR (c.fecha_hora = NOW() AND c.id < 100)) ORDER BY c.fecha_hora DESC, c.id DESC LIMIT 51"),
+            Arguments.of("findByClienteAndFechaHoraAfter", "cita", "idx_cita_cliente_fecha",
+                "SELECT * FROM cita WHERE cliente_id = 1 AND fecha_hora > NOW()"),
+            Arguments.of("countByClienteAndEstado", "cita", "idx_cita_cliente_fecha",
+                "SELECT COUNT(*) FROM cita WHERE cliente_id = 1 AND estado = 'cancelada'"),
+            Arguments.of("findByClienteAndFijaTrueAndPeriodicidadDiasIsNotNull", "cita", "idx_cita_cliente_fecha",
+                "SELECT * FROM cita WHERE cliente_id = 1 AND fija = 1 AND periodicidad_dias IS NOT NULL"),
+            Arguments.of("findByFechaHoraBetween", "cita", "idx_cita_resena_pendiente",
+                "SELECT * FROM cita WHERE fecha_hora BETWEEN NOW() AND NOW() + INTERVAL 1 DAY"),
+            Arguments.of("cancelarEntre", "cita", "idx_cita_resena_pendiente",
+                "UPDATE cita SET estado = 'cancelada' WHERE fecha_hora BETWEEN NOW() AND NOW() + INTERVAL 7 DAY " +
+                "AND (estado IS NULL OR estado != 'cancelada')"),
+            Arguments.of("findCitasAdmin", "cita", "idx_cita_fecha_id",
+                "SELECT c.id FROM cita c JOIN usuario u ON u.id = c.cliente_id WHERE c.fecha_hora >= NOW() " +
+                "AND c.fecha_hora < NOW() + INTERVAL 1 MONTH AND (c.fecha_hora > NOW() OR (c.fecha_hora = NOW() AND c.id > 0)) " +
+                "ORDER BY c.fecha_hora, c.id LIMIT 101"),
+            Arguments.of("findIdsByCancelacionLote", "cita", "idx_cita_cancelacion_lote",
+                "SELECT id FROM cita WHERE cancelacion_lote = 'x' ORDER BY id"),
+            Arguments.of("findActivasConServicioEntre", "c", "idx_cita_resena_pendiente",
+                "SELECT * FROM cita c JOIN servicio s ON s.id = c.servicio_id " +
+                "WHERE c.fecha_hora >= NOW() AND c.fecha_hora < NOW() + INTERVAL 1 DAY " +
+                "AND (c.estado IS NULL OR LOWER(c.estado) != 'cancelada')"),
+            Arguments.of("findCitasProximas", "c", "idx_cita_recordatorio_pendiente",
+                "SELECT * FROM cita c JOIN usuario cl ON cl.id = c.cliente_id JOIN servicio s ON s.id = c.servicio_id " +
+                "WHERE c.fecha_hora BETWEEN NOW() AND NOW() + INTERVAL 1 HOUR " +
+                "AND LOWER(c.estado) IN ('confirmada', 'pendiente') AND c.recordatorio_cita_enviado = 0 " +
+                "ORDER BY c.fecha_hora"),
+            Arguments.of("findIdsRecordatorioPendiente", "cita", "idx_cita_recordatorio_pendiente",
+                "SELECT id FROM cita WHERE fecha_hora BETWEEN NOW() AND NOW() + INTERVAL 1 HOUR " +
+                "AND LOWER(estado) IN ('confirmada', 'pendiente') AND recordatorio_cita_enviado = 0 " +
+                "ORDER BY fecha_hora LIMIT 100"),
+            Arguments.of("reclamarRecordatorios", "cita", "PRIMARY",
+                "UPDATE cita SET recordatorio_cita_enviado = 1, recordatorio_lote = 'x' " +
+                "WHERE id IN (1, 2, 3) AND recordatorio_cita_enviado = 0"),
+            Arguments.of("findByRecordatorioLote", "c", "idx_cita_recordatorio_lote",
+                "SELECT * FROM cita c JOIN usuario cl ON cl.id = c.cliente_id WHERE c.recordatorio_lote = 'x'"),
+            Arguments.of("findPendientesDeResenaDesde", "c", "idx_cita_resena_pendiente",
+                "SELECT * FROM cita c WHERE (c.fecha_hora > NOW() - INTERVAL 7 DAY " +
+                "OR (c.fecha_hora = NOW() - INTERVAL 7 DAY AND c.id > 0)) AND c.fecha_hora < NOW() " +
+                "AND LOWER(c.estado) != 'cancelada' AND c.recordatorio_resena_enviado = 0 " +
+                "AND NOT EXISTS (SELECT r.id FROM resenas r WHERE r.cita_id = c.id) " +
+                "ORDER BY c.fecha_hora, c.id LIMIT 100"),
+            Arguments.of("findPendientesDeResenaDesde (reseña)", "r", "uk_resena_cita",
+                "SELECT * FROM cita c WHERE c.fecha_hora < NOW() AND c.recordatorio_resena_enviado = 0 " +
+                "AND NOT EXISTS (SELECT r.id FROM resenas r WHERE r.cita_id = c.id) LIMIT 100"),
+            Arguments.of("findPendientesDeResenaEntre", "cita", "idx_cita_resena_pendiente",
+                "SELECT * FROM cita WHERE fecha_hora >= NOW() AND fecha_hora < NOW() + INTERVAL 6 HOUR " +
+                "AND LOWER(estado) != 'cancelada' AND recordatorio_resena_enviado = 0"),
+            // ResenaRepository
+            Arguments.of("findByClienteIdOrderByFechaCreacionDesc", "resenas", "idx_resenas_cliente_fecha",
+                "SELECT * FROM resenas WHERE cliente_id = 1 ORDER BY fecha_creacion DESC"),
+            Arguments.of("findByCitaId", "resenas", "uk_resena_cita",
+                "SELECT * FROM resenas WHERE cita_id = 1"),
+            Arguments.of("existsByCitaId", "resenas", "uk_resena_cita",
+                "SELECT 1 FROM resenas WHERE cita_id = 1 LIMIT 1"),
+            // VacacionesRepository
+            Arguments.of("findVacacionesActivasEnRango", "vacaciones", "idx_vacaciones_activo_fechas",
+                "SELECT * FROM vacaciones WHERE activo = 1 AND (fecha_inicio <= CURDATE() + INTERVAL 30 DAY " +
+                "AND fecha_fin >= CURDATE())"),
+            Arguments.of("findByActivoTrue", "vacaciones", "idx_vacaciones_activo_fechas",
+                "SELECT * FROM vacaciones WHERE activo = 1"),
+            Arguments.of("existeVacacionEnFecha", "vacaciones", "idx_vacaciones_activo_fechas",
+                "SELECT COUNT(*) > 0 FROM vacaciones WHERE activo = 1 AND CURDATE() BETWEEN fecha_inicio AND fecha_fin")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("consultas")
+    void laConsultaPuedeUsarSuIndice(String consulta, String tabla, String indice, String sql) throws Exception {
+        List<String> filas = new ArrayList<>();
+        try (Statement statement = conexion.createStatement(); ResultSet plan = statement.executeQuery("EXPLAIN " + sql)) {
+            while (plan.next()) {
+                String posibles = plan.getString("possible_keys");
+                filas.add(plan.getString("table") + ": " + posibles + " -> " + plan.getString("key"));
+                if (tabla.equals(plan.getString("table"))) {
+                    assertTrue(posibles != null && List.of(posibles.split(",")).contains(indice),
+                            consulta + " no puede usar " + indice + ": " + filas);
+                    return;
+                }
+            }
+        }
+        fail("El plan de " + consulta + " no incluye la tabla " + tabla + ": " + filas);
+    }
+}
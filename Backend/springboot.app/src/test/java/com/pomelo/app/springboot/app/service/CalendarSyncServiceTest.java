@@ -0,0 +1,300 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.CalendarSyncTask;
+import com.pomelo.app.springboot.app.entity.Cita;
+import com.pomelo.app.springboot.app.entity.Servicio;
+import com.pomelo.app.springboot.app.entity.Usuario;
+import com.pomelo.app.springboot.app.repository.CalendarSyncTaskRepository;
+import com.pomelo.app.springboot.app.repository.CitaRepository;
+import com.pomelo.app.springboot.app.repository.ServicioRepository;
+import com.pomelo.app.springboot.app.repository.UsuarioRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Procesa tareas de sincronización contra un servidor HTTP local que sustituye a Google Calendar
+ */
+@ExtendWith(MockitoExtension.class)
+class CalendarSyncServiceTest {
+
+    @Mock
+    private CalendarSyncTaskRepository calendarSyncTaskRepository;
+
+    @Mock
+    private CitaRepository citaRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private ServicioRepository servicioRepository;
+
+    @InjectMocks
+    private CalendarSyncService calendarSyncService;
+
+    private HttpServer servidor;
+    private final AtomicInteger peticiones = new AtomicInteger();
+    private final AtomicInteger lotes = new AtomicInteger();
+    private final AtomicReference<String> ultimoLote = new AtomicReference<>();
+    private volatile int codigoRespuesta = 500;
+
+    private Usuario cliente;
+    private Cita cita;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        servidor.createContext("/calendars/primary/events", intercambio -> {
+            peticiones.incrementAndGet();
+            byte[] cuerpo = "{\"id\":\"evento-1\"}".getBytes(StandardCharsets.UTF_8);
+            intercambio.sendResponseHeaders(codigoRespuesta, cuerpo.length);
+            intercambio.getResponseBody().write(cuerpo);
+            intercambio.close();
+        });
+        servidor.createContext("/batch", intercambio -> {
+            lotes.incrementAndGet();
+            String peticion = new String(intercambio.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            ultimoLote.set(peticion);
+            StringBuilder respuesta = new StringBuilder();
+            for (String linea : peticion.split("\r\n")) {
+                if (linea.startsWith("DELETE ")) {
+                    respuesta.append("--respuesta\r\nContent-Type: application/http\r\n\r\nHTTP/1.1 204 No Content\r\n\r\n");
+                }
+            }
+            respuesta.append("--respuesta--");
+            byte[] cuerpo = respuesta.toString().getBytes(StandardCharsets.UTF_8);
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            intercambio.getResponseBody().write(cuerpo);
+            intercambio.close();
+        });
+        servidor.start();
+
+        HttpClient httpClient = HttpClient.newHttpClient();
+        GoogleCalendarService googleCalendarService = new GoogleCalendarService(usuarioRepository, servicioRepository, httpClient, new GoogleTokenService(httpClient));
+        ReflectionTestUtils.setField(googleCalendarService, "calendarApiUrl", "http://localhost:" + servidor.getAddress().getPort());
+        ReflectionTestUtils.setField(googleCalendarService, "calendarBatchUrl", "http://localhost:" + servidor.getAddress().getPort() + "/batch");
+        ReflectionTestUtils.setField(googleCalendarService, "adminCalendarEnabled", false);
+        ReflectionTestUtils.setField(calendarSyncService, "googleCalendarService", googleCalendarService);
+
+        cliente = new Usuario();
+        cliente.setId(7L);
+        cliente.setEmail("cliente@test.com");
+        cliente.setNombre("Cliente");
+        cliente.setPassword("GOOGLE_AUTH");
+        cliente.setGoogleCalendarToken("token");
+        cliente.setGoogleCalendarRefreshToken("refresh");
+        cliente.setGoogleCalendarTokenExpiry(LocalDateTime.now().plusHours(1));
+
+        Servicio servicio = new Servicio();
+        servicio.setId(1L);
+        servicio.setNombre("Corte");
+        servicio.setDuracionMinutos(45);
+
+        cita = new Cita();
+        cita.setId(3L);
+        cita.setCliente(cliente);
+        cita.setServicio(servicio);
+        cita.setFechaHora(LocalDateTime.of(2030, 3, 9, 10, 30));
+        cita.setEstado("confirmada");
+    }
+
+    @AfterEach
+    void tearDown() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void reintentaConEsperaYBorraLaTareaAlCompletarla() {
+        when(usuarioRepository.findById(7L)).thenReturn(Optional.of(cliente));
+        when(citaRepository.findByIdWithRelations(3L)).thenReturn(Optional.of(cita));
+        CalendarSyncTask tarea = new CalendarSyncTask(CalendarSyncService.CREAR, CalendarSyncService.CALENDARIO_CLIENTE, cita);
+
+        // Primer intento: Google responde con error y la tarea queda pendiente con espera
+        assertFalse(calendarSyncService.procesar(tarea));
+        assertEquals(1, tarea.getIntentos());
+        assertEquals(CalendarSyncService.PENDIENTE, tarea.getEstado());
+        assertNotNull(tarea.getProximoIntento());
+        verify(calendarSyncTaskRepository).save(tarea);
+        verify(calendarSyncTaskRepository, never()).delete(tarea);
+
+        // Segundo intento: se crea el evento y la tarea desaparece de la cola
+        codigoRespuesta = 200;
+        assertTrue(calendarSyncService.procesar(tarea));
+        verify(calendarSyncTaskRepository).delete(tarea);
+        assertEquals(2, peticiones.get());
+        // El ID del evento queda guardado en la cita
+        verify(citaRepository).actualizarEventoGoogleCliente(3L, "evento-1");
+    }
+
+    @Test
+    void eliminaUnaSeriePorIdEnUnaSolaPeticion() {
+        when(usuarioRepository.findById(7L)).thenReturn(Optional.of(cliente));
+        List<CalendarSyncTask> tareas = new ArrayList<>();
+        for (int i = 0; i < 26; i++) {
+            cita.setGoogleEventIdCliente("evento-" + i);
+            tareas.add(new CalendarSyncTask(CalendarSyncService.ELIMINAR, CalendarSyncService.CALENDARIO_CLIENTE, cita));
+        }
+
+        assertTrue(calendarSyncService.procesarLote(tareas));
+        assertEquals(1, lotes.get());
+        assertEquals(0, peticiones.get());
+        verify(calendarSyncTaskRepository).deleteAll(tareas);
+    }
+
+    @Test
+    void enElCalendarioDelAdminSoloSaltaLasTareasSinCliente() {
+        GoogleCalendarService googleCalendarService = (GoogleCalendarService) ReflectionTestUtils.getField(calendarSyncService, "googleCalendarService");
+        ReflectionTestUtils.setField(googleCalendarService, "adminCalendarEnabled", true);
+        ReflectionTestUtils.setField(googleCalendarService, "adminEmail", "admin@test.com");
+        Usuario admin = new Usuario();
+        admin.setEmail("admin@test.com");
+        admin.setPassword("GOOGLE_AUTH");
+        admin.setGoogleCalendarToken("token-admin");
+        admin.setGoogleCalendarRefreshToken("refresh-admin");
+        admin.setGoogleCalendarTokenExpiry(LocalDateTime.now().plusHours(1));
+        when(usuarioRepository.findByEmail("admin@test.com")).thenReturn(Optional.of(admin));
+        // El cliente 7 de la primera tarea ya no existe; el 8 sí
+        when(usuarioRepository.findAllById(any())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            assertEquals(2, ids.size());
+            Usuario otro = new Usuario();
+            otro.setId(8L);
+            return List.of(otro);
+        });
+        Usuario otroCliente = new Usuario();
+        otroCliente.setId(8L);
+        List<CalendarSyncTask> tareas = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            cita.setCliente(i == 0 ? cliente : otroCliente);
+            cita.setGoogleEventIdAdmin("evento-" + i);
+            tareas.add(new CalendarSyncTask(CalendarSyncService.ELIMINAR, CalendarSyncService.CALENDARIO_ADMIN, cita));
+        }
+
+        assertTrue(calendarSyncService.procesarLote(tareas));
+        assertEquals(1, lotes.get());
+        assertFalse(ultimoLote.get().contains("/evento-0\r\n"));
+        for (int i = 1; i < 4; i++) {
+            assertTrue(ultimoLote.get().contains("/evento-" + i + "\r\n"));
+        }
+        verify(usuarioRepository, never()).findById(any());
+        verify(calendarSyncTaskRepository).deleteAll(tareas);
+    }
+
+    @Test
+    void noCreaEventosDeCitasYaCanceladas() {
+        cita.setEstado("cancelada");
+        when(usuarioRepository.findById(7L)).thenReturn(Optional.of(cliente));
+        when(citaRepository.findByIdWithRelations(3L)).thenReturn(Optional.of(cita));
+        CalendarSyncTask tarea = new CalendarSyncTask(CalendarSyncService.CREAR, CalendarSyncService.CALENDARIO_CLIENTE, cita);
+
+        assertTrue(calendarSyncService.procesar(tarea));
+        assertEquals(0, peticiones.get());
+        verify(calendarSyncTaskRepository).delete(tarea);
+    }
+
+    @Test
+    void soloProcesaLasTareasQueConsigueReclamarYLiberaElLote() {
+        codigoRespuesta = 200;
+        when(usuarioRepository.findById(7L)).thenReturn(Optional.of(cliente));
+        when(citaRepository.findByIdWithRelations(3L)).thenReturn(Optional.of(cita));
+        CalendarSyncTask tarea = new CalendarSyncTask(CalendarSyncService.CREAR, CalendarSyncService.CALENDARIO_CLIENTE, cita);
+        when(calendarSyncTaskRepository.findIdsListas(any(), any())).thenReturn(List.of(1L, 2L));
+        // Otra instancia se ha adelantado con la tarea 2: solo se procesa la que queda en nuestro lote
+        when(calendarSyncTaskRepository.reclamar(eq(List.of(1L, 2L)), anyString(), any(), any())).thenReturn(1);
+        when(calendarSyncTaskRepository.findByReclamoLoteOrderByIdAsc(anyString())).thenReturn(List.of(tarea));
+
+        calendarSyncService.iniciar();
+        try {
+            calendarSyncService.procesarPendientes();
+
+            ArgumentCaptor<String> lote = ArgumentCaptor.forClass(String.class);
+            verify(calendarSyncTaskRepository).findByReclamoLoteOrderByIdAsc(lote.capture());
+            // El hilo del calendario libera sus propias tareas al terminar
+            verify(calendarSyncTaskRepository, timeout(2000)).liberarTareas(anyList(), eq(lote.getValue()));
+            verify(calendarSyncTaskRepository).delete(tarea);
+            assertEquals(1, peticiones.get());
+        } finally {
+            calendarSyncService.detener();
+        }
+    }
+
+    @Test
+    void noEsperaALosCalendariosNiLanzaDosVecesElMismo() throws Exception {
+        CountDownLatch bloqueado = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        when(usuarioRepository.findById(7L)).thenAnswer(inv -> {
+            bloqueado.countDown();
+            soltar.await(5, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+        CalendarSyncTask tarea = new CalendarSyncTask(CalendarSyncService.ELIMINAR, CalendarSyncService.CALENDARIO_CLIENTE, cita);
+        tarea.setId(1L);
+        when(calendarSyncTaskRepository.findIdsListas(any(), any())).thenReturn(List.of(1L));
+        when(calendarSyncTaskRepository.reclamar(anyList(), anyString(), any(), any())).thenReturn(1);
+        when(calendarSyncTaskRepository.findByReclamoLoteOrderByIdAsc(anyString())).thenReturn(List.of(tarea));
+
+        calendarSyncService.iniciar();
+        try {
+            // La pasada vuelve aunque el calendario del cliente siga con Google
+            calendarSyncService.procesarPendientes();
+            assertTrue(bloqueado.await(2, TimeUnit.SECONDS));
+
+            // Una segunda pasada no lanza otro trabajo para ese calendario: suelta la reserva al momento
+            calendarSyncService.procesarPendientes();
+            verify(calendarSyncTaskRepository).liberarTareas(eq(List.of(1L)), anyString());
+            verify(usuarioRepository).findById(7L);
+
+            soltar.countDown();
+            verify(calendarSyncTaskRepository, timeout(2000).times(2)).liberarTareas(eq(List.of(1L)), anyString());
+            verify(calendarSyncTaskRepository).delete(tarea);
+        } finally {
+            soltar.countDown();
+            calendarSyncService.detener();
+        }
+    }
+
+    @Test
+    void siOtraInstanciaLoReclamaTodoNoHaceNada() {
+        when(calendarSyncTaskRepository.findIdsListas(any(), any())).thenReturn(List.of(1L));
+        when(calendarSyncTaskRepository.reclamar(anyList(), anyString(), any(), any())).thenReturn(0);
+
+        calendarSyncService.procesarPendientes();
+
+        assertEquals(0, peticiones.get());
+        verify(calendarSyncTaskRepository, never()).findByReclamoLoteOrderByIdAsc(anyString());
+    }
+}
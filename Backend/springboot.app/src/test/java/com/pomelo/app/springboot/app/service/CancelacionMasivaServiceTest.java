@@ -0,0 +1,131 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Cita;
+import com.pomelo.app.springboot.app.entity.Servicio;
+import com.pomelo.app.springboot.app.entity.Usuario;
+import com.pomelo.app.springboot.app.repository.CitaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CancelacionMasivaServiceTest {
+
+    @Mock
+    private CitaRepository citaRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private CalendarSyncService calendarSyncService;
+
+    @Mock
+    private RecordatorioService recordatorioService;
+
+    @Mock
+    private RecordatorioResenaService recordatorioResenaService;
+
+    @Mock
+    private OcupacionService ocupacionService;
+
+    @InjectMocks
+    private CancelacionMasivaService cancelacionMasivaService;
+
+    @Test
+    void sinCitasElTrabajoTerminaSinLanzarAvisos() {
+        when(citaRepository.cancelarEntre(any(), any(), anyString(), anyString())).thenReturn(0);
+
+        CancelacionMasivaService.Trabajo trabajo = cancelacionMasivaService.cancelarEntre(
+                LocalDate.of(2030, 8, 1), LocalDate.of(2030, 8, 15), "Vacaciones");
+
+        assertEquals(CancelacionMasivaService.COMPLETADA, trabajo.getEstado());
+        assertEquals(trabajo, cancelacionMasivaService.obtener(trabajo.getId()));
+        verify(citaRepository).cancelarEntre(eq(LocalDateTime.of(2030, 8, 1, 0, 0)),
+                eq(LocalDateTime.of(2030, 8, 15, 23, 59, 59)), eq("Vacaciones"), eq(trabajo.getId()));
+        verify(ocupacionService).invalidarRango(LocalDate.of(2030, 8, 1), LocalDate.of(2030, 8, 15));
+    }
+
+    @Test
+    void avisaPorTandasYCuentaLosErroresSinDetenerse() {
+        ReflectionTestUtils.setField(cancelacionMasivaService, "tamanoLote", 2);
+        CancelacionMasivaService.Trabajo trabajo = new CancelacionMasivaService.Trabajo("lote", 3);
+        when(citaRepository.findIdsByCancelacionLote("lote")).thenReturn(List.of(1L, 2L, 3L));
+        when(citaRepository.findByIdInWithRelations(List.of(1L, 2L))).thenReturn(List.of(cita(1L), cita(2L)));
+        when(citaRepository.findByIdInWithRelations(List.of(3L))).thenReturn(List.of(cita(3L)));
+        when(citaRepository.reclamarAvisoCancelacion(anyLong(), eq("lote"))).thenReturn(1);
+        doAnswer(invocacion -> {
+            if ("cliente2@test.com".equals(invocacion.getArgument(0))) {
+                throw new RuntimeException("SMTP caído");
+            }
+            return null;
+        }).when(emailService).enviarCancelacionCita(anyString(), any(), anyString(), any(), anyInt(), anyDouble());
+
+        cancelacionMasivaService.notificar(trabajo);
+
+        assertEquals(CancelacionMasivaService.COMPLETADA, trabajo.getEstado());
+        assertEquals(3, trabajo.getProcesadas());
+        assertEquals(2, trabajo.getEmailsEnviados());
+        assertEquals(1, trabajo.getErrores());
+        verify(calendarSyncService, times(3)).encolarEliminacion(any(Cita.class));
+        verify(recordatorioService).desprogramar(3L);
+        verify(recordatorioResenaService).desprogramar(3L);
+    }
+
+    @Test
+    void alArrancarReanudaLosLotesAMediasSinRepetirLasCitasYaAvisadas() {
+        when(citaRepository.findCancelacionLotesPendientes()).thenReturn(List.of("lote-viejo"));
+        when(citaRepository.findIdsByCancelacionLote("lote-viejo")).thenReturn(List.of(5L, 6L));
+        when(citaRepository.findByIdInWithRelations(List.of(5L, 6L))).thenReturn(List.of(cita(5L), cita(6L)));
+        // Otra instancia ya avisó de la cita 5 mientras tanto
+        when(citaRepository.reclamarAvisoCancelacion(5L, "lote-viejo")).thenReturn(0);
+        when(citaRepository.reclamarAvisoCancelacion(6L, "lote-viejo")).thenReturn(1);
+
+        cancelacionMasivaService.iniciar();
+        cancelacionMasivaService.reanudarPendientes();
+
+        CancelacionMasivaService.Trabajo trabajo = cancelacionMasivaService.obtener("lote-viejo");
+        assertEquals(2, trabajo.getTotal());
+        verify(emailService, timeout(2000)).enviarCancelacionCita(eq("cliente6@test.com"), any(), anyString(), any(), anyInt(), anyDouble());
+        cancelacionMasivaService.detener();
+        verify(emailService, never()).enviarCancelacionCita(eq("cliente5@test.com"), any(), anyString(), any(), anyInt(), anyDouble());
+        verify(calendarSyncService, never()).encolarEliminacion(argThat(c -> c.getId() == 5L));
+    }
+
+    private Cita cita(Long id) {
+        Usuario cliente = new Usuario();
+        cliente.setEmail("cliente" + id + "@test.com");
+        Servicio servicio = new Servicio();
+        servicio.setNombre("Corte");
+        servicio.setDuracionMinutos(30);
+        servicio.setPrecio(15.0);
+        Cita cita = new Cita();
+        cita.setId(id);
+        cita.setCliente(cliente);
+        cita.setServicio(servicio);
+        cita.setFechaHora(LocalDateTime.of(2030, 8, 2, 10, 0));
+        return cita;
+    }
+}
@@ -0,0 +1,160 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.dto.InformeCitasFijas;
+import com.pomelo.app.springboot.app.entity.Cita;
+import com.pomelo.app.springboot.app.entity.Servicio;
+import com.pomelo.app.springboot.app.entity.Usuario;
+import com.pomelo.app.springboot.app.repository.CitaRepository;
+import com.pomelo.app.springboot.app.repository.ServicioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Serie de citas fijas: conflictos resueltos en memoria, primera cita con JPA y el resto en un lote JDBC
+ */
+@ExtendWith(MockitoExtension.class)
+class CitaServiceCitaFijaTest {
+
+    // Lunes; con periodicidad semanal todas las repeticiones caen en el futuro
+    private static final LocalDateTime INICIO = LocalDateTime.of(2030, 3, 4, 10, 30);
+    private static final LocalDate VACACIONES = LocalDate.of(2030, 3, 11);
+    private static final LocalDate OCUPADO = LocalDate.of(2030, 3, 18);
+
+    @Mock
+    private CitaRepository citaRepository;
+
+    @Mock
+    private ServicioRepository servicioRepository;
+
+    @Mock
+    private VacacionesService vacacionesService;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private OcupacionService ocupacionService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private RecordatorioService recordatorioService;
+
+    @Mock
+    private RecordatorioResenaService recordatorioResenaService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private CitaService citaService;
+
+    private Servicio servicio;
+    private Cita cita;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(citaService, "transactionTemplate", new TransactionTemplate(transactionManager));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        servicio = new Servicio();
+        servicio.setId(1L);
+        servicio.setNombre("Corte");
+        servicio.setDuracionMinutos(45);
+        when(servicioRepository.findById(1L)).thenReturn(Optional.of(servicio));
+
+        Usuario cliente = new Usuario();
+        cliente.setId(7L);
+        cliente.setNombre("Cliente");
+        cliente.setEmail("cliente@test.com");
+        cita = new Cita();
+        cita.setCliente(cliente);
+        cita.setServicio(servicio);
+        cita.setFechaHora(INICIO);
+        cita.setEstado("confirmada");
+
+        when(vacacionesService.diasBloqueados(any(), any())).thenReturn(List.of(VACACIONES));
+        // Otra cita a las 10:00 de ese día se solapa con la de las 10:30
+        Cita existente = new Cita();
+        existente.setServicio(servicio);
+        existente.setFechaHora(OCUPADO.atTime(10, 0));
+        when(citaRepository.findActivasConServicioEntre(any(), any())).thenReturn(List.of(existente));
+        when(citaRepository.save(cita)).thenReturn(cita);
+    }
+
+    @Test
+    void omiteLosDiasOcupadosYDeVacacionesYRegistraLosCreados() {
+        ArgumentCaptor<Collection<Cita>> lote = ArgumentCaptor.forClass(Collection.class);
+
+        InformeCitasFijas informe = citaService.crearCitaFija(cita, 7);
+
+        assertSame(cita, informe.getCita());
+        assertEquals(List.of(VACACIONES.atTime(10, 30).toString()), informe.getOmitidasVacaciones());
+        assertEquals(List.of(OCUPADO.atTime(10, 30).toString()), informe.getOmitidasOcupadas());
+        assertEquals(25, informe.getCreadas().size());
+
+        // La primera con JPA y las otras 24 en un solo lote, dentro de la misma transacción
+        InOrder orden = inOrder(citaRepository, jdbcTemplate, transactionManager);
+        orden.verify(citaRepository).save(cita);
+        orden.verify(jdbcTemplate).batchUpdate(anyString(), lote.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        orden.verify(transactionManager).commit(any());
+        assertEquals(24, lote.getValue().size());
+
+        // Cada día creado entra en el índice de ocupación, y solo esos
+        ArgumentCaptor<Cita> registradas = ArgumentCaptor.forClass(Cita.class);
+        verify(ocupacionService, times(25)).registrarCita(registradas.capture());
+        List<String> dias = new ArrayList<>();
+        registradas.getAllValues().forEach(c -> dias.add(c.getFechaHora().toString()));
+        assertEquals(informe.getCreadas(), dias);
+        verify(recordatorioService).programar(cita);
+    }
+
+    @Test
+    void siFallaElLoteNoQuedaLaPrimeraCitaSuelta() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("lote rechazado"));
+
+        assertThrows(RuntimeException.class, () -> citaService.crearCitaFija(cita, 7));
+
+        // La primera cita se guardó en la misma transacción que el lote: se deshace con él
+        verify(citaRepository).save(cita);
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(ocupacionService, never()).registrarCita(any());
+        verify(recordatorioService, never()).programar(any());
+    }
+}
@@ -0,0 +1,193 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Cita;
+import com.pomelo.app.springboot.app.entity.Servicio;
+import com.pomelo.app.springboot.app.entity.Usuario;
+import com.pomelo.app.springboot.app.repository.CitaRepository;
+import com.pomelo.app.springboot.app.repository.ServicioRepository;
+import com.pomelo.app.springboot.app.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CitaServiceConcurrenciaTest {
+
+    private static final LocalDateTime SLOT = LocalDateTime.of(2030, 3, 9, 10, 30);
+    private static final int PETICIONES = 300;
+
+    @Mock
+    private CitaRepository citaRepository;
+
+    @Mock
+    private ServicioRepository servicioRepository;
+
+    @Mock
+    private ConfiguracionService configuracionService;
+
+    @Mock
+    private VacacionesService vacacionesService;
+
+    @Mock
+    private CalendarSyncService calendarSyncService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private OcupacionService ocupacionService;
+
+    @Mock
+    private HorarioService horarioService;
+
+    @Mock
+    private RecordatorioService recordatorioService;
+
+    @Mock
+    private RecordatorioResenaService recordatorioResenaService;
+
+    @InjectMocks
+    private CitaService citaService;
+
+    private final List<Cita> guardadas = new CopyOnWriteArrayList<>();
+    private Servicio servicio;
+
+    // Si se fijan, la consulta de solapes de ese día se queda esperando dentro del bloqueo
+    private volatile LocalDate diaRetenido;
+    private final CountDownLatch retenida = new CountDownLatch(1);
+    private final CountDownLatch soltar = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        servicio = new Servicio();
+        servicio.setId(1L);
+        servicio.setNombre("Corte");
+        servicio.setDuracionMinutos(45);
+
+        when(servicioRepository.findById(1L)).thenReturn(Optional.of(servicio));
+        when(horarioService.admiteReserva(any(), anyInt(), eq(false))).thenReturn(true);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        // Base de datos simulada: la consulta de solapes ve lo que ya se ha guardado
+        when(citaRepository.findByFechaHoraBetween(any(), any())).thenAnswer(inv -> {
+            LocalDateTime desde = inv.getArgument(0);
+            LocalDateTime hasta = inv.getArgument(1);
+            if (desde.toLocalDate().equals(diaRetenido)) {
+                retenida.countDown();
+                soltar.await(10, TimeUnit.SECONDS);
+            }
+            List<Cita> resultado = new ArrayList<>();
+            for (Cita c : guardadas) {
+                if (!c.getFechaHora().isBefore(desde) && !c.getFechaHora().isAfter(hasta)) {
+                    resultado.add(c);
+                }
+            }
+            Thread.yield();
+            return resultado;
+        });
+        when(citaRepository.save(any(Cita.class))).thenAnswer(inv -> {
+            Cita cita = inv.getArgument(0);
+            guardadas.add(cita);
+            return cita;
+        });
+    }
+
+    @Test
+    void soloUnaReservaGanaElMismoHueco() throws Exception {
+        AtomicInteger aceptadas = lanzar(i -> SLOT);
+
+        assertEquals(1, aceptadas.get());
+        assertEquals(1, guardadas.size());
+    }
+
+    @Test
+    void reservasDeDiasDistintosNoSeBloquean() throws Exception {
+        diaRetenido = SLOT.toLocalDate();
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            // Una reserva se queda a medias con el bloqueo de su día tomado
+            Future<Cita> retenidaEnSuDia = pool.submit(() -> citaService.crearCita(nuevaCita(0, SLOT), "CLIENTE"));
+            assertTrue(retenida.await(5, TimeUnit.SECONDS));
+
+            // Otra del mismo día espera a que termine la primera...
+            Future<Cita> mismoDia = pool.submit(() -> citaService.crearCita(nuevaCita(1, SLOT.plusMinutes(45)), "CLIENTE"));
+            // ...pero la de otro día se completa sin esperar (con un bloqueo global no acabaría hasta soltar)
+            pool.submit(() -> citaService.crearCita(nuevaCita(2, SLOT.plusDays(1)), "CLIENTE")).get(2, TimeUnit.SECONDS);
+            assertFalse(mismoDia.isDone());
+            assertFalse(retenidaEnSuDia.isDone());
+
+            soltar.countDown();
+            retenidaEnSuDia.get(5, TimeUnit.SECONDS);
+            mismoDia.get(5, TimeUnit.SECONDS);
+            assertEquals(3, guardadas.size());
+        } finally {
+            soltar.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private AtomicInteger lanzar(java.util.function.IntFunction<LocalDateTime> fecha) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger aceptadas = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < PETICIONES; i++) {
+            Cita cita = nuevaCita(i, fecha.apply(i));
+            tareas.add(pool.submit(() -> {
+                salida.await();
+                try {
+                    citaService.crearCita(cita, "CLIENTE");
+                    aceptadas.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // Hueco ya ocupado
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        return aceptadas;
+    }
+
+    private Cita nuevaCita(int i, LocalDateTime fechaHora) {
+        Usuario cliente = new Usuario();
+        cliente.setNombre("Cliente " + i);
+        cliente.setEmail("cliente" + i + "@test.com");
+        Cita cita = new Cita();
+        cita.setCliente(cliente);
+        cita.setServicio(servicio);
+        cita.setFechaHora(fechaHora);
+        return cita;
+    }
+}
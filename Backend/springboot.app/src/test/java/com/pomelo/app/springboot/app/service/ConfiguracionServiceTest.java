@@ -0,0 +1,66 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Configuracion;
+import com.pomelo.app.springboot.app.repository.ConfiguracionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ConfiguracionServiceTest {
+
+    @Mock
+    private ConfiguracionRepository configuracionRepository;
+
+    @InjectMocks
+    private ConfiguracionService configuracionService;
+
+    @Test
+    void cargaLaTablaUnaVezYSoloRecargaCuandoCambiaLaVersion() {
+        when(configuracionRepository.sumaVersiones()).thenReturn(1L);
+        when(configuracionRepository.findAll()).thenReturn(List.of(
+                new Configuracion("tiempo_minimo_reserva", "12", "")));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(12, configuracionService.obtenerTiempoMinimo());
+        }
+        assertNull(configuracionService.obtenerValor("no_existe"));
+        configuracionService.comprobarCambios();
+        verify(configuracionRepository, times(1)).findAll();
+
+        // Otro nodo cambia el valor
+        when(configuracionRepository.sumaVersiones()).thenReturn(2L);
+        when(configuracionRepository.findAll()).thenReturn(List.of(
+                new Configuracion("tiempo_minimo_reserva", "48", "")));
+        configuracionService.comprobarCambios();
+
+        assertEquals(48, configuracionService.obtenerTiempoMinimo());
+        verify(configuracionRepository, times(2)).findAll();
+    }
+
+    @Test
+    void escribirUnaClaveExistenteLaActualizaSinInsertarYSustituyeLaInstantanea() {
+        when(configuracionRepository.actualizarValor("tiempo_minimo_reserva", "6")).thenReturn(1);
+        when(configuracionRepository.findAll()).thenReturn(List.of(
+                new Configuracion("tiempo_minimo_reserva", "6", "")));
+
+        configuracionService.configurarTiempoMinimo(6);
+
+        assertEquals(6, configuracionService.obtenerTiempoMinimo());
+        verify(configuracionRepository, never()).save(any());
+        verify(configuracionRepository, never()).findByClave(anyString());
+    }
+}
@@ -0,0 +1,161 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.EmailFallido;
+import com.pomelo.app.springboot.app.repository.EmailFallidoRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Envío de emails contra un servidor SMTP mínimo en local que cuenta conexiones y mensajes
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailDispatchServiceTest {
+
+    @Mock
+    private EmailFallidoRepository emailFallidoRepository;
+
+    @InjectMocks
+    private EmailDispatchService emailDispatchService;
+
+    private ServerSocket servidor;
+    private final ExecutorService sesiones = Executors.newCachedThreadPool();
+    private final AtomicInteger conexiones = new AtomicInteger();
+    private final AtomicInteger entregados = new AtomicInteger();
+    private JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        sesiones.submit(() -> {
+            while (!servidor.isClosed()) {
+                try {
+                    Socket socket = servidor.accept();
+                    conexiones.incrementAndGet();
+                    sesiones.submit(() -> atender(socket));
+                } catch (Exception e) {
+                    return;
+                }
+            }
+        });
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(servidor.getLocalPort());
+        ReflectionTestUtils.setField(emailDispatchService, "mailSender", mailSender);
+        ReflectionTestUtils.setField(emailDispatchService, "maxPorSegundo", 0);
+        ReflectionTestUtils.setField(emailDispatchService, "esperaInicialMs", 10L);
+        ReflectionTestUtils.setField(emailDispatchService, "maxIntentos", 3);
+        ReflectionTestUtils.setField(emailDispatchService, "hilos", 1);
+        emailDispatchService.iniciar();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        emailDispatchService.detener();
+        servidor.close();
+        sesiones.shutdownNow();
+    }
+
+    @Test
+    void unLoteSeEnviaEnUnaSolaSesionSmtp() throws Exception {
+        List<EmailDispatchService.CorreoPendiente> lote = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            lote.add(new EmailDispatchService.CorreoPendiente(mensaje("cliente" + i + "@test.com")));
+        }
+
+        emailDispatchService.enviarLote(lote);
+
+        assertEquals(30, entregados.get());
+        assertEquals(1, conexiones.get());
+        verify(emailFallidoRepository, never()).save(org.mockito.ArgumentMatchers.any());
+    }
+
+    @Test
+    void reintentaYGuardaComoFallidoSoloElMensajeRechazado() throws Exception {
+        emailDispatchService.encolar(mensaje("cliente@test.com"));
+        emailDispatchService.encolar(mensaje("rechazado@test.com"));
+
+        ArgumentCaptor<EmailFallido> fallido = ArgumentCaptor.forClass(EmailFallido.class);
+        verify(emailFallidoRepository, timeout(5000)).save(fallido.capture());
+        assertEquals("rechazado@test.com", fallido.getValue().getDestinatarios());
+        assertEquals(3, fallido.getValue().getIntentos());
+        assertTrue(fallido.getValue().getContenido().length > 0);
+        assertEquals(1, entregados.get());
+    }
+
+    private MimeMessage mensaje(String destino) throws Exception {
+        MimeMessage mensaje = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mensaje, true, "UTF-8");
+        helper.setTo(destino);
+        helper.setFrom("Elemen Barber <elemenbarber@gmail.com>");
+        helper.setSubject("Prueba");
+        helper.setText("<p>Hola</p>", true);
+        return mensaje;
+    }
+
+    // Diálogo SMTP justo para JavaMail; las direcciones con "rechazado" se rechazan en RCPT
+    private void atender(Socket socket) {
+        try (socket;
+             BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter salida = new PrintWriter(socket.getOutputStream(), true)) {
+            responder(salida, "220 localhost SMTP de pruebas");
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                String comando = linea.toUpperCase();
+                if (comando.startsWith("EHLO") || comando.startsWith("HELO")) {
+                    responder(salida, "250 localhost");
+                } else if (comando.startsWith("RCPT") && comando.contains("RECHAZADO")) {
+                    responder(salida, "550 Buzón no disponible");
+                } else if (comando.startsWith("DATA")) {
+                    responder(salida, "354 Adelante");
+                    while ((linea = entrada.readLine()) != null && !linea.equals(".")) {
+                        // Se descarta el contenido
+                    }
+                    entregados.incrementAndGet();
+                    responder(salida, "250 Aceptado");
+                } else if (comando.startsWith("QUIT")) {
+                    responder(salida, "221 Adiós");
+                    return;
+                } else {
+                    responder(salida, "250 OK");
+                }
+            }
+        } catch (Exception e) {
+            // Conexión cerrada por el cliente
+        }
+    }
+
+    private void responder(PrintWriter salida, String respuesta) {
+        salida.print(respuesta + "\r\n");
+        salida.flush();
+    }
+}
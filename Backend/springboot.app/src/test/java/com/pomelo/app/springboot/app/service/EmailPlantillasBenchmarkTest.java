@@ -0,0 +1,67 @@
+package com.pomelo.app.springboot.app.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Mide latencia y memoria reservada al generar el HTML de los ocho tipos de email, con las plantillas
+ * precompiladas y con la implementación original (EmailPlantillasOriginales) como referencia.
+ * Se ejecuta solo con -Dbenchmark=true: mvn test -Dtest=EmailPlantillasBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class EmailPlantillasBenchmarkTest {
+
+    private static final int CALENTAMIENTO = 20_000;
+    private static final int ITERACIONES = 50_000;
+
+    @Test
+    void renderizaLosOchoTiposDeEmail() {
+        PlantillaEmailService plantillaEmailService = new PlantillaEmailService();
+        plantillaEmailService.cargar();
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "plantillaEmailService", plantillaEmailService);
+        EmailPlantillasOriginales originales = new EmailPlantillasOriginales();
+
+        for (Map.Entry<String, Object[]> email : EmailPlantillasOriginales.ejemplos().entrySet()) {
+            String nombre = email.getKey().replace("crearEmail", "").replace("HTML", "");
+            medir(nombre + " (antes)", metodo(originales, email.getKey(), email.getValue()));
+            medir(nombre + " (ahora)", metodo(emailService, email.getKey(), email.getValue()));
+        }
+    }
+
+    private void medir(String nombre, Supplier<Object> email) {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long hilo = Thread.currentThread().getId();
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            email.get();
+        }
+        long memoria = hilos.getThreadAllocatedBytes(hilo);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ITERACIONES; i++) {
+            email.get();
+        }
+        long nanos = System.nanoTime() - inicio;
+        long bytes = hilos.getThreadAllocatedBytes(hilo) - memoria;
+        System.out.printf("📊 %-35s %8.2f µs/email %10d bytes/email%n", nombre, nanos / 1000.0 / ITERACIONES, bytes / ITERACIONES);
+    }
+
+    // Los métodos que generan el HTML no son públicos: se resuelven una vez para no medir la búsqueda por reflexión
+    private Supplier<Object> metodo(Object destino, String nombre, Object... argumentos) {
+        Method metodo = null;
+        for (Method candidato : destino.getClass().getDeclaredMethods()) {
+            if (candidato.getName().equals(nombre)) {
+                metodo = candidato;
+            }
+        }
+        ReflectionUtils.makeAccessible(metodo);
+        Method encontrado = metodo;
+        return () -> ReflectionUtils.invokeMethod(encontrado, destino, argumentos);
+    }
+}
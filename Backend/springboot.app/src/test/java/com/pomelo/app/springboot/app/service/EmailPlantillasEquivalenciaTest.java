@@ -0,0 +1,82 @@
+package com.pomelo.app.springboot.app.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compara cada email generado con plantillas con el de la implementación original (EmailPlantillasOriginales).
+ * El marcado cambió al pasar al layout común, así que se compara lo que ve el cliente: el texto y los enlaces.
+ */
+class EmailPlantillasEquivalenciaTest {
+
+    private static final Pattern ENLACE = Pattern.compile("(?:href|src)=\"([^\"]*)\"");
+
+    // Pie del layout común: ahora todos los emails llevan el logo y el contacto en el mismo formato
+    private static final Set<String> PIE = Set.of(
+            "Elemen",
+            "📞 Contacto: +34 683 23 55 47",
+            "📧 Email: elemenbarber@gmail.com",
+            "Elemen · +34 683 23 55 47 · elemenbarber@gmail.com");
+
+    @Test
+    void lasPlantillasDicenLoMismoQueLaImplementacionOriginal() {
+        PlantillaEmailService plantillaEmailService = new PlantillaEmailService();
+        plantillaEmailService.cargar();
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "plantillaEmailService", plantillaEmailService);
+        EmailPlantillasOriginales originales = new EmailPlantillasOriginales();
+
+        for (Map.Entry<String, Object[]> email : EmailPlantillasOriginales.ejemplos().entrySet()) {
+            String antes = invocar(originales, email.getKey(), email.getValue());
+            // Las plantillas escapan los datos del usuario; la implementación original los insertaba tal cual
+            String ahora = desescapar(invocar(emailService, email.getKey(), email.getValue()));
+            assertEquals(texto(antes), texto(ahora), email.getKey());
+            assertEquals(enlaces(antes), enlaces(ahora), email.getKey());
+        }
+    }
+
+    private List<String> texto(String html) {
+        List<String> lineas = new ArrayList<>();
+        for (String trozo : html.replaceAll("(?s)<style>.*?</style>", "").split("<[^>]+>")) {
+            String linea = trozo.replaceAll("\\s+", " ").trim();
+            if (!linea.isEmpty() && !PIE.contains(linea)) {
+                lineas.add(linea);
+            }
+        }
+        return lineas;
+    }
+
+    private List<String> enlaces(String html) {
+        List<String> enlaces = new ArrayList<>();
+        Matcher matcher = ENLACE.matcher(html);
+        while (matcher.find()) {
+            enlaces.add(matcher.group(1));
+        }
+        return enlaces;
+    }
+
+    private String desescapar(String html) {
+        return html.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&#39;", "'").replace("&amp;", "&");
+    }
+
+    private String invocar(Object destino, String nombre, Object... argumentos) {
+        for (Method metodo : destino.getClass().getDeclaredMethods()) {
+            if (metodo.getName().equals(nombre)) {
+                ReflectionUtils.makeAccessible(metodo);
+                return (String) ReflectionUtils.invokeMethod(metodo, destino, argumentos);
+            }
+        }
+        throw new IllegalArgumentException("No existe el método " + nombre);
+    }
+}
@@ -0,0 +1,66 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.EstadisticasResenas;
+import com.pomelo.app.springboot.app.repository.EstadisticasResenasRepository;
+import com.pomelo.app.springboot.app.repository.ResenaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EstadisticasResenasServiceTest {
+
+    @Mock
+    private EstadisticasResenasRepository estadisticasResenasRepository;
+
+    @Mock
+    private ResenaRepository resenaRepository;
+
+    @InjectMocks
+    private EstadisticasResenasService estadisticasResenasService;
+
+    @Test
+    void aplicaCadaCambioSinVolverAContarLasResenas() {
+        EstadisticasResenas fila = new EstadisticasResenas();
+        fila.reiniciar(new long[]{0, 0, 0, 1, 0, 2});
+        when(estadisticasResenasRepository.findByIdParaActualizar(EstadisticasResenas.ID)).thenReturn(Optional.of(fila));
+        when(estadisticasResenasRepository.saveAndFlush(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        estadisticasResenasService.registrar(null, 4);
+        estadisticasResenasService.registrar(5, 2);
+        estadisticasResenasService.registrar(3, null);
+
+        EstadisticasResenas actuales = estadisticasResenasService.obtener();
+        assertEquals(3, actuales.getTotal());
+        assertEquals(11, actuales.getSuma());
+        assertEquals(1, actuales.getEstrellas(2));
+        assertEquals(0, actuales.getEstrellas(3));
+        assertEquals(1, actuales.getEstrellas(4));
+        assertEquals(1, actuales.getEstrellas(5));
+        verify(resenaRepository, never()).contarPorCalificacion();
+    }
+
+    @Test
+    void sinFilaGuardadaCalculaElAgregadoConUnaConsultaAgrupada() {
+        when(estadisticasResenasRepository.findById(EstadisticasResenas.ID)).thenReturn(Optional.empty());
+        when(resenaRepository.contarPorCalificacion()).thenReturn(List.of(new Object[]{5, 3L}, new Object[]{1, 1L}));
+
+        estadisticasResenasService.cargar();
+
+        EstadisticasResenas actuales = estadisticasResenasService.obtener();
+        assertEquals(4, actuales.getTotal());
+        assertEquals(4.0, actuales.getPromedio());
+        assertEquals(3, actuales.getEstrellas(5));
+    }
+}
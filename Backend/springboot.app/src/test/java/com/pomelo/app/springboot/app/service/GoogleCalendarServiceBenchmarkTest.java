@@ -0,0 +1,121 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Cita;
+import com.pomelo.app.springboot.app.entity.Servicio;
+import com.pomelo.app.springboot.app.entity.Usuario;
+import com.pomelo.app.springboot.app.repository.ServicioRepository;
+import com.pomelo.app.springboot.app.repository.UsuarioRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compara la creación de eventos abriendo un cliente HTTP por evento frente al cliente compartido.
+ * Se ejecuta solo con -Dbenchmark=true: mvn test -Dtest=GoogleCalendarServiceBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GoogleCalendarServiceBenchmarkTest {
+
+    private static final int CALENTAMIENTO = 200;
+    private static final int EVENTOS = 1000;
+
+    static {
+        // Sin TCP_NODELAY el servidor de pruebas añade ~40 ms por respuesta en conexiones reutilizadas
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+    private final ServicioRepository servicioRepository = mock(ServicioRepository.class);
+
+    private HttpServer servidor;
+    private final AtomicInteger peticiones = new AtomicInteger();
+    private Usuario cliente;
+    private Cita cita;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        servidor.createContext("/calendars/primary/events", intercambio -> {
+            peticiones.incrementAndGet();
+            intercambio.getRequestBody().readAllBytes();
+            byte[] cuerpo = "{\"id\":\"evento-1\"}".getBytes(StandardCharsets.UTF_8);
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            intercambio.getResponseBody().write(cuerpo);
+            intercambio.close();
+        });
+        servidor.start();
+
+        Servicio servicio = new Servicio();
+        servicio.setId(1L);
+        servicio.setNombre("Corte");
+        servicio.setDuracionMinutos(45);
+        servicio.setColorGoogleCalendar("#4285F4");
+        when(servicioRepository.findAll()).thenReturn(List.of(servicio));
+
+        cliente = new Usuario();
+        cliente.setId(7L);
+        cliente.setEmail("cliente@test.com");
+        cliente.setNombre("Cliente");
+        cliente.setPassword("GOOGLE_AUTH");
+        cliente.setGoogleCalendarToken("token");
+        cliente.setGoogleCalendarRefreshToken("refresh");
+        cliente.setGoogleCalendarTokenExpiry(LocalDateTime.now().plusHours(1));
+
+        cita = new Cita();
+        cita.setId(3L);
+        cita.setCliente(cliente);
+        cita.setServicio(servicio);
+        cita.setFechaHora(LocalDateTime.of(2030, 3, 9, 10, 30));
+        cita.setEstado("confirmada");
+    }
+
+    @AfterEach
+    void tearDown() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void clienteCompartidoFrenteAClientePorEvento() {
+        GoogleCalendarService compartido = nuevoServicio(HttpClient.newHttpClient());
+
+        medir("cliente por evento", CALENTAMIENTO, () -> nuevoServicio(HttpClient.newHttpClient()));
+        medir("cliente compartido", CALENTAMIENTO, () -> compartido);
+        peticiones.set(0);
+
+        double porEvento = medir("cliente por evento", EVENTOS, () -> nuevoServicio(HttpClient.newHttpClient()));
+        double reutilizado = medir("cliente compartido", EVENTOS, () -> compartido);
+
+        assertEquals(2 * EVENTOS, peticiones.get());
+        System.out.printf("📊 Cliente por evento: %.1f µs/evento | compartido: %.1f µs/evento (x%.1f)%n",
+                porEvento, reutilizado, porEvento / reutilizado);
+    }
+
+    private double medir(String nombre, int eventos, java.util.function.Supplier<GoogleCalendarService> servicio) {
+        long inicio = System.nanoTime();
+        for (int i = 0; i < eventos; i++) {
+            servicio.get().pushCreateEvent(cita, cliente, false);
+        }
+        return (System.nanoTime() - inicio) / 1000.0 / eventos;
+    }
+
+    private GoogleCalendarService nuevoServicio(HttpClient httpClient) {
+        GoogleCalendarService servicio = new GoogleCalendarService(usuarioRepository, servicioRepository, httpClient, new GoogleTokenService(httpClient));
+        ReflectionTestUtils.setField(servicio, "calendarApiUrl", "http://localhost:" + servidor.getAddress().getPort());
+        ReflectionTestUtils.setField(servicio, "adminCalendarEnabled", false);
+        return servicio;
+    }
+}
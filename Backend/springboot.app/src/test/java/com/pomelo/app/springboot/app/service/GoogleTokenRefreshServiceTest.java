@@ -0,0 +1,124 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Usuario;
+import com.pomelo.app.springboot.app.repository.ServicioRepository;
+import com.pomelo.app.springboot.app.repository.UsuarioRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Renovación de tokens contra un servidor HTTP local que sustituye al endpoint OAuth de Google
+ */
+@ExtendWith(MockitoExtension.class)
+class GoogleTokenRefreshServiceTest {
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private ServicioRepository servicioRepository;
+
+    @InjectMocks
+    private GoogleTokenRefreshService googleTokenRefreshService;
+
+    private HttpServer servidor;
+    private final AtomicInteger peticiones = new AtomicInteger();
+    private GoogleTokenService googleTokenService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        servidor.createContext("/token", intercambio -> {
+            peticiones.incrementAndGet();
+            String formulario = new String(intercambio.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            boolean revocado = formulario.contains("refresh_token=revocado");
+            String respuesta = revocado
+                    ? "{\"error\":\"invalid_grant\",\"error_description\":\"Token has been expired or revoked.\"}"
+                    : "{\"access_token\":\"nuevo-token\",\"expires_in\":3599,\"token_type\":\"Bearer\"}";
+            byte[] cuerpo = respuesta.getBytes(StandardCharsets.UTF_8);
+            intercambio.sendResponseHeaders(revocado ? 400 : 200, cuerpo.length);
+            intercambio.getResponseBody().write(cuerpo);
+            intercambio.close();
+        });
+        servidor.start();
+
+        HttpClient httpClient = HttpClient.newHttpClient();
+        googleTokenService = new GoogleTokenService(httpClient);
+        ReflectionTestUtils.setField(googleTokenService, "googleClientId", "cliente-id");
+        ReflectionTestUtils.setField(googleTokenService, "googleClientSecret", "secreto");
+        ReflectionTestUtils.setField(googleTokenService, "tokenUrl", "http://localhost:" + servidor.getAddress().getPort() + "/token");
+        GoogleCalendarService googleCalendarService = new GoogleCalendarService(usuarioRepository, servicioRepository, httpClient, googleTokenService);
+        ReflectionTestUtils.setField(googleTokenRefreshService, "googleTokenService", googleTokenService);
+        ReflectionTestUtils.setField(googleTokenRefreshService, "googleCalendarService", googleCalendarService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void renuevaLosTokensQueVanACaducarYLosDejaEnCache() {
+        Usuario usuario = usuario(1L, "refresh-1", LocalDateTime.now().plusMinutes(2));
+        when(usuarioRepository.findConTokenGoogleCaducandoAntesDe(any(), eq(0L), any())).thenReturn(List.of(usuario));
+
+        googleTokenRefreshService.renovarTokensProximosACaducar();
+
+        assertEquals(1, peticiones.get());
+        assertEquals("nuevo-token", usuario.getGoogleCalendarToken());
+        assertEquals("refresh-1", usuario.getGoogleCalendarRefreshToken());
+        assertTrue(usuario.getGoogleCalendarTokenExpiry().isAfter(LocalDateTime.now().plusMinutes(50)));
+        verify(usuarioRepository).actualizarTokensGoogle(eq(1L), eq("nuevo-token"), eq("refresh-1"), any());
+        verify(usuarioRepository, never()).save(any());
+
+        // La sincronización obtiene el token de la caché sin volver a llamar a Google
+        assertEquals("nuevo-token", googleTokenService.tokenVigente(usuario));
+        assertEquals(1, peticiones.get());
+    }
+
+    @Test
+    void retiraLaAutorizacionSiGoogleRevocaElRefreshToken() {
+        Usuario usuario = usuario(2L, "revocado", LocalDateTime.now().minusMinutes(5));
+
+        assertEquals(0, googleTokenRefreshService.renovarLote(List.of(usuario)));
+
+        assertNull(usuario.getGoogleCalendarToken());
+        assertNull(usuario.getGoogleCalendarRefreshToken());
+        assertNull(googleTokenService.tokenVigente(usuario));
+        verify(usuarioRepository).actualizarTokensGoogle(2L, null, null, null);
+    }
+
+    private Usuario usuario(Long id, String refreshToken, LocalDateTime expiry) {
+        Usuario usuario = new Usuario();
+        usuario.setId(id);
+        usuario.setEmail("usuario" + id + "@test.com");
+        usuario.setPassword("GOOGLE_AUTH");
+        usuario.setGoogleCalendarToken("token-viejo");
+        usuario.setGoogleCalendarRefreshToken(refreshToken);
+        usuario.setGoogleCalendarTokenExpiry(expiry);
+        return usuario;
+    }
+}
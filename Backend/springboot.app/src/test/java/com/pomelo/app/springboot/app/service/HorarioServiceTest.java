@@ -0,0 +1,181 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pomelo.app.springboot.app.dto.HorarioSemanal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class HorarioServiceTest {
+
+    // Tramos que tenían fijos CitaService y CitaController antes de que el horario fuera configurable
+    private static final List<LocalTime[]> TRAMOS_ORIGINALES = List.of(
+        new LocalTime[]{LocalTime.of(9, 0), LocalTime.of(15, 0)},
+        new LocalTime[]{LocalTime.of(16, 0), LocalTime.of(21, 15)}
+    );
+
+    @Mock
+    private ConfiguracionService configuracionService;
+
+    @InjectMocks
+    private HorarioService horarioService;
+
+    private final Map<String, String> configuracion = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(horarioService, "objectMapper", new ObjectMapper());
+        // Tabla configuracion simulada
+        lenient().when(configuracionService.obtenerValor(HorarioService.CLAVE_HORARIO))
+                .thenAnswer(inv -> configuracion.get(HorarioService.CLAVE_HORARIO));
+        lenient().doAnswer(inv -> configuracion.put(inv.getArgument(0), inv.getArgument(1)))
+                .when(configuracionService).guardarValor(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void elHorarioPorDefectoOfreceLasMismasHorasQueAntes() {
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            for (boolean esAdmin : new boolean[]{false, true}) {
+                for (int duracion : new int[]{30, 45, 90, 135}) {
+                    assertEquals(horasOriginales(dia, esAdmin, duracion), horasOfrecidas(dia, esAdmin, duracion),
+                            dia + (esAdmin ? " admin " : " cliente ") + duracion + " min");
+                }
+            }
+        }
+    }
+
+    @Test
+    void admiteReservaSoloEnSlotsDelHorarioQueCabenEnSuTramo() {
+        LocalDateTime martes = LocalDateTime.of(2030, 3, 5, 0, 0);
+        assertTrue(horarioService.admiteReserva(martes.withHour(9), 45, false));
+        // Fuera de un slot o con segundos
+        assertFalse(horarioService.admiteReserva(martes.withHour(9).withMinute(10), 45, false));
+        assertFalse(horarioService.admiteReserva(martes.withHour(9).withSecond(30), 45, false));
+        // 14:15 solo se ofrece los sábados; 13:30 + 135 min no cabe antes del cierre de las 15:00
+        assertFalse(horarioService.admiteReserva(martes.withHour(14).withMinute(15), 45, false));
+        assertTrue(horarioService.admiteReserva(martes.withHour(13).withMinute(30), 90, false));
+        assertFalse(horarioService.admiteReserva(martes.withHour(13).withMinute(30), 135, false));
+        // 8:15 solo para admin; el lunes cierra para clientes
+        assertFalse(horarioService.admiteReserva(martes.withHour(8).withMinute(15), 45, false));
+        assertTrue(horarioService.admiteReserva(martes.withHour(8).withMinute(15), 45, true));
+        assertFalse(horarioService.admiteReserva(martes.minusDays(1).withHour(9), 45, false));
+        assertTrue(horarioService.admiteReserva(martes.minusDays(1).withHour(9), 45, true));
+    }
+
+    @Test
+    void unHorarioGuardadoSeVuelveALeerIgualDeLaConfiguracion() {
+        HorarioSemanal horario = new HorarioSemanal();
+        horario.setDuracionSlotMinutos(60);
+        horario.getTramos().add(new HorarioSemanal.Tramo("10:00", "14:00"));
+        horario.getSlotsAdmin().add("20:00");
+        horario.getDiasCerradosClientes().add("SATURDAY");
+
+        horarioService.guardarHorario(horario);
+        // Se descarta lo compilado para obligar a leer el JSON guardado
+        horarioService.invalidar();
+
+        HorarioSemanal leido = horarioService.obtenerHorario();
+        assertEquals(60, leido.getDuracionSlotMinutos());
+        assertEquals("10:00", leido.getTramos().get(0).getInicio());
+        assertEquals(List.of("SATURDAY"), leido.getDiasCerradosClientes());
+        assertEquals(List.of("10:00", "11:00", "12:00", "13:00"), horasOfrecidas(DayOfWeek.FRIDAY, false, 60));
+        assertEquals(List.of("10:00", "11:00", "12:00"), horasOfrecidas(DayOfWeek.FRIDAY, false, 120));
+        assertEquals(List.of("10:00", "11:00", "12:00", "13:00", "20:00"), horasOfrecidas(DayOfWeek.SATURDAY, true, 60));
+        assertEquals(List.of(), horasOfrecidas(DayOfWeek.SATURDAY, false, 60));
+    }
+
+    @Test
+    void rechazaUnTramoQueNoAcabaDespuesDeEmpezar() {
+        HorarioSemanal horario = HorarioSemanal.porDefecto();
+        horario.getTramos().add(new HorarioSemanal.Tramo("18:00", "17:00"));
+
+        assertThrows(RuntimeException.class, () -> horarioService.guardarHorario(horario));
+        HorarioSemanal horaNoValida = HorarioSemanal.porDefecto();
+        horaNoValida.getTramos().get(0).setFin("25:00");
+        assertThrows(RuntimeException.class, () -> horarioService.guardarHorario(horaNoValida));
+
+        verify(configuracionService, never()).guardarValor(anyString(), anyString(), any());
+    }
+
+    private List<String> horasOfrecidas(DayOfWeek dia, boolean esAdmin, int duracion) {
+        HorarioService.TablaDia tabla = horarioService.tablaDia(dia, esAdmin);
+        int slotsNecesarios = tabla.slotsNecesarios(duracion);
+        List<String> horas = new ArrayList<>();
+        for (int i = 0; i < tabla.numeroSlots(); i++) {
+            if (tabla.admiteInicio(i, slotsNecesarios)) {
+                horas.add(tabla.slot(i).toString());
+            }
+        }
+        return horas;
+    }
+
+    // Reglas de horario tal como estaban en CitaController.disponibilidad (sin ocupación ni tiempo mínimo)
+    private List<String> horasOriginales(DayOfWeek dia, boolean esAdmin, int duracion) {
+        List<LocalTime> slots = new ArrayList<>();
+        if (esAdmin) {
+            slots.add(LocalTime.of(8, 15));
+        }
+        for (LocalTime[] tramo : TRAMOS_ORIGINALES) {
+            for (LocalTime t = tramo[0]; t.compareTo(tramo[1]) < 0; t = t.plusMinutes(45)) {
+                slots.add(t);
+            }
+        }
+        if (esAdmin) {
+            slots.add(LocalTime.of(21, 15));
+        }
+        List<String> horas = new ArrayList<>();
+        if (!esAdmin && (dia == DayOfWeek.MONDAY || dia == DayOfWeek.SUNDAY)) {
+            return horas;
+        }
+        int slotsNecesarios = (int) Math.ceil(duracion / 45.0);
+        for (int i = 0; i <= slots.size() - slotsNecesarios; i++) {
+            LocalTime slotInicio = slots.get(i);
+            LocalTime slotFin = slotInicio.plusMinutes(45L * slotsNecesarios);
+            if (dia != DayOfWeek.SATURDAY && slotInicio.equals(LocalTime.of(14, 15))) {
+                continue;
+            }
+            boolean dentroHorario = false;
+            for (LocalTime[] tramo : TRAMOS_ORIGINALES) {
+                if (!slotInicio.isBefore(tramo[0]) && !slotFin.isAfter(tramo[1])) {
+                    dentroHorario = true;
+                    break;
+                }
+            }
+            if (!dentroHorario && esAdmin && (slotInicio.equals(LocalTime.of(8, 15)) || slotInicio.equals(LocalTime.of(21, 15)))) {
+                dentroHorario = true;
+            }
+            if (!dentroHorario) {
+                continue;
+            }
+            if (!esAdmin && dia == DayOfWeek.SATURDAY && slotInicio.isAfter(LocalTime.of(15, 0))) {
+                continue;
+            }
+            horas.add(slotInicio.toString());
+        }
+        return horas;
+    }
+}
@@ -0,0 +1,112 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Cita;
+import com.pomelo.app.springboot.app.entity.Servicio;
+import com.pomelo.app.springboot.app.repository.CitaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OcupacionServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2030, 3, 9);
+
+    @Mock
+    private CitaRepository citaRepository;
+
+    @InjectMocks
+    private OcupacionService ocupacionService;
+
+    @Test
+    void huecosAlrededorDeUnaCita() {
+        when(citaRepository.findActivasConServicioEntre(any(), any())).thenReturn(List.of(cita(LocalTime.of(9, 45), 45)));
+
+        assertFalse(ocupacionService.estaLibre(DIA, LocalTime.of(9, 45), 45));
+        // Igual que antes: el hueco que termina justo cuando empieza la cita queda bloqueado
+        assertFalse(ocupacionService.estaLibre(DIA, LocalTime.of(9, 0), 45));
+        assertTrue(ocupacionService.estaLibre(DIA, LocalTime.of(10, 30), 45));
+        assertTrue(ocupacionService.estaLibre(DIA, LocalTime.of(16, 0), 45));
+
+        // El día se carga una sola vez
+        verify(citaRepository, times(1)).findActivasConServicioEntre(any(), any());
+    }
+
+    @Test
+    void registrarEInvalidar() {
+        when(citaRepository.findActivasConServicioEntre(any(), any())).thenReturn(List.of());
+
+        assertTrue(ocupacionService.estaLibre(DIA, LocalTime.of(11, 15), 45));
+        ocupacionService.registrarCita(cita(LocalTime.of(11, 15), 30));
+        assertFalse(ocupacionService.estaLibre(DIA, LocalTime.of(11, 15), 45));
+
+        ocupacionService.invalidar(DIA);
+        assertTrue(ocupacionService.estaLibre(DIA, LocalTime.of(11, 15), 45));
+        verify(citaRepository, times(2)).findActivasConServicioEntre(any(), any());
+    }
+
+    @Test
+    void unaCargaLentaNoPisaUnaCitaRegistradaMientrasTanto() {
+        Cita nueva = cita(LocalTime.of(12, 0), 30);
+        // La consulta empieza antes de que se confirme la cita nueva y no la ve
+        when(citaRepository.findActivasConServicioEntre(any(), any()))
+                .thenAnswer(inv -> {
+                    ocupacionService.registrarCita(nueva);
+                    return List.of();
+                })
+                .thenReturn(List.of(nueva));
+
+        ocupacionService.estaLibre(DIA, LocalTime.of(12, 0), 30);
+
+        // La carga obsoleta no se ha guardado: la siguiente consulta vuelve a leer y ve la cita
+        assertFalse(ocupacionService.estaLibre(DIA, LocalTime.of(12, 0), 30));
+        verify(citaRepository, times(2)).findActivasConServicioEntre(any(), any());
+    }
+
+    @Test
+    void dentroDeUnaTransaccionVuelveAInvalidarAlConfirmar() {
+        Cita cancelada = cita(LocalTime.of(17, 0), 30);
+        // Hasta el commit la base de datos sigue devolviendo la cita como activa
+        when(citaRepository.findActivasConServicioEntre(any(), any()))
+                .thenReturn(List.of(cancelada))
+                .thenReturn(List.of());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ocupacionService.invalidar(DIA);
+            // Una consulta concurrente antes del commit recarga y guarda el día con la cita
+            assertFalse(ocupacionService.estaLibre(DIA, LocalTime.of(17, 0), 30));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(ocupacionService.estaLibre(DIA, LocalTime.of(17, 0), 30));
+    }
+
+    private Cita cita(LocalTime hora, int duracion) {
+        Servicio servicio = new Servicio();
+        servicio.setDuracionMinutos(duracion);
+        Cita cita = new Cita();
+        cita.setServicio(servicio);
+        cita.setFechaHora(DIA.atTime(hora));
+        cita.setEstado("confirmada");
+        return cita;
+    }
+}
@@ -0,0 +1,59 @@
+package com.pomelo.app.springboot.app.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlanificadorRecordatoriosTest {
+
+    private final PlanificadorRecordatorios planificador = new PlanificadorRecordatorios();
+    private final List<String> ejecutadas = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        planificador.iniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        planificador.detener();
+    }
+
+    @Test
+    void ejecutaCadaRecordatorioAlVencerEnOrden() throws Exception {
+        CountDownLatch hechas = new CountDownLatch(2);
+        LocalDateTime ahora = LocalDateTime.now();
+        long inicio = System.nanoTime();
+        planificador.programar("cita-2", ahora.plusNanos(300_000_000), () -> { ejecutadas.add("cita-2"); hechas.countDown(); });
+        planificador.programar("cita-1", ahora.plusNanos(150_000_000), () -> { ejecutadas.add("cita-1"); hechas.countDown(); });
+
+        assertTrue(hechas.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("cita-1", "cita-2"), ejecutadas);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio) >= 250);
+        assertEquals(0, planificador.pendientes());
+    }
+
+    @Test
+    void reprogramarSustituyeElPlazoYCancelarLoDescarta() throws Exception {
+        CountDownLatch hecha = new CountDownLatch(1);
+        LocalDateTime ahora = LocalDateTime.now();
+        planificador.programar("cita-1", ahora.plusNanos(50_000_000), () -> ejecutadas.add("anterior"));
+        planificador.programar("cita-1", ahora.plusNanos(200_000_000), () -> { ejecutadas.add("nueva"); hecha.countDown(); });
+        planificador.programar("cita-2", ahora.plusNanos(100_000_000), () -> ejecutadas.add("cancelada"));
+        planificador.cancelar("cita-2");
+        assertFalse(planificador.estaProgramada("cita-2"));
+
+        assertTrue(hecha.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("nueva"), ejecutadas);
+    }
+}
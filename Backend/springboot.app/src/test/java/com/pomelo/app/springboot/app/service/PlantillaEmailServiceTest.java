@@ -0,0 +1,59 @@
+package com.pomelo.app.springboot.app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlantillaEmailServiceTest {
+
+    private final PlantillaEmailService plantillaEmailService = new PlantillaEmailService();
+
+    @BeforeEach
+    void setUp() {
+        plantillaEmailService.cargar();
+    }
+
+    @Test
+    void escapaLosDatosDelUsuarioYRespetaLasSecciones() {
+        PlantillaEmail plantilla = PlantillaEmail.compilar("<p>{{nombre}}</p>{{{html}}}{{?aviso}}<b>aviso</b>{{/aviso}}");
+
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("nombre", "Ana <script>\"&'");
+        datos.put("html", "<i>ok</i>");
+        datos.put("aviso", 0);
+        assertEquals("<p>Ana &lt;script&gt;&quot;&amp;&#39;</p><i>ok</i>", plantilla.renderizar(datos));
+
+        datos.put("aviso", 3);
+        assertEquals("<p>Ana &lt;script&gt;&quot;&amp;&#39;</p><i>ok</i><b>aviso</b>", plantilla.renderizar(datos));
+    }
+
+    @Test
+    void lasPlantillasUsanElLayoutComunSinHuecosSinRellenar() {
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("nombreCliente", "Ana");
+        datos.put("nombreServicio", "Corte");
+        datos.put("citasOmitidas", 2);
+
+        String html = plantillaEmailService.renderizar(PlantillaEmailService.CITA_PERIODICA, datos);
+
+        assertTrue(html.startsWith("<!DOCTYPE html>"));
+        assertTrue(html.contains("<title>Cita Periódica Creada</title>"));
+        assertTrue(html.contains("¡Hola Ana!"));
+        assertTrue(html.contains("⚠️ Nota:"));
+        assertTrue(html.contains("📞 Contacto: +34 683 23 55 47"));
+        assertFalse(html.contains("{{"));
+    }
+
+    @Test
+    void rechazaPlantillasMalFormadas() {
+        assertThrows(RuntimeException.class, () -> PlantillaEmail.compilar("{{?aviso}}sin cerrar"));
+        assertThrows(RuntimeException.class, () -> PlantillaEmail.compilar("{{nombre"));
+    }
+}
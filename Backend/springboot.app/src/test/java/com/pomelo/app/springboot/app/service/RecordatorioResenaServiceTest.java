@@ -0,0 +1,128 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Cita;
+import com.pomelo.app.springboot.app.entity.Servicio;
+import com.pomelo.app.springboot.app.entity.Usuario;
+import com.pomelo.app.springboot.app.repository.CitaRepository;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RecordatorioResenaServiceTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2030, 3, 9, 12, 0);
+
+    @Mock
+    private CitaRepository citaRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private ConfiguracionService configuracionService;
+
+    @InjectMocks
+    private RecordatorioResenaService recordatorioResenaService;
+
+    @Test
+    void sinCheckpointSoloRecorreLaVentanaYGuardaLaUltimaCita() throws Exception {
+        Cita primera = cita(4L, AHORA.minusHours(3));
+        Cita segunda = cita(9L, AHORA.minusHours(2));
+        when(citaRepository.findPendientesDeResenaDesde(eq(AHORA.minusDays(7)), eq(0L), eq(AHORA), any(Pageable.class)))
+                .thenReturn(List.of(primera, segunda));
+        when(citaRepository.reclamarRecordatorioResena(any(), any())).thenReturn(1);
+
+        assertEquals(2, recordatorioResenaService.recorrerPendientes(AHORA));
+
+        verify(configuracionService).guardarValor(eq(RecordatorioResenaService.CLAVE_CHECKPOINT),
+                eq(AHORA.minusHours(2) + "|9"), anyString());
+        verify(emailService).encolarRecordatorioResena(eq("cliente9@test.com"), any(), any(), any());
+    }
+
+    @Test
+    void reanudaDesdeElCheckpointYNoSeDetieneEnUnEnvioFallido() throws Exception {
+        LocalDateTime fechaCheckpoint = AHORA.minusHours(5);
+        when(configuracionService.obtenerValor(RecordatorioResenaService.CLAVE_CHECKPOINT)).thenReturn(fechaCheckpoint + "|12");
+        Cita enviada = cita(13L, AHORA.minusHours(4));
+        Cita fallida = cita(14L, AHORA.minusHours(3));
+        when(citaRepository.findPendientesDeResenaDesde(eq(fechaCheckpoint), eq(12L), eq(AHORA), any(Pageable.class)))
+                .thenReturn(List.of(enviada, fallida, cita(15L, AHORA.minusHours(1))));
+        when(citaRepository.reclamarRecordatorioResena(any(), any())).thenReturn(1);
+        doAnswer(inv -> {
+            if ("cliente14@test.com".equals(inv.getArgument(0))) {
+                throw new MessagingException("dirección no válida");
+            }
+            return null;
+        }).when(emailService).encolarRecordatorioResena(any(), any(), any(), any());
+
+        assertEquals(3, recordatorioResenaService.recorrerPendientes(AHORA));
+
+        // El fallo queda contado en la cita y la buena que va detrás se envía igualmente
+        verify(citaRepository).liberarRecordatorioResena(14L);
+        verify(emailService).encolarRecordatorioResena(eq("cliente15@test.com"), any(), any(), any());
+        verify(configuracionService).guardarValor(eq(RecordatorioResenaService.CLAVE_CHECKPOINT),
+                eq(AHORA.minusHours(1) + "|15"), anyString());
+    }
+
+    @Test
+    void noPideLaResenaHastaQueTerminaElServicio() throws Exception {
+        Cita terminada = cita(20L, AHORA.minusHours(1));
+        Cita enCurso = cita(21L, AHORA.minusMinutes(30));
+        when(citaRepository.findPendientesDeResenaDesde(any(), eq(0L), eq(AHORA), any(Pageable.class)))
+                .thenReturn(List.of(terminada, enCurso));
+        when(citaRepository.reclamarRecordatorioResena(any(), any())).thenReturn(1);
+
+        assertEquals(1, recordatorioResenaService.recorrerPendientes(AHORA));
+
+        verify(citaRepository, never()).reclamarRecordatorioResena(eq(21L), any());
+        verify(emailService, never()).encolarRecordatorioResena(eq("cliente21@test.com"), any(), any(), any());
+        // El checkpoint se queda en la última terminada para volver a mirar la que está en curso
+        verify(configuracionService).guardarValor(eq(RecordatorioResenaService.CLAVE_CHECKPOINT),
+                eq(AHORA.minusHours(1) + "|20"), anyString());
+    }
+
+    @Test
+    void reintentaAparteLosEnviosFallidosQueYaQuedaronAtras() throws Exception {
+        Cita fallida = cita(30L, AHORA.minusDays(2));
+        fallida.setIntentosRecordatorioResena(2);
+        when(citaRepository.findReintentosDeResena(AHORA.minusDays(7), AHORA, 5)).thenReturn(List.of(fallida));
+        when(citaRepository.reclamarRecordatorioResena(eq(30L), any())).thenReturn(1);
+
+        recordatorioResenaService.recorrerPendientes(AHORA);
+
+        verify(emailService).encolarRecordatorioResena(eq("cliente30@test.com"), any(), any(), any());
+        verify(citaRepository, never()).liberarRecordatorioResena(30L);
+    }
+
+    private Cita cita(Long id, LocalDateTime fechaHora) {
+        Usuario cliente = new Usuario();
+        cliente.setEmail("cliente" + id + "@test.com");
+        cliente.setNombre("Cliente " + id);
+        Servicio servicio = new Servicio();
+        servicio.setNombre("Corte");
+        servicio.setDuracionMinutos(45);
+        Cita cita = new Cita();
+        cita.setId(id);
+        cita.setCliente(cliente);
+        cita.setServicio(servicio);
+        cita.setFechaHora(fechaHora);
+        return cita;
+    }
+}
@@ -0,0 +1,102 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Cita;
+import com.pomelo.app.springboot.app.entity.Servicio;
+import com.pomelo.app.springboot.app.entity.Usuario;
+import com.pomelo.app.springboot.app.repository.CitaRepository;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RecordatorioServiceTest {
+
+    @Mock
+    private CitaRepository citaRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @InjectMocks
+    private RecordatorioService recordatorioService;
+
+    @Test
+    void reclamaElLoteYEncolaSoloLasCitasGanadas() throws Exception {
+        when(citaRepository.findIdsRecordatorioPendiente(any(), any(), any())).thenReturn(List.of(1L, 2L, 3L));
+        when(citaRepository.reclamarRecordatorios(eq(List.of(1L, 2L, 3L)), anyString(), any(), any())).thenReturn(2);
+        // La cita 2 la reclamó otra instancia: el lote solo devuelve las que tienen su identificador
+        Cita primera = cita(1L);
+        Cita tercera = cita(3L);
+        ArgumentCaptor<String> lote = ArgumentCaptor.forClass(String.class);
+        when(citaRepository.findByRecordatorioLote(lote.capture())).thenReturn(List.of(primera, tercera));
+
+        recordatorioService.enviarRecordatoriosAutomaticos();
+
+        verify(citaRepository).reclamarRecordatorios(eq(List.of(1L, 2L, 3L)), eq(lote.getValue()), any(), any());
+        verify(emailService).encolarRecordatorioCita(primera);
+        verify(emailService).encolarRecordatorioCita(tercera);
+        verify(citaRepository, never()).liberarRecordatorios(anyList());
+        verify(citaRepository, never()).findAll();
+        verify(citaRepository, never()).save(any());
+    }
+
+    @Test
+    void liberaLasCitasCuyoEmailNoSePudoPreparar() throws Exception {
+        Cita correcta = cita(1L);
+        Cita erronea = cita(2L);
+        when(citaRepository.reclamarRecordatorios(eq(List.of(1L, 2L)), anyString(), any(), any())).thenReturn(2);
+        when(citaRepository.findByRecordatorioLote(anyString())).thenReturn(List.of(correcta, erronea));
+        doAnswer(inv -> {
+            if (inv.getArgument(0) == erronea) {
+                throw new MessagingException("dirección inválida");
+            }
+            return null;
+        }).when(emailService).encolarRecordatorioCita(any());
+
+        int[] resultado = recordatorioService.procesarLote(List.of(1L, 2L), LocalDateTime.now());
+
+        assertArrayEquals(new int[] {1, 1}, resultado);
+        verify(citaRepository).liberarRecordatorios(List.of(2L));
+    }
+
+    @Test
+    void noCargaNadaSiOtraInstanciaReclamoElLote() {
+        when(citaRepository.reclamarRecordatorios(anyList(), anyString(), any(), any())).thenReturn(0);
+
+        int[] resultado = recordatorioService.procesarLote(List.of(1L), LocalDateTime.now());
+
+        assertEquals(0, resultado[0]);
+        verify(citaRepository, never()).findByRecordatorioLote(anyString());
+    }
+
+    private Cita cita(Long id) {
+        Usuario cliente = new Usuario();
+        cliente.setEmail("cliente" + id + "@test.com");
+        Servicio servicio = new Servicio();
+        servicio.setNombre("Corte");
+        Cita cita = new Cita();
+        cita.setId(id);
+        cita.setCliente(cliente);
+        cita.setServicio(servicio);
+        cita.setFechaHora(LocalDateTime.now().plusMinutes(30));
+        return cita;
+    }
+}
@@ -0,0 +1,54 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Vacaciones;
+import com.pomelo.app.springboot.app.repository.VacacionesRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VacacionesServiceTest {
+
+    @Mock
+    private VacacionesRepository vacacionesRepository;
+
+    @InjectMocks
+    private VacacionesService vacacionesService;
+
+    @Test
+    void fusionaPeriodosYRespondeSinVolverAConsultar() {
+        when(vacacionesRepository.findByActivoTrue()).thenReturn(List.of(
+                new Vacaciones(LocalDate.of(2030, 8, 10), LocalDate.of(2030, 8, 15), "Verano"),
+                new Vacaciones(LocalDate.of(2030, 7, 30), LocalDate.of(2030, 8, 2), "Puente"),
+                new Vacaciones(LocalDate.of(2030, 8, 12), LocalDate.of(2030, 8, 20), "Ampliación"),
+                new Vacaciones(LocalDate.of(2030, 8, 21), LocalDate.of(2030, 8, 21), "Contiguo")));
+
+        assertTrue(vacacionesService.esFechaVacaciones(LocalDate.of(2030, 8, 1)));
+        assertTrue(vacacionesService.esFechaVacaciones(LocalDate.of(2030, 8, 18)));
+        assertTrue(vacacionesService.esFechaVacaciones(LocalDate.of(2030, 8, 21)));
+        assertFalse(vacacionesService.esFechaVacaciones(LocalDate.of(2030, 8, 5)));
+        assertFalse(vacacionesService.esFechaVacaciones(LocalDate.of(2030, 7, 29)));
+
+        List<LocalDate> agosto = vacacionesService.diasBloqueados(YearMonth.of(2030, 8));
+        assertEquals(2 + 12, agosto.size());
+        assertEquals(LocalDate.of(2030, 8, 1), agosto.get(0));
+        assertEquals(LocalDate.of(2030, 8, 21), agosto.get(agosto.size() - 1));
+        assertEquals(List.of(LocalDate.of(2030, 7, 30), LocalDate.of(2030, 7, 31)),
+                vacacionesService.diasBloqueados(YearMonth.of(2030, 7)));
+
+        verify(vacacionesRepository, times(1)).findByActivoTrue();
+    }
+}
@@ -0,0 +1,83 @@
+package com.pomelo.app.springboot.app.service;
+
+import com.pomelo.app.springboot.app.entity.Portfolio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VariantesImagenServiceTest {
+
+    @TempDir
+    Path directorio;
+
+    private AlmacenImagenesService almacen;
+    private VariantesImagenService variantesImagenService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        almacen = new AlmacenImagenesService();
+        ReflectionTestUtils.setField(almacen, "directorio", directorio.toString());
+        almacen.iniciar();
+        variantesImagenService = new VariantesImagenService();
+        ReflectionTestUtils.setField(variantesImagenService, "almacenImagenesService", almacen);
+    }
+
+    @Test
+    void generaLasTresVariantesComoJpegMasLigeros() throws Exception {
+        byte[] original = png(3000, 2000);
+        String hash = almacen.guardar(original);
+
+        Portfolio foto = new Portfolio("Degradado", hash, "");
+        foto.setImagenVariantes(variantesImagenService.generar(hash));
+
+        List<Map<String, Object>> variantes = foto.getVariantes();
+        assertEquals(List.of("thumb", "medium", "full"), variantes.stream().map(v -> v.get("nombre")).toList());
+        assertEquals(List.of(320, 800, 1600), variantes.stream().map(v -> v.get("ancho")).toList());
+        String miniatura = variantes.get(0).get("url").toString().substring("/api/portfolio/imagenes/".length());
+        assertEquals("image/jpeg", almacen.tipo(miniatura));
+        try (InputStream entrada = almacen.abrir(miniatura)) {
+            BufferedImage imagen = ImageIO.read(entrada);
+            assertEquals(320, imagen.getWidth());
+            assertEquals(213, imagen.getHeight());
+        }
+        // La miniatura pesa un orden de magnitud menos que el original
+        assertTrue(almacen.tamano(miniatura) * 10 < original.length);
+        assertTrue(foto.getSrcset().endsWith(" 1600w"));
+    }
+
+    @Test
+    void noAmpliaLasImagenesPequenas() throws Exception {
+        String hash = almacen.guardar(png(500, 500));
+
+        assertTrue(variantesImagenService.generar(hash).matches("thumb:320:[0-9a-f]{64},full:500:[0-9a-f]{64}"));
+    }
+
+    // Foto simulada: degradado con ruido, que PNG no comprime bien (como una foto de móvil)
+    private static byte[] png(int ancho, int alto) throws Exception {
+        BufferedImage imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(7);
+        for (int y = 0; y < alto; y++) {
+            for (int x = 0; x < ancho; x++) {
+                int r = (x * 255 / ancho + random.nextInt(16)) & 0xFF;
+                int g = (y * 255 / alto + random.nextInt(16)) & 0xFF;
+                imagen.setRGB(x, y, (r << 16) | (g << 8) | 0x80);
+            }
+        }
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ImageIO.write(imagen, "png", salida);
+        return salida.toByteArray();
+    }
+}
@@ -534,27 +534,39 @@ const CitasAdmin: React.FC = () => {
     }
   };
 
-  // Cargar citas
+  // Cargar las citas del mes visible (con una semana de margen por los días de los meses vecinos)
+  const mesVisible = moment(selectedDate).format('YYYY-MM');
   useEffect(() => {
+    let cancelado = false;
     const fetchCitas = async () => {
-      setLoading(true);
       setError('');
       try {
         const token = localStorage.getItem('authToken');
-        const res = await fetch('http://localhost:8080/api/citas/todas', {
-          headers: token ? { 'Authorization': `Bearer ${token}` } : {}
-        });
-        if (!res.ok) throw new Error('No se pudieron cargar las citas');
-        const data = await res.json();
-        setCitas(data);
+        const mes = moment(mesVisible, 'YYYY-MM');
+        const desde = mes.clone().startOf('month').subtract(7, 'days').format('YYYY-MM-DD');
+        const hasta = mes.clone().endOf('month').add(7, 'days').format('YYYY-MM-DD');
+        const todas: Cita[] = [];
+        let cursor = '';
+        // Paginación por cursor: cada página continúa tras la última cita de la anterior
+        do {
+          const res = await fetch(`http://localhost:8080/api/citas/admin?desde=${desde}&hasta=${hasta}&limite=500${cursor}`, {
+            headers: token ? { 'Authorization': `Bearer ${token}` } : {}
+          });
+          if (!res.ok) throw new Error('No se pudieron cargar las citas');
+          const pagina = await res.json();
+          todas.push(...pagina.citas);
+          cursor = pagina.hayMas ? `&despuesFecha=${pagina.despuesFecha}&despuesId=${pagina.despuesId}` : '';
+        } while (cursor && !cancelado);
+        if (!cancelado) setCitas(todas);
       } catch (err: any) {
-        setError(err.message || 'Error al cargar las citas');
+        if (!cancelado) setError(err.message || 'Error al cargar las citas');
       } finally {
-        setLoading(false);
+        if (!cancelado) setLoading(false);
       }
     };
     fetchCitas();
-  }, []);
+    return () => { cancelado = true; };
+  }, [mesVisible]);
 
   // Convertir citas al formato del calendario
   // Las citas canceladas ya están filtradas en el backend, pero mantenemos el filtro aquí como seguridad adicional
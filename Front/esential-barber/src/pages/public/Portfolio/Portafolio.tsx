@@ -6,7 +6,9 @@ import { FaPlus, FaTrash, FaTimes } from 'react-icons/fa'
 interface Foto {
   id: number;
   nombre: string;
-  imagenBase64: string;
+  url: string;
+  variantes: { nombre: string; ancho: number; url: string }[];
+  srcset: string | null;
   urlInstagram: string;
   fechaCreacion: string;
   activo: boolean;
@@ -234,7 +236,7 @@ const Portafolio: React.FC = () => {
               <div
                 key={foto.id}
                 className={`${styles.foto} ${foto.urlInstagram ? styles.fotoClickable : ''}`}
-                style={{backgroundImage: `url(${foto.imagenBase64})`}}
+                style={{backgroundImage: `url(http://localhost:8080${(foto.variantes.find(v => v.nombre === 'medium') ?? foto).url})`}}
                 onClick={() => handleFotoClick(foto.urlInstagram)}
                 role={foto.urlInstagram ? "button" : undefined}
                 tabIndex={foto.urlInstagram ? 0 : undefined}
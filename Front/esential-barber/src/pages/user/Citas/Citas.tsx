@@ -72,20 +72,27 @@ const Citas: React.FC<CitasProps> = () => {
   const [citaParaResenar, setCitaParaResenar] = useState<Cita | null>(null);
   const [guardandoResena, setGuardandoResena] = useState(false);
 
+  // Historial por páginas: cursor de la última cita cargada, o null si ya no hay más
+  const [siguientePagina, setSiguientePagina] = useState<string | null>(null);
+  const [cargandoMas, setCargandoMas] = useState(false);
+
+  const fetchPaginaCitas = async (cursor: string) => {
+    const token = localStorage.getItem('authToken');
+    const res = await fetch(`http://localhost:8080/api/citas/mis-citas?limite=20${cursor}`, {
+      headers: token ? { 'Authorization': `Bearer ${token}` } : {}
+    });
+    if (!res.ok) throw new Error('No se pudieron cargar tus citas');
+    const pagina = await res.json();
+    setSiguientePagina(pagina.hayMas ? `&antesFecha=${pagina.antesFecha}&antesId=${pagina.antesId}` : null);
+    return pagina.citas as Cita[];
+  };
+
   useEffect(() => {
     const fetchCitas = async () => {
       setLoading(true);
       setError('');
       try {
-        const token = localStorage.getItem('authToken');
-        const res = await fetch('http://localhost:8080/api/citas/mis-citas', {
-          headers: token ? { 'Authorization': `Bearer ${token}` } : {}
-        });
-        if (!res.ok) throw new Error('No se pudieron cargar tus citas');
-        const data = await res.json();
-        setCitas(data);
-        console.log('Citas cargadas:', data);
-        
+        setCitas(await fetchPaginaCitas(''));
       } catch (err: any) {
         setError(err.message || 'Error al cargar tus citas');
       } finally {
@@ -95,6 +102,19 @@ const Citas: React.FC<CitasProps> = () => {
     fetchCitas();
   }, []);
 
+  const handleCargarMas = async () => {
+    if (!siguientePagina) return;
+    setCargandoMas(true);
+    try {
+      const masCitas = await fetchPaginaCitas(siguientePagina);
+      setCitas(prev => [...prev, ...masCitas]);
+    } catch (err: any) {
+      setError(err.message || 'Error al cargar tus citas');
+    } finally {
+      setCargandoMas(false);
+    }
+  };
+
   // Verificar si el usuario es admin
   useEffect(() => {
     const checkAdminStatus = () => {
@@ -581,6 +601,11 @@ const Citas: React.FC<CitasProps> = () => {
                 );
               })}
             </ul>
+            {siguientePagina && (
+              <button className={styles.citaReservarBtn} onClick={handleCargarMas} disabled={cargandoMas}>
+                {cargandoMas ? 'Cargando...' : 'Ver citas anteriores'}
+              </button>
+            )}
             </>
           )}
         </div>